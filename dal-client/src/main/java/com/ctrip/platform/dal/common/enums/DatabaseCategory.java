@@ -3,6 +3,7 @@ package com.ctrip.platform.dal.common.enums;
 import java.sql.CallableStatement;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -205,6 +206,32 @@ public enum DatabaseCategory {
 		}
 	}
 
+	/**
+	 * @return max number of parameters in one statement. SQL Server allows at most 2100 parameters
+	 * for one request, some are left for the driver
+	 */
+	public int getMaxParameterCount() {
+		switch (this) {
+			case SqlServer:
+				return 2000;
+			default:
+				return 65535;
+		}
+	}
+
+	/**
+	 * @return default max bytes of one statement. For MySql it is the default max_allowed_packet
+	 * of 5.7 and later, use DalHints.maxPacketSize for servers with a different setting
+	 */
+	public int getMaxPacketSize() {
+		switch (this) {
+			case MySql:
+				return 4 * 1024 * 1024;
+			default:
+				return Integer.MAX_VALUE;
+		}
+	}
+
 	public abstract boolean isTimeOutException(ErrorContext ctx);
 
 	public abstract String quote(String fieldName);
@@ -218,7 +245,10 @@ public enum DatabaseCategory {
 	public abstract String buildPage(String selectSqlTemplate, int start, int count);
 
 	public void setObject(PreparedStatement statement, StatementParameter parameter) throws SQLException{
-		if(parameter.isDefaultType()){
+		if(parameter.isPrimitive()){
+			setPrimitive(statement, parameter);
+		}
+		else if(parameter.isDefaultType()){
 			statement.setObject(parameter.getIndex(), parameter.getValue());
 		}
 		else{
@@ -226,6 +256,28 @@ public enum DatabaseCategory {
 		}
 	}
 
+	/**
+	 * Bind value set without boxing. If the sql type is changed after the value is set, it is bound as object
+	 */
+	private void setPrimitive(PreparedStatement statement, StatementParameter parameter) throws SQLException{
+		switch (parameter.getSqlType()) {
+			case Types.INTEGER:
+				statement.setInt(parameter.getIndex(), (int)parameter.getLongValue());
+				break;
+			case Types.BIGINT:
+				statement.setLong(parameter.getIndex(), parameter.getLongValue());
+				break;
+			case Types.BIT:
+				statement.setBoolean(parameter.getIndex(), parameter.getLongValue() != 0);
+				break;
+			case Types.DOUBLE:
+				statement.setDouble(parameter.getIndex(), parameter.getDoubleValue());
+				break;
+			default:
+				statement.setObject(parameter.getIndex(), parameter.getValue(), parameter.getSqlType());
+		}
+	}
+
 	public void setObject(CallableStatement statement, StatementParameter parameter) throws SQLException{
 		if(parameter.getValue() == null) {
 			if(parameter.isDefaultType()){
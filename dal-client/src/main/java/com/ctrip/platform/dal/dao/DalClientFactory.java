@@ -81,7 +81,9 @@ public class DalClientFactory {
             LogEntry.init();
             DalRequestExecutor.init(
                     config.getFacory().getProperty(DalRequestExecutor.MAX_POOL_SIZE),
-                    config.getFacory().getProperty(DalRequestExecutor.KEEP_ALIVE_TIME));
+                    config.getFacory().getProperty(DalRequestExecutor.KEEP_ALIVE_TIME),
+                    config.getFacory().getProperty(DalRequestExecutor.EXECUTOR_MODE),
+                    config.getFacory().getProperty(DalRequestExecutor.MAX_SHARD_CONCURRENCY));
 
             DalStatusManager.initialize(config);
 
@@ -236,4 +236,41 @@ public enum DalHintEnum {
      * It request extractor or mapper to be HintsAwareExtractor or HintsAareMapper to do the required work
      */
     allowPartial,
+    
+	/**
+	 * Max milliseconds a request can take. It is counted from the time the request is started and
+	 * applies to all shard tasks of the request. Statements still running when the deadline is reached
+	 * will be cancelled.
+	 */
+	requestTimeout,
+	
+	/**
+	 * Read the result set row by row from DB instead of letting the driver buffer the whole result
+	 * in memory. It is designed for exporting large result with DalRowCallback.
+	 */
+	streamResult,
+	
+	/**
+	 * Pad the values of each IN parameter to power of two count by repeating the last value, so that
+	 * the number of distinct statements prepared for the same sql stays small.
+	 */
+	padInParameters,
+	
+	/**
+	 * For cross shard queryTop/queryFrom, each shard only returns its first start + count rows. It is only
+	 * correct if the sorter orders rows in the same way as the ORDER BY of the sql.
+	 */
+	pushDownRange,
+	
+	/**
+	 * Max bytes of one combined insert statement. Pojos exceeding it are split into chunks. The default
+	 * is DatabaseCategory.getMaxPacketSize, set it to max_allowed_packet if the server is different.
+	 */
+	maxPacketSize,
+	
+	/**
+	 * Execute the chunks of a split combined insert in parallel. Each chunk is committed separately,
+	 * so the insert is no longer atomic. It is ignored in transaction.
+	 */
+	parallelSplitInsert,
 }
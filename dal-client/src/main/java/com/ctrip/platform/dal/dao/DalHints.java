@@ -355,6 +355,61 @@ public class DalHints {
 		return this;
 	}
 
+	/**
+	 * Set the deadline of the whole request. For cross shard request, statements of the shards that
+	 * are not completed when the deadline is reached will be cancelled.
+	 * 
+	 * @param milliseconds max milliseconds the request can take
+	 */
+	public DalHints requestTimeout(int milliseconds) {
+		set(DalHintEnum.requestTimeout, milliseconds);
+		return this;
+	}
+
+	/**
+	 * Stream result set from DB. Together with DalRowCallback, rows of each shard are pushed to
+	 * the callback as soon as they are read, so the memory used does not grow with the result size.
+	 */
+	public DalHints streamResult() {
+		return set(DalHintEnum.streamResult);
+	}
+
+	/**
+	 * Pad the values of IN parameters to 1, 2, 4, 8... by repeating the last value. The result is the
+	 * same, while the statement can be reused for IN parameters of different counts in the same bucket.
+	 */
+	public DalHints padInParameters() {
+		return set(DalHintEnum.padInParameters);
+	}
+
+	/**
+	 * Page the sql of each shard to its first start + count rows for cross shard queryTop/queryFrom.
+	 * Only set it when the sorter orders rows in the same way as the ORDER BY of the sql, and the sql
+	 * ends with the ORDER BY clause without LIMIT, TOP, FETCH, FOR UPDATE or ';'.
+	 */
+	public DalHints pushDownRange() {
+		return set(DalHintEnum.pushDownRange);
+	}
+
+	/**
+	 * Set the max bytes of one combined insert statement, e.g. max_allowed_packet of the MySql server.
+	 * 
+	 * @param bytes max bytes of the statement
+	 */
+	public DalHints maxPacketSize(int bytes) {
+		set(DalHintEnum.maxPacketSize, bytes);
+		return this;
+	}
+
+	/**
+	 * Execute the chunks of a combined insert exceeding the size limit in parallel on different
+	 * connections. Each chunk is committed separately: if one of them fails, the others already
+	 * committed are not rolled back. Without it, the chunks are executed one by one in one transaction.
+	 */
+	public DalHints parallelSplitInsert() {
+		return set(DalHintEnum.parallelSplitInsert);
+	}
+
 	public DalHints enableIdentityInsert() {
 		set(DalHintEnum.enableIdentityInsert);
 		return this;
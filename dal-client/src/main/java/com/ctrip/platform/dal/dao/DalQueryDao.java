@@ -4,11 +4,9 @@ import static com.ctrip.platform.dal.dao.helper.EntityManager.getMapper;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Comparator;
 import java.util.List;
 
 import com.ctrip.platform.dal.common.enums.DatabaseCategory;
-import com.ctrip.platform.dal.dao.helper.DalRangedResultMerger;
 import com.ctrip.platform.dal.dao.helper.DalRowCallbackExtractor;
 import com.ctrip.platform.dal.dao.helper.DalRowMapperExtractor;
 import com.ctrip.platform.dal.dao.sqlbuilder.FreeSelectSqlBuilder;
@@ -19,6 +17,9 @@ import com.ctrip.platform.dal.dao.task.DalSqlTaskRequest;
 import com.ctrip.platform.dal.dao.task.FreeSqlUpdateTask;
 import com.ctrip.platform.dal.dao.task.MultipleQueryTask;
 import com.ctrip.platform.dal.dao.task.QuerySqlTask;
+import com.ctrip.platform.dal.dao.task.StreamQuerySqlTask;
+import com.ctrip.platform.dal.exceptions.DalException;
+import com.ctrip.platform.dal.exceptions.ErrorCode;
 
 /**
  * DAO class that provides multiple common query functions and simple update function.
@@ -84,6 +85,11 @@ public final class DalQueryDao {
 	/**
 	 * Execute query by the given sql with parameters. The result will be processed by the given callback.
 	 * 
+	 * For cross shard query, rows of each shard are pushed to the callback in the shard's thread as they
+	 * are read, so the callback MUST be thread safe. Reading of a shard waits while the callback is processing
+	 * its row. Use DalHints.streamResult() to stop the driver from buffering the whole result set, the memory
+	 * used will then be bounded by the number of shards instead of the result size.
+	 * 
 	 * @param sql The sql statement to be executed
 	 * @param parameters A container that holds all the necessary parameters
 	 * @param hints Additional parameters that instruct how DAL Client perform database operation.
@@ -95,6 +101,49 @@ public final class DalQueryDao {
 		query(new FreeSelectSqlBuilder<>(dbCategory).setTemplate(sql).extractorWith(new DalRowCallbackExtractor(callback)).nullable(), parameters, hints);
 	}
 	
+	/**
+	 * Execute query by the given sql with parameters. The rows are read and converted by the given mapper only
+	 * when they are iterated, so that very large result can be processed in constant memory. The statement is
+	 * created with DalHints.streamResult(), and the connection is held until the returned iterator is closed.
+	 * Please close it by try-with-resources.
+	 * 
+	 * The query can only be executed in single shard and in the caller's thread.
+	 * 
+	 * @param sql The sql statement to be executed
+	 * @param parameters A container that holds all the necessary parameters
+	 * @param hints Additional parameters that instruct how DAL Client perform database operation.
+	 * @param mapper Helper that converters each row to entity. 
+	 * @return iterator of entities that represent the query result.
+	 * @throws SQLException when things going wrong during the execution
+	 */
+	public <T> DalResultIterator<T> stream(String sql, StatementParameters parameters, DalHints hints, DalRowMapper<T> mapper) 
+			throws SQLException {
+		DalSqlTaskRequest<DalResultIterator<T>> request = new DalSqlTaskRequest<>(
+				logicDbName, new FreeSelectSqlBuilder<DalResultIterator<T>>(dbCategory).setTemplate(sql).with(parameters), hints,
+				new StreamQuerySqlTask<>(mapper), null);
+
+		if(hints.isAsyncExecution() || request.isCrossShard())
+			throw new DalException(ErrorCode.NotSupported);
+
+		return executor.execute(hints, request);
+	}
+
+	/**
+	 * Execute query by the given sql with parameters. The result will be the iterator of instance of the given clazz.
+	 * 
+	 * @param sql The sql statement to be executed
+	 * @param parameters A container that holds all the necessary parameters
+	 * @param hints Additional parameters that instruct how DAL Client perform database operation.
+	 * @param clazz The return type 
+	 * @return iterator of instance of clazz that represent the query result.
+	 * @throws SQLException when things going wrong during the execution
+	 * @see #stream(String, StatementParameters, DalHints, DalRowMapper)
+	 */
+	public <T> DalResultIterator<T> stream(String sql, StatementParameters parameters, DalHints hints, Class<T> clazz) 
+			throws SQLException {
+		return stream(sql, parameters, hints, getMapper(clazz));
+	}
+
 	/**
 	 * Execute query by the given sqls with parameters. The result will be wrapped into type defined by the given extractors.
 	 * 
@@ -123,13 +172,51 @@ public final class DalQueryDao {
 	 * @throws SQLException
 	 */
 	public <T> T query(FreeSelectSqlBuilder<T> builder, StatementParameters parameters, DalHints hints) throws SQLException {
-		ResultMerger<T> merger = builder.getResultMerger(hints);
-		DalResultSetExtractor<T> extractor = builder.getResultExtractor(hints);
-		
-		DalSqlTaskRequest<T> request = new DalSqlTaskRequest<>(
-				logicDbName, builder.with(parameters), hints, new QuerySqlTask<>(extractor), merger);
-		
-		return executor.execute(hints, request, builder.isNullable());
+		return executor.execute(hints, createQueryRequest(builder, parameters, hints), builder.isNullable());
+	}
+	
+	/**
+	 * Asynchronously execute query by the given sql with parameters. The result will be wrapped into type defined by the given mapper.
+	 * 
+	 * @param sql The sql statement to be executed
+	 * @param parameters A container that holds all the necessary parameters
+	 * @param hints Additional parameters that instruct how DAL Client perform database operation.
+	 * @param mapper Helper that converters each row to entity. 
+	 * @return future of the list of entities that represent the query result.
+	 * @throws SQLException if the request can not be created
+	 */
+	public <T> DalResultFuture<List<T>> queryAsync(String sql, StatementParameters parameters, DalHints hints, DalRowMapper<T> mapper) 
+			throws SQLException {
+		return queryAsync(new FreeSelectSqlBuilder<List<T>>(dbCategory).setTemplate(sql).mapWith(mapper), parameters, hints);
+	}
+
+	/**
+	 * Asynchronously execute query by the given sql with parameters. The result will be the list of instance of the given clazz.
+	 * 
+	 * @param sql The sql statement to be executed
+	 * @param parameters A container that holds all the necessary parameters
+	 * @param hints Additional parameters that instruct how DAL Client perform database operation.
+	 * @param clazz The return type 
+	 * @return future of the list of instance of clazz that represent the query result.
+	 * @throws SQLException if the request can not be created
+	 */
+	public <T> DalResultFuture<List<T>> queryAsync(String sql, StatementParameters parameters, DalHints hints, Class<T> clazz) 
+			throws SQLException {
+		return queryAsync(new FreeSelectSqlBuilder<List<T>>(dbCategory).setTemplate(sql).mapWith(getMapper(clazz)), parameters, hints);
+	}
+
+	/**
+	 * Asynchronously select with FreeSelectSqlBuilder. The returned future will be completed when
+	 * the query is done in all the involved shards.
+	 * 
+	 * @param builder
+	 * @param parameters
+	 * @param hints
+	 * @return future of result defined by the type specified when constructing builder
+	 * @throws SQLException if the request can not be created
+	 */
+	public <T> DalResultFuture<T> queryAsync(FreeSelectSqlBuilder<T> builder, StatementParameters parameters, DalHints hints) throws SQLException {
+		return executor.executeAsync(hints, createQueryRequest(builder, parameters, hints), builder.isNullable());
 	}
 	
 	/**
@@ -324,7 +411,8 @@ public final class DalQueryDao {
 	/**
 	 * Execute query and return partial result against the given start and count.
 	 * If the query is executed under cross shard mode(all shards, or in some shards), 
-	 * the result will be ranged after result from all shard is collected and sorted.
+	 * the result will be ranged while merging the sorted result from all shard. With pushDownRange
+	 * hint, each shard only returns the first start + count rows.
 	 * For non-corss shard case, just do the range when walk through result set.
 	 *  
 	 * @param sql The sql statement to be executed
@@ -361,6 +449,14 @@ public final class DalQueryDao {
 		return value;
 	}
 	
+	private <T> DalSqlTaskRequest<T> createQueryRequest(FreeSelectSqlBuilder<T> builder, StatementParameters parameters, DalHints hints) throws SQLException {
+		ResultMerger<T> merger = builder.getResultMerger(hints);
+		DalResultSetExtractor<T> extractor = builder.getResultExtractor(hints);
+		
+		return new DalSqlTaskRequest<>(
+				logicDbName, builder.with(parameters), hints, new QuerySqlTask<>(extractor), merger);
+	}
+	
 	private <T> T queryForObject(String sql, StatementParameters parameters, DalHints hints, DalRowMapper<T> mapper, boolean nullable) 
 			throws SQLException {
 		return query(new FreeSelectSqlBuilder<T>(dbCategory).setTemplate(sql).mapWith(mapper).requireSingle().setNullable(nullable), parameters, hints);
@@ -376,12 +472,11 @@ public final class DalQueryDao {
 		FreeSelectSqlBuilder<List<T>> builder = new FreeSelectSqlBuilder<List<T>>(dbCategory).setTemplate(sql).mapWith(mapper);
 		
 		if(hints.isAllShards() || hints.isInShards()) {
-			builder.mergerWith(new DalRangedResultMerger<>((Comparator<T>)hints.getSorter(), start, count));
-			builder.extractorWith(new DalRowMapperExtractor<T>(mapper));
+			builder.rangeInShards(hints, start, count);
 		} else {
 			builder.extractorWith(new DalRowMapperExtractor<T>(mapper, start, count));
 		}
 
 		return query(builder, parameters, hints);
-	}	
+	}
 }
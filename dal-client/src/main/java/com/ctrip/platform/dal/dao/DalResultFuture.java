@@ -0,0 +1,141 @@
+package com.ctrip.platform.dal.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Future of an asynchronous DAL request. It is completed by DalRequestExecutor when the request
+ * is done, so there is no thread parked for waiting the result unless get() is called.
+ *
+ * Callbacks registered by whenComplete will be invoked once the result is ready. If the future is
+ * already completed, the callback is invoked immediately in the caller's thread. Otherwise it will
+ * be invoked in the thread that completes the future. This allows caller to compose multiple DAO
+ * calls without blocking.
+ */
+public class DalResultFuture<T> implements Future<T> {
+	private static Logger logger = LoggerFactory.getLogger(Version.getLoggerName());
+
+	private final CountDownLatch done = new CountDownLatch(1);
+	private List<DalResultCallback> callbacks = new ArrayList<>();
+	private volatile boolean completed;
+	private volatile boolean cancelled;
+	private volatile T result;
+	private volatile Throwable error;
+
+	/**
+	 * For internal use. Complete the future with given result
+	 * @return false if the future is already completed
+	 */
+	public boolean complete(T result) {
+		return finish(result, null, false);
+	}
+
+	/**
+	 * For internal use. Complete the future with given error
+	 * @return false if the future is already completed
+	 */
+	public boolean completeExceptionally(Throwable error) {
+		return finish(null, error, false);
+	}
+
+	/**
+	 * Register callback to be notified when the future is completed.
+	 * @return this future
+	 */
+	public DalResultFuture<T> whenComplete(DalResultCallback callback) {
+		synchronized (this) {
+			if(!completed) {
+				callbacks.add(callback);
+				return this;
+			}
+		}
+
+		invoke(callback);
+		return this;
+	}
+
+	/**
+	 * Cancel the future. The result of underlying request will be discarded,
+	 * but the request itself may still complete.
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return finish(null, new CancellationException(), true);
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	@Override
+	public boolean isDone() {
+		return completed;
+	}
+
+	@Override
+	public T get() throws InterruptedException, ExecutionException {
+		done.await();
+		return report();
+	}
+
+	@Override
+	public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		if(!done.await(timeout, unit))
+			throw new TimeoutException();
+		return report();
+	}
+
+	private boolean finish(T result, Throwable error, boolean cancel) {
+		List<DalResultCallback> toNotify;
+		synchronized (this) {
+			if(completed)
+				return false;
+
+			this.result = result;
+			this.error = error;
+			this.cancelled = cancel;
+			this.completed = true;
+			toNotify = callbacks;
+			callbacks = null;
+		}
+
+		done.countDown();
+
+		for(DalResultCallback callback: toNotify) {
+			try {
+				invoke(callback);
+			} catch (Throwable e) {
+				logger.error("Error when notify result callback", e);
+			}
+		}
+
+		return true;
+	}
+
+	private void invoke(DalResultCallback callback) {
+		if(error == null)
+			callback.onResult(result);
+		else
+			callback.onError(error);
+	}
+
+	private T report() throws ExecutionException {
+		if(cancelled)
+			throw (CancellationException)error;
+
+		if(error != null)
+			throw new ExecutionException(error);
+
+		return result;
+	}
+}
@@ -0,0 +1,25 @@
+package com.ctrip.platform.dal.dao;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * Lazy iterator over the rows of a query. Each row is read from the open result set and mapped
+ * when next() is called, so the memory used does not grow with the result size.
+ *
+ * The result set, statement and connection are held until the iterator is closed. It is closed
+ * automatically when the last row is read or reading fails, but caller should always close it,
+ * preferably by try-with-resources. Error happens during reading is thrown as RuntimeException
+ * with the SQLException as its cause, there is no retry once rows start flowing.
+ *
+ * @see DalQueryDao#stream(String, StatementParameters, DalHints, DalRowMapper)
+ * @see DalTableDao#stream(String, StatementParameters, DalHints)
+ */
+public interface DalResultIterator<T> extends Iterator<T>, AutoCloseable {
+	/**
+	 * Close the result set and statement, and release the connection if it is not in transaction.
+	 * Calling close more than once has no effect.
+	 */
+	@Override
+	void close() throws SQLException;
+}
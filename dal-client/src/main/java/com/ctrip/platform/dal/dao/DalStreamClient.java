@@ -0,0 +1,24 @@
+package com.ctrip.platform.dal.dao;
+
+import java.sql.SQLException;
+
+/**
+ * DalClient that can stream the query result. It is not part of DalClient so that the existing
+ * DalClient implementations are not broken. For client that does not implement it, the result
+ * is read into memory first and then iterated.
+ */
+public interface DalStreamClient {
+	/**
+	 * Query against the given sql and parameters. The rows are mapped lazily when they are read
+	 * from the returned iterator. The result set and connection are held until the iterator is closed.
+	 * 
+	 * @param sql The sql statement to be executed
+	 * @param parameters A container that holds all the necessary parameters
+	 * @param hints Additional parameters that instruct how DAL Client perform database operation.
+	 * @param mapper helper used to convert each row to desired type
+	 * @return iterator over the mapped rows, it must be closed by the caller
+	 * @throws SQLException when things going wrong during the execution
+	 */
+	<T> DalResultIterator<T> stream(String sql, StatementParameters parameters, DalHints hints,
+			DalRowMapper<T> mapper) throws SQLException;
+}
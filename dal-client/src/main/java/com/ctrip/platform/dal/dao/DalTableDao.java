@@ -6,7 +6,7 @@ import java.util.Map;
 
 import com.ctrip.platform.dal.common.enums.DatabaseCategory;
 import com.ctrip.platform.dal.dao.client.DalWatcher;
-import com.ctrip.platform.dal.dao.helper.DalDefaultJpaParser;
+import com.ctrip.platform.dal.dao.helper.DalParserFactory;
 import com.ctrip.platform.dal.dao.sqlbuilder.BaseTableSelectBuilder;
 import com.ctrip.platform.dal.dao.sqlbuilder.DeleteSqlBuilder;
 import com.ctrip.platform.dal.dao.sqlbuilder.FreeUpdateSqlBuilder;
@@ -24,6 +24,7 @@ import com.ctrip.platform.dal.dao.task.DalTaskFactory;
 import com.ctrip.platform.dal.dao.task.DeleteSqlTask;
 import com.ctrip.platform.dal.dao.task.QuerySqlTask;
 import com.ctrip.platform.dal.dao.task.SingleTask;
+import com.ctrip.platform.dal.dao.task.StreamQuerySqlTask;
 import com.ctrip.platform.dal.dao.task.TaskAdapter;
 import com.ctrip.platform.dal.dao.task.UpdateSqlTask;
 import com.ctrip.platform.dal.exceptions.DalException;
@@ -59,15 +60,15 @@ public final class DalTableDao<T> extends TaskAdapter<T> {
 	}
 	
 	public DalTableDao(Class<T> entityType) throws SQLException {
-		this(new DalDefaultJpaParser<>(entityType));
+		this(DalParserFactory.create(entityType));
 	}
 	
 	public DalTableDao(Class<T> entityType, String dataBaseName) throws SQLException {
-		this(new DalDefaultJpaParser<>(entityType, dataBaseName));
+		this(DalParserFactory.create(entityType, dataBaseName));
 	}
 	
 	public DalTableDao(Class<T> entityType, String dataBaseName, String tableName) throws SQLException {
-		this(new DalDefaultJpaParser<>(entityType, dataBaseName, tableName));
+		this(DalParserFactory.create(entityType, dataBaseName, tableName));
 	}
 	
 	public DalTableDao(DalParser<T> parser, DalTaskFactory factory) {
@@ -301,12 +302,67 @@ public final class DalTableDao<T> extends TaskAdapter<T> {
 		return query(new BaseTableSelectBuilder().where(whereClause).with(parameters).range(start, count), hints);
 	}
 
+	/**
+	 * Query by the given where clause and parameters. The pojos are read and mapped only when they are
+	 * iterated, so that very large table can be processed in constant memory. The connection is held until
+	 * the returned iterator is closed. Please close it by try-with-resources.
+	 * 
+	 * The query can only be executed in single shard and in the caller's thread.
+	 * 
+	 * @param whereClause the where section for the search statement.
+	 * @param parameters A container that holds all the necessary parameters 
+	 * @param hints Additional parameters that instruct how DAL Client perform database operation.
+	 * @return iterator of the pojos that meet the search criteria
+	 * @throws SQLException
+	 */
+	public DalResultIterator<T> stream(String whereClause, StatementParameters parameters, DalHints hints) throws SQLException {
+		DalWatcher.begin();
+		DalSqlTaskRequest<DalResultIterator<T>> request = new DalSqlTaskRequest<>(
+				logicDbName, populate(new BaseTableSelectBuilder().where(whereClause).with(parameters)), hints,
+				new StreamQuerySqlTask<>(parser), null);
+
+		if(hints.isAsyncExecution() || request.isCrossShard())
+			throw new DalException(ErrorCode.NotSupported);
+
+		return executor.execute(hints, request);
+	}
+
+	/**
+	 * Asynchronously query by the given where clause and parameters.
+	 * 
+	 * @param whereClause the where section for the search statement.
+	 * @param parameters A container that holds all the necessary parameters 
+	 * @param hints Additional parameters that instruct how DAL Client perform database operation.
+	 * @return future of the pojos that meet the search criteria
+	 * @throws SQLException if the request can not be created
+	 */
+	public DalResultFuture<List<T>> queryAsync(String whereClause, StatementParameters parameters,
+			DalHints hints) throws SQLException {
+		return queryAsync(new BaseTableSelectBuilder(rawTableName, dbCategory).where(whereClause).with(parameters), hints);
+	}
+
+	/**
+	 * Asynchronously query by the given select builder.
+	 * 
+	 * @param selectBuilder select builder which represents the query criteria
+	 * @param hints Additional parameters that instruct how DAL Client perform database operation.
+	 * @return future of the pojos that meet the search criteria
+	 * @throws SQLException if the request can not be created
+	 */
+	public DalResultFuture<List<T>> queryAsync(TableSelectBuilder selectBuilder, DalHints hints) throws SQLException {
+		DalWatcher.begin();
+		TableSelectBuilder builder = (TableSelectBuilder)selectBuilder.mapWith(parser).nullable();
+		return executor.executeAsync(hints, this.<List<T>>createQueryRequest(builder, hints), builder.isNullable());
+	}
+
 	private <K> K commonQuery(TableSelectBuilder builder, DalHints hints) throws SQLException {
-		DalSqlTaskRequest<K> request = new DalSqlTaskRequest<K>(
+		return executor.execute(hints, this.<K>createQueryRequest(builder, hints), builder.isNullable());
+	}
+
+	private <K> DalSqlTaskRequest<K> createQueryRequest(TableSelectBuilder builder, DalHints hints) throws SQLException {
+		return new DalSqlTaskRequest<K>(
 				logicDbName, populate(builder), hints, 
 				new QuerySqlTask<>((DalResultSetExtractor<K>)builder.getResultExtractor(hints)), (ResultMerger<K>)builder.getResultMerger(hints));
-		
-		return executor.execute(hints, request, builder.isNullable());
 	}
 	
 	/**
@@ -432,6 +488,43 @@ public final class DalTableDao<T> extends TaskAdapter<T> {
 	public int[] batchInsert(DalHints hints, List<T> daoPojos) throws SQLException {
 		return executor.execute(hints, new DalBulkTaskRequest<>(logicDbName, rawTableName, hints, daoPojos, batchInsertTask));
 	}
+
+	/**
+	 * Asynchronously insert pojo and get the generated PK back in keyHolder.
+	 * The keyHolder is populated before the returned future is completed.
+	 * 
+	 * @param hints Additional parameters that instruct how DAL Client perform database operation.
+	 * @param keyHolder holder for generated primary keys
+	 * @param daoPojo pojo to be inserted
+	 * @return future of how many rows been affected
+	 */
+	public DalResultFuture<Integer> insertAsync(DalHints hints, KeyHolder keyHolder, T daoPojo) {
+		return firstCount(executor.executeAsync(setSize(hints, keyHolder, daoPojo), new DalSingleTaskRequest<>(logicDbName, hints, daoPojo, singleInsertTask), false));
+	}
+
+	/**
+	 * Asynchronously insert pojos one by one and get the generated PK back in keyHolder.
+	 * The keyHolder is populated before the returned future is completed.
+	 * 
+	 * @param hints Additional parameters that instruct how DAL Client perform database operation.
+	 * @param keyHolder holder for generated primary keys
+	 * @param daoPojos list of pojos to be inserted
+	 * @return future of how many rows been affected for inserting each of the pojo
+	 */
+	public DalResultFuture<int[]> insertAsync(DalHints hints, KeyHolder keyHolder, List<T> daoPojos) {
+		return executor.executeAsync(setSize(hints, keyHolder, daoPojos), new DalSingleTaskRequest<>(logicDbName, hints, daoPojos, singleInsertTask), false);
+	}
+
+	/**
+	 * Asynchronously insert pojos in batch mode.
+	 * 
+	 * @param hints Additional parameters that instruct how DAL Client perform database operation.
+	 * @param daoPojos list of pojos to be inserted
+	 * @return future of how many rows been affected for inserting each of the pojo
+	 */
+	public DalResultFuture<int[]> batchInsertAsync(DalHints hints, List<T> daoPojos) {
+		return executor.executeAsync(hints, new DalBulkTaskRequest<>(logicDbName, rawTableName, hints, daoPojos, batchInsertTask), false);
+	}
 	
 	/**
 	 * Insert with InsertSqlBuilder.
@@ -593,6 +686,22 @@ public final class DalTableDao<T> extends TaskAdapter<T> {
 		return counts[0];
 	}
 	
+	private DalResultFuture<Integer> firstCount(DalResultFuture<int[]> countsFuture) {
+		final DalResultFuture<Integer> future = new DalResultFuture<>();
+		countsFuture.whenComplete(new DalResultCallback() {
+			@Override
+			public <K> void onResult(K result) {
+				future.complete(getSafeResult((int[])result));
+			}
+
+			@Override
+			public void onError(Throwable e) {
+				future.completeExceptionally(e);
+			}
+		});
+		return future;
+	}
+
 	private DalHints setSize(DalHints hints, KeyHolder keyHolder, List<T> pojos) {
 		if(keyHolder != null && pojos != null)
 			keyHolder.setSize(pojos.size());
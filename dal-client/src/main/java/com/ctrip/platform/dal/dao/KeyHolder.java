@@ -6,6 +6,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.ctrip.platform.dal.exceptions.DalException;
@@ -19,6 +21,7 @@ public class KeyHolder {
 	private final List<Map<String, Object>> keyList = new LinkedList<Map<String, Object>>();
 	
 	private AtomicBoolean merged = new AtomicBoolean(false);
+	private final CountDownLatch mergeLatch = new CountDownLatch(1);
 
 	/**
 	 * Indicate that merge is needed for cross shard case
@@ -50,14 +53,14 @@ public class KeyHolder {
 	}
 	
 	public void waitForMerge() throws InterruptedException {
-		while(isMerged() == false)
-			Thread.sleep(1);
+		mergeLatch.await();
 	}
 	
+	/**
+	 * @param timeout max milliseconds to wait
+	 */
 	public void waitForMerge(int timeout) throws InterruptedException {
-		int i = 0;
-		while(isMerged() == false && timeout > i++)
-			Thread.sleep(1);
+		mergeLatch.await(timeout, TimeUnit.MILLISECONDS);
 	}
 	
 	/**
@@ -169,5 +172,6 @@ public class KeyHolder {
 			keyList.add(allKeys.get(i));
 		
 		merged.set(true);
+		mergeLatch.countDown();
 	}
 }
@@ -1,5 +1,6 @@
 package com.ctrip.platform.dal.dao;
 
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,8 +27,16 @@ public class StatementParameter implements Comparable<StatementParameter> {
 	private Object value;
 	private boolean inParam;
 	
+	// Value set without boxing, the sql type tells which one is used
+	private boolean primitive;
+	private long longValue;
+	private double doubleValue;
+	
 	private boolean resultsParameter;
 	private DalResultSetExtractor<?> resultSetExtractor;
+	
+	// The parameters that created this for reuse, it is not copied
+	StatementParameters owner;
 
 	public StatementParameter() {}
 	
@@ -44,6 +53,10 @@ public class StatementParameter implements Comparable<StatementParameter> {
 		this.resultsParameter = template.resultsParameter;
 		this.resultSetExtractor = template.resultSetExtractor;
 		
+		this.primitive = template.primitive;
+		this.longValue = template.longValue;
+		this.doubleValue = template.doubleValue;
+		
 		handleValue(template);
 	}
 	
@@ -131,9 +144,39 @@ public class StatementParameter implements Comparable<StatementParameter> {
 	}
 
 	public <T> T getValue() {
+		if(primitive && value == null)
+			value = box();
 		return (T)value;
 	}
 	
+	private Object box() {
+		switch (sqlType) {
+			case Types.INTEGER:
+				return (int)longValue;
+			case Types.BIT:
+				return longValue != 0;
+			case Types.DOUBLE:
+				return doubleValue;
+			default:
+				return longValue;
+		}
+	}
+	
+	/**
+	 * @return true if the value is set by setLongValue or setDoubleValue and is not changed by setValue
+	 */
+	public boolean isPrimitive() {
+		return primitive;
+	}
+	
+	public long getLongValue() {
+		return longValue;
+	}
+	
+	public double getDoubleValue() {
+		return doubleValue;
+	}
+	
 	public boolean isInParam() {
 		return inParam;
 	}
@@ -159,6 +202,11 @@ public class StatementParameter implements Comparable<StatementParameter> {
 	}
 	
 	public StatementParameter setSqlType(int sqlType) {
+		// The primitive value is bound by its own sql type, box it for other type
+		if(primitive && this.sqlType != sqlType) {
+			value = box();
+			primitive = false;
+		}
 		this.sqlType = sqlType;
 		return this;
 	}
@@ -190,6 +238,29 @@ public class StatementParameter implements Comparable<StatementParameter> {
 
 	public StatementParameter setValue(Object value) {
 		this.value = value;
+		this.primitive = false;
+		return this;
+	}
+	
+	/**
+	 * Set value of INTEGER, BIGINT or BIT(0 or 1) sql type without boxing
+	 */
+	public StatementParameter setLongValue(int sqlType, long value) {
+		this.sqlType = sqlType;
+		this.longValue = value;
+		this.value = null;
+		this.primitive = true;
+		return this;
+	}
+	
+	/**
+	 * Set value of DOUBLE sql type without boxing
+	 */
+	public StatementParameter setDoubleValue(double value) {
+		this.sqlType = Types.DOUBLE;
+		this.doubleValue = value;
+		this.value = null;
+		this.primitive = true;
 		return this;
 	}
 	
@@ -213,6 +284,28 @@ public class StatementParameter implements Comparable<StatementParameter> {
 		return this;
 	}
 
+	/**
+	 * Restore to the state of a new input parameter, so that it can be reused
+	 */
+	StatementParameter reset() {
+		defaultType = false;
+		dbType = null;
+		sqlType = 0;
+		direction = ParameterDirection.Input;
+		nullable = false;
+		name = null;
+		index = 0;
+		sensitive = false;
+		value = null;
+		inParam = false;
+		primitive = false;
+		longValue = 0;
+		doubleValue = 0;
+		resultsParameter = false;
+		resultSetExtractor = null;
+		return this;
+	}
+
 	@Override
 	public int compareTo(StatementParameter o) {
 		return this.index - o.index;
@@ -1,43 +1,133 @@
 package com.ctrip.platform.dal.dao;
 
+import java.sql.Types;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 import com.ctrip.platform.dal.common.enums.ParameterDirection;
+import com.ctrip.platform.dal.dao.task.SQLCompiler;
 
+/**
+ * Parameters are kept in an array in the order they are added, so that get by position is constant time.
+ * 
+ * For batch building, the same instance can be reset and filled again once the previous execution is done.
+ * Parameters created by the set methods of this instance are reused by the set methods after reset. So
+ * StatementParameter got from it before reset must not be held. Parameters added by add are not reused.
+ */
 public class StatementParameters {
 	private static final String SQLHIDDENString = "*";
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final StatementParameter[] EMPTY = new StatementParameter[0];
 	
-	private List<StatementParameter> parameters = new LinkedList<StatementParameter>();
+	private StatementParameter[] parameters;
+	private int size;
+	
+	// Slots from size to spare hold parameters for reuse
+	private int spare;
+	private List<StatementParameter> values;
+
+	public StatementParameters() {
+		parameters = EMPTY;
+	}
+	
+	/**
+	 * @param capacity expected number of parameters
+	 */
+	public StatementParameters(int capacity) {
+		parameters = new StatementParameter[capacity];
+	}
 
 	public StatementParameters add(StatementParameter parameter) {
-		parameters.add(parameter);
+		ensureCapacity(size + 1);
+		parameters[size++] = parameter;
 		return this;
 	}
 	
+	/**
+	 * @return a reused or new parameter appended to the end
+	 */
+	private StatementParameter next() {
+		ensureCapacity(size + 1);
+		StatementParameter parameter = size < spare ? parameters[size] : null;
+		if(parameter == null) {
+			parameter = new StatementParameter().reset();
+			parameter.owner = this;
+		} else {
+			parameter.reset();
+		}
+		
+		parameters[size++] = parameter;
+		return parameter;
+	}
+	
+	private void ensureCapacity(int capacity) {
+		if(capacity <= parameters.length)
+			return;
+		
+		int newCapacity = Math.max(Math.max(parameters.length * 2, DEFAULT_CAPACITY), capacity);
+		parameters = Arrays.copyOf(parameters, newCapacity);
+	}
+	
 	public StatementParameters addAll(StatementParameters extraParameters) {
-		int index = parameters.size() + 1;
+		int index = size + 1;
 		for(StatementParameter p: extraParameters.values())
 			add(p.setIndex(index++));		
 		return this;
 	}
 	
 	public StatementParameters set(int index, Object value) {
-		return add(new StatementParameter(index, value));
+		next().setIndex(index).setDefaultType(true).setValue(value);
+		return this;
 	}
 	
 	public StatementParameters set(int index, int sqlType, Object value) {
-		return add(new StatementParameter(index, sqlType, value));
+		next().setIndex(index).setSqlType(sqlType).setValue(value);
+		return this;
 	}
 
 	public StatementParameters set(int index, String name, int sqlType, Object value) {
-		return add(new StatementParameter(index, sqlType, value).setName(name));
+		next().setIndex(index).setSqlType(sqlType).setValue(value).setName(name);
+		return this;
 	}
 
 	public StatementParameters set(String name, int sqlType, Object value) {
-		return add(new StatementParameter(name, sqlType, value));
+		next().setIndex(-1).setName(name).setSqlType(sqlType).setValue(value);
+		return this;
+	}
+	
+	/**
+	 * Set INTEGER value without boxing
+	 */
+	public StatementParameters setInt(int index, int value) {
+		next().setIndex(index).setLongValue(Types.INTEGER, value);
+		return this;
+	}
+	
+	/**
+	 * Set BIGINT value without boxing
+	 */
+	public StatementParameters setLong(int index, long value) {
+		next().setIndex(index).setLongValue(Types.BIGINT, value);
+		return this;
+	}
+	
+	/**
+	 * Set BIT value without boxing
+	 */
+	public StatementParameters setBoolean(int index, boolean value) {
+		next().setIndex(index).setLongValue(Types.BIT, value ? 1 : 0);
+		return this;
+	}
+	
+	/**
+	 * Set DOUBLE value without boxing
+	 */
+	public StatementParameters setDouble(int index, double value) {
+		next().setIndex(index).setDoubleValue(value);
+		return this;
 	}
 
 	public StatementParameters registerInOut(String name, int sqlType, Object value) {
@@ -57,15 +147,18 @@ public class StatementParameters {
 	}
 	
 	public StatementParameters setSensitive(int index, int sqlType, Object value) {
-		return add(new StatementParameter(index, sqlType, value).setSensitive(true));
+		next().setIndex(index).setSqlType(sqlType).setValue(value).setSensitive(true);
+		return this;
 	}
 
 	public StatementParameters setSensitive(int index, String name, int sqlType, Object value) {
-		return add(new StatementParameter(index, sqlType, value).setSensitive(true).setName(name));
+		next().setIndex(index).setSqlType(sqlType).setValue(value).setSensitive(true).setName(name);
+		return this;
 	}
 	
 	public StatementParameters setSensitive(String name, int sqlType, Object value) {
-		return add(new StatementParameter(name, sqlType, value).setSensitive(true));
+		next().setIndex(-1).setName(name).setSqlType(sqlType).setValue(value).setSensitive(true);
+		return this;
 	}
 
 	public StatementParameters registerInOutSensitive(String name, int sqlType, Object value) {
@@ -105,46 +198,73 @@ public class StatementParameters {
 		return setInParameter(index, name, sqlType, values, true);
 	}
 	
+	/**
+	 * Remove all parameters and keep those created by this for reuse. It must not be called
+	 * before the execution using the parameters is done.
+	 */
+	public StatementParameters reset() {
+		int reusable = 0;
+		for(int i = 0; i < size; i++) {
+			StatementParameter parameter = parameters[i];
+			parameters[i] = null;
+			if(parameter.owner == this)
+				parameters[reusable++] = parameter;
+		}
+		
+		size = 0;
+		spare = reusable;
+		return this;
+	}
+	
 	public int size() {
-		return parameters.size();
+		return size;
 	}
 	
 	public StatementParameter get(int i) {
-		return parameters.get(i);
+		if(i >= size)
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		return parameters[i];
 	}
 	
 	public StatementParameter get(String name, ParameterDirection direction) {
 		if(name == null)
 			return null;
 		
-		for(StatementParameter parameter: parameters) {
+		for(int i = 0; i < size; i++) {
+			StatementParameter parameter = parameters[i];
 			if(parameter.getName() != null && parameter.getName().equalsIgnoreCase(name) && direction == parameter.getDirection())
 				return parameter;
 		}
 		return null;
 	}
 
+	/**
+	 * @return a live view of the parameters
+	 */
 	public List<StatementParameter> values() {
-		return parameters;
+		if(values == null)
+			values = new ParameterList();
+		return values;
 	}
 	
 	public String toLogString() {
 		StringBuilder valuesSb = new StringBuilder();
-		int i = 0;
-		for (StatementParameter param : this.values()) {
+		for (int i = 0; i < size; i++) {
+			StatementParameter param = parameters[i];
 			valuesSb.append(String.format("%s=%s", 
 					param.getName() == null ? param.getIndex() : param.getName(), 
 					param.isSensitive() ? SQLHIDDENString : param.getValue()));
-			if (++i < size())
+			if (i + 1 < size)
 				valuesSb.append(",");
 		}
 		return valuesSb.toString();
 	}
 	
 	public StatementParameters duplicateWith(String name, Object value) {
-		StatementParameters tempParameters = new StatementParameters();
+		StatementParameters tempParameters = new StatementParameters(size);
 		
-		for(StatementParameter parameter: parameters){
+		for(int i = 0; i < size; i++){
+			StatementParameter parameter = parameters[i];
 			Object pValue = name.equals(parameter.getName()) ? value: parameter.getValue();
 			
 			tempParameters.add(new StatementParameter(parameter).setValue(pValue));
@@ -154,10 +274,10 @@ public class StatementParameters {
 	}
 	
 	public StatementParameters duplicate() {
-		StatementParameters tempParameters = new StatementParameters();
+		StatementParameters tempParameters = new StatementParameters(size);
 		
-		for(StatementParameter parameter: parameters){
-			tempParameters.add(new StatementParameter(parameter));
+		for(int i = 0; i < size; i++){
+			tempParameters.add(new StatementParameter(parameters[i]));
 		}
 		
 		return tempParameters;
@@ -165,20 +285,31 @@ public class StatementParameters {
 	
 	public List<List<?>> getAllInParameters() {
 		List<List<?>> inParams = new ArrayList<>();
-		for(StatementParameter parameter: parameters)
-			if(parameter.isInParam())
-				inParams.add((List<?>)parameter.getValue());
+		for(int i = 0; i < size; i++)
+			if(parameters[i].isInParam())
+				inParams.add((List<?>)parameters[i].getValue());
 			
 		return inParams;
 	}
 	
 	public boolean containsInParameter() {
-		for(StatementParameter p: parameters)
-			if(p.isInParam())
+		for(int i = 0; i < size; i++)
+			if(parameters[i].isInParam())
 				return true;
 		return false;
 	}
 	
+	/**
+	 * Pad the values of in parameters to the bucket of its count. This must be executed before
+	 * compiling the sql and parameters
+	 * @see SQLCompiler#pad(List)
+	 */
+	public void padInParameters() {
+		for(int i = 0; i < size; i++)
+			if(parameters[i].isInParam())
+				parameters[i].setValue(SQLCompiler.pad((List<?>)parameters[i].getValue()));
+	}
+	
 	/**
 	 * Expand in parameters if necessary. This must be executed before execution
 	 */
@@ -187,25 +318,76 @@ public class StatementParameters {
 			return;
 		
 		//To be safe, order parameters by original index
-		Collections.sort(parameters);
-
-		// Make a copy of original parameters
-		List<StatementParameter> tmpParameters = new LinkedList<StatementParameter>(parameters);
+		Arrays.sort(parameters, 0, size);
 
-		// The change will be made into original parameters
+		int count = 0;
+		for(int i = 0; i < size; i++)
+			count += parameters[i].isInParam() ? ((List<?>)parameters[i].getValue()).size() : 1;
+		
+		StatementParameter[] compiled = new StatementParameter[count];
 		int i = 0;
-		for(StatementParameter p: tmpParameters) {
+		for(int j = 0; j < size; j++) {
+			StatementParameter p = parameters[j];
 			if(p.isInParam()) {
-				// Remove the original
-				parameters.remove(p);
+				// Copy the list of values only once
+				StatementParameter template = new StatementParameter(p).setInParam(false);
 				List<?> values = p.getValue();
 				for(Object val : values) {
-					parameters.add(i, new StatementParameter(p).setIndex((i+1)).setInParam(false).setValue(val));
+					compiled[i] = new StatementParameter(template).setIndex(i + 1).setValue(val);
 					i++;
 				}
 			}else {
-				p.setIndex(++i);
+				compiled[i] = p.setIndex(++i);
 			}
 		}
+		
+		parameters = compiled;
+		size = count;
+		spare = 0;
+	}
+	
+	/**
+	 * Modifications are applied to the parameters directly
+	 */
+	private class ParameterList extends AbstractList<StatementParameter> implements RandomAccess {
+		@Override
+		public StatementParameter get(int index) {
+			return StatementParameters.this.get(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public StatementParameter set(int index, StatementParameter element) {
+			StatementParameter old = get(index);
+			parameters[index] = element;
+			return old;
+		}
+
+		@Override
+		public void add(int index, StatementParameter element) {
+			if(index > size)
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			
+			ensureCapacity(size + 1);
+			System.arraycopy(parameters, index, parameters, index + 1, size - index);
+			parameters[index] = element;
+			size++;
+			spare = 0;
+			modCount++;
+		}
+
+		@Override
+		public StatementParameter remove(int index) {
+			StatementParameter old = get(index);
+			System.arraycopy(parameters, index + 1, parameters, index, size - index - 1);
+			parameters[--size] = null;
+			spare = 0;
+			modCount++;
+			return old;
+		}
 	}
 }
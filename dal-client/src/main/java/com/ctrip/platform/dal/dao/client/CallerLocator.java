@@ -0,0 +1,165 @@
+package com.ctrip.platform.dal.dao.client;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Locate the first caller outside of DAL. It is used to identify which DAO and method a request
+ * or statement comes from.
+ *
+ * If java.lang.StackWalker is available, the stack is walked lazily and the walk stops at the
+ * first frame outside com.ctrip.platform.dal.dao, so that only a few frames are materialized.
+ * Otherwise the whole stack trace is captured. The located caller is cached per call site, so
+ * the names are only built once.
+ *
+ * The lookup can be disabled by the locateCaller setting of logger, in that case UNKNOWN is
+ * returned without walking the stack.
+ */
+public class CallerLocator {
+	private static final String EXCLUDED_PACKAGE_SPACE = "com.ctrip.platform.dal.dao.";
+	private static final int MAX_CACHED_CALL_SITES = 10000;
+
+	public static final Caller UNKNOWN = new Caller("unknow", "unknow", "unknow", "unknow");
+
+	private static volatile boolean enabled = true;
+	private static ConcurrentHashMap<StackTraceElement, Caller> callSites = new ConcurrentHashMap<>();
+	private static StackWalkerAdapter walker = StackWalkerAdapter.create();
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		CallerLocator.enabled = enabled;
+	}
+
+	/**
+	 * @return the first caller outside of DAL, or UNKNOWN if it can not be located
+	 */
+	public static Caller locate() {
+		if(!enabled)
+			return UNKNOWN;
+
+		StackTraceElement element = walker == null ? findInStackTrace() : walker.find();
+		if(element == null)
+			return UNKNOWN;
+
+		Caller caller = callSites.get(element);
+		if(caller != null)
+			return caller;
+
+		caller = new Caller(element.getClassName(), element.getMethodName(), element.toString(),
+				element.getClassName() + "." + element.getMethodName());
+
+		if(callSites.size() < MAX_CACHED_CALL_SITES)
+			callSites.putIfAbsent(element, caller);
+
+		return caller;
+	}
+
+	private static StackTraceElement findInStackTrace() {
+		for (StackTraceElement element: new Throwable().getStackTrace()) {
+			if (!isExcluded(element.getClassName()))
+				return element;
+		}
+		return null;
+	}
+
+	private static boolean isExcluded(String className) {
+		return className.startsWith(EXCLUDED_PACKAGE_SPACE);
+	}
+
+	public static class Caller {
+		private final String dao;
+		private final String method;
+		private final String source;
+		private final String name;
+
+		private Caller(String dao, String method, String source, String name) {
+			this.dao = dao;
+			this.method = method;
+			this.source = source;
+			this.name = name;
+		}
+
+		public String getDao() {
+			return dao;
+		}
+
+		public String getMethod() {
+			return method;
+		}
+
+		public String getSource() {
+			return source;
+		}
+
+		/**
+		 * @return dao.method
+		 */
+		public String getName() {
+			return name;
+		}
+	}
+
+	/**
+	 * StackWalker is accessed by reflection because the client still targets Java 7.
+	 */
+	private static class StackWalkerAdapter implements InvocationHandler {
+		private Object walker;
+		private Method walk;
+		private Method iterator;
+		private Method getClassName;
+		private Method toStackTraceElement;
+		private Object function;
+
+		static StackWalkerAdapter create() {
+			try {
+				return new StackWalkerAdapter();
+			} catch (Throwable e) {
+				return null;
+			}
+		}
+
+		private StackWalkerAdapter() throws Exception {
+			Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+			Class<?> frameClass = Class.forName("java.lang.StackWalker$StackFrame");
+			Class<?> functionClass = Class.forName("java.util.function.Function");
+
+			walker = walkerClass.getMethod("getInstance").invoke(null);
+			walk = walkerClass.getMethod("walk", functionClass);
+			iterator = Class.forName("java.util.stream.BaseStream").getMethod("iterator");
+			getClassName = frameClass.getMethod("getClassName");
+			toStackTraceElement = frameClass.getMethod("toStackTraceElement");
+			function = Proxy.newProxyInstance(CallerLocator.class.getClassLoader(), new Class<?>[]{functionClass}, this);
+		}
+
+		StackTraceElement find() {
+			try {
+				return (StackTraceElement)walk.invoke(walker, function);
+			} catch (Throwable e) {
+				return findInStackTrace();
+			}
+		}
+
+		/**
+		 * Function.apply(Stream<StackFrame>) for StackWalker.walk
+		 */
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if(!method.getName().equals("apply"))
+				return method.invoke(this, args);
+
+			Iterator<?> frames = (Iterator<?>)iterator.invoke(args[0]);
+			while(frames.hasNext()) {
+				Object frame = frames.next();
+				if(!isExcluded((String)getClassName.invoke(frame)))
+					return toStackTraceElement.invoke(frame);
+			}
+			return null;
+		}
+	}
+}
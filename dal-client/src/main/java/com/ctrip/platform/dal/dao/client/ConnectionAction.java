@@ -17,6 +17,10 @@ import com.ctrip.platform.dal.dao.DalHintEnum;
 import com.ctrip.platform.dal.dao.DalHints;
 import com.ctrip.platform.dal.dao.StatementParameters;
 import com.ctrip.platform.dal.dao.Version;
+import com.ctrip.platform.dal.dao.helper.SqlFingerprint;
+import com.ctrip.platform.dal.dao.status.DalStatusManager;
+import com.ctrip.platform.dal.dao.status.LatencyStatus;
+import com.ctrip.platform.dal.dao.status.TopSqlStatus;
 import com.ctrip.platform.dal.exceptions.DalException;
 
 public abstract class ConnectionAction<T> {
@@ -36,6 +40,8 @@ public abstract class ConnectionAction<T> {
 	public CallableStatement callableStatement;
 	public ResultSet rs;
 	public long start;
+	public String fingerprint;
+	public TraceEvent statementEvent;
 
 	public DalLogger logger = DalClientFactory.getDalLogger();
 	public LogEntry entry;
@@ -131,6 +137,8 @@ public abstract class ConnectionAction<T> {
 	}
 
 	private void wrapSql() {
+		fingerprint = SqlFingerprint.of(sql != null ? sql : callString != null ? callString : sqls != null && sqls.length > 0 ? sqls[0] : null);
+
 		/**
 		 * You can not add comments before callString
 		 */
@@ -172,6 +180,7 @@ public abstract class ConnectionAction<T> {
 	private void log(Object result, Throwable e) {
 		try {
 			entry.setDuration(System.currentTimeMillis() - start);
+			recordStatistics(e);
 			if(e == null) {
 				logger.success(entry, entry.getResultCount());
 			}else{
@@ -182,6 +191,50 @@ public abstract class ConnectionAction<T> {
 		}
 	}
 
+	private void recordStatistics(Throwable e) {
+		long[] costs = DalWatcher.getPhaseCosts();
+
+		LatencyStatus latency = DalStatusManager.getLatencyStatus(entry.getLogicDbName());
+		if(latency != null)
+			latency.record(entry.getShardId(), entry.getDataBaseKeyName(), fingerprint, costs);
+
+		TopSqlStatus topSql = DalStatusManager.getTopSqlStatus();
+		if(topSql != null)
+			topSql.record(fingerprint, costs[LatencyStatus.Phase.EXECUTE.ordinal()], entry.getResultCount(), e != null);
+	}
+
+	/**
+	 * Begin the statement trace event after the connection is acquired, so that the time waiting
+	 * for connection is only counted in the connection acquire event
+	 */
+	public void beginStatementTraceEvent() {
+		if(statementEvent == null)
+			statementEvent = TraceEvent.begin(TraceEvent.Type.STATEMENT_EXECUTE);
+	}
+
+	/**
+	 * Fill the trace event with what is known so far and commit it
+	 */
+	public void commitTraceEvent(TraceEvent event, boolean success) {
+		if(event == null)
+			return;
+
+		String shard = entry.getShardId();
+		String dataSource = entry.getDataBaseKeyName();
+		if(connHolder != null) {
+			shard = connHolder.getShardId();
+			if(connHolder.getMeta() != null)
+				dataSource = connHolder.getMeta().getDataBaseKeyName();
+		}
+
+		event.setLogicDbName(entry.getLogicDbName());
+		event.setShard(shard);
+		event.setDataSource(dataSource);
+		event.setSql(fingerprint);
+		event.setRowCount(entry.getResultCount());
+		event.commit(success);
+	}
+
 	public void cleanup() {
 		closeResultSet();
 		closeStatement();
@@ -209,6 +262,10 @@ public abstract class ConnectionAction<T> {
 		callableStatement = null;
 
 		if(_statement != null) {
+			StatementCanceller canceller = StatementCanceller.getCurrent();
+			if(canceller != null)
+				canceller.unregister(_statement);
+
 			try {
 				_statement.close();
 			} catch (Throwable e) {
@@ -150,6 +150,8 @@ public class DalConnectionManager {
 			throws SQLException {
 		action.initLogEntry(logicDbName, hints);
 		action.start();
+		// Began when the connection is acquired
+		action.statementEvent = null;
 
 		Throwable ex = null;
 		T result = null;
@@ -164,6 +166,7 @@ public class DalConnectionManager {
 			action.cleanup();
 		}
 
+		action.commitTraceEvent(action.statementEvent, action.e == null);
 		action.end(result);
 		return result;
 	}
@@ -19,11 +19,15 @@ import com.ctrip.platform.dal.dao.DalCommand;
 import com.ctrip.platform.dal.dao.DalEventEnum;
 import com.ctrip.platform.dal.dao.DalHintEnum;
 import com.ctrip.platform.dal.dao.DalHints;
+import com.ctrip.platform.dal.dao.DalResultIterator;
 import com.ctrip.platform.dal.dao.DalResultSetExtractor;
+import com.ctrip.platform.dal.dao.DalRowMapper;
+import com.ctrip.platform.dal.dao.DalStreamClient;
 import com.ctrip.platform.dal.dao.KeyHolder;
 import com.ctrip.platform.dal.dao.StatementParameter;
 import com.ctrip.platform.dal.dao.StatementParameters;
 import com.ctrip.platform.dal.dao.configure.DalConfigure;
+import com.ctrip.platform.dal.dao.helper.CustomizableMapper;
 import com.ctrip.platform.dal.dao.helper.DalColumnMapRowMapper;
 import com.ctrip.platform.dal.dao.helper.DalRowMapperExtractor;
 import com.ctrip.platform.dal.dao.helper.HintsAwareExtractor;
@@ -33,7 +37,7 @@ import com.ctrip.platform.dal.exceptions.DalException;
  * The direct connection implementation for DalClient.
  * @author jhhe
  */
-public class DalDirectClient implements DalClient {
+public class DalDirectClient implements DalClient, DalStreamClient {
 	private DalStatementCreator stmtCreator;
 	private DalConnectionManager connManager;
 	private DalTransactionManager transManager;
@@ -76,6 +80,60 @@ public class DalDirectClient implements DalClient {
 		return doInConnection(action, hints);
 	}
 
+	/**
+	 * The result set is handed over to the returned iterator instead of being closed when the action is done.
+	 * Failure before the query is executed is retried by DalHA as usual, there is no retry once the iterator
+	 * is returned. The statement is always created with streamResult, so that the driver will not buffer the
+	 * whole result set.
+	 */
+	@Override
+	public <T> DalResultIterator<T> stream(String sql, StatementParameters parameters, DalHints hints, final DalRowMapper<T> mapper)
+			throws SQLException {
+		final DalHints streamHints = hints.clone().streamResult();
+		ConnectionAction<DalResultIterator<T>> action = new ConnectionAction<DalResultIterator<T>>() {
+			private boolean handedOver;
+
+			@Override
+			public DalResultIterator<T> execute() throws Exception {
+				conn = getConnection(streamHints, this);
+
+				preparedStatement = createPreparedStatement(conn, sql, parameters, streamHints);
+				DalWatcher.beginExecute();
+				rs = executeQuery(preparedStatement, entry);
+				DalWatcher.endExectue();
+
+				DalRowMapper<T> rowMapper = customize(mapper, rs, streamHints);
+
+				// The statement is read after the request is done, it can not be cancelled by the request any more
+				StatementCanceller canceller = StatementCanceller.getCurrent();
+				if(canceller != null)
+					canceller.unregister(preparedStatement);
+
+				DalResultIterator<T> result = new DalResultSetIterator<>(rs, preparedStatement,
+						DalTransactionManager.isInTransaction() ? null : connHolder, rowMapper);
+				handedOver = true;
+				return result;
+			}
+
+			@Override
+			public void cleanup() {
+				if(!handedOver)
+					super.cleanup();
+			}
+		};
+		action.populate(DalEventEnum.QUERY, sql, parameters);
+
+		return doInConnection(action, streamHints);
+	}
+
+	/**
+	 * The mapper that is CustomizableMapper<T> is also DalRowMapper<T> in all the implementations
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> DalRowMapper<T> customize(DalRowMapper<T> mapper, ResultSet rs, DalHints hints) throws SQLException {
+		return mapper instanceof CustomizableMapper ? ((CustomizableMapper<T>)mapper).mapWith(rs, hints) : mapper;
+	}
+
 	@Override
 	public List<?> query(String sql, StatementParameters parameters, final DalHints hints, final List<DalResultSetExtractor<?>> extractors)
 			throws SQLException {
@@ -420,15 +478,24 @@ public class DalDirectClient implements DalClient {
 
 	public Connection getConnection(DalHints hints, ConnectionAction<?> action) throws SQLException {
 		DalWatcher.beginConnect();
+		TraceEvent event = TraceEvent.begin(TraceEvent.Type.CONNECTION_ACQUIRE);
+		boolean success = false;
 
-		long connCost = System.currentTimeMillis();
-		action.connHolder = transManager.getConnection(hints, action.operation);
-		Connection conn = action.connHolder.getConn();
-		connCost = System.currentTimeMillis() - connCost;
-		action.entry.setConnectionCost(connCost);
-
-		DalWatcher.endConnect();
-		return conn;
+		try {
+			long connCost = System.currentTimeMillis();
+			action.connHolder = transManager.getConnection(hints, action.operation);
+			Connection conn = action.connHolder.getConn();
+			connCost = System.currentTimeMillis() - connCost;
+			action.entry.setConnectionCost(connCost);
+			success = true;
+
+			DalWatcher.endConnect();
+			return conn;
+		} finally {
+			action.commitTraceEvent(event, success);
+			if(success)
+				action.beginStatementTraceEvent();
+		}
 	}
 
 	private Statement createStatement(Connection conn, DalHints hints) throws Exception {
@@ -458,45 +525,50 @@ public class DalDirectClient implements DalClient {
 	private ResultSet executeQuery(final PreparedStatement preparedStatement, final LogEntry entry) throws Exception {
 		return execute(new Callable<ResultSet>() { public ResultSet call() throws Exception {
 			return preparedStatement.executeQuery();
-		}}, entry);
+		}}, preparedStatement, entry);
 	}
 
 	private void executeMultiple(final PreparedStatement preparedStatement, final LogEntry entry) throws Exception {
 		execute(new Callable<Object>() { public Object call() throws Exception {
 			preparedStatement.execute();
 			return null;
-		}}, entry);
+		}}, preparedStatement, entry);
 	}
 
 	private int executeUpdate(final PreparedStatement preparedStatement, final LogEntry entry) throws Exception {
 		return execute(new Callable<Integer>() { public Integer call() throws Exception {
 			return entry.setAffectedRows(preparedStatement.executeUpdate());
-		}}, entry);
+		}}, preparedStatement, entry);
 	}
 
 	private int[] executeBatch(final Statement statement, final LogEntry entry) throws Exception {
 		return execute(new Callable<int[]>() { public int[] call() throws Exception {
 			return entry.setAffectedRowsArray(statement.executeBatch());
-		}}, entry);
+		}}, statement, entry);
 	}
 
 	private Boolean executeCall(final CallableStatement callableStatement, final LogEntry entry) throws Exception {
 		return execute(new Callable<Boolean>() { public Boolean call() throws Exception {
 			return callableStatement.execute();
-		}}, entry);
+		}}, callableStatement, entry);
 	}
 
 	private int[] executeBatch(final CallableStatement callableStatement, final LogEntry entry) throws Exception {
 		return execute(new Callable<int[]>() { public int[] call() throws Exception {
 			return entry.setAffectedRowsArray(callableStatement.executeBatch());
-		}}, entry);
+		}}, callableStatement, entry);
 	}
 
-	private <T> T execute(Callable<T> statementTask, LogEntry entry) throws Exception {
+	private <T> T execute(Callable<T> statementTask, Statement statement, LogEntry entry) throws Exception {
 		Throwable error = null;
 		logger.startStatement(entry);
 
 		try {
+			// The statement will be unregistered when it is closed by ConnectionAction
+			StatementCanceller canceller = StatementCanceller.getCurrent();
+			if(canceller != null)
+				canceller.register(statement);
+
 			return statementTask.call();
 		} catch (Throwable e) {
 			error = e;
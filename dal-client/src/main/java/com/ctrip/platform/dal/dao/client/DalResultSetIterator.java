@@ -0,0 +1,131 @@
+package com.ctrip.platform.dal.dao.client;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.NoSuchElementException;
+
+import com.ctrip.platform.dal.dao.DalClientFactory;
+import com.ctrip.platform.dal.dao.DalResultIterator;
+import com.ctrip.platform.dal.dao.DalRowMapper;
+
+/**
+ * DalResultIterator that owns the result set, statement and connection handed over by DalDirectClient.
+ * It is not thread safe.
+ */
+public class DalResultSetIterator<T> implements DalResultIterator<T> {
+	private ResultSet rs;
+	private Statement statement;
+	private DalConnection connHolder;
+	private DalRowMapper<T> mapper;
+	private int rowNum;
+	private boolean fetched;
+	private boolean closed;
+
+	/**
+	 * @param connHolder the connection to be closed with the iterator, null if it is held by transaction
+	 */
+	public DalResultSetIterator(ResultSet rs, Statement statement, DalConnection connHolder, DalRowMapper<T> mapper) {
+		this.rs = rs;
+		this.statement = statement;
+		this.connHolder = connHolder;
+		this.mapper = mapper;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if(closed)
+			return false;
+
+		if(fetched)
+			return true;
+
+		try {
+			fetched = rs.next();
+		} catch (Throwable e) {
+			throw fail(e);
+		}
+
+		if(!fetched)
+			closeQuietly();
+
+		return fetched;
+	}
+
+	@Override
+	public T next() {
+		if(!hasNext())
+			throw new NoSuchElementException();
+
+		fetched = false;
+		try {
+			return mapper.map(rs, rowNum++);
+		} catch (Throwable e) {
+			throw fail(e);
+		}
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @return how many rows have been read
+	 */
+	public int getRowCount() {
+		return rowNum;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		if(closed)
+			return;
+
+		closed = true;
+		SQLException error = null;
+		try {
+			rs.close();
+		} catch (SQLException e) {
+			error = e;
+		}
+
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			if(error == null)
+				error = e;
+		}
+
+		if(connHolder != null)
+			connHolder.close();
+
+		rs = null;
+		statement = null;
+		connHolder = null;
+
+		if(error != null)
+			throw error;
+	}
+
+	private RuntimeException fail(Throwable e) {
+		if(connHolder != null)
+			connHolder.error(e);
+
+		closeQuietly();
+		return e instanceof RuntimeException ? (RuntimeException)e : new RuntimeException(e);
+	}
+
+	private void closeQuietly() {
+		try {
+			close();
+		} catch (Throwable e) {
+			// The logger is only needed here, it is not fetched eagerly so that the iterator does not depend on the configure
+			DalClientFactory.getDalLogger().error("Close result iterator failed.", e);
+		}
+	}
+}
@@ -19,6 +19,11 @@ public class DalStatementCreator {
 	private static final int DEFAULT_RESULT_SET_TYPE = ResultSet.TYPE_FORWARD_ONLY;
 	private static final int DEFAULT_RESULT_SET_CONCURRENCY = ResultSet.CONCUR_READ_ONLY;
 	
+	/**
+	 * Fetch size used for streamResult when fetchSize is not specified
+	 */
+	private static final int DEFAULT_STREAM_FETCH_SIZE = 1000;
+	
 	private DatabaseCategory dbCategory;
 	public DalStatementCreator(DatabaseCategory dbCategory) {
 	    this.dbCategory = dbCategory;
@@ -116,6 +121,8 @@ public class DalStatementCreator {
 		
 		if(fetchSize != null && fetchSize > 0)
 			statement.setFetchSize(fetchSize);
+		else if(hints.is(DalHintEnum.streamResult))
+			statement.setFetchSize(getStreamFetchSize());
 
 		Integer maxRows = (Integer)hints.get(DalHintEnum.maxRows);
 		if (maxRows != null && maxRows > 0)
@@ -132,6 +139,13 @@ public class DalStatementCreator {
 		
 	}
 	
+	/**
+	 * MySql driver reads all rows into memory unless fetch size is Integer.MIN_VALUE
+	 */
+	private int getStreamFetchSize() {
+		return dbCategory == DatabaseCategory.MySql ? Integer.MIN_VALUE : DEFAULT_STREAM_FETCH_SIZE;
+	}
+	
 	private int getResultSetType(DalHints hints) {
 		return hints.getInt(DalHintEnum.resultSetType, DEFAULT_RESULT_SET_TYPE);
 	}
@@ -142,6 +142,7 @@ public class DalTransactionManager {
 	public <T> T doInTransaction(ConnectionAction<T> action, DalHints hints)throws SQLException{
 		action.initLogEntry(connManager.getLogicDbName(), hints);
 		action.start();
+		TraceEvent event = TraceEvent.begin(TraceEvent.Type.TRANSACTION);
 
 		Throwable ex = null;
 		T result = null;
@@ -161,6 +162,7 @@ public class DalTransactionManager {
 			action.cleanup();
 		}
 
+		action.commitTraceEvent(event, action.e == null);
 		action.end(result);
 
 		return result;
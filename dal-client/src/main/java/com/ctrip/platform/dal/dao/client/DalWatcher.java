@@ -1,5 +1,11 @@
 package com.ctrip.platform.dal.dao.client;
 
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record the cost of each phase of statement execution in current thread. Time is recorded in
+ * System.nanoTime() and converted to milliseconds for log.
+ */
 public class DalWatcher {
 	private static ThreadLocal<CostRecorder> costRecorder = new ThreadLocal<CostRecorder>();
 	
@@ -11,6 +17,8 @@ public class DalWatcher {
 		long beginConnect;
 		long endConnect;
 		long beginExecute;
+		// The first time endExectue is called. Later calls are for the result is extracted
+		long executed;
 		long endExecute;
 		long end;
 		long corssShardEnd;
@@ -20,6 +28,7 @@ public class DalWatcher {
 			beginConnect = 0;
 			endConnect = 0;
 			beginExecute = 0;
+			executed = 0;
 			endExecute = 0;
 			end = 0;
 		}
@@ -55,16 +64,16 @@ public class DalWatcher {
 	}
 	
 	public static void crossShardBegin(){
-		recorder().corssShardBegin = System.currentTimeMillis();
+		recorder().corssShardBegin = System.nanoTime();
 	}
 	
 	public static void crossShardEnd(){
-		recorder().corssShardEnd = System.currentTimeMillis();
+		recorder().corssShardEnd = System.nanoTime();
 	}
 	
 	public static void begin(){
 		reset();
-		recorder().begin = System.currentTimeMillis();
+		recorder().begin = System.nanoTime();
 	}
 	
 	public static void beginConnect(){
@@ -74,30 +83,56 @@ public class DalWatcher {
 		if(curRecorder.beginConnect != 0)
 			curRecorder.reset();
 		
-		curRecorder.beginConnect = System.currentTimeMillis();
+		curRecorder.beginConnect = System.nanoTime();
 	}
 	
 	public static void endConnect(){
-		recorder().endConnect = System.currentTimeMillis();
+		recorder().endConnect = System.nanoTime();
 	}
 	
 	public static void beginExecute(){
-		recorder().beginExecute = System.currentTimeMillis();
+		recorder().beginExecute = System.nanoTime();
 	}
 	
 	public static void endExectue(){
-		recorder().endExecute = System.currentTimeMillis();
+		CostRecorder curRecorder = recorder();
+		curRecorder.endExecute = System.nanoTime();
+		if(curRecorder.executed == 0)
+			curRecorder.executed = curRecorder.endExecute;
+	}
+	
+	/**
+	 * @return cost of connect, prepare, execute and map phases in nanoseconds, -1 if the phase is not reached.
+	 * The order is the same as LatencyStatus.Phase
+	 */
+	public static long[] getPhaseCosts(){
+		CostRecorder cur = recorder();
+		
+		return new long[] {
+				cost(cur.beginConnect, cur.endConnect),
+				cost(cur.endConnect, cur.beginExecute),
+				cost(cur.beginExecute, cur.executed),
+				cost(cur.executed, cur.endExecute),
+		};
+	}
+	
+	private static long cost(long begin, long end){
+		return begin == 0 || end == 0 || end < begin ? -1 : end - begin;
+	}
+	
+	private static long toMillis(long nanos){
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
 	}
 	
 	public static String toJson(){
 		CostRecorder cur = recorder();
 		
 		// Final end
-		cur.end = System.currentTimeMillis();
+		cur.end = System.nanoTime();
 		
-		String json = String.format(JSON_PATTERN, cur.begin == 0 ? 0 : cur.beginConnect - cur.begin,
-				cur.endConnect - cur.beginConnect, cur.beginExecute - cur.endConnect,
-				cur.endExecute - cur.beginExecute, cur.end - cur.endExecute);
+		String json = String.format(JSON_PATTERN, cur.begin == 0 ? 0 : toMillis(cur.beginConnect - cur.begin),
+				toMillis(cur.endConnect - cur.beginConnect), toMillis(cur.beginExecute - cur.endConnect),
+				toMillis(cur.endExecute - cur.beginExecute), toMillis(cur.end - cur.endExecute));
 		
 		reset();
 		return json;
@@ -0,0 +1,178 @@
+package com.ctrip.platform.dal.dao.client;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ctrip.platform.dal.dao.Version;
+
+/**
+ * Emit trace events as Java Flight Recorder events named like com.ctrip.dal.StatementExecute, so
+ * that DAL time can be correlated with GC, lock and IO events in the same recording.
+ *
+ * The JFR API is only available since JDK 11 while DAL is still built for older JDK, so the events
+ * are defined by jdk.jfr.EventFactory through reflection. Whether an event type is enabled is
+ * cached and refreshed when any recording changes state, so checking it is a volatile read.
+ */
+public class JfrTraceRecorder implements TraceRecorder {
+	private static Logger logger = LoggerFactory.getLogger(Version.getLoggerName());
+
+	private static final String EVENT_PREFIX = "com.ctrip.dal.";
+	private static final String[] EVENT_NAMES = {"Request", "ShardTask", "ConnectionAcquire", "StatementExecute", "Transaction"};
+
+	// Fields are set by index in the order of definition
+	private static final int LOGIC_DB = 0;
+	private static final int SHARD = 1;
+	private static final int DATA_SOURCE = 2;
+	private static final int SQL = 3;
+	private static final int ROW_COUNT = 4;
+	private static final int SUCCESS = 5;
+
+	private Object[] factories = new Object[TraceEvent.Type.values().length];
+	private Object[] eventTypes = new Object[factories.length];
+	private volatile boolean[] enabled = new boolean[factories.length];
+
+	private Method newEvent;
+	private Method isEnabled;
+	private Method beginEvent;
+	private Method endEvent;
+	private Method commitEvent;
+	private Method setField;
+
+	/**
+	 * @return null if JFR is not supported by current JVM
+	 */
+	public static JfrTraceRecorder create() {
+		try {
+			JfrTraceRecorder recorder = new JfrTraceRecorder();
+			recorder.init();
+			return recorder;
+		} catch (Throwable e) {
+			logger.debug("Java Flight Recorder is not supported by current JVM, DAL trace events are disabled.");
+			return null;
+		}
+	}
+
+	private JfrTraceRecorder() {}
+
+	private void init() throws Exception {
+		Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+		Class<?> eventClass = Class.forName("jdk.jfr.Event");
+		Method create = factoryClass.getMethod("create", List.class, List.class);
+		Method getEventType = factoryClass.getMethod("getEventType");
+
+		newEvent = factoryClass.getMethod("newEvent");
+		isEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+		beginEvent = eventClass.getMethod("begin");
+		endEvent = eventClass.getMethod("end");
+		commitEvent = eventClass.getMethod("commit");
+		setField = eventClass.getMethod("set", int.class, Object.class);
+
+		List<Object> fields = new ArrayList<>();
+		fields.add(field(String.class, "logicDbName", "Logic DB"));
+		fields.add(field(String.class, "shard", "Shard"));
+		fields.add(field(String.class, "dataSource", "Data Source"));
+		fields.add(field(String.class, "sql", "SQL Fingerprint"));
+		fields.add(field(int.class, "rowCount", "Row Count"));
+		fields.add(field(boolean.class, "success", "Success"));
+
+		for(int i = 0; i < factories.length; i++) {
+			List<Object> annotations = new ArrayList<>();
+			annotations.add(annotation("Name", EVENT_PREFIX + EVENT_NAMES[i]));
+			annotations.add(annotation("Label", "DAL " + EVENT_NAMES[i]));
+			annotations.add(annotation("Category", new String[]{"DAL"}));
+
+			factories[i] = create.invoke(null, annotations, fields);
+			eventTypes[i] = getEventType.invoke(factories[i]);
+		}
+
+		listenRecordingState();
+		refreshEnabled();
+	}
+
+	private static Object annotation(String simpleName, Object value) throws Exception {
+		Class<?> type = Class.forName("jdk.jfr." + simpleName);
+		Constructor<?> constructor = Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class);
+		return constructor.newInstance(type, value);
+	}
+
+	private static Object field(Class<?> type, String name, String label) throws Exception {
+		Constructor<?> constructor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+		return constructor.newInstance(type, name, Collections.singletonList(annotation("Label", label)));
+	}
+
+	private void listenRecordingState() throws Exception {
+		Class<?> listenerClass = Class.forName("jdk.jfr.FlightRecorderListener");
+		Object listener = Proxy.newProxyInstance(listenerClass.getClassLoader(), new Class<?>[]{listenerClass}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if(method.getName().equals("recordingStateChanged"))
+					refreshEnabled();
+
+				if(method.getName().equals("equals"))
+					return proxy == args[0];
+				if(method.getName().equals("hashCode"))
+					return System.identityHashCode(proxy);
+				if(method.getName().equals("toString"))
+					return JfrTraceRecorder.class.getName();
+				return null;
+			}
+		});
+
+		Class.forName("jdk.jfr.FlightRecorder").getMethod("addListener", listenerClass).invoke(null, listener);
+	}
+
+	private void refreshEnabled() {
+		boolean[] current = new boolean[eventTypes.length];
+		try {
+			for(int i = 0; i < eventTypes.length; i++)
+				current[i] = (Boolean)isEnabled.invoke(eventTypes[i]);
+		} catch (Throwable e) {
+			logger.warn("Can not check if DAL trace event is enabled", e);
+		}
+		enabled = current;
+	}
+
+	@Override
+	public boolean isEnabled(TraceEvent.Type type) {
+		return enabled[type.ordinal()];
+	}
+
+	@Override
+	public Object begin(TraceEvent.Type type) {
+		try {
+			Object event = newEvent.invoke(factories[type.ordinal()]);
+			beginEvent.invoke(event);
+			return event;
+		} catch (Throwable e) {
+			logger.warn("Can not begin DAL trace event", e);
+			return null;
+		}
+	}
+
+	@Override
+	public void commit(TraceEvent event) {
+		Object jfrEvent = event.getHandle();
+		if(jfrEvent == null)
+			return;
+
+		try {
+			endEvent.invoke(jfrEvent);
+			setField.invoke(jfrEvent, LOGIC_DB, event.getLogicDbName());
+			setField.invoke(jfrEvent, SHARD, event.getShard());
+			setField.invoke(jfrEvent, DATA_SOURCE, event.getDataSource());
+			setField.invoke(jfrEvent, SQL, event.getSql());
+			setField.invoke(jfrEvent, ROW_COUNT, event.getRowCount());
+			setField.invoke(jfrEvent, SUCCESS, event.isSuccess());
+			commitEvent.invoke(jfrEvent);
+		} catch (Throwable e) {
+			logger.warn("Can not commit DAL trace event", e);
+		}
+	}
+}
@@ -9,11 +9,19 @@ import java.util.Set;
  * @author jhhe
  */
 public class LogContext {
-    private static String execludedPackageSpace = "com.ctrip.platform.dal.dao.";
+    private String logicDbName;
     private boolean singleTask;
     private boolean seqencialExecution;
     private Set<String> shards;
 
+    public String getLogicDbName() {
+        return logicDbName;
+    }
+
+    public void setLogicDbName(String logicDbName) {
+        this.logicDbName = logicDbName;
+    }
+
     public boolean isSingleTask() {
         return singleTask;
     }
@@ -40,16 +48,7 @@ public class LogContext {
     }
 
     public static String getRequestCaller(){
-        StackTraceElement[] callers = Thread.currentThread().getStackTrace();
-        for (int i = 4; i < callers.length; i++) {
-            StackTraceElement caller = callers[i];
-            if (caller.getClassName().startsWith(execludedPackageSpace))
-                continue;
-
-            return caller.getClassName() + "." + caller.getMethodName();
-        }
-
-        return "unknow";
+        return CallerLocator.locate().getName();
     }
 
     private String caller;
@@ -6,8 +6,6 @@ import com.ctrip.platform.dal.dao.DalEventEnum;
 public class LogEntry {
 	private static volatile ThreadLocal<String> currentCaller;
 
-	private static String execludedPackageSpace = "com.ctrip.platform.dal.dao.";
-
 	private boolean sensitive;
 	private String[] sqls;
 	private String[] pramemters;
@@ -41,17 +39,10 @@ public class LogEntry {
 	private long createTime = System.currentTimeMillis();
 
 	public LogEntry(){
-		StackTraceElement[] callers = Thread.currentThread().getStackTrace();
-		for (int i = 4; i < callers.length; i++) {
-			StackTraceElement caller = callers[i];
-			if (caller.getClassName().startsWith(execludedPackageSpace))
-				continue;
-
-			dao = caller.getClassName();
-			method = caller.getMethodName();
-			source = caller.toString();
-			break;
-		}
+		CallerLocator.Caller caller = CallerLocator.locate();
+		dao = caller.getDao();
+		method = caller.getMethod();
+		source = caller.getSource();
 	}
 
 	public void setEvent(DalEventEnum event) {
@@ -0,0 +1,169 @@
+package com.ctrip.platform.dal.dao.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ctrip.platform.dal.dao.Version;
+
+/**
+ * Preallocated multi producer single consumer ring buffer for asynchronous logging. Producers claim
+ * a slot by CAS on the tail sequence and never block. If the buffer is full, the event is dropped
+ * and counted. The consumer thread drains published events in batches and parks when there is
+ * nothing to do.
+ *
+ * Each slot has a sequence number telling whether it is free for the producer of a given round
+ * or published for the consumer, so there is no lock between producers and the consumer.
+ */
+public class LogRingBuffer {
+	private static Logger logger = LoggerFactory.getLogger(Version.getLoggerName());
+
+	public static final int DEFAULT_CAPACITY = 64 * 1024;
+	public static final int DEFAULT_BATCH_SIZE = 256;
+	private static final long PARK_NANOS = 100 * 1000 * 1000;
+
+	private final int capacity;
+	private final int mask;
+	private final int batchSize;
+	private final AtomicReferenceArray<Runnable> events;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	private volatile long head;
+
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong processed = new AtomicLong();
+
+	private final Thread consumer;
+	private volatile boolean waiting;
+	private volatile boolean running = true;
+
+	/**
+	 * @param capacity will be rounded up to power of 2
+	 */
+	public LogRingBuffer(int capacity, int batchSize) {
+		int size = 1;
+		while(size < capacity)
+			size <<= 1;
+
+		this.capacity = size;
+		this.mask = size - 1;
+		this.batchSize = batchSize;
+		events = new AtomicReferenceArray<>(size);
+		sequences = new AtomicLongArray(size);
+		for(int i = 0; i < size; i++)
+			sequences.set(i, i);
+
+		consumer = new Thread(new Runnable() {
+			public void run() {
+				consume();
+			}
+		}, "DAL-AsyncLogging");
+		consumer.setDaemon(true);
+		consumer.start();
+	}
+
+	/**
+	 * @return false if the event is dropped because the buffer is full or shutdown
+	 */
+	public boolean offer(Runnable event) {
+		if(!running) {
+			dropped.incrementAndGet();
+			return false;
+		}
+
+		long position;
+		int index;
+		while(true) {
+			position = tail.get();
+			index = (int)position & mask;
+			long available = sequences.get(index) - position;
+
+			if(available == 0) {
+				if(tail.compareAndSet(position, position + 1))
+					break;
+			} else if(available < 0) {
+				// The consumer has not freed the slot of last round
+				dropped.incrementAndGet();
+				return false;
+			}
+		}
+
+		events.set(index, event);
+		sequences.set(index, position + 1);
+
+		if(waiting)
+			LockSupport.unpark(consumer);
+
+		return true;
+	}
+
+	private void consume() {
+		while(true) {
+			int count = drain();
+			if(count > 0)
+				continue;
+
+			if(!running && tail.get() == head)
+				return;
+
+			waiting = true;
+			// Check again in case an event is published before waiting is set
+			if(!isPublished(head))
+				LockSupport.parkNanos(this, PARK_NANOS);
+			waiting = false;
+		}
+	}
+
+	private int drain() {
+		int count = 0;
+		while(count < batchSize && isPublished(head)) {
+			int index = (int)head & mask;
+			Runnable event = events.get(index);
+			events.set(index, null);
+			sequences.lazySet(index, head + capacity);
+			head++;
+			count++;
+
+			try {
+				event.run();
+			} catch (Throwable e) {
+				logger.error("Error when write log", e);
+			}
+		}
+
+		processed.addAndGet(count);
+		return count;
+	}
+
+	private boolean isPublished(long position) {
+		return sequences.get((int)position & mask) == position + 1;
+	}
+
+	/**
+	 * Stop accepting new events. Events already in the buffer will still be processed.
+	 */
+	public void shutdown() {
+		running = false;
+		LockSupport.unpark(consumer);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getQueueDepth() {
+		return (int)Math.max(0, tail.get() - head);
+	}
+
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	public long getProcessedCount() {
+		return processed.get();
+	}
+}
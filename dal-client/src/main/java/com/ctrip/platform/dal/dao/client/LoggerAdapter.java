@@ -1,16 +1,6 @@
 package com.ctrip.platform.dal.dao.client;
 
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.RejectedExecutionHandler;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.ctrip.platform.dal.dao.helper.LoggerHelper;
 
@@ -29,38 +19,36 @@ public abstract class LoggerAdapter implements DalLogger {
 	private static final String SECRETKEY = "secretKey";
 	private static final String SIMPLIFIED = "simplified";
 	private static final String ASYNCLOGGING = "asyncLogging";
+	private static final String LOCATECALLER = "locateCaller";
 
 	private static final String CAPACITY = "capacity";
+	private static final String BATCHSIZE = "batchSize";
 	private static final String  SAMPLINGLOW = "samplingLow";
 	private static final String  SAMPLINGHIGH = "samplingHigh";
 	private static final String  SAMPLEMAXNUM = "sampleMaxNum";
 
-	private static final String  SAMPLECLEARINTERVAL = "sampleClearInterval";
 	protected static boolean simplifyLogging = false;
 	protected static boolean encryptLogging = true;
 	public static String secretKey = DEFAULT_SECERET_KEY;
 	protected static boolean samplingLogging = false;
 	protected static long samplingLow = 60 * 60 * 1000;//milliseconds
 	protected static long samplingHigh = 5 * 60 * 1000;//milliseconds
-	//key is the sql hash code
-	private static final ConcurrentHashMap<Integer, Long> logEntryCache = new ConcurrentHashMap<Integer, Long>();
 	protected static int sampleMaxNum = 5000;
-	protected static int sampleClearInterval = 30;
-
-	private static ScheduledExecutorService scheduler = null;
-	private static final AtomicBoolean isClearingCache = new AtomicBoolean(false);
+	private static volatile SamplingSketch samplingSketch = new SamplingSketch(sampleMaxNum);
 
 	protected static boolean asyncLogging = false;
 
-	protected static ExecutorService executor = null;
+	protected static volatile LogRingBuffer ringBuffer = null;
 
 	/**
-	 * Helper method to unify asyn and sync invocation
+	 * Helper method to unify asyn and sync invocation. In async mode, the task is dropped
+	 * if the ring buffer is full
 	 * @param task
 	 */
 	public void call(Runnable task) {
-		if (asyncLogging) {
-			executor.submit(task);
+		LogRingBuffer buffer = ringBuffer;
+		if (asyncLogging && buffer != null) {
+			buffer.offer(task);
 		} else {
 			task.run();
 		}
@@ -82,6 +70,9 @@ public abstract class LoggerAdapter implements DalLogger {
 		if(settings.containsKey(SECRETKEY))
 			secretKey = settings.get(SECRETKEY);
 
+		if(settings.containsKey(LOCATECALLER))
+			CallerLocator.setEnabled(Boolean.parseBoolean(settings.get(LOCATECALLER)));
+
 		initAsyncLogging(settings);
 	}
 
@@ -92,66 +83,45 @@ public abstract class LoggerAdapter implements DalLogger {
 		if(settings.containsKey(SAMPLEMAXNUM))
 			sampleMaxNum = Integer.parseInt(settings.get(SAMPLEMAXNUM));
 
-		if(settings.containsKey(SAMPLECLEARINTERVAL))
-			sampleClearInterval = Integer.parseInt(settings.get(SAMPLECLEARINTERVAL));
-
 		if(settings.containsKey(SAMPLINGLOW))
 			samplingLow = Integer.parseInt(settings.get(SAMPLINGLOW)) * 60 * 1000;
 
 		if(settings.containsKey(SAMPLINGHIGH))
 			samplingHigh = Integer.parseInt(settings.get(SAMPLINGHIGH)) * 60 * 1000;
 
-		if (samplingLogging) {
-			scheduler = Executors.newScheduledThreadPool(1);
-			scheduler.scheduleAtFixedRate(new Runnable() {
-				@Override
-				public void run() {
-					clearCache();
-				}
-			}, 5, sampleClearInterval, TimeUnit.SECONDS);
-		}
-	}
-
-	private void clearCache() {
-		int currentCount = logEntryCache.size();
-		if (sampleMaxNum > currentCount)
-			return;
-		isClearingCache.set(true);
-		for(Map.Entry<Integer, Long> entry : logEntryCache.entrySet()) {
-			Integer key = entry.getKey();
-			long old = entry.getValue();
-			long now = System.currentTimeMillis();
-			if ( (now - old) > samplingLow ) {
-				logEntryCache.remove(key);
-			}
-		}
-		isClearingCache.set(false);
+		if (samplingLogging)
+			samplingSketch = new SamplingSketch(sampleMaxNum);
 	}
 
 	private void initAsyncLogging(Map<String, String> settings) {
 		if(settings.containsKey(ASYNCLOGGING))
 			asyncLogging = Boolean.parseBoolean(settings.get(ASYNCLOGGING));
 
-		if (settings.containsKey(CAPACITY)) {
-			executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
-					new ArrayBlockingQueue<Runnable>(Integer.parseInt(settings.get(CAPACITY)), true),
-					new RejectedExecutionHandler() {
-						@Override
-						public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
-							//do nothing
-						}
-					});
-		} else {
-			executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
-		}
+		if (!asyncLogging)
+			return;
+
+		int capacity = settings.containsKey(CAPACITY) ? Integer.parseInt(settings.get(CAPACITY)) : LogRingBuffer.DEFAULT_CAPACITY;
+		int batchSize = settings.containsKey(BATCHSIZE) ? Integer.parseInt(settings.get(BATCHSIZE)) : LogRingBuffer.DEFAULT_BATCH_SIZE;
+
+		LogRingBuffer old = ringBuffer;
+		ringBuffer = new LogRingBuffer(capacity, batchSize);
+		if (old != null)
+			old.shutdown();
+	}
+
+	/**
+	 * @return null if async logging is not enabled
+	 */
+	public static LogRingBuffer getRingBuffer() {
+		return ringBuffer;
 	}
 
 	@Override
 	public void shutdown() {
-		if (executor != null)
-			executor.shutdown();
-		if (scheduler != null)
-			scheduler.shutdown();
+		if (ringBuffer != null) {
+			ringBuffer.shutdown();
+			ringBuffer = null;
+		}
 	}
 
 
@@ -164,27 +134,11 @@ public abstract class LoggerAdapter implements DalLogger {
 	 * @return  The log can be sent only when returning value is true
 	 */
 	protected boolean validate(LogEntry entry) {
-		if ( isClearingCache.get() )
-			return false;
 		String sqlTpl = LoggerHelper.getSqlTpl(entry);
 		if (LoggerHelper.SQLHIDDENString.equals(sqlTpl) || "".equals(sqlTpl) )
 			return true;
 		int hashCode = LoggerHelper.getHashCode(sqlTpl);
-		long now = System.currentTimeMillis();
-		Long old = logEntryCache.putIfAbsent(hashCode, now);
-		if (old == null) {
-			if (logEntryCache.size() > sampleMaxNum)
-				logEntryCache.remove(hashCode);
-			return true;
-		}
-		boolean userLow = useLow(entry);
-		if ( (now - old) < (userLow ? samplingLow : samplingHigh) ) {
-			return false;
-		} else {
-			//update the old timestamp associated the sqlTpl to now
-			logEntryCache.put(hashCode, System.currentTimeMillis());
-			return true;
-		}
+		return samplingSketch.trySample(hashCode, System.currentTimeMillis(), useLow(entry) ? samplingLow : samplingHigh);
 	}
 
 	private boolean useLow(LogEntry entry) {
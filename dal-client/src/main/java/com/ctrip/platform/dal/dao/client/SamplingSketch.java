@@ -0,0 +1,83 @@
+package com.ctrip.platform.dal.dao.client;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Fixed size count-min style sketch of the last time each log key is sampled. Each key is hashed
+ * into one cell of every row, and the last sampled time of the key is estimated by the minimum
+ * of its cells. Collision can only make the estimation newer than the real time, so a key may be
+ * sampled less often but never more often than the interval.
+ *
+ * Old timestamps expire by themselves when compared with the interval, so the memory is fixed
+ * and there is no need to sweep. Time is kept in seconds, which is precise enough for sampling
+ * intervals in minutes.
+ */
+public class SamplingSketch {
+	private static final int DEPTH = 4;
+	private static final int[] SEEDS = {0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F};
+
+	private final int width;
+	private final int mask;
+	private final AtomicIntegerArray cells;
+	private final long base = System.currentTimeMillis() / 1000 - 1;
+
+	/**
+	 * @param expectedKeys number of distinct keys expected within the interval
+	 */
+	public SamplingSketch(int expectedKeys) {
+		int size = 16;
+		while(size < expectedKeys * 4)
+			size <<= 1;
+
+		width = size;
+		mask = size - 1;
+		cells = new AtomicIntegerArray(DEPTH * width);
+	}
+
+	/**
+	 * Check if the key has not been sampled within the interval, mark it sampled at now if so.
+	 * @param now in milliseconds
+	 * @param interval in milliseconds
+	 * @return true if the key should be sampled
+	 */
+	public boolean trySample(int hash, long now, long interval) {
+		int minIndex = indexOf(hash, 0);
+		int last = cells.get(minIndex);
+		for(int i = 1; i < DEPTH; i++) {
+			int index = indexOf(hash, i);
+			int value = cells.get(index);
+			if(value < last) {
+				last = value;
+				minIndex = index;
+			}
+		}
+
+		// 0 means never sampled
+		int current = (int)(now / 1000 - base);
+		if(last != 0 && (current - last) * 1000L < interval)
+			return false;
+
+		// Concurrent callers of the same key see the same cell, only one of them can win
+		if(!cells.compareAndSet(minIndex, last, current))
+			return false;
+
+		for(int i = 0; i < DEPTH; i++)
+			updateMax(indexOf(hash, i), current);
+
+		return true;
+	}
+
+	private void updateMax(int index, int time) {
+		int current;
+		while((current = cells.get(index)) < time) {
+			if(cells.compareAndSet(index, current, time))
+				return;
+		}
+	}
+
+	private int indexOf(int hash, int row) {
+		int h = hash * SEEDS[row];
+		h ^= h >>> 16;
+		return row * width + (h & mask);
+	}
+}
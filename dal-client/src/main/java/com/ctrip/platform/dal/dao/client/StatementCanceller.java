@@ -0,0 +1,118 @@
+package com.ctrip.platform.dal.dao.client;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.ctrip.platform.dal.dao.DalClientFactory;
+import com.ctrip.platform.dal.exceptions.DalException;
+import com.ctrip.platform.dal.exceptions.ErrorCode;
+
+/**
+ * Track the statements being executed by a task, so that they can be cancelled from another thread.
+ * The canceller is bound to the thread executing the task by RequestTaskWrapper, every statement
+ * executed by DalDirectClient in that thread will be registered to it.
+ *
+ * If there is deadline, the query timeout of the registered statement will be reduced to the
+ * remaining time of the request.
+ */
+public class StatementCanceller {
+	private static ThreadLocal<StatementCanceller> current = new ThreadLocal<>();
+
+	/**
+	 * Deadline in System.nanoTime(), 0 means there is no deadline
+	 */
+	private final long deadline;
+	private final int timeout;
+	private final Set<Statement> statements = Collections.newSetFromMap(new ConcurrentHashMap<Statement, Boolean>());
+	private volatile boolean cancelled;
+
+	/**
+	 * @param deadline in System.nanoTime(), 0 means there is no deadline
+	 * @param timeout the timeout in milliseconds the deadline is calculated from. It is used for error message
+	 */
+	public StatementCanceller(long deadline, int timeout) {
+		this.deadline = deadline;
+		this.timeout = timeout;
+	}
+
+	public static StatementCanceller getCurrent() {
+		return current.get();
+	}
+
+	public static void setCurrent(StatementCanceller canceller) {
+		if(canceller == null)
+			current.remove();
+		else
+			current.set(canceller);
+	}
+
+	public void register(Statement statement) throws SQLException {
+		statements.add(statement);
+
+		try {
+			if(cancelled)
+				throw new DalException(ErrorCode.StatementCancelled);
+
+			if(deadline == 0)
+				return;
+
+			long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			if(remaining <= 0)
+				throw new DalException(ErrorCode.RequestTimeout, timeout);
+
+			// Query timeout is in seconds, round up to make sure it is at least 1 second
+			int seconds = (int)((remaining + 999) / 1000);
+			int queryTimeout = statement.getQueryTimeout();
+			if(queryTimeout == 0 || queryTimeout > seconds)
+				statement.setQueryTimeout(seconds);
+		} catch (SQLException e) {
+			statements.remove(statement);
+			throw e;
+		}
+	}
+
+	public void unregister(Statement statement) {
+		statements.remove(statement);
+	}
+
+	/**
+	 * Cancel all the statements being executed. Statements registered after this will be rejected.
+	 */
+	public void cancel() {
+		cancelled = true;
+
+		for(Statement statement: statements) {
+			try {
+				statement.cancel();
+			} catch (Throwable e) {
+				DalClientFactory.getDalLogger().error("Error when cancel statement", e);
+			}
+		}
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @return deadline in System.nanoTime(), 0 means there is no deadline
+	 */
+	public long getDeadline() {
+		return deadline;
+	}
+
+	/**
+	 * @return the timeout in milliseconds the deadline is calculated from
+	 */
+	public int getTimeout() {
+		return timeout;
+	}
+
+	public boolean isExpired() {
+		return deadline != 0 && deadline - System.nanoTime() <= 0;
+	}
+}
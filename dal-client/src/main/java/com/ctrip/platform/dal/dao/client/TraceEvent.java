@@ -0,0 +1,133 @@
+package com.ctrip.platform.dal.dao.client;
+
+/**
+ * Trace event of a DAL request, shard task, connection acquire, statement execution or transaction.
+ * Events are only created when the recorder is enabled for the type, otherwise begin returns null
+ * and all the calls on null event are skipped by the caller, so it costs nearly nothing when disabled.
+ *
+ * E.g.
+ * TraceEvent event = TraceEvent.begin(TraceEvent.Type.REQUEST);
+ * ...
+ * if(event != null) {
+ *     event.setLogicDbName(logicDbName);
+ *     event.commit(error == null);
+ * }
+ */
+public class TraceEvent {
+	public enum Type {
+		REQUEST, SHARD_TASK, CONNECTION_ACQUIRE, STATEMENT_EXECUTE, TRANSACTION
+	}
+
+	private static volatile TraceRecorder recorder = JfrTraceRecorder.create();
+
+	private Type type;
+	private Object handle;
+	private long start;
+	private long duration;
+	private String logicDbName;
+	private String shard;
+	private String dataSource;
+	private String sql;
+	private int rowCount;
+	private boolean success;
+
+	private TraceEvent(Type type) {
+		this.type = type;
+		this.start = System.nanoTime();
+	}
+
+	/**
+	 * @param recorder null to disable trace events
+	 */
+	public static void setRecorder(TraceRecorder recorder) {
+		TraceEvent.recorder = recorder;
+	}
+
+	public static TraceRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * @return null if the type is not enabled
+	 */
+	public static TraceEvent begin(Type type) {
+		TraceRecorder current = recorder;
+		if(current == null || !current.isEnabled(type))
+			return null;
+
+		TraceEvent event = new TraceEvent(type);
+		event.handle = current.begin(type);
+		return event;
+	}
+
+	public void commit(boolean success) {
+		this.success = success;
+		duration = System.nanoTime() - start;
+
+		TraceRecorder current = recorder;
+		if(current != null)
+			current.commit(this);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public Object getHandle() {
+		return handle;
+	}
+
+	/**
+	 * @return duration in nanoseconds
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	public String getLogicDbName() {
+		return logicDbName;
+	}
+
+	public void setLogicDbName(String logicDbName) {
+		this.logicDbName = logicDbName;
+	}
+
+	public String getShard() {
+		return shard;
+	}
+
+	public void setShard(String shard) {
+		this.shard = shard;
+	}
+
+	public String getDataSource() {
+		return dataSource;
+	}
+
+	public void setDataSource(String dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * @return fingerprint of the SQL
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	public void setSql(String sql) {
+		this.sql = sql;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public void setRowCount(int rowCount) {
+		this.rowCount = rowCount;
+	}
+
+	public boolean isSuccess() {
+		return success;
+	}
+}
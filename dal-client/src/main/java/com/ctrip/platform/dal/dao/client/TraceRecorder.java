@@ -0,0 +1,23 @@
+package com.ctrip.platform.dal.dao.client;
+
+/**
+ * Receive trace events of DAL. The default implementation emits them as Java Flight Recorder
+ * events. You can provide your own implementation by TraceEvent.setRecorder.
+ */
+public interface TraceRecorder {
+	/**
+	 * It is checked before each event is created, so it should be cheap.
+	 */
+	boolean isEnabled(TraceEvent.Type type);
+
+	/**
+	 * Called in the thread the event begins.
+	 * @return recorder specific state of the event, which can be got by TraceEvent.getHandle
+	 */
+	Object begin(TraceEvent.Type type);
+
+	/**
+	 * Called in the same thread of begin when the event ends.
+	 */
+	void commit(TraceEvent event);
+}
@@ -170,15 +170,21 @@ public class DalConfigureFactory implements DalConfigConstants {
             databases.put(database.getName(), database);
         }
 
+        DatabaseSet databaseSet;
         if (hasAttribute(databaseSetNode, SHARD_STRATEGY))
-            return new DatabaseSet(getAttribute(databaseSetNode, NAME), getAttribute(databaseSetNode, PROVIDER),
+            databaseSet = new DatabaseSet(getAttribute(databaseSetNode, NAME), getAttribute(databaseSetNode, PROVIDER),
                     getAttribute(databaseSetNode, SHARD_STRATEGY), databases);
         else if (hasAttribute(databaseSetNode, SHARDING_STRATEGY))
-            return new DatabaseSet(getAttribute(databaseSetNode, NAME), getAttribute(databaseSetNode, PROVIDER),
+            databaseSet = new DatabaseSet(getAttribute(databaseSetNode, NAME), getAttribute(databaseSetNode, PROVIDER),
                     getAttribute(databaseSetNode, SHARDING_STRATEGY), databases);
         else
-            return new DatabaseSet(getAttribute(databaseSetNode, NAME), getAttribute(databaseSetNode, PROVIDER),
+            databaseSet = new DatabaseSet(getAttribute(databaseSetNode, NAME), getAttribute(databaseSetNode, PROVIDER),
                     databases);
+
+        if (hasAttribute(databaseSetNode, MAX_CONCURRENCY))
+            databaseSet.setMaxConcurrency(Integer.parseInt(getAttribute(databaseSetNode, MAX_CONCURRENCY)));
+
+        return databaseSet;
     }
 
     private DataBase readDataBase(Node dataBaseNode) {
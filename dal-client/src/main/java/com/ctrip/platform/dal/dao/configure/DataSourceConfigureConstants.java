@@ -33,6 +33,9 @@ public interface DataSourceConfigureConstants {
     String OPTION = "option";
     String VALIDATORCLASSNAME = "validatorClassName";
 
+    // Max number of prepared statements cached per physical connection, 0 disables the cache
+    String STATEMENT_CACHE_SIZE = "statementCacheSize";
+
 
     boolean DEFAULT_TESTWHILEIDLE = false;
     boolean DEFAULT_TESTONBORROW = true;
@@ -53,7 +56,9 @@ public interface DataSourceConfigureConstants {
     int DEFAULT_MINEVICTABLEIDLETIMEMILLIS = 30000;
     String DEFAULT_CONNECTIONPROPERTIES = null;
     boolean DEFAULT_JMXENABLED = true;
+    int DEFAULT_STATEMENT_CACHE_SIZE = 0;
     String DEFAULT_JDBCINTERCEPTORS = "org.apache.tomcat.jdbc.pool.interceptor.ConnectionState;"
-            + "org.apache.tomcat.jdbc.pool.interceptor.StatementFinalizer";
+            + "org.apache.tomcat.jdbc.pool.interceptor.StatementFinalizer;"
+            + "com.ctrip.platform.dal.dao.datasource.PoolMetricsInterceptor";
 
 }
@@ -169,6 +169,7 @@ public class DataSourceConfigureParser implements DataSourceConfigureConstants {
         properties.add(VALIDATORCLASSNAME);
         properties.add(INIT_SQL);
         properties.add(INIT_SQL2);
+        properties.add(STATEMENT_CACHE_SIZE);
         processProperties(dataSourceConfigure, map, resource, properties);
 
         /**
@@ -2,6 +2,8 @@ package com.ctrip.platform.dal.dao.configure;
 
 import org.apache.tomcat.jdbc.pool.PoolProperties;
 
+import com.ctrip.platform.dal.dao.helper.PoolPropertiesHelper;
+
 @Deprecated
 public class DatabasePoolConfigParser implements DataSourceConfigureConstants {
     private static DatabasePoolConfigParser databasePoolConfigParser = null;
@@ -46,7 +48,7 @@ public class DatabasePoolConfigParser implements DataSourceConfigureConstants {
         poolProperties.setValidatorClassName(configure.getProperty(VALIDATORCLASSNAME, DEFAULT_VALIDATORCLASSNAME));
 
         poolProperties.setJmxEnabled(DEFAULT_JMXENABLED);
-        poolProperties.setJdbcInterceptors(DEFAULT_JDBCINTERCEPTORS);
+        poolProperties.setJdbcInterceptors(PoolPropertiesHelper.getInstance().getJdbcInterceptors(configure));
 
         return new DatabasePoolConfig(poolProperties);
     }
@@ -23,6 +23,7 @@ public class DatabaseSet {
 
 	private DalShardingStrategy strategy;
 	private Map<String, DataBase> databases;
+	private int maxConcurrency;
 	// Key is shard id, value is all database under in this shard
 	private Map<String, List<DataBase>> masterDbByShard = new HashMap<String, List<DataBase>>();
 	private Map<String, List<DataBase>> slaveDbByShard = new HashMap<String, List<DataBase>>();
@@ -97,6 +98,18 @@ public class DatabaseSet {
 		return name;
 	}
 
+	/**
+	 * @return max number of concurrent requests of this database set that can be executed by the
+	 * shared executor at the same time. 0 means there is no limit
+	 */
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	public void setMaxConcurrency(int maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+	}
+
 	public String getProvider() {
 		return provider;
 	}
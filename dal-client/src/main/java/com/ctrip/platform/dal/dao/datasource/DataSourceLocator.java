@@ -85,11 +85,22 @@ public class DataSourceLocator {
 
     public static Map<String, Integer> getActiveConnectionNumber() {
         Map<String, Integer> map = new HashMap<>();
+        for (Map.Entry<String, PoolMetrics> entry : getPoolMetrics().entrySet()) {
+            map.put(entry.getKey(), entry.getValue().getActive());
+        }
+
+        return map;
+    }
+
+    /**
+     * @return pool metrics of each created data source by real db source name
+     */
+    public static Map<String, PoolMetrics> getPoolMetrics() {
+        Map<String, PoolMetrics> map = new HashMap<>();
         for (Map.Entry<String, DataSource> entry : cache.entrySet()) {
             DataSource dataSource = entry.getValue();
-            if (dataSource instanceof org.apache.tomcat.jdbc.pool.DataSource) {
-                org.apache.tomcat.jdbc.pool.DataSource ds = (org.apache.tomcat.jdbc.pool.DataSource) dataSource;
-                map.put(entry.getKey(), ds.getActive());
+            if (dataSource instanceof RefreshableDataSource) {
+                map.put(entry.getKey(), ((RefreshableDataSource) dataSource).getPoolMetrics());
             }
         }
 
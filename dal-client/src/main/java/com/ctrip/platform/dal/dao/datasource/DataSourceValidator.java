@@ -14,6 +14,12 @@ public class DataSourceValidator implements Validator {
     private static final Logger LOGGER = LoggerFactory.getLogger(DataSourceValidator.class);
     private static final int DEFAULT_VALIDATE_TIMEOUT_IN_SECONDS = 5;
 
+    private volatile DefaultPoolMetrics poolMetrics;
+
+    void setPoolMetrics(DefaultPoolMetrics poolMetrics) {
+        this.poolMetrics = poolMetrics;
+    }
+
     @Override
     public boolean validate(Connection connection, int validateAction) {
         boolean isValid = false;
@@ -56,6 +62,9 @@ public class DataSourceValidator implements Validator {
             LOGGER.warn("Datasource validation error", ex);
         }
 
+        if (!isValid && poolMetrics != null)
+            poolMetrics.validationFailed();
+
         return isValid;
     }
 
@@ -0,0 +1,188 @@
+package com.ctrip.platform.dal.dao.datasource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.tomcat.jdbc.pool.DataSourceProxy;
+
+import com.ctrip.platform.dal.dao.status.LatencyHistogram;
+
+/**
+ * Pool metrics of tomcat jdbc pool. There is one instance for each real data source name, which is
+ * kept when the data source is refreshed, so that the metrics are continuous. Gauges are read from
+ * the current pool.
+ *
+ * Borrows are timed by RefreshableDataSource. Creation, validation failure and abandon are
+ * reported by PoolMetricsInterceptor and DataSourceValidator within the pool. Statement cache hit and
+ * miss are reported by StatementCacheInterceptor.
+ */
+public class DefaultPoolMetrics implements PoolMetrics {
+    private static final ConcurrentHashMap<String, DefaultPoolMetrics> metricsMap = new ConcurrentHashMap<>();
+
+    // Whether a connection is created during the current borrow of the thread
+    private static final ThreadLocal<boolean[]> createdInBorrow = new ThreadLocal<boolean[]>() {
+        @Override
+        protected boolean[] initialValue() {
+            return new boolean[1];
+        }
+    };
+
+    private String name;
+    private volatile DataSourceProxy pool;
+
+    private LatencyHistogram borrowWaitTime = new LatencyHistogram();
+    private LatencyHistogram creationTime = new LatencyHistogram();
+    private AtomicLong borrowFailureCount = new AtomicLong();
+    private AtomicLong createdCount = new AtomicLong();
+    private AtomicLong validationFailureCount = new AtomicLong();
+    private AtomicLong abandonedCount = new AtomicLong();
+    private AtomicLong statementCacheHitCount = new AtomicLong();
+    private AtomicLong statementCacheMissCount = new AtomicLong();
+
+    DefaultPoolMetrics(String name) {
+        this.name = name;
+    }
+
+    public static DefaultPoolMetrics getInstance(String name) {
+        DefaultPoolMetrics metrics = metricsMap.get(name);
+        if (metrics != null)
+            return metrics;
+
+        metrics = new DefaultPoolMetrics(name);
+        DefaultPoolMetrics existing = metricsMap.putIfAbsent(name, metrics);
+        return existing == null ? metrics : existing;
+    }
+
+    /**
+     * @return null if there is no data source created for the name
+     */
+    public static DefaultPoolMetrics get(String name) {
+        return name == null ? null : metricsMap.get(name);
+    }
+
+    public static Map<String, DefaultPoolMetrics> getAll() {
+        return metricsMap;
+    }
+
+    void setPool(DataSourceProxy pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @return start time of the borrow in nanoseconds
+     */
+    long beginBorrow() {
+        createdInBorrow.get()[0] = false;
+        return System.nanoTime();
+    }
+
+    void endBorrow(long start, boolean success) {
+        long cost = System.nanoTime() - start;
+        borrowWaitTime.record(cost);
+        if (!success)
+            borrowFailureCount.incrementAndGet();
+
+        boolean[] created = createdInBorrow.get();
+        if (created[0]) {
+            created[0] = false;
+            creationTime.record(cost);
+        }
+    }
+
+    void connectionCreated() {
+        createdCount.incrementAndGet();
+        createdInBorrow.get()[0] = true;
+    }
+
+    void validationFailed() {
+        validationFailureCount.incrementAndGet();
+    }
+
+    void connectionAbandoned() {
+        abandonedCount.incrementAndGet();
+    }
+
+    void statementCacheHit() {
+        statementCacheHitCount.incrementAndGet();
+    }
+
+    void statementCacheMissed() {
+        statementCacheMissCount.incrementAndGet();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getActive() {
+        DataSourceProxy current = pool;
+        return current == null ? 0 : current.getActive();
+    }
+
+    @Override
+    public int getIdle() {
+        DataSourceProxy current = pool;
+        return current == null ? 0 : current.getIdle();
+    }
+
+    @Override
+    public int getWaiting() {
+        DataSourceProxy current = pool;
+        return current == null ? 0 : current.getWaitCount();
+    }
+
+    @Override
+    public LatencyHistogram getBorrowWaitTime() {
+        return borrowWaitTime;
+    }
+
+    @Override
+    public long getBorrowFailureCount() {
+        return borrowFailureCount.get();
+    }
+
+    @Override
+    public LatencyHistogram getCreationTime() {
+        return creationTime;
+    }
+
+    @Override
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    @Override
+    public long getValidationFailureCount() {
+        return validationFailureCount.get();
+    }
+
+    @Override
+    public long getAbandonedCount() {
+        return abandonedCount.get();
+    }
+
+    @Override
+    public long getStatementCacheHitCount() {
+        return statementCacheHitCount.get();
+    }
+
+    @Override
+    public long getStatementCacheMissCount() {
+        return statementCacheMissCount.get();
+    }
+
+    @Override
+    public void reset() {
+        borrowWaitTime.reset();
+        creationTime.reset();
+        borrowFailureCount.set(0);
+        createdCount.set(0);
+        validationFailureCount.set(0);
+        abandonedCount.set(0);
+        statementCacheHitCount.set(0);
+        statementCacheMissCount.set(0);
+    }
+}
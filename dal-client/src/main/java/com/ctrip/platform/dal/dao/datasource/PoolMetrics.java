@@ -0,0 +1,57 @@
+package com.ctrip.platform.dal.dao.datasource;
+
+import com.ctrip.platform.dal.dao.status.LatencyHistogram;
+
+/**
+ * Metrics of the connection pool behind one real data source. Gauges reflect the pool at the time
+ * of calling, counters and histograms are accumulated since created or last reset. Latencies are in
+ * nanoseconds.
+ */
+public interface PoolMetrics {
+    String getName();
+
+    /**
+     * @return number of connections borrowed and not returned
+     */
+    int getActive();
+
+    int getIdle();
+
+    /**
+     * @return number of threads waiting for a connection
+     */
+    int getWaiting();
+
+    /**
+     * @return time spent on getting a connection from the pool, including creating it if needed
+     */
+    LatencyHistogram getBorrowWaitTime();
+
+    long getBorrowFailureCount();
+
+    /**
+     * @return time of borrows that have to create a new physical connection
+     */
+    LatencyHistogram getCreationTime();
+
+    /**
+     * @return number of physical connections created, including reconnects
+     */
+    long getCreatedCount();
+
+    long getValidationFailureCount();
+
+    /**
+     * @return number of connections closed by the pool while still borrowed
+     */
+    long getAbandonedCount();
+
+    /**
+     * @return number of prepared statements found in the statement cache of the connection
+     */
+    long getStatementCacheHitCount();
+
+    long getStatementCacheMissCount();
+
+    void reset();
+}
@@ -0,0 +1,59 @@
+package com.ctrip.platform.dal.dao.datasource;
+
+import java.lang.reflect.Method;
+
+import org.apache.tomcat.jdbc.pool.ConnectionPool;
+import org.apache.tomcat.jdbc.pool.JdbcInterceptor;
+import org.apache.tomcat.jdbc.pool.PooledConnection;
+
+/**
+ * Report connection creation and abandon of tomcat jdbc pool to DefaultPoolMetrics. The pool
+ * creates one interceptor for each pooled connection and resets it on every borrow, so the state
+ * of the connection can be kept in the interceptor.
+ *
+ * A physical connection is created if it is disconnected or the last connected time changes
+ * between borrows. A connection is abandoned if it is disconnected before closed by the borrower.
+ */
+public class PoolMetricsInterceptor extends JdbcInterceptor {
+    private DefaultPoolMetrics metrics;
+    private long lastConnected = -1;
+    private volatile boolean borrowed;
+
+    @Override
+    public void reset(ConnectionPool parent, PooledConnection con) {
+        // Called with null when the connection is released
+        if (parent == null || con == null)
+            return;
+
+        if (metrics == null)
+            metrics = DefaultPoolMetrics.get(parent.getName());
+
+        if (metrics == null)
+            return;
+
+        borrowed = true;
+        if (con.getLastConnected() != lastConnected) {
+            lastConnected = con.getLastConnected();
+            metrics.connectionCreated();
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (compare(CLOSE_VAL, method))
+            borrowed = false;
+
+        return super.invoke(proxy, method, args);
+    }
+
+    @Override
+    public void disconnected(ConnectionPool parent, PooledConnection con, boolean finalizing) {
+        if (borrowed && metrics != null)
+            metrics.connectionAbandoned();
+
+        borrowed = false;
+        // Reconnect may happen within the same millisecond
+        lastConnected = -1;
+        super.disconnected(parent, con, finalizing);
+    }
+}
@@ -17,10 +17,13 @@ import org.slf4j.LoggerFactory;
 public class RefreshableDataSource implements DataSource, DataSourceConfigureChangeListener {
     private static final Logger logger = LoggerFactory.getLogger(RefreshableDataSource.class);
     private AtomicReference<SingleDataSource> dataSourceReference = new AtomicReference<>();
+    private DefaultPoolMetrics poolMetrics;
 
     public RefreshableDataSource(String name, DataSourceConfigure config) throws SQLException {
         SingleDataSource dataSource = new SingleDataSource(name, config);
         dataSourceReference.set(dataSource);
+        // Metrics is shared by the data sources of the same name, so it survives refresh
+        poolMetrics = DefaultPoolMetrics.getInstance(name);
     }
 
     @Override
@@ -49,14 +52,34 @@ public class RefreshableDataSource implements DataSource, DataSourceConfigureCha
         return dataSource;
     }
 
+    public PoolMetrics getPoolMetrics() {
+        return poolMetrics;
+    }
+
     @Override
     public Connection getConnection() throws SQLException {
-        return getDataSource().getConnection();
+        long start = poolMetrics.beginBorrow();
+        boolean success = false;
+        try {
+            Connection connection = getDataSource().getConnection();
+            success = true;
+            return connection;
+        } finally {
+            poolMetrics.endBorrow(start, success);
+        }
     }
 
     @Override
     public Connection getConnection(String paramString1, String paramString2) throws SQLException {
-        return getDataSource().getConnection(paramString1, paramString2);
+        long start = poolMetrics.beginBorrow();
+        boolean success = false;
+        try {
+            Connection connection = getDataSource().getConnection(paramString1, paramString2);
+            success = true;
+            return connection;
+        } finally {
+            poolMetrics.endBorrow(start, success);
+        }
     }
 
     @Override
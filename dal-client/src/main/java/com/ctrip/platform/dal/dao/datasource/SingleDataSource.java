@@ -19,6 +19,7 @@ public class SingleDataSource implements DataSourceConfigureConstants {
     private String name;
     private DataSourceConfigure dataSourceConfigure;
     private DataSource dataSource;
+    private DefaultPoolMetrics poolMetrics;
     private Date enqueueTime;
 
     public String getName() {
@@ -41,6 +42,10 @@ public class SingleDataSource implements DataSourceConfigureConstants {
         return enqueueTime;
     }
 
+    public PoolMetrics getPoolMetrics() {
+        return poolMetrics;
+    }
+
     public SingleDataSource(String name, DataSourceConfigure dataSourceConfigure) throws SQLException {
         if (dataSourceConfigure == null)
             throw new SQLException("Can not find any connection configure for " + name);
@@ -48,13 +53,19 @@ public class SingleDataSource implements DataSourceConfigureConstants {
         try {
             this.name = name;
             this.dataSourceConfigure = dataSourceConfigure;
+            this.poolMetrics = DefaultPoolMetrics.getInstance(name);
 
             PoolProperties p = poolPropertiesHelper.convert(dataSourceConfigure);
+            // Pool name is used by PoolMetricsInterceptor to find the metrics
+            p.setName(name);
+            if (p.getValidator() instanceof DataSourceValidator)
+                ((DataSourceValidator) p.getValidator()).setPoolMetrics(poolMetrics);
             PoolPropertiesHolder.getInstance().setPoolProperties(p);
             org.apache.tomcat.jdbc.pool.DataSource dataSource = new org.apache.tomcat.jdbc.pool.DataSource(p);
             this.dataSource = dataSource;
 
             dataSource.createPool();
+            poolMetrics.setPool(dataSource);
             logger.info("Datasource[name=" + name + ", Driver=" + p.getDriverClassName() + "] created.");
         } catch (Throwable e) {
             logger.error(String.format("Error creating pool for data source %s", name), e);
@@ -0,0 +1,302 @@
+package com.ctrip.platform.dal.dao.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.tomcat.jdbc.pool.ConnectionPool;
+import org.apache.tomcat.jdbc.pool.JdbcInterceptor;
+import org.apache.tomcat.jdbc.pool.PoolProperties.InterceptorProperty;
+import org.apache.tomcat.jdbc.pool.PooledConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LRU cache of prepared statements for each pooled physical connection, so that the statement is not
+ * prepared and closed again for every execution. The statement is keyed by sql, result set type,
+ * result set concurrency and generated keys mode. Other forms of prepareStatement are not cached.
+ *
+ * A cached statement is taken out of the cache while it is used. Closing the returned statement clears
+ * its parameters and restores fetch size, max rows and query timeout, then puts it back. So a statement
+ * held open by the caller, e.g. for streaming result, is never shared. If the same sql is prepared while
+ * the statement is in use, a new one is prepared and it replaces the cached one only if there is none.
+ *
+ * The interceptor is only installed when the statementCacheSize property of the data source is greater than
+ * 0, and the size is passed as its "max" property. With server side prepare, each cached statement holds a
+ * prepared statement or cursor on the database, so the size should fit the limit of the database. Hit and
+ * miss are counted in DefaultPoolMetrics.
+ */
+public class StatementCacheInterceptor extends JdbcInterceptor {
+    public static final String MAX = "max";
+    public static final int DEFAULT_MAX = 50;
+
+    private static final String PREPARE_STATEMENT = "prepareStatement";
+    private static final Class<?>[] PROXY_INTERFACES = new Class<?>[] {PreparedStatement.class};
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementCacheInterceptor.class);
+
+    private int max = DEFAULT_MAX;
+    private DefaultPoolMetrics metrics;
+    private LinkedHashMap<StatementKey, CachedStatement> cache = new LinkedHashMap<StatementKey, CachedStatement>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<StatementKey, CachedStatement> eldest) {
+            if (size() <= max)
+                return false;
+
+            eldest.getValue().closeQuietly();
+            return true;
+        }
+    };
+
+    @Override
+    public void setProperties(Map<String, InterceptorProperty> properties) {
+        super.setProperties(properties);
+        InterceptorProperty p = properties.get(MAX);
+        if (p != null)
+            max = p.getValueAsInt(DEFAULT_MAX);
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    @Override
+    public void reset(ConnectionPool parent, PooledConnection con) {
+        // Called with null when the connection is released, the statements are kept for next borrow
+        if (parent == null || con == null)
+            return;
+
+        if (metrics == null)
+            metrics = DefaultPoolMetrics.get(parent.getName());
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (max <= 0 || !compare(PREPARE_STATEMENT, method))
+            return super.invoke(proxy, method, args);
+
+        StatementKey key = StatementKey.of(args);
+        if (key == null)
+            return super.invoke(proxy, method, args);
+
+        CachedStatement statement = checkout(key);
+        if (statement == null) {
+            PreparedStatement created = (PreparedStatement) super.invoke(proxy, method, args);
+            if (created == null)
+                return null;
+
+            statement = new CachedStatement(key, created);
+        }
+
+        return statement.open(proxy);
+    }
+
+    private synchronized CachedStatement checkout(StatementKey key) {
+        CachedStatement statement = cache.remove(key);
+        if (metrics != null) {
+            if (statement == null)
+                metrics.statementCacheMissed();
+            else
+                metrics.statementCacheHit();
+        }
+        return statement;
+    }
+
+    private synchronized boolean checkin(CachedStatement statement) {
+        if (cache.containsKey(statement.key))
+            return false;
+
+        cache.put(statement.key, statement);
+        return true;
+    }
+
+    /**
+     * @return number of statements in the cache, not including those in use
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    @Override
+    public void disconnected(ConnectionPool parent, PooledConnection con, boolean finalizing) {
+        List<CachedStatement> statements;
+        synchronized (this) {
+            statements = new ArrayList<>(cache.values());
+            cache.clear();
+        }
+
+        for (CachedStatement statement : statements)
+            statement.closeQuietly();
+
+        super.disconnected(parent, con, finalizing);
+    }
+
+    private static class StatementKey {
+        private final String sql;
+        private final int type;
+        private final int concurrency;
+        private final int autoGeneratedKeys;
+
+        private StatementKey(String sql, int type, int concurrency, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.type = type;
+            this.concurrency = concurrency;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        /**
+         * @return null if the form of prepareStatement is not cached
+         */
+        static StatementKey of(Object[] args) {
+            if (args == null || args.length == 0 || !(args[0] instanceof String))
+                return null;
+
+            String sql = (String) args[0];
+            if (args.length == 1)
+                return new StatementKey(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, Statement.NO_GENERATED_KEYS);
+
+            if (args.length == 2 && args[1] instanceof Integer)
+                return new StatementKey(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, (Integer) args[1]);
+
+            if (args.length == 3 && args[1] instanceof Integer && args[2] instanceof Integer)
+                return new StatementKey(sql, (Integer) args[1], (Integer) args[2], Statement.NO_GENERATED_KEYS);
+
+            return null;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof StatementKey))
+                return false;
+
+            StatementKey other = (StatementKey) obj;
+            return type == other.type && concurrency == other.concurrency
+                    && autoGeneratedKeys == other.autoGeneratedKeys && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((sql.hashCode() * 31 + type) * 31 + concurrency) * 31 + autoGeneratedKeys;
+        }
+    }
+
+    /**
+     * The physical statement and its settings when it is prepared
+     */
+    private class CachedStatement {
+        private final StatementKey key;
+        private final PreparedStatement delegate;
+        private final int fetchSize;
+        private final int maxRows;
+        private final int queryTimeout;
+
+        CachedStatement(StatementKey key, PreparedStatement delegate) throws SQLException {
+            this.key = key;
+            this.delegate = delegate;
+            this.fetchSize = delegate.getFetchSize();
+            this.maxRows = delegate.getMaxRows();
+            this.queryTimeout = delegate.getQueryTimeout();
+        }
+
+        /**
+         * @param connection the pooled connection returned to caller
+         * @return a new handle of the statement for one use
+         */
+        PreparedStatement open(Object connection) {
+            return (PreparedStatement) Proxy.newProxyInstance(StatementCacheInterceptor.class.getClassLoader(),
+                    PROXY_INTERFACES, new StatementHandle(this, connection));
+        }
+
+        void release() {
+            try {
+                ResultSet rs = delegate.getResultSet();
+                if (rs != null)
+                    rs.close();
+
+                delegate.clearParameters();
+                delegate.clearBatch();
+                delegate.clearWarnings();
+                if (delegate.getFetchSize() != fetchSize)
+                    delegate.setFetchSize(fetchSize);
+                if (delegate.getMaxRows() != maxRows)
+                    delegate.setMaxRows(maxRows);
+                if (delegate.getQueryTimeout() != queryTimeout)
+                    delegate.setQueryTimeout(queryTimeout);
+            } catch (Throwable e) {
+                closeQuietly();
+                return;
+            }
+
+            if (!checkin(this))
+                closeQuietly();
+        }
+
+        void closeQuietly() {
+            try {
+                delegate.close();
+            } catch (Throwable e) {
+                logger.warn("Close cached statement failed.", e);
+            }
+        }
+    }
+
+    /**
+     * The statement returned to caller. Closing it returns the statement to the cache. getConnection returns
+     * the pooled connection instead of the physical one, so that closing it returns the connection to the pool.
+     */
+    private static class StatementHandle implements InvocationHandler {
+        private CachedStatement statement;
+        private Object connection;
+
+        StatementHandle(CachedStatement statement, Object connection) {
+            this.statement = statement;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals"))
+                return proxy == args[0];
+            if (name.equals("hashCode"))
+                return System.identityHashCode(proxy);
+
+            CachedStatement current;
+            synchronized (this) {
+                current = statement;
+                if (name.equals("close"))
+                    statement = null;
+            }
+
+            if (name.equals("close")) {
+                if (current != null)
+                    current.release();
+                return null;
+            }
+
+            if (name.equals("isClosed") && current == null)
+                return true;
+
+            if (current == null)
+                throw new SQLException("Statement is closed.");
+
+            if (name.equals("getConnection"))
+                return connection;
+
+            try {
+                return method.invoke(current.delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.ctrip.platform.dal.dao.helper;
+
+/**
+ * Parser that can read the value of a single column from the entity. Tasks use it to bind parameters
+ * straight from the entity, so that the map returned by DalParser.getFields is not created.
+ */
+public interface ColumnValueReader<T> {
+	/**
+	 * @param columnIndex index of the column in DalParser.getColumnNames()
+	 * @return value of the column, can be null
+	 */
+	Object getColumnValue(T pojo, int columnIndex);
+}
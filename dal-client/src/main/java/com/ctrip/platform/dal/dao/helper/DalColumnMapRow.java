@@ -0,0 +1,325 @@
+package com.ctrip.platform.dal.dao.helper;
+
+import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Row of column name and value created by DalColumnMapRowMapper, or fields of entity created by
+ * DalDefaultJpaParser. It behaves the same as a LinkedHashMap of the columns, but all rows of a result
+ * set or entity class share one header of column names and positions, and the values are kept in a
+ * flat array. Values of numeric columns are kept in a primitive array and boxed
+ * again when they are read, so the returned Integer, Long, Double etc. is equal but not always identical.
+ *
+ * Setting the value of an existing column changes the array in place. Adding or removing a column
+ * converts the row to a LinkedHashMap internally, which is as expensive as before.
+ */
+public class DalColumnMapRow extends AbstractMap<String, Object> implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	// Markers of the type of value stored in numbers
+	private static final Object LONG = new Object();
+	private static final Object INTEGER = new Object();
+	private static final Object SHORT = new Object();
+	private static final Object BYTE = new Object();
+	private static final Object DOUBLE = new Object();
+	private static final Object FLOAT = new Object();
+
+	private Header header;
+	private Object[] values;
+	private long[] numbers;
+	private LinkedHashMap<String, Object> map;
+
+	private DalColumnMapRow(Header header, Object[] values, long[] numbers) {
+		this.header = header;
+		this.values = values;
+		this.numbers = numbers;
+	}
+
+	/**
+	 * Read current row of the result set. Columns are read in order, and the value of the last column
+	 * wins if there are columns of the same name.
+	 */
+	public static DalColumnMapRow read(Header header, ResultSet rs) throws SQLException {
+		Object[] values = new Object[header.keys.length];
+		long[] numbers = header.numberCount == 0 ? null : new long[header.numberCount];
+
+		for(int i = 0; i < header.slots.length; i++) {
+			int slot = header.slots[i];
+			int numberSlot = header.numberSlots[slot];
+			Object value = rs.getObject(i + 1);
+			values[slot] = numberSlot < 0 ? value : pack(value, numbers, numberSlot);
+		}
+
+		return new DalColumnMapRow(header, values, numbers);
+	}
+
+	/**
+	 * @param values value of each column in the order of the header, which is kept by the row
+	 */
+	static DalColumnMapRow create(Header header, Object[] values) {
+		if(values.length != header.keys.length)
+			throw new IllegalArgumentException("The number of values does not match the number of columns.");
+
+		return new DalColumnMapRow(header, values, null);
+	}
+
+	private static Object pack(Object value, long[] numbers, int numberSlot) {
+		if(value == null)
+			return null;
+
+		Class<?> type = value.getClass();
+		if(type == Long.class) {
+			numbers[numberSlot] = (Long)value;
+			return LONG;
+		}
+		if(type == Integer.class) {
+			numbers[numberSlot] = (Integer)value;
+			return INTEGER;
+		}
+		if(type == Short.class) {
+			numbers[numberSlot] = (Short)value;
+			return SHORT;
+		}
+		if(type == Byte.class) {
+			numbers[numberSlot] = (Byte)value;
+			return BYTE;
+		}
+		if(type == Double.class) {
+			numbers[numberSlot] = Double.doubleToRawLongBits((Double)value);
+			return DOUBLE;
+		}
+		if(type == Float.class) {
+			numbers[numberSlot] = Float.floatToRawIntBits((Float)value);
+			return FLOAT;
+		}
+
+		// Such as BigDecimal for unsigned BIGINT
+		return value;
+	}
+
+	private Object valueAt(int slot) {
+		Object value = values[slot];
+		if(value == null || header.numberSlots[slot] < 0)
+			return value;
+
+		long number = numbers[header.numberSlots[slot]];
+		if(value == LONG)
+			return number;
+		if(value == INTEGER)
+			return (int)number;
+		if(value == SHORT)
+			return (short)number;
+		if(value == BYTE)
+			return (byte)number;
+		if(value == DOUBLE)
+			return Double.longBitsToDouble(number);
+		if(value == FLOAT)
+			return Float.intBitsToFloat((int)number);
+
+		return value;
+	}
+
+	private LinkedHashMap<String, Object> toMap() {
+		if(map != null)
+			return map;
+
+		map = new LinkedHashMap<String, Object>(header.keys.length);
+		for(int i = 0; i < header.keys.length; i++)
+			map.put(header.keys[i], valueAt(i));
+
+		header = null;
+		values = null;
+		numbers = null;
+		return map;
+	}
+
+	@Override
+	public int size() {
+		return map == null ? header.keys.length : map.size();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return map == null ? header.positions.containsKey(key) : map.containsKey(key);
+	}
+
+	@Override
+	public Object get(Object key) {
+		if(map != null)
+			return map.get(key);
+
+		Integer slot = header.positions.get(key);
+		return slot == null ? null : valueAt(slot);
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		if(map == null) {
+			Integer slot = header.positions.get(key);
+			if(slot != null) {
+				Object oldValue = valueAt(slot);
+				values[slot] = value;
+				return oldValue;
+			}
+		}
+
+		return toMap().put(key, value);
+	}
+
+	@Override
+	public Object remove(Object key) {
+		return containsKey(key) ? toMap().remove(key) : null;
+	}
+
+	@Override
+	public void clear() {
+		toMap().clear();
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return new EntrySet();
+	}
+
+	/**
+	 * Serialized as LinkedHashMap to be compatible with the rows created before
+	 */
+	private Object writeReplace() {
+		return new LinkedHashMap<String, Object>(this);
+	}
+
+	private class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+		@Override
+		public int size() {
+			return DalColumnMapRow.this.size();
+		}
+
+		@Override
+		public Iterator<Map.Entry<String, Object>> iterator() {
+			if(map != null)
+				return map.entrySet().iterator();
+
+			final String[] keys = header.keys;
+			return new Iterator<Map.Entry<String, Object>>() {
+				private int next;
+
+				@Override
+				public boolean hasNext() {
+					return next < keys.length;
+				}
+
+				@Override
+				public Map.Entry<String, Object> next() {
+					if(next == keys.length)
+						throw new NoSuchElementException();
+
+					String key = keys[next++];
+					return new Entry(key, get(key));
+				}
+
+				@Override
+				public void remove() {
+					if(next == 0)
+						throw new IllegalStateException();
+					DalColumnMapRow.this.remove(keys[next - 1]);
+				}
+			};
+		}
+	}
+
+	private class Entry extends SimpleEntry<String, Object> {
+		private static final long serialVersionUID = 1L;
+
+		Entry(String key, Object value) {
+			super(key, value);
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			put(getKey(), value);
+			return super.setValue(value);
+		}
+	}
+
+	/**
+	 * Column names and positions shared by all rows of a result set or entity class
+	 */
+	public static class Header {
+		// Distinct column names in the order of first appearance
+		private String[] keys;
+		private Map<String, Integer> positions;
+		// Position of each column of the result set
+		private int[] slots;
+		// Position in the primitive array of each numeric column, or -1
+		private int[] numberSlots;
+		private int numberCount;
+
+		/**
+		 * Header of distinct column names, values are not kept in primitive array
+		 */
+		public Header(String[] names) {
+			keys = names.clone();
+			positions = new HashMap<String, Integer>(keys.length * 2);
+			slots = new int[keys.length];
+			numberSlots = new int[keys.length];
+			for(int i = 0; i < keys.length; i++) {
+				if(positions.put(keys[i], i) != null)
+					throw new IllegalArgumentException("Duplicate column name " + keys[i]);
+				slots[i] = i;
+				numberSlots[i] = -1;
+			}
+		}
+
+		public Header(ResultSetMetaData rsmd) throws SQLException {
+			int columnCount = rsmd.getColumnCount();
+			positions = new HashMap<String, Integer>(columnCount * 2);
+			slots = new int[columnCount];
+			boolean[] numeric = new boolean[columnCount];
+
+			for(int i = 0; i < columnCount; i++) {
+				String name = rsmd.getColumnName(i + 1);
+				Integer slot = positions.get(name);
+				if(slot == null) {
+					slot = positions.size();
+					positions.put(name, slot);
+				}
+				slots[i] = slot;
+				numeric[slot] |= isNumeric(rsmd.getColumnType(i + 1));
+			}
+
+			keys = new String[positions.size()];
+			for(Map.Entry<String, Integer> entry: positions.entrySet())
+				keys[entry.getValue()] = entry.getKey();
+
+			numberSlots = new int[keys.length];
+			for(int i = 0; i < keys.length; i++)
+				numberSlots[i] = numeric[i] ? numberCount++ : -1;
+		}
+
+		private static boolean isNumeric(int sqlType) {
+			switch (sqlType) {
+			case Types.BIGINT:
+			case Types.INTEGER:
+			case Types.SMALLINT:
+			case Types.TINYINT:
+			case Types.DOUBLE:
+			case Types.FLOAT:
+			case Types.REAL:
+				return true;
+			default:
+				return false;
+			}
+		}
+	}
+}
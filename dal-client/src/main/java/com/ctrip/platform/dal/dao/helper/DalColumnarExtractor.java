@@ -0,0 +1,83 @@
+package com.ctrip.platform.dal.dao.helper;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.ctrip.platform.dal.dao.DalResultSetExtractor;
+import com.ctrip.platform.dal.dao.helper.DalColumnarResult.ColumnType;
+
+/**
+ * Extract all rows into DalColumnarResult. Use with DalColumnarMerger for query in all or several shards.
+ *
+ * If column types are not given, they are decided by the result set meta data: integer types up to
+ * INTEGER are read as int, BIGINT as long, floating point types as double, DECIMAL and NUMERIC as
+ * BigDecimal and any other type as string. Unsigned INTEGER is widened to long and unsigned BIGINT to
+ * BigDecimal, so that values beyond the signed range can be read.
+ */
+public class DalColumnarExtractor implements DalResultSetExtractor<DalColumnarResult> {
+	private ColumnType[] types;
+	private boolean decimalAsDouble;
+
+	public DalColumnarExtractor() {
+	}
+
+	/**
+	 * @param decimalAsDouble read DECIMAL and NUMERIC as double, it is faster and takes less memory
+	 * but may lose precision
+	 */
+	public DalColumnarExtractor(boolean decimalAsDouble) {
+		this.decimalAsDouble = decimalAsDouble;
+	}
+
+	/**
+	 * @param types type of each column in order of the result set
+	 */
+	public DalColumnarExtractor(ColumnType... types) {
+		this.types = types;
+	}
+
+	@Override
+	public DalColumnarResult extract(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		if(types != null && types.length != columnCount)
+			throw new SQLException(String.format("The result set has %d columns but %d column types are given.", columnCount, types.length));
+
+		String[] names = new String[columnCount];
+		ColumnType[] columnTypes = types == null ? new ColumnType[columnCount] : types;
+		for(int i = 0; i < columnCount; i++) {
+			names[i] = rsmd.getColumnLabel(i + 1);
+			if(types == null)
+				columnTypes[i] = getColumnType(rsmd.getColumnType(i + 1), rsmd.isSigned(i + 1), decimalAsDouble);
+		}
+
+		DalColumnarResult result = new DalColumnarResult(names, columnTypes);
+		while(rs.next())
+			result.read(rs);
+
+		return result;
+	}
+
+	private static ColumnType getColumnType(int sqlType, boolean signed, boolean decimalAsDouble) {
+		switch (sqlType) {
+		case Types.INTEGER:
+			return signed ? ColumnType.INT : ColumnType.LONG;
+		case Types.SMALLINT:
+		case Types.TINYINT:
+			return ColumnType.INT;
+		case Types.BIGINT:
+			return signed ? ColumnType.LONG : ColumnType.DECIMAL;
+		case Types.DOUBLE:
+		case Types.FLOAT:
+		case Types.REAL:
+			return ColumnType.DOUBLE;
+		case Types.DECIMAL:
+		case Types.NUMERIC:
+			return decimalAsDouble ? ColumnType.DOUBLE : ColumnType.DECIMAL;
+		default:
+			return ColumnType.STRING;
+		}
+	}
+}
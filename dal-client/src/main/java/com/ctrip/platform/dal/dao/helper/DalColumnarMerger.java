@@ -0,0 +1,34 @@
+package com.ctrip.platform.dal.dao.helper;
+
+import java.sql.SQLException;
+
+import com.ctrip.platform.dal.dao.ResultMerger;
+
+/**
+ * Concatenate the columnar results of shards in the order they are added.
+ */
+public class DalColumnarMerger implements ResultMerger<DalColumnarResult> {
+	private DalColumnarResult result;
+
+	@Override
+	public void addPartial(String shard, DalColumnarResult partial) throws SQLException {
+		if(partial == null)
+			return;
+
+		if(result == null) {
+			result = partial;
+			return;
+		}
+
+		try {
+			result.append(partial);
+		} catch (IllegalArgumentException e) {
+			throw new SQLException("The result of shard " + shard + " has different columns.", e);
+		}
+	}
+
+	@Override
+	public DalColumnarResult merge() throws SQLException {
+		return result;
+	}
+}
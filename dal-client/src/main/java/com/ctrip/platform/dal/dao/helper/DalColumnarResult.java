@@ -0,0 +1,407 @@
+package com.ctrip.platform.dal.dao.helper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query result kept by column in primitive arrays instead of row objects. Values of a column
+ * are read by row number, null is recorded separately and read as 0 from the primitive arrays.
+ * String column is dictionary encoded, so repeated values share one String and one int per row.
+ *
+ * It is created by DalColumnarExtractor and the partials of shards are concatenated by
+ * DalColumnarMerger.
+ */
+public class DalColumnarResult {
+	public enum ColumnType {
+		LONG, INT, DOUBLE, DECIMAL, STRING
+	}
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private String[] names;
+	private Column[] columns;
+	private int rowCount;
+
+	public DalColumnarResult(String[] names, ColumnType[] types) {
+		if(names.length != types.length)
+			throw new IllegalArgumentException("The number of column names and types are not the same.");
+
+		this.names = names;
+		columns = new Column[types.length];
+		for(int i = 0; i < types.length; i++)
+			columns[i] = createColumn(types[i]);
+	}
+
+	private static Column createColumn(ColumnType type) {
+		switch (type) {
+		case LONG:
+			return new LongColumn();
+		case INT:
+			return new IntColumn();
+		case DOUBLE:
+			return new DoubleColumn();
+		case DECIMAL:
+			return new DecimalColumn();
+		default:
+			return new StringColumn();
+		}
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	public String[] getColumnNames() {
+		return names.clone();
+	}
+
+	public Column getColumn(int index) {
+		return columns[index];
+	}
+
+	public Column getColumn(String name) {
+		for(int i = 0; i < names.length; i++) {
+			if(names[i].equalsIgnoreCase(name))
+				return columns[i];
+		}
+		throw new IllegalArgumentException("Column " + name + " does not exist.");
+	}
+
+	public LongColumn getLongColumn(String name) {
+		return (LongColumn)getColumn(name);
+	}
+
+	public IntColumn getIntColumn(String name) {
+		return (IntColumn)getColumn(name);
+	}
+
+	public DoubleColumn getDoubleColumn(String name) {
+		return (DoubleColumn)getColumn(name);
+	}
+
+	public DecimalColumn getDecimalColumn(String name) {
+		return (DecimalColumn)getColumn(name);
+	}
+
+	public StringColumn getStringColumn(String name) {
+		return (StringColumn)getColumn(name);
+	}
+
+	/**
+	 * Append current row of the result set
+	 */
+	void read(ResultSet rs) throws SQLException {
+		for(int i = 0; i < columns.length; i++)
+			columns[i].read(rs, i + 1);
+		rowCount++;
+	}
+
+	/**
+	 * Append all rows of other result with the same columns
+	 */
+	void append(DalColumnarResult other) {
+		if(!Arrays.equals(names, other.names))
+			throw new IllegalArgumentException("Can not append result of different columns.");
+
+		for(int i = 0; i < columns.length; i++) {
+			if(columns[i].getClass() != other.columns[i].getClass())
+				throw new IllegalArgumentException("Can not append result of different column types.");
+		}
+
+		for(int i = 0; i < columns.length; i++)
+			columns[i].append(other.columns[i]);
+		rowCount += other.rowCount;
+	}
+
+	private static int grow(int capacity, int required) {
+		int newCapacity = capacity == 0 ? INITIAL_CAPACITY : capacity;
+		while(newCapacity < required)
+			newCapacity <<= 1;
+		return newCapacity;
+	}
+
+	public static abstract class Column {
+		protected int size;
+		private BitSet nulls;
+
+		public int size() {
+			return size;
+		}
+
+		public boolean isNull(int row) {
+			return nulls != null && nulls.get(row);
+		}
+
+		protected void setNull(int row) {
+			if(nulls == null)
+				nulls = new BitSet();
+			nulls.set(row);
+		}
+
+		protected void appendNulls(Column other) {
+			if(other.nulls == null)
+				return;
+			for(int i = other.nulls.nextSetBit(0); i >= 0; i = other.nulls.nextSetBit(i + 1))
+				setNull(size + i);
+		}
+
+		/**
+		 * @return the value or null, for check or display only
+		 */
+		public abstract Object getObject(int row);
+
+		abstract void read(ResultSet rs, int index) throws SQLException;
+
+		abstract void append(Column other);
+	}
+
+	public static class LongColumn extends Column {
+		private long[] values = new long[0];
+
+		public long get(int row) {
+			return values[row];
+		}
+
+		public long[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+
+		@Override
+		public Object getObject(int row) {
+			return isNull(row) ? null : values[row];
+		}
+
+		@Override
+		void read(ResultSet rs, int index) throws SQLException {
+			ensureCapacity(size + 1);
+			values[size] = rs.getLong(index);
+			if(rs.wasNull())
+				setNull(size);
+			size++;
+		}
+
+		@Override
+		void append(Column other) {
+			LongColumn column = (LongColumn)other;
+			ensureCapacity(size + column.size);
+			System.arraycopy(column.values, 0, values, size, column.size);
+			appendNulls(column);
+			size += column.size;
+		}
+
+		private void ensureCapacity(int required) {
+			if(required > values.length)
+				values = Arrays.copyOf(values, grow(values.length, required));
+		}
+	}
+
+	public static class IntColumn extends Column {
+		private int[] values = new int[0];
+
+		public int get(int row) {
+			return values[row];
+		}
+
+		public int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+
+		@Override
+		public Object getObject(int row) {
+			return isNull(row) ? null : values[row];
+		}
+
+		@Override
+		void read(ResultSet rs, int index) throws SQLException {
+			ensureCapacity(size + 1);
+			values[size] = rs.getInt(index);
+			if(rs.wasNull())
+				setNull(size);
+			size++;
+		}
+
+		@Override
+		void append(Column other) {
+			IntColumn column = (IntColumn)other;
+			ensureCapacity(size + column.size);
+			System.arraycopy(column.values, 0, values, size, column.size);
+			appendNulls(column);
+			size += column.size;
+		}
+
+		private void ensureCapacity(int required) {
+			if(required > values.length)
+				values = Arrays.copyOf(values, grow(values.length, required));
+		}
+	}
+
+	public static class DoubleColumn extends Column {
+		private double[] values = new double[0];
+
+		public double get(int row) {
+			return values[row];
+		}
+
+		public double[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+
+		@Override
+		public Object getObject(int row) {
+			return isNull(row) ? null : values[row];
+		}
+
+		@Override
+		void read(ResultSet rs, int index) throws SQLException {
+			ensureCapacity(size + 1);
+			values[size] = rs.getDouble(index);
+			if(rs.wasNull())
+				setNull(size);
+			size++;
+		}
+
+		@Override
+		void append(Column other) {
+			DoubleColumn column = (DoubleColumn)other;
+			ensureCapacity(size + column.size);
+			System.arraycopy(column.values, 0, values, size, column.size);
+			appendNulls(column);
+			size += column.size;
+		}
+
+		private void ensureCapacity(int required) {
+			if(required > values.length)
+				values = Arrays.copyOf(values, grow(values.length, required));
+		}
+	}
+
+	/**
+	 * Values are kept as BigDecimal without losing precision, null is kept as null
+	 */
+	public static class DecimalColumn extends Column {
+		private BigDecimal[] values = new BigDecimal[0];
+
+		public BigDecimal get(int row) {
+			return values[row];
+		}
+
+		public BigDecimal[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+
+		@Override
+		public Object getObject(int row) {
+			return values[row];
+		}
+
+		@Override
+		void read(ResultSet rs, int index) throws SQLException {
+			ensureCapacity(size + 1);
+			values[size] = rs.getBigDecimal(index);
+			if(values[size] == null)
+				setNull(size);
+			size++;
+		}
+
+		@Override
+		void append(Column other) {
+			DecimalColumn column = (DecimalColumn)other;
+			ensureCapacity(size + column.size);
+			System.arraycopy(column.values, 0, values, size, column.size);
+			appendNulls(column);
+			size += column.size;
+		}
+
+		private void ensureCapacity(int required) {
+			if(required > values.length)
+				values = Arrays.copyOf(values, grow(values.length, required));
+		}
+	}
+
+	/**
+	 * Each row keeps the code of the value in the dictionary, null is kept as -1
+	 */
+	public static class StringColumn extends Column {
+		private int[] codes = new int[0];
+		private List<String> dictionary = new ArrayList<>();
+		private Map<String, Integer> dictionaryCodes = new HashMap<>();
+
+		public String get(int row) {
+			int code = codes[row];
+			return code < 0 ? null : dictionary.get(code);
+		}
+
+		/**
+		 * @return the code of the value in the dictionary, or -1 for null
+		 */
+		public int getCode(int row) {
+			return codes[row];
+		}
+
+		public List<String> getDictionary() {
+			return Collections.unmodifiableList(dictionary);
+		}
+
+		@Override
+		public Object getObject(int row) {
+			return get(row);
+		}
+
+		@Override
+		void read(ResultSet rs, int index) throws SQLException {
+			ensureCapacity(size + 1);
+			String value = rs.getString(index);
+			if(value == null)
+				setNull(size);
+			codes[size++] = encode(value);
+		}
+
+		@Override
+		void append(Column other) {
+			StringColumn column = (StringColumn)other;
+			ensureCapacity(size + column.size);
+
+			// Codes of the other dictionary in this dictionary
+			int[] mapping = new int[column.dictionary.size()];
+			for(int i = 0; i < mapping.length; i++)
+				mapping[i] = encode(column.dictionary.get(i));
+
+			for(int i = 0; i < column.size; i++) {
+				int code = column.codes[i];
+				codes[size + i] = code < 0 ? code : mapping[code];
+			}
+			appendNulls(column);
+			size += column.size;
+		}
+
+		private int encode(String value) {
+			if(value == null)
+				return -1;
+
+			Integer code = dictionaryCodes.get(value);
+			if(code == null) {
+				code = dictionary.size();
+				dictionary.add(value);
+				dictionaryCodes.put(value, code);
+			}
+			return code;
+		}
+
+		private void ensureCapacity(int required) {
+			if(required > codes.length)
+				codes = Arrays.copyOf(codes, grow(codes.length, required));
+		}
+	}
+}
@@ -101,10 +101,16 @@ public class DalDefaultJpaMapper<T> implements DalRowMapper<T>, CustomizableMapp
         return new DalDefaultJpaMapper<T>(this, columns);
     }
     
+	/**
+	 * The returned mapper is specialised for the columns of the result set if possible,
+	 * otherwise it maps by column name and reflection as before.
+	 */
 	@Override
 	public DalRowMapper<T> mapWith(ResultSet rs, DalHints hints)
 			throws SQLException {
-		return new DalDefaultJpaMapper<T>(this, rs, hints);
+		DalDefaultJpaMapper<T> mapper = new DalDefaultJpaMapper<T>(this, rs, hints);
+		DalRowMapper<T> fastMapper = FastJpaMapperFactory.create(clazz, fieldsMap, mapper.columnNames, mapper.ignorMissingFields, rs);
+		return fastMapper == null ? mapper : fastMapper;
 	}
 	
     /**
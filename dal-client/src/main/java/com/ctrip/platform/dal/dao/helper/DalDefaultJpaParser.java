@@ -3,7 +3,6 @@ package com.ctrip.platform.dal.dao.helper;
 import java.lang.reflect.Field;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.ctrip.platform.dal.dao.DalHints;
@@ -15,13 +14,18 @@ import com.ctrip.platform.dal.dao.DalRowMapper;
  * 	1.The entity must contain non-parameters constructor.
  *  2.Each field of the entity must declare the SqlType annotation.
  */
-public class DalDefaultJpaParser<T> extends AbstractDalParser<T> implements CustomizableMapper<T> {
+public class DalDefaultJpaParser<T> extends AbstractDalParser<T> implements CustomizableMapper<T>, ColumnValueReader<T> {
 	
 	private Map<String, Field> fieldsMap;
 	private Class<T> clazz;
 	private Field identity;
 	private boolean autoIncrement;
 	private DalDefaultJpaMapper<T> rowMapper;
+	// Fields in the order of columns and primary keys, so that the values can be read without lookup by name
+	private Field[] columnFields;
+	private Field[] primaryKeyFields;
+	private DalColumnMapRow.Header columnsHeader;
+	private DalColumnMapRow.Header primaryKeysHeader;
 	
 	public DalDefaultJpaParser(Class<T> clazz) throws SQLException {
 		EntityManager manager = EntityManager.getEntityManager(clazz);
@@ -40,6 +44,17 @@ public class DalDefaultJpaParser<T> extends AbstractDalParser<T> implements Cust
 		this.versionColumn = manager.getVersionColumn();
 		this.updatableColumnNames = manager.getUpdatableColumnNames();
 		this.insertableColumnNames = manager.getInsertableColumnNames();
+		this.columnFields = getFields(columns);
+		this.primaryKeyFields = getFields(primaryKeyColumns);
+		this.columnsHeader = new DalColumnMapRow.Header(columns);
+		this.primaryKeysHeader = new DalColumnMapRow.Header(primaryKeyColumns);
+	}
+	
+	private Field[] getFields(String[] columnNames) {
+		Field[] fields = new Field[columnNames.length];
+		for (int i = 0; i < columnNames.length; i++)
+			fields[i] = fieldsMap.get(columnNames[i]);
+		return fields;
 	}
 	
 	/**
@@ -92,24 +107,35 @@ public class DalDefaultJpaParser<T> extends AbstractDalParser<T> implements Cust
 
 	@Override
 	public Map<String, ?> getPrimaryKeys(T pojo) {
-		return getFields(getPrimaryKeyNames(), pojo);
+		return getFields(primaryKeysHeader, primaryKeyFields, pojo);
 	}
 
 	@Override
 	public Map<String, ?> getFields(T pojo) {
-		return getFields(getColumnNames(), pojo);
+		return getFields(columnsHeader, columnFields, pojo);
 	}
 	
-	private Map<String, ?> getFields(String[] columnNames, T pojo) {
-		Map<String, Object> map = new LinkedHashMap<String, Object>();
-		for (String columnName: columnNames) {
-			try {
-				map.put(columnName, fieldsMap.get(columnName).get(pojo));
-			} catch (Throwable e) {
-				throw new RuntimeException(e);
-			}
+	/**
+	 * The returned map shares the column names of the entity class and only keeps the values.
+	 */
+	private Map<String, ?> getFields(DalColumnMapRow.Header header, Field[] fields, T pojo) {
+		Object[] values = new Object[fields.length];
+		try {
+			for (int i = 0; i < fields.length; i++)
+				values[i] = fields[i].get(pojo);
+		} catch (Throwable e) {
+			throw new RuntimeException(e);
+		}
+		return DalColumnMapRow.create(header, values);
+	}
+
+	@Override
+	public Object getColumnValue(T pojo, int columnIndex) {
+		try {
+			return columnFields[columnIndex].get(pojo);
+		} catch (Throwable e) {
+			throw new RuntimeException(e);
 		}
-		return map;
 	}
 
 	@Override
@@ -0,0 +1,57 @@
+package com.ctrip.platform.dal.dao.helper;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLException;
+
+import com.ctrip.platform.dal.dao.DalParser;
+import com.ctrip.platform.dal.exceptions.DalException;
+import com.ctrip.platform.dal.exceptions.ErrorCode;
+
+/**
+ * Create parser for entity class. If the parser of the entity is generated by dal-processor at compile
+ * time, which is named as entity class name with suffix _DalParser in the same package, the generated
+ * parser is used. Otherwise DalDefaultJpaParser is used.
+ */
+public class DalParserFactory {
+	public static final String GENERATED_PARSER_SUFFIX = "_DalParser";
+
+	public static <T> DalParser<T> create(Class<T> clazz) throws SQLException {
+		DalParser<T> parser = createGenerated(clazz, new Class<?>[0]);
+		return parser == null ? new DalDefaultJpaParser<T>(clazz) : parser;
+	}
+
+	public static <T> DalParser<T> create(Class<T> clazz, String dataBaseName) throws SQLException {
+		DalParser<T> parser = createGenerated(clazz, new Class<?>[]{String.class}, dataBaseName);
+		return parser == null ? new DalDefaultJpaParser<T>(clazz, dataBaseName) : parser;
+	}
+
+	public static <T> DalParser<T> create(Class<T> clazz, String dataBaseName, String tableName) throws SQLException {
+		DalParser<T> parser = createGenerated(clazz, new Class<?>[]{String.class, String.class}, dataBaseName, tableName);
+		return parser == null ? new DalDefaultJpaParser<T>(clazz, dataBaseName, tableName) : parser;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> DalParser<T> createGenerated(Class<T> clazz, Class<?>[] parameterTypes, Object... args) throws SQLException {
+		Class<?> parserClass;
+		try {
+			parserClass = Class.forName(clazz.getName() + GENERATED_PARSER_SUFFIX, true, clazz.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+
+		if(!GeneratedDalParser.class.isAssignableFrom(parserClass))
+			return null;
+
+		try {
+			Constructor<?> constructor = parserClass.getConstructor(parameterTypes);
+			return (DalParser<T>)constructor.newInstance(args);
+		} catch (InvocationTargetException e) {
+			if(e.getCause() instanceof SQLException)
+				throw (SQLException)e.getCause();
+			throw DalException.wrap(ErrorCode.Unknown, e.getCause());
+		} catch (Throwable e) {
+			throw DalException.wrap(ErrorCode.Unknown, e);
+		}
+	}
+}
@@ -5,14 +5,24 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
 
 import com.ctrip.platform.dal.dao.ResultMerger;
 
+/**
+ * Merge partial results from shards and return the rows in range of [start, start + count).
+ * 
+ * If comparator is given, the partials are merged by a heap based k-way merge which stops as
+ * soon as start + count rows are reached. Partials that are already sorted, e.g. returned by
+ * a SQL with ORDER BY, are used as is. Otherwise the partial is sorted before merge. For rows
+ * that are equal, the order is the same as the shard and row order of the partials.
+ */
 public class DalRangedResultMerger<T> implements ResultMerger<List<T>>{
 	private Comparator<T> comparator;
 	private int start;
 	private int count;
-	private List<T> results = new ArrayList<>();
+	private List<List<T>> partials = new ArrayList<>();
 	
 	// Select top
 	public DalRangedResultMerger(int count) {
@@ -42,18 +52,94 @@ public class DalRangedResultMerger<T> implements ResultMerger<List<T>>{
 	
 	@Override
 	public void addPartial(String shard, List<T> partial) throws SQLException {
-		if(partial!=null)
-			results.addAll(partial);
+		if(partial == null || partial.isEmpty())
+			return;
+
+		if(comparator != null && !isSorted(partial)) {
+			partial = new ArrayList<>(partial);
+			Collections.sort(partial, comparator);
+		} else if(!(partial instanceof RandomAccess)) {
+			partial = new ArrayList<>(partial);
+		}
+
+		partials.add(partial);
 	}
 
 	@Override
 	public List<T> merge() throws SQLException {
-		if(comparator != null)
-			Collections.sort(results, comparator);
+		long limit = (long)start + count;
+		List<T> results = new ArrayList<>();
+
+		if(comparator == null) {
+			int index = 0;
+			for(List<T> partial: partials) {
+				for(T row: partial) {
+					if(index >= limit)
+						return results;
+					if(index++ >= start)
+						results.add(row);
+				}
+			}
+			return results;
+		}
+
+		PriorityQueue<Cursor<T>> heap = new PriorityQueue<>(partials.size(), new CursorComparator());
+		for(int i = 0; i < partials.size(); i++)
+			heap.add(new Cursor<>(i, partials.get(i)));
+
+		int index = 0;
+		while(!heap.isEmpty() && index < limit) {
+			Cursor<T> cursor = heap.poll();
+			if(index++ >= start)
+				results.add(cursor.current());
+
+			if(cursor.next())
+				heap.add(cursor);
+		}
+
+		return results;
+	}
+
+	private boolean isSorted(List<T> partial) {
+		T previous = null;
+		boolean first = true;
+		for(T row: partial) {
+			if(!first && comparator.compare(previous, row) > 0)
+				return false;
+			first = false;
+			previous = row;
+		}
+		return true;
+	}
+
+	private static class Cursor<T> {
+		private int order;
+		private List<T> rows;
+		private int position;
+
+		Cursor(int order, List<T> rows) {
+			this.order = order;
+			this.rows = rows;
+		}
+
+		T current() {
+			return rows.get(position);
+		}
+
+		boolean next() {
+			return ++position < rows.size();
+		}
+	}
+
+	private class CursorComparator implements Comparator<Cursor<T>> {
+		@Override
+		public int compare(Cursor<T> o1, Cursor<T> o2) {
+			int result = comparator.compare(o1.current(), o2.current());
+			if(result != 0)
+				return result;
 
-		if(start >= results.size())
-			return new ArrayList<>();
-			
-		return start + count > results.size() ? results.subList(start, results.size()) : results.subList(start, start + count);
+			// Keep the same order as the partials are added
+			return o1.order - o2.order;
+		}
 	}
 }
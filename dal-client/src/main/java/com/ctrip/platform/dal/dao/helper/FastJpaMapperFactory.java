@@ -0,0 +1,305 @@
+package com.ctrip.platform.dal.dao.helper;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.ctrip.platform.dal.dao.DalRowMapper;
+import com.ctrip.platform.dal.dao.UpdatableEntity;
+import com.ctrip.platform.dal.exceptions.DalException;
+import com.ctrip.platform.dal.exceptions.ErrorCode;
+
+/**
+ * Create row mappers specialised for an entity class and the columns of a result set.
+ *
+ * The type dispatch of each column is resolved into a typed reader once per entity class and
+ * column list, and the column indexes are resolved once per result set. So mapping a row only
+ * reads each column by index with the typed getter and writes the field, without looking up
+ * labels or checking types per cell.
+ *
+ * DalDefaultJpaMapper is still used if the columns can not be mapped this way, so that the error
+ * is reported the same way when mapping rows.
+ */
+public class FastJpaMapperFactory {
+	private static final int MAX_CACHED_LAYOUTS = 10000;
+
+	private static ConcurrentHashMap<Layout, ColumnReader[]> readersCache = new ConcurrentHashMap<>();
+	private static ConcurrentHashMap<Class<?>, Constructor<?>> constructorCache = new ConcurrentHashMap<>();
+
+	/**
+	 * @return null if there is missing field or column, or the entity has no default constructor
+	 */
+	public static <T> DalRowMapper<T> create(Class<T> clazz, Map<String, Field> fieldsMap, String[] columnNames,
+			boolean ignoreMissingFields, ResultSet rs) throws SQLException {
+		Constructor<T> constructor = getConstructor(clazz);
+		if(constructor == null)
+			return null;
+
+		ColumnReader[] readers = getReaders(clazz, fieldsMap, columnNames);
+		int[] indexes = new int[columnNames.length];
+		for(int i = 0; i < columnNames.length; i++) {
+			if(readers[i] == null) {
+				if(ignoreMissingFields)
+					continue;
+				return null;
+			}
+
+			try {
+				indexes[i] = rs.findColumn(columnNames[i]);
+			} catch (SQLException e) {
+				return null;
+			}
+		}
+
+		return new FastJpaMapper<T>(constructor, readers, indexes);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Constructor<T> getConstructor(Class<T> clazz) {
+		Constructor<?> constructor = constructorCache.get(clazz);
+		if(constructor != null)
+			return (Constructor<T>)constructor;
+
+		try {
+			constructor = clazz.getDeclaredConstructor();
+			constructor.setAccessible(true);
+		} catch (Throwable e) {
+			return null;
+		}
+
+		constructorCache.putIfAbsent(clazz, constructor);
+		return (Constructor<T>)constructor;
+	}
+
+	private static ColumnReader[] getReaders(Class<?> clazz, Map<String, Field> fieldsMap, String[] columnNames) {
+		Layout layout = new Layout(clazz, columnNames);
+		ColumnReader[] readers = readersCache.get(layout);
+		if(readers != null)
+			return readers;
+
+		readers = new ColumnReader[columnNames.length];
+		for(int i = 0; i < columnNames.length; i++) {
+			Field field = fieldsMap.get(columnNames[i]);
+			readers[i] = field == null ? null : createReader(field);
+		}
+
+		if(readersCache.size() < MAX_CACHED_LAYOUTS)
+			readersCache.putIfAbsent(new Layout(clazz, columnNames.clone()), readers);
+
+		return readers;
+	}
+
+	private static ColumnReader createReader(Field field) {
+		Class<?> type = field.getType();
+		if(type == Long.class || type == long.class)
+			return new LongReader(field);
+		if(type == Integer.class || type == int.class)
+			return new IntReader(field);
+		if(type == Double.class || type == double.class)
+			return new DoubleReader(field);
+		if(type == Float.class || type == float.class)
+			return new FloatReader(field);
+		if(type == Byte.class || type == byte.class)
+			return new ByteReader(field);
+		if(type == Short.class || type == short.class)
+			return new ShortReader(field);
+		if(type == java.sql.Timestamp.class)
+			return new TimestampReader(field);
+		return new ObjectReader(field);
+	}
+
+	private static class FastJpaMapper<T> implements DalRowMapper<T> {
+		private Constructor<T> constructor;
+		private ColumnReader[] readers;
+		private int[] indexes;
+
+		FastJpaMapper(Constructor<T> constructor, ColumnReader[] readers, int[] indexes) {
+			this.constructor = constructor;
+			this.readers = readers;
+			this.indexes = indexes;
+		}
+
+		@Override
+		public T map(ResultSet rs, int rowNum) throws SQLException {
+			try {
+				T instance = constructor.newInstance();
+				for(int i = 0; i < readers.length; i++) {
+					if(readers[i] != null)
+						readers[i].read(instance, rs, indexes[i]);
+				}
+
+				if(instance instanceof UpdatableEntity)
+					((UpdatableEntity)instance).reset();
+
+				return instance;
+			} catch (Throwable e) {
+				throw DalException.wrap(ErrorCode.ResultMappingError, e);
+			}
+		}
+	}
+
+	/**
+	 * Null value is set as is, so that primitive field fails the same way as DalDefaultJpaMapper.
+	 * Integral values are read as long and narrowed like Number.intValue() does.
+	 */
+	private static abstract class ColumnReader {
+		protected Field field;
+		protected boolean primitive;
+
+		ColumnReader(Field field) {
+			this.field = field;
+			this.primitive = field.getType().isPrimitive();
+		}
+
+		abstract void read(Object entity, ResultSet rs, int index) throws Exception;
+	}
+
+	private static class LongReader extends ColumnReader {
+		LongReader(Field field) {
+			super(field);
+		}
+
+		void read(Object entity, ResultSet rs, int index) throws Exception {
+			long value = rs.getLong(index);
+			if(rs.wasNull())
+				field.set(entity, null);
+			else if(primitive)
+				field.setLong(entity, value);
+			else
+				field.set(entity, value);
+		}
+	}
+
+	private static class IntReader extends ColumnReader {
+		IntReader(Field field) {
+			super(field);
+		}
+
+		void read(Object entity, ResultSet rs, int index) throws Exception {
+			int value = (int)rs.getLong(index);
+			if(rs.wasNull())
+				field.set(entity, null);
+			else if(primitive)
+				field.setInt(entity, value);
+			else
+				field.set(entity, value);
+		}
+	}
+
+	private static class ShortReader extends ColumnReader {
+		ShortReader(Field field) {
+			super(field);
+		}
+
+		void read(Object entity, ResultSet rs, int index) throws Exception {
+			short value = (short)rs.getLong(index);
+			if(rs.wasNull())
+				field.set(entity, null);
+			else if(primitive)
+				field.setShort(entity, value);
+			else
+				field.set(entity, value);
+		}
+	}
+
+	private static class ByteReader extends ColumnReader {
+		ByteReader(Field field) {
+			super(field);
+		}
+
+		void read(Object entity, ResultSet rs, int index) throws Exception {
+			byte value = (byte)rs.getLong(index);
+			if(rs.wasNull())
+				field.set(entity, null);
+			else if(primitive)
+				field.setByte(entity, value);
+			else
+				field.set(entity, value);
+		}
+	}
+
+	private static class DoubleReader extends ColumnReader {
+		DoubleReader(Field field) {
+			super(field);
+		}
+
+		void read(Object entity, ResultSet rs, int index) throws Exception {
+			double value = rs.getDouble(index);
+			if(rs.wasNull())
+				field.set(entity, null);
+			else if(primitive)
+				field.setDouble(entity, value);
+			else
+				field.set(entity, value);
+		}
+	}
+
+	private static class FloatReader extends ColumnReader {
+		FloatReader(Field field) {
+			super(field);
+		}
+
+		void read(Object entity, ResultSet rs, int index) throws Exception {
+			float value = rs.getFloat(index);
+			if(rs.wasNull())
+				field.set(entity, null);
+			else if(primitive)
+				field.setFloat(entity, value);
+			else
+				field.set(entity, value);
+		}
+	}
+
+	/**
+	 * Oracle returns its own Timestamp type from getObject, so getTimestamp is always used
+	 */
+	private static class TimestampReader extends ColumnReader {
+		TimestampReader(Field field) {
+			super(field);
+		}
+
+		void read(Object entity, ResultSet rs, int index) throws Exception {
+			field.set(entity, rs.getTimestamp(index));
+		}
+	}
+
+	private static class ObjectReader extends ColumnReader {
+		ObjectReader(Field field) {
+			super(field);
+		}
+
+		void read(Object entity, ResultSet rs, int index) throws Exception {
+			field.set(entity, rs.getObject(index));
+		}
+	}
+
+	private static class Layout {
+		private Class<?> clazz;
+		private String[] columnNames;
+		private int hash;
+
+		Layout(Class<?> clazz, String[] columnNames) {
+			this.clazz = clazz;
+			this.columnNames = columnNames;
+			this.hash = 31 * clazz.hashCode() + Arrays.hashCode(columnNames);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Layout))
+				return false;
+
+			Layout other = (Layout)obj;
+			return clazz == other.clazz && Arrays.equals(columnNames, other.columnNames);
+		}
+	}
+}
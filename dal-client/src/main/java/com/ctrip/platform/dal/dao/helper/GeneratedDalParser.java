@@ -0,0 +1,225 @@
+package com.ctrip.platform.dal.dao.helper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Map;
+
+import com.ctrip.platform.dal.dao.DalHintEnum;
+import com.ctrip.platform.dal.dao.DalHints;
+import com.ctrip.platform.dal.dao.DalRowMapper;
+import com.ctrip.platform.dal.dao.UpdatableEntity;
+import com.ctrip.platform.dal.exceptions.DalException;
+import com.ctrip.platform.dal.exceptions.ErrorCode;
+
+/**
+ * Base class of the parsers generated by dal-processor at compile time. The entity meta data is given
+ * by the generated constructor, and the generated code reads and writes the entity by its fields or
+ * getters and setters, so that no reflection is needed.
+ *
+ * Partial query and other customized mapping are delegated to DalDefaultJpaMapper.
+ *
+ * @see DalParserFactory
+ */
+public abstract class GeneratedDalParser<T> extends AbstractDalParser<T> implements CustomizableMapper<T>, ColumnValueReader<T> {
+	private Class<T> clazz;
+	private boolean autoIncrement;
+	private int identityIndex = -1;
+	private int[] primaryKeyIndexes;
+	private DalColumnMapRow.Header columnsHeader;
+	private DalColumnMapRow.Header primaryKeysHeader;
+	private volatile DalDefaultJpaMapper<T> customMapper;
+
+	protected GeneratedDalParser(
+			Class<T> clazz,
+			String dataBaseName,
+			String tableName,
+			String[] columns,
+			String[] primaryKeyColumns,
+			int[] columnTypes,
+			String[] sensitiveColumnNames,
+			String versionColumn,
+			String[] updatableColumnNames,
+			String[] insertableColumnNames,
+			boolean autoIncrement,
+			String identityColumn) throws SQLException {
+		super(dataBaseName, tableName, columns, primaryKeyColumns, columnTypes, sensitiveColumnNames, versionColumn,
+				updatableColumnNames, insertableColumnNames);
+
+		if(dataBaseName == null)
+			throw new DalException(ErrorCode.NoDatabaseDefined);
+
+		this.clazz = clazz;
+		this.autoIncrement = autoIncrement;
+		this.columnsHeader = new DalColumnMapRow.Header(columns);
+		this.primaryKeysHeader = new DalColumnMapRow.Header(primaryKeyColumns);
+		this.primaryKeyIndexes = new int[primaryKeyColumns.length];
+		for(int i = 0; i < primaryKeyColumns.length; i++)
+			primaryKeyIndexes[i] = indexOf(columns, primaryKeyColumns[i]);
+
+		if(identityColumn != null)
+			identityIndex = indexOf(columns, identityColumn);
+	}
+
+	private static int indexOf(String[] columns, String column) {
+		for(int i = 0; i < columns.length; i++) {
+			if(columns[i].equals(column))
+				return i;
+		}
+		throw new IllegalArgumentException("Column " + column + " does not exist.");
+	}
+
+	/**
+	 * Create the entity and set the value of each column read from the result set by index
+	 * @param indexes index in the result set of each column in the order of column names
+	 */
+	protected abstract T mapColumns(ResultSet rs, int[] indexes) throws SQLException;
+
+	/**
+	 * @return value of the column at the index of column names
+	 */
+	@Override
+	public abstract Object getColumnValue(T pojo, int columnIndex);
+
+	/**
+	 * The column indexes are resolved for each row. Use the mapper returned by mapWith to resolve them
+	 * only once per result set
+	 */
+	@Override
+	public T map(ResultSet rs, int rowNum) throws SQLException {
+		return map(rs, null);
+	}
+
+	/**
+	 * @param indexes null if the indexes should be resolved for this row
+	 */
+	private T map(ResultSet rs, int[] indexes) throws SQLException {
+		try {
+			T instance = mapColumns(rs, indexes == null ? findColumns(rs) : indexes);
+			if(instance instanceof UpdatableEntity)
+				((UpdatableEntity)instance).reset();
+
+			return instance;
+		} catch (Throwable e) {
+			throw DalException.wrap(ErrorCode.ResultMappingError, e);
+		}
+	}
+
+	private int[] findColumns(ResultSet rs) throws SQLException {
+		int[] indexes = new int[columns.length];
+		for(int i = 0; i < columns.length; i++)
+			indexes[i] = rs.findColumn(columns[i]);
+		return indexes;
+	}
+
+	@Override
+	public boolean isAutoIncrement() {
+		return autoIncrement;
+	}
+
+	@Override
+	public Number getIdentityValue(T pojo) {
+		if(identityIndex < 0 || !pojo.getClass().equals(clazz))
+			return null;
+
+		Object val = getColumnValue(pojo, identityIndex);
+		return val instanceof Number ? (Number)val : null;
+	}
+
+	@Override
+	public Map<String, ?> getPrimaryKeys(T pojo) {
+		Object[] primaryKeys = new Object[primaryKeyIndexes.length];
+		for(int i = 0; i < primaryKeyIndexes.length; i++)
+			primaryKeys[i] = getColumnValue(pojo, primaryKeyIndexes[i]);
+
+		return DalColumnMapRow.create(primaryKeysHeader, primaryKeys);
+	}
+
+	@Override
+	public Map<String, ?> getFields(T pojo) {
+		Object[] values = new Object[columns.length];
+		for(int i = 0; i < values.length; i++)
+			values[i] = getColumnValue(pojo, i);
+
+		return DalColumnMapRow.create(columnsHeader, values);
+	}
+
+	@Override
+	public DalRowMapper<T> mapWith(String[] columns) throws SQLException {
+		return getCustomMapper().mapWith(columns);
+	}
+
+	/**
+	 * The generated mapping is used with the column indexes resolved once for the result set, unless the
+	 * columns are customized by hints. If any column is missing, DalDefaultJpaMapper is used so that the
+	 * error is reported the same way.
+	 */
+	@Override
+	public DalRowMapper<T> mapWith(ResultSet rs, DalHints hints) throws SQLException {
+		if(hints.is(DalHintEnum.partialQuery) || hints.is(DalHintEnum.allowPartial) || hints.is(DalHintEnum.ignoreMissingFields))
+			return getCustomMapper().mapWith(rs, hints);
+
+		final int[] indexes;
+		try {
+			indexes = findColumns(rs);
+		} catch (SQLException e) {
+			return getCustomMapper().mapWith(rs, hints);
+		}
+
+		return new DalRowMapper<T>() {
+			@Override
+			public T map(ResultSet rs, int rowNum) throws SQLException {
+				return GeneratedDalParser.this.map(rs, indexes);
+			}
+		};
+	}
+
+	private DalDefaultJpaMapper<T> getCustomMapper() throws SQLException {
+		if(customMapper == null)
+			customMapper = new DalDefaultJpaMapper<T>(clazz);
+		return customMapper;
+	}
+
+	/*
+	 * Typed reads by column index, the same as FastJpaMapperFactory. Null is returned if the value is
+	 * null, so that primitive field fails the same way as DalDefaultJpaMapper. Integral values are read
+	 * as long and narrowed like Number.intValue() does.
+	 */
+
+	protected static Long getLong(ResultSet rs, int index) throws SQLException {
+		long value = rs.getLong(index);
+		return rs.wasNull() ? null : value;
+	}
+
+	protected static Integer getInteger(ResultSet rs, int index) throws SQLException {
+		int value = (int)rs.getLong(index);
+		return rs.wasNull() ? null : value;
+	}
+
+	protected static Short getShort(ResultSet rs, int index) throws SQLException {
+		short value = (short)rs.getLong(index);
+		return rs.wasNull() ? null : value;
+	}
+
+	protected static Byte getByte(ResultSet rs, int index) throws SQLException {
+		byte value = (byte)rs.getLong(index);
+		return rs.wasNull() ? null : value;
+	}
+
+	protected static Double getDouble(ResultSet rs, int index) throws SQLException {
+		double value = rs.getDouble(index);
+		return rs.wasNull() ? null : value;
+	}
+
+	protected static Float getFloat(ResultSet rs, int index) throws SQLException {
+		float value = rs.getFloat(index);
+		return rs.wasNull() ? null : value;
+	}
+
+	/**
+	 * Oracle returns its own Timestamp type from getObject, so getTimestamp is always used
+	 */
+	protected static Timestamp getTimestamp(ResultSet rs, int index) throws SQLException {
+		return rs.getTimestamp(index);
+	}
+}
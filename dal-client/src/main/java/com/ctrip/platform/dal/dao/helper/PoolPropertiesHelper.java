@@ -2,6 +2,7 @@ package com.ctrip.platform.dal.dao.helper;
 
 import com.ctrip.platform.dal.dao.configure.DataSourceConfigure;
 import com.ctrip.platform.dal.dao.configure.DataSourceConfigureConstants;
+import com.ctrip.platform.dal.dao.datasource.StatementCacheInterceptor;
 import org.apache.tomcat.jdbc.pool.PoolProperties;
 
 public class PoolPropertiesHelper implements DataSourceConfigureConstants {
@@ -64,8 +65,20 @@ public class PoolPropertiesHelper implements DataSourceConfigureConstants {
 
         // This are current hard coded as default value
         properties.setJmxEnabled(DEFAULT_JMXENABLED);
-        properties.setJdbcInterceptors(DEFAULT_JDBCINTERCEPTORS);
+        properties.setJdbcInterceptors(getJdbcInterceptors(config));
 
         return properties;
     }
+
+    /**
+     * The statement cache is only installed if statementCacheSize is greater than 0
+     */
+    public String getJdbcInterceptors(DataSourceConfigure config) {
+        int statementCacheSize = config.getIntProperty(STATEMENT_CACHE_SIZE, DEFAULT_STATEMENT_CACHE_SIZE);
+        if (statementCacheSize <= 0)
+            return DEFAULT_JDBCINTERCEPTORS;
+
+        return String.format("%s;%s(%s=%d)", DEFAULT_JDBCINTERCEPTORS, StatementCacheInterceptor.class.getName(),
+                StatementCacheInterceptor.MAX, statementCacheSize);
+    }
 }
@@ -0,0 +1,171 @@
+package com.ctrip.platform.dal.dao.helper;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Normalize SQL into a fingerprint, so that statements differ only in literal values share the
+ * same fingerprint. Comments are removed, string and number literals are replaced by ?, the
+ * parameter list of IN is collapsed to (?), white spaces are merged and everything else is
+ * lower cased.
+ *
+ * E.g. "SELECT * FROM t WHERE id IN (1, 2, 3) AND name='a'" and
+ * "select * from t where id in (?,?) and name=?" both result in
+ * "select * from t where id in (?) and name=?".
+ *
+ * The fingerprint can be used as key of caches and statistics for SQL.
+ */
+public class SqlFingerprint {
+	private static final int MAX_CACHED_SQLS = 10000;
+	private static ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
+
+	public static String of(String sql) {
+		if(sql == null)
+			return null;
+
+		String fingerprint = cache.get(sql);
+		if(fingerprint != null)
+			return fingerprint;
+
+		fingerprint = normalize(sql);
+		if(cache.size() < MAX_CACHED_SQLS)
+			cache.putIfAbsent(sql, fingerprint);
+
+		return fingerprint;
+	}
+
+	static String normalize(String sql) {
+		StringBuilder sb = new StringBuilder(sql.length());
+		int len = sql.length();
+		int i = 0;
+		while(i < len) {
+			char c = sql.charAt(i);
+
+			if(c == '/' && i + 1 < len && sql.charAt(i + 1) == '*') {
+				int end = sql.indexOf("*/", i + 2);
+				i = end < 0 ? len : end + 2;
+				appendSpace(sb);
+				continue;
+			}
+
+			if(c == '-' && i + 1 < len && sql.charAt(i + 1) == '-') {
+				int end = sql.indexOf('\n', i + 2);
+				i = end < 0 ? len : end + 1;
+				appendSpace(sb);
+				continue;
+			}
+
+			if(c == '\'') {
+				i = skipString(sql, i + 1);
+				sb.append('?');
+				continue;
+			}
+
+			if(Character.isWhitespace(c)) {
+				appendSpace(sb);
+				i++;
+				continue;
+			}
+
+			if(Character.isDigit(c) && !isIdentifierEnd(sb)) {
+				while(i < len && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.'))
+					i++;
+				sb.append('?');
+				continue;
+			}
+
+			if(c == '(' && endsWithIn(sb)) {
+				int end = skipParameterList(sql, i + 1);
+				if(end > 0) {
+					appendSpace(sb);
+					sb.append("(?)");
+					i = end;
+					continue;
+				}
+			}
+
+			sb.append(Character.toLowerCase(c));
+			i++;
+		}
+
+		int end = sb.length();
+		while(end > 0 && sb.charAt(end - 1) == ' ')
+			end--;
+		sb.setLength(end);
+		return sb.toString();
+	}
+
+	private static void appendSpace(StringBuilder sb) {
+		if(sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ')
+			sb.append(' ');
+	}
+
+	/**
+	 * @return position after the closing quote
+	 */
+	private static int skipString(String sql, int i) {
+		int len = sql.length();
+		while(i < len) {
+			if(sql.charAt(i++) != '\'')
+				continue;
+
+			// Escaped quote
+			if(i < len && sql.charAt(i) == '\'') {
+				i++;
+				continue;
+			}
+			break;
+		}
+		return i;
+	}
+
+	private static boolean isIdentifierEnd(StringBuilder sb) {
+		if(sb.length() == 0)
+			return false;
+
+		char c = sb.charAt(sb.length() - 1);
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '@';
+	}
+
+	private static boolean endsWithIn(StringBuilder sb) {
+		int end = sb.length();
+		if(end > 0 && sb.charAt(end - 1) == ' ')
+			end--;
+
+		return end >= 2 && sb.charAt(end - 2) == 'i' && sb.charAt(end - 1) == 'n'
+				&& (end == 2 || !Character.isLetterOrDigit(sb.charAt(end - 3)) && sb.charAt(end - 3) != '_');
+	}
+
+	/**
+	 * Skip list of parameters or literals like "?, ?, 3, 'a')".
+	 * @return position after the closing parenthesis, or -1 if it is not a plain list
+	 */
+	private static int skipParameterList(String sql, int i) {
+		int len = sql.length();
+		boolean expectValue = true;
+		while(i < len) {
+			char c = sql.charAt(i);
+			if(Character.isWhitespace(c)) {
+				i++;
+			} else if(expectValue && c == '?') {
+				expectValue = false;
+				i++;
+			} else if(expectValue && c == '\'') {
+				expectValue = false;
+				i = skipString(sql, i + 1);
+			} else if(expectValue && (Character.isDigit(c) || c == '-')) {
+				expectValue = false;
+				i++;
+				while(i < len && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.'))
+					i++;
+			} else if(!expectValue && c == ',') {
+				expectValue = true;
+				i++;
+			} else if(!expectValue && c == ')') {
+				return i + 1;
+			} else {
+				return -1;
+			}
+		}
+		return -1;
+	}
+}
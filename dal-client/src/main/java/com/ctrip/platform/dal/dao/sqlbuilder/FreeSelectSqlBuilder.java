@@ -122,6 +122,24 @@ public class FreeSelectSqlBuilder<K> implements SqlBuilder, SelectBuilder {
 		return this;
 	}
 
+	/**
+	 * Range the result merged from shards. Each shard returns all rows unless pushDownRange hint is set
+	 * and there is sorter. The sql containing '%' is not paged because the page sql is built by String.format.
+	 */
+	public FreeSelectSqlBuilder<K> rangeInShards(DalHints hints, int start, int count) {
+		mergerWith(new DalRangedResultMerger((Comparator)hints.getSorter(), start, count));
+		
+		if(hints.is(DalHintEnum.pushDownRange) && hints.getSorter() != null && 
+				count <= Integer.MAX_VALUE - start && selectSqlTemplate.indexOf('%') < 0) {
+			top(start + count);
+			extractorWith(new DalRowMapperExtractor(mapper, start + count));
+		} else {
+			extractorWith(new DalRowMapperExtractor(mapper));
+		}
+		
+		return this;
+	}
+
 	public FreeSelectSqlBuilder<K> atPage(int pageNo, int pageSize) throws SQLException {
 		if(pageNo < 1 || pageSize < 1) 
 			throw new SQLException("Illigal pagesize or pageNo, please check");	
@@ -0,0 +1,34 @@
+package com.ctrip.platform.dal.dao.status;
+
+import com.ctrip.platform.dal.dao.client.LogRingBuffer;
+import com.ctrip.platform.dal.dao.client.LoggerAdapter;
+
+/**
+ * Status of the ring buffer of async logging. All values are 0 if async logging is not enabled.
+ */
+public class AsyncLoggingStatus extends BaseStatus implements AsyncLoggingStatusMBean {
+
+	public boolean isEnabled() {
+		return LoggerAdapter.getRingBuffer() != null;
+	}
+
+	public int getCapacity() {
+		LogRingBuffer buffer = LoggerAdapter.getRingBuffer();
+		return buffer == null ? 0 : buffer.getCapacity();
+	}
+
+	public int getQueueDepth() {
+		LogRingBuffer buffer = LoggerAdapter.getRingBuffer();
+		return buffer == null ? 0 : buffer.getQueueDepth();
+	}
+
+	public long getDroppedCount() {
+		LogRingBuffer buffer = LoggerAdapter.getRingBuffer();
+		return buffer == null ? 0 : buffer.getDroppedCount();
+	}
+
+	public long getProcessedCount() {
+		LogRingBuffer buffer = LoggerAdapter.getRingBuffer();
+		return buffer == null ? 0 : buffer.getProcessedCount();
+	}
+}
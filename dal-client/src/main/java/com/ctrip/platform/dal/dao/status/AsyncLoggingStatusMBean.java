@@ -0,0 +1,15 @@
+package com.ctrip.platform.dal.dao.status;
+
+public interface AsyncLoggingStatusMBean {
+
+	boolean isEnabled();
+
+	int getCapacity();
+
+	int getQueueDepth();
+
+	long getDroppedCount();
+
+	long getProcessedCount();
+
+}
@@ -0,0 +1,89 @@
+package com.ctrip.platform.dal.dao.status;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limit the number of requests of one database set that can be in flight at the same time.
+ * A request takes one slot when it is submitted and returns it when it is done, no matter how
+ * many shards it is executed on, so one slow database set can not take all the worker threads.
+ *
+ * Slot is not blocking. If there is no free slot, the request should be rejected immediately.
+ */
+public class BulkheadStatus extends BaseStatus implements BulkheadStatusMBean {
+	private String name;
+	private volatile int maxConcurrency;
+	private AtomicInteger inFlight = new AtomicInteger();
+	private AtomicInteger active = new AtomicInteger();
+	private AtomicLong rejected = new AtomicLong();
+
+	public BulkheadStatus(String name, int maxConcurrency) {
+		this.name = name;
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	/**
+	 * Take a slot for a request to be submitted.
+	 * @return false if all the slots are taken
+	 */
+	public boolean tryAcquire() {
+		while(true) {
+			int max = maxConcurrency;
+			int current = inFlight.get();
+			if(max > 0 && current >= max) {
+				rejected.incrementAndGet();
+				return false;
+			}
+
+			if(inFlight.compareAndSet(current, current + 1))
+				return true;
+		}
+	}
+
+	/**
+	 * The request that takes the slot starts running
+	 */
+	public void begin() {
+		active.incrementAndGet();
+	}
+
+	/**
+	 * The request that takes the slot is completed
+	 */
+	public void end() {
+		active.decrementAndGet();
+		inFlight.decrementAndGet();
+	}
+
+	/**
+	 * Return the slot of a request that is cancelled or rejected before it starts running
+	 */
+	public void release() {
+		inFlight.decrementAndGet();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	public void setMaxConcurrency(int maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+		changed();
+	}
+
+	public int getActiveCount() {
+		return active.get();
+	}
+
+	public int getQueueDepth() {
+		return Math.max(0, inFlight.get() - active.get());
+	}
+
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+}
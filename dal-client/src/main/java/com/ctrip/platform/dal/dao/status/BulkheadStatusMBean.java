@@ -0,0 +1,17 @@
+package com.ctrip.platform.dal.dao.status;
+
+public interface BulkheadStatusMBean {
+
+	String getName();
+
+	int getMaxConcurrency();
+
+	void setMaxConcurrency(int maxConcurrency);
+
+	int getActiveCount();
+
+	int getQueueDepth();
+
+	long getRejectedCount();
+
+}
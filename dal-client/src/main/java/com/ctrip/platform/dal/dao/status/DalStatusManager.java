@@ -15,6 +15,8 @@ import org.slf4j.LoggerFactory;
 
 import com.ctrip.platform.dal.dao.Version;
 import com.ctrip.platform.dal.dao.configure.DalConfigure;
+import com.ctrip.platform.dal.dao.datasource.DefaultPoolMetrics;
+import com.ctrip.platform.dal.dao.helper.ConnectionStringKeyNameHelper;
 import com.ctrip.platform.dal.dao.markdown.MarkdownManager;
 
 /**
@@ -29,13 +31,21 @@ public class DalStatusManager {
 	private static final String TYPE = "type";
 	private static final String LOGIC_DB_CONFIG_DOMAIN_PREFIX = "com.ctrip.dal.client.DatabaseSet";
 	private static final String DATASOURCE_CONFIG_DOMAIN_PREFIX = "com.ctrip.dal.client.DataSource";
+	private static final String BULKHEAD_CONFIG_DOMAIN_PREFIX = "com.ctrip.dal.client.Bulkhead";
+	private static final String LATENCY_CONFIG_DOMAIN_PREFIX = "com.ctrip.dal.client.Latency";
+	private static final String POOL_CONFIG_DOMAIN_PREFIX = "com.ctrip.dal.client.Pool";
 	
 	private static AtomicBoolean initialized = new AtomicBoolean(false);
 	private static AtomicReference<TimeoutMarkdown> timeoutMarkDownRef = new AtomicReference<>();
 	private static AtomicReference<HAStatus> haStatusRef = new AtomicReference<>();
 	private static AtomicReference<MarkdownStatus> markdownStatusRef = new AtomicReference<>();
+	private static AtomicReference<TopSqlStatus> topSqlStatusRef = new AtomicReference<>();
+	private static AtomicReference<AsyncLoggingStatus> asyncLoggingStatusRef = new AtomicReference<>();
 	private static Map<String, DatabaseSetStatus> logicDbs = new ConcurrentHashMap<>();
 	private static Map<String, DataSourceStatus> dataSources = new ConcurrentHashMap<>();
+	private static Map<String, BulkheadStatus> bulkheads = new ConcurrentHashMap<>();
+	private static Map<String, LatencyStatus> latencies = new ConcurrentHashMap<>();
+	private static Map<String, PoolStatus> pools = new ConcurrentHashMap<>();
 	
 	public static void initialize(DalConfigure config) throws Exception {
 		if(initialized.get() == true)
@@ -49,6 +59,9 @@ public class DalStatusManager {
 			registerGlobal();
 			registerDatabaseSets(config.getDatabaseSetNames());
 			registerDataSources(config.getDataSourceNames());
+			registerPools(config.getDataSourceNames());
+			registerBulkheads(config);
+			registerLatencies(config.getDatabaseSetNames());
 			MarkdownManager.init();
 			
 			initialized.set(true);;
@@ -80,6 +93,12 @@ public class DalStatusManager {
 		
 		markdownStatusRef.set(new MarkdownStatus());
 		registerMBean(markdownStatusRef.get(), getGlobalName(MarkdownStatus.class));
+		
+		topSqlStatusRef.set(new TopSqlStatus());
+		registerMBean(topSqlStatusRef.get(), getGlobalName(TopSqlStatus.class));
+		
+		asyncLoggingStatusRef.set(new AsyncLoggingStatus());
+		registerMBean(asyncLoggingStatusRef.get(), getGlobalName(AsyncLoggingStatus.class));
 	}
 
 	private static void registerDatabaseSets(Set<String> logicDbNames) throws Exception {
@@ -98,6 +117,31 @@ public class DalStatusManager {
 		}
 	}
 	
+	private static void registerPools(Set<String> datasourceNames) throws Exception {
+		for(String name: datasourceNames) {
+			// Data sources are created by key name
+			PoolStatus status = new PoolStatus(DefaultPoolMetrics.getInstance(ConnectionStringKeyNameHelper.getKeyName(name)));
+			registerMBean(status, new ObjectName(POOL_CONFIG_DOMAIN_PREFIX, TYPE, name));
+			pools.put(name, status);
+		}
+	}
+	
+	private static void registerBulkheads(DalConfigure config) throws Exception {
+		for(String name: config.getDatabaseSetNames()) {
+			BulkheadStatus status = new BulkheadStatus(name, config.getDatabaseSet(name).getMaxConcurrency());
+			registerMBean(status, new ObjectName(BULKHEAD_CONFIG_DOMAIN_PREFIX, TYPE, name));
+			bulkheads.put(name, status);
+		}
+	}
+	
+	private static void registerLatencies(Set<String> logicDbNames) throws Exception {
+		for(String name: logicDbNames) {
+			LatencyStatus status = new LatencyStatus(name);
+			registerMBean(status, new ObjectName(LATENCY_CONFIG_DOMAIN_PREFIX, TYPE, name));
+			latencies.put(name, status);
+		}
+	}
+	
 	public static void shutdown() throws Exception {
 		if(initialized.get() == false)
 			return;
@@ -110,6 +154,8 @@ public class DalStatusManager {
 			mbs.unregisterMBean(getGlobalName(HAStatus.class));
 			mbs.unregisterMBean(getGlobalName(TimeoutMarkdown.class));
 			mbs.unregisterMBean(getGlobalName(MarkdownStatus.class));
+			mbs.unregisterMBean(getGlobalName(TopSqlStatus.class));
+			mbs.unregisterMBean(getGlobalName(AsyncLoggingStatus.class));
 			
 			for(String name: dataSources.keySet())
 				mbs.unregisterMBean(new ObjectName(DATASOURCE_CONFIG_DOMAIN_PREFIX, TYPE, name));
@@ -119,6 +165,18 @@ public class DalStatusManager {
 				mbs.unregisterMBean(new ObjectName(LOGIC_DB_CONFIG_DOMAIN_PREFIX, TYPE, name));
 			logicDbs.clear();
 			
+			for(String name: bulkheads.keySet())
+				mbs.unregisterMBean(new ObjectName(BULKHEAD_CONFIG_DOMAIN_PREFIX, TYPE, name));
+			bulkheads.clear();
+			
+			for(String name: latencies.keySet())
+				mbs.unregisterMBean(new ObjectName(LATENCY_CONFIG_DOMAIN_PREFIX, TYPE, name));
+			latencies.clear();
+			
+			for(String name: pools.keySet())
+				mbs.unregisterMBean(new ObjectName(POOL_CONFIG_DOMAIN_PREFIX, TYPE, name));
+			pools.clear();
+			
 			initialized.set(false);
 		}
 	}
@@ -139,10 +197,39 @@ public class DalStatusManager {
 		return markdownStatusRef.get();
 	}
 	
+	public static TopSqlStatus getTopSqlStatus() {
+		return topSqlStatusRef.get();
+	}
+	
+	public static AsyncLoggingStatus getAsyncLoggingStatus() {
+		return asyncLoggingStatusRef.get();
+	}
+	
 	public static DatabaseSetStatus getDatabaseSetStatus(String dbName) {
 		return logicDbs.get(dbName);
 	}
 	
+	/**
+	 * @return null if there is no such database set or the status manager is not initialized
+	 */
+	public static BulkheadStatus getBulkheadStatus(String logicDbName) {
+		return logicDbName == null ? null : bulkheads.get(logicDbName);
+	}
+	
+	/**
+	 * @return null if there is no such database set or the status manager is not initialized
+	 */
+	public static LatencyStatus getLatencyStatus(String logicDbName) {
+		return logicDbName == null ? null : latencies.get(logicDbName);
+	}
+	
+	/**
+	 * @return null if there is no such data source or the status manager is not initialized
+	 */
+	public static PoolStatus getPoolStatus(String dbName) {
+		return dbName == null ? null : pools.get(dbName);
+	}
+	
 	public static DataSourceStatus getDataSourceStatus(String dbName) {
 		return dataSources.get(dbName);
 	}
@@ -0,0 +1,114 @@
+package com.ctrip.platform.dal.dao.status;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free log-linear histogram of latency in nanoseconds. Each power of two range is divided
+ * into 16 sub buckets, so the relative error of percentile is within 1/16. Values above 2^40 ns
+ * (about 18 minutes) are counted in the last bucket.
+ *
+ * Recording is a few atomic increments without allocation. Percentiles are calculated from the
+ * bucket counts at the time of reading, so they are not exact when recording concurrently.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 40;
+	private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+	private AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private AtomicLong count = new AtomicLong();
+	private AtomicLong total = new AtomicLong();
+	private AtomicLong max = new AtomicLong();
+
+	public void record(long nanos) {
+		if(nanos < 0)
+			return;
+
+		buckets.incrementAndGet(indexOf(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+
+		long current;
+		while(nanos > (current = max.get())) {
+			if(max.compareAndSet(current, nanos))
+				break;
+		}
+	}
+
+	static int indexOf(long value) {
+		if(value < SUB_BUCKET_COUNT)
+			return (int)value;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		if(exponent > MAX_EXPONENT)
+			return BUCKET_COUNT - 1;
+
+		int mantissa = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + mantissa;
+	}
+
+	/**
+	 * @return the largest value that falls into the bucket
+	 */
+	static long upperBoundOf(int index) {
+		if(index < SUB_BUCKET_COUNT)
+			return index;
+
+		int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+		long mantissa = SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT;
+		return ((mantissa + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the latency in nanoseconds at given percentile, 0 if nothing is recorded
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = new long[BUCKET_COUNT];
+		long recorded = 0;
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = buckets.get(i);
+			recorded += snapshot[i];
+		}
+
+		if(recorded == 0)
+			return 0;
+
+		long target = Math.max(1, (long)Math.ceil(recorded * percentile / 100));
+		long accumulated = 0;
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			accumulated += snapshot[i];
+			// Values in the last bucket are not bounded
+			if(accumulated >= target)
+				return i == BUCKET_COUNT - 1 ? max.get() : Math.min(upperBoundOf(i), max.get());
+		}
+
+		return max.get();
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public long getMean() {
+		long recorded = count.get();
+		return recorded == 0 ? 0 : total.get() / recorded;
+	}
+
+	/**
+	 * Clear the recorded values. Values recorded concurrently with reset may be partially lost.
+	 */
+	public void reset() {
+		for(int i = 0; i < BUCKET_COUNT; i++)
+			buckets.set(i, 0);
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+}
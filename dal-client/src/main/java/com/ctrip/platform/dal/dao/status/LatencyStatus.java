@@ -0,0 +1,182 @@
+package com.ctrip.platform.dal.dao.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms of the connect, prepare, execute and map phases of statements of one logic DB.
+ * Besides the histograms of the whole logic DB, there are histograms for each combination of shard,
+ * real data source and SQL fingerprint. To keep memory bounded, statements of new combinations are
+ * only recorded in the logic DB level histograms after there are MAX_KEYS combinations.
+ */
+public class LatencyStatus extends BaseStatus implements LatencyStatusMBean {
+	public static final int MAX_KEYS = 1000;
+
+	public enum Phase {
+		CONNECT, PREPARE, EXECUTE, MAP
+	}
+
+	private String name;
+	private LatencyHistogram[] total = createHistograms();
+	private ConcurrentHashMap<Key, LatencyHistogram[]> histograms = new ConcurrentHashMap<>();
+
+	public LatencyStatus(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @param costs costs in nanoseconds indexed by the ordinal of Phase. Negative value means the phase is not reached
+	 */
+	public void record(String shard, String dataSource, String fingerprint, long[] costs) {
+		record(total, costs);
+
+		Key key = new Key(shard, dataSource, fingerprint);
+		LatencyHistogram[] keyed = histograms.get(key);
+		if(keyed == null) {
+			if(histograms.size() >= MAX_KEYS)
+				return;
+
+			keyed = createHistograms();
+			LatencyHistogram[] existing = histograms.putIfAbsent(key, keyed);
+			if(existing != null)
+				keyed = existing;
+		}
+
+		record(keyed, costs);
+	}
+
+	private void record(LatencyHistogram[] target, long[] costs) {
+		for(int i = 0; i < target.length; i++)
+			target[i].record(costs[i]);
+	}
+
+	private static LatencyHistogram[] createHistograms() {
+		LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+		for(int i = 0; i < histograms.length; i++)
+			histograms[i] = new LatencyHistogram();
+		return histograms;
+	}
+
+	/**
+	 * @return histogram of the whole logic DB
+	 */
+	public LatencyHistogram getHistogram(Phase phase) {
+		return total[phase.ordinal()];
+	}
+
+	/**
+	 * @return null if nothing is recorded for the given combination
+	 */
+	public LatencyHistogram getHistogram(String shard, String dataSource, String fingerprint, Phase phase) {
+		LatencyHistogram[] keyed = histograms.get(new Key(shard, dataSource, fingerprint));
+		return keyed == null ? null : keyed[phase.ordinal()];
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getCount() {
+		return total[Phase.EXECUTE.ordinal()].getCount();
+	}
+
+	public long getConnectP99() {
+		return micros(total[Phase.CONNECT.ordinal()].getPercentile(99));
+	}
+
+	public long getPrepareP99() {
+		return micros(total[Phase.PREPARE.ordinal()].getPercentile(99));
+	}
+
+	public long getExecuteP50() {
+		return micros(total[Phase.EXECUTE.ordinal()].getPercentile(50));
+	}
+
+	public long getExecuteP90() {
+		return micros(total[Phase.EXECUTE.ordinal()].getPercentile(90));
+	}
+
+	public long getExecuteP99() {
+		return micros(total[Phase.EXECUTE.ordinal()].getPercentile(99));
+	}
+
+	public long getExecuteP999() {
+		return micros(total[Phase.EXECUTE.ordinal()].getPercentile(99.9));
+	}
+
+	public long getExecuteMax() {
+		return micros(total[Phase.EXECUTE.ordinal()].getMax());
+	}
+
+	public long getMapP99() {
+		return micros(total[Phase.MAP.ordinal()].getPercentile(99));
+	}
+
+	public int getKeyCount() {
+		return histograms.size();
+	}
+
+	public String[] getPercentiles() {
+		List<String> percentiles = new ArrayList<>();
+		for(Map.Entry<Key, LatencyHistogram[]> entry: histograms.entrySet()) {
+			Key key = entry.getKey();
+			LatencyHistogram[] keyed = entry.getValue();
+			LatencyHistogram execute = keyed[Phase.EXECUTE.ordinal()];
+			percentiles.add(String.format("shard: %s, dataSource: %s, sql: %s, count: %d, connect.p99: %d, prepare.p99: %d, execute.p50: %d, execute.p99: %d, execute.max: %d, map.p99: %d",
+					key.shard, key.dataSource, key.fingerprint, execute.getCount(),
+					micros(keyed[Phase.CONNECT.ordinal()].getPercentile(99)),
+					micros(keyed[Phase.PREPARE.ordinal()].getPercentile(99)),
+					micros(execute.getPercentile(50)),
+					micros(execute.getPercentile(99)),
+					micros(execute.getMax()),
+					micros(keyed[Phase.MAP.ordinal()].getPercentile(99))));
+		}
+		return percentiles.toArray(new String[percentiles.size()]);
+	}
+
+	public void reset() {
+		for(LatencyHistogram histogram: total)
+			histogram.reset();
+		histograms.clear();
+		changed();
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+
+	private static class Key {
+		private String shard;
+		private String dataSource;
+		private String fingerprint;
+
+		Key(String shard, String dataSource, String fingerprint) {
+			this.shard = shard;
+			this.dataSource = dataSource;
+			this.fingerprint = fingerprint;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = shard == null ? 0 : shard.hashCode();
+			hash = 31 * hash + (dataSource == null ? 0 : dataSource.hashCode());
+			return 31 * hash + (fingerprint == null ? 0 : fingerprint.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Key))
+				return false;
+
+			Key other = (Key)obj;
+			return equals(shard, other.shard) && equals(dataSource, other.dataSource) && equals(fingerprint, other.fingerprint);
+		}
+
+		private static boolean equals(String a, String b) {
+			return a == null ? b == null : a.equals(b);
+		}
+	}
+}
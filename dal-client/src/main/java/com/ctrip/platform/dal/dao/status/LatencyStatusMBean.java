@@ -0,0 +1,37 @@
+package com.ctrip.platform.dal.dao.status;
+
+/**
+ * Latency of statements of one logic DB. All the values are in microseconds.
+ */
+public interface LatencyStatusMBean {
+
+	String getName();
+
+	long getCount();
+
+	long getConnectP99();
+
+	long getPrepareP99();
+
+	long getExecuteP50();
+
+	long getExecuteP90();
+
+	long getExecuteP99();
+
+	long getExecuteP999();
+
+	long getExecuteMax();
+
+	long getMapP99();
+
+	int getKeyCount();
+
+	/**
+	 * @return percentiles of each shard, data source and SQL fingerprint
+	 */
+	String[] getPercentiles();
+
+	void reset();
+
+}
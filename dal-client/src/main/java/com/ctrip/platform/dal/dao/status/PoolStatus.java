@@ -0,0 +1,94 @@
+package com.ctrip.platform.dal.dao.status;
+
+import java.util.concurrent.TimeUnit;
+
+import com.ctrip.platform.dal.dao.datasource.PoolMetrics;
+
+/**
+ * Expose the pool metrics of one real data source. Comparing the borrow wait time here with the
+ * connect phase in LatencyStatus tells whether statements are waiting for the pool or the database.
+ */
+public class PoolStatus extends BaseStatus implements PoolStatusMBean {
+	private PoolMetrics metrics;
+
+	public PoolStatus(PoolMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public PoolMetrics getMetrics() {
+		return metrics;
+	}
+
+	public String getName() {
+		return metrics.getName();
+	}
+
+	public int getActive() {
+		return metrics.getActive();
+	}
+
+	public int getIdle() {
+		return metrics.getIdle();
+	}
+
+	public int getWaiting() {
+		return metrics.getWaiting();
+	}
+
+	public long getBorrowCount() {
+		return metrics.getBorrowWaitTime().getCount();
+	}
+
+	public long getBorrowFailureCount() {
+		return metrics.getBorrowFailureCount();
+	}
+
+	public long getBorrowWaitP50() {
+		return micros(metrics.getBorrowWaitTime().getPercentile(50));
+	}
+
+	public long getBorrowWaitP99() {
+		return micros(metrics.getBorrowWaitTime().getPercentile(99));
+	}
+
+	public long getBorrowWaitMax() {
+		return micros(metrics.getBorrowWaitTime().getMax());
+	}
+
+	public long getCreatedCount() {
+		return metrics.getCreatedCount();
+	}
+
+	public long getCreationP99() {
+		return micros(metrics.getCreationTime().getPercentile(99));
+	}
+
+	public long getCreationMax() {
+		return micros(metrics.getCreationTime().getMax());
+	}
+
+	public long getValidationFailureCount() {
+		return metrics.getValidationFailureCount();
+	}
+
+	public long getAbandonedCount() {
+		return metrics.getAbandonedCount();
+	}
+
+	public long getStatementCacheHitCount() {
+		return metrics.getStatementCacheHitCount();
+	}
+
+	public long getStatementCacheMissCount() {
+		return metrics.getStatementCacheMissCount();
+	}
+
+	public void reset() {
+		metrics.reset();
+		changed();
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
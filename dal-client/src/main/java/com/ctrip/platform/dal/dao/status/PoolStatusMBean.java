@@ -0,0 +1,42 @@
+package com.ctrip.platform.dal.dao.status;
+
+/**
+ * Connection pool of one real data source. All the latencies are in microseconds.
+ */
+public interface PoolStatusMBean {
+
+	String getName();
+
+	int getActive();
+
+	int getIdle();
+
+	int getWaiting();
+
+	long getBorrowCount();
+
+	long getBorrowFailureCount();
+
+	long getBorrowWaitP50();
+
+	long getBorrowWaitP99();
+
+	long getBorrowWaitMax();
+
+	long getCreatedCount();
+
+	long getCreationP99();
+
+	long getCreationMax();
+
+	long getValidationFailureCount();
+
+	long getAbandonedCount();
+
+	long getStatementCacheHitCount();
+
+	long getStatementCacheMissCount();
+
+	void reset();
+
+}
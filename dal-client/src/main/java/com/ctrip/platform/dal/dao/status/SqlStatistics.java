@@ -0,0 +1,99 @@
+package com.ctrip.platform.dal.dao.status;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of statements with the same SQL fingerprint. When the fingerprint takes the place
+ * of an evicted one in TopSqlStatus, the count and total time of the evicted one are inherited as
+ * the error, so the count and total time are upper bounds of the real ones.
+ */
+public class SqlStatistics {
+	private String fingerprint;
+	private long countError;
+	private long totalTimeError;
+	private AtomicLong count;
+	private AtomicLong totalTime;
+	private AtomicLong maxTime = new AtomicLong();
+	private AtomicLong rows = new AtomicLong();
+	private AtomicLong errors = new AtomicLong();
+
+	// Index in TopSqlStatus, guarded by its lock
+	int slot;
+
+	SqlStatistics(String fingerprint, long countError, long totalTimeError) {
+		this.fingerprint = fingerprint;
+		this.countError = countError;
+		this.totalTimeError = totalTimeError;
+		this.count = new AtomicLong(countError);
+		this.totalTime = new AtomicLong(totalTimeError);
+	}
+
+	void record(long nanos, int rowCount, boolean error) {
+		count.incrementAndGet();
+		totalTime.addAndGet(nanos);
+		rows.addAndGet(rowCount);
+		if(error)
+			errors.incrementAndGet();
+
+		long current;
+		while(nanos > (current = maxTime.get())) {
+			if(maxTime.compareAndSet(current, nanos))
+				break;
+		}
+	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * @return upper bound of the execution count
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return the max over estimation of count
+	 */
+	public long getCountError() {
+		return countError;
+	}
+
+	/**
+	 * @return upper bound of the total execution time in nanoseconds
+	 */
+	public long getTotalTime() {
+		return totalTime.get();
+	}
+
+	/**
+	 * @return the max over estimation of total time in nanoseconds
+	 */
+	public long getTotalTimeError() {
+		return totalTimeError;
+	}
+
+	/**
+	 * @return max execution time in nanoseconds
+	 */
+	public long getMaxTime() {
+		return maxTime.get();
+	}
+
+	public long getRows() {
+		return rows.get();
+	}
+
+	public long getErrors() {
+		return errors.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count: %d(+-%d), totalTime: %dms, maxTime: %dms, rows: %d, errors: %d, sql: %s",
+				getCount(), countError, TimeUnit.NANOSECONDS.toMillis(getTotalTime()), TimeUnit.NANOSECONDS.toMillis(getMaxTime()),
+				getRows(), getErrors(), fingerprint);
+	}
+}
@@ -0,0 +1,179 @@
+package com.ctrip.platform.dal.dao.status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded registry of the SQL fingerprints that take the most execution time, based on the space
+ * saving algorithm weighted by total time. At most capacity fingerprints are tracked. When a new
+ * fingerprint comes and the registry is full, SAMPLE_SIZE tracked fingerprints are sampled and the
+ * one with the least total time is evicted. The new one starts from the count and total time of the
+ * evicted one.
+ *
+ * Recording a tracked fingerprint is lock free. Admitting a new fingerprint takes a lock for a
+ * constant time. If the lock is held by another thread, the execution is not recorded instead of
+ * waiting for the lock.
+ */
+public class TopSqlStatus extends BaseStatus implements TopSqlStatusMBean {
+	public static final int DEFAULT_CAPACITY = 256;
+	public static final int SAMPLE_SIZE = 8;
+
+	private static final Comparator<SqlStatistics> BY_COUNT = new Comparator<SqlStatistics>() {
+		public int compare(SqlStatistics o1, SqlStatistics o2) {
+			return Long.compare(o2.getCount(), o1.getCount());
+		}
+	};
+
+	private static final Comparator<SqlStatistics> BY_TOTAL_TIME = new Comparator<SqlStatistics>() {
+		public int compare(SqlStatistics o1, SqlStatistics o2) {
+			return Long.compare(o2.getTotalTime(), o1.getTotalTime());
+		}
+	};
+
+	private int capacity;
+	private ConcurrentHashMap<String, SqlStatistics> statistics = new ConcurrentHashMap<>();
+
+	// Tracked fingerprints for sampling, guarded by lock
+	private ReentrantLock lock = new ReentrantLock();
+	private SqlStatistics[] slots;
+	private int size;
+
+	public TopSqlStatus() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public TopSqlStatus(int capacity) {
+		this.capacity = capacity;
+		this.slots = new SqlStatistics[capacity];
+	}
+
+	/**
+	 * @param fingerprint see SqlFingerprint
+	 * @param nanos execution time in nanoseconds
+	 * @param rows rows returned
+	 */
+	public void record(String fingerprint, long nanos, int rows, boolean error) {
+		if(fingerprint == null)
+			return;
+
+		SqlStatistics sqlStatistics = statistics.get(fingerprint);
+		if(sqlStatistics == null && (sqlStatistics = admit(fingerprint)) == null)
+			return;
+
+		sqlStatistics.record(Math.max(0, nanos), Math.max(0, rows), error);
+	}
+
+	/**
+	 * @return null if another thread is admitting
+	 */
+	private SqlStatistics admit(String fingerprint) {
+		if(!lock.tryLock())
+			return null;
+
+		try {
+			SqlStatistics sqlStatistics = statistics.get(fingerprint);
+			if(sqlStatistics != null)
+				return sqlStatistics;
+
+			if(size < capacity) {
+				sqlStatistics = new SqlStatistics(fingerprint, 0, 0);
+				sqlStatistics.slot = size++;
+			} else {
+				SqlStatistics min = sample();
+				statistics.remove(min.getFingerprint());
+				sqlStatistics = new SqlStatistics(fingerprint, min.getCount(), min.getTotalTime());
+				sqlStatistics.slot = min.slot;
+			}
+
+			slots[sqlStatistics.slot] = sqlStatistics;
+			statistics.put(fingerprint, sqlStatistics);
+			return sqlStatistics;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the one with the least total time among SAMPLE_SIZE consecutive slots from a random one
+	 */
+	private SqlStatistics sample() {
+		int n = Math.min(SAMPLE_SIZE, capacity);
+		int start = n == capacity ? 0 : ThreadLocalRandom.current().nextInt(capacity);
+		SqlStatistics min = null;
+		for(int i = 0; i < n; i++) {
+			SqlStatistics candidate = slots[(start + i) % capacity];
+			if(min == null || candidate.getTotalTime() < min.getTotalTime() ||
+					(candidate.getTotalTime() == min.getTotalTime() && candidate.getCount() < min.getCount()))
+				min = candidate;
+		}
+		return min;
+	}
+
+	/**
+	 * @return null if the fingerprint is not tracked
+	 */
+	public SqlStatistics getStatistics(String fingerprint) {
+		return statistics.get(fingerprint);
+	}
+
+	/**
+	 * @return the top n fingerprints ordered by execution count
+	 */
+	public List<SqlStatistics> getHottest(int n) {
+		return getTop(n, BY_COUNT);
+	}
+
+	/**
+	 * @return the top n fingerprints ordered by total execution time
+	 */
+	public List<SqlStatistics> getSlowest(int n) {
+		return getTop(n, BY_TOTAL_TIME);
+	}
+
+	private List<SqlStatistics> getTop(int n, Comparator<SqlStatistics> comparator) {
+		List<SqlStatistics> sorted = new ArrayList<>(statistics.values());
+		Collections.sort(sorted, comparator);
+		return sorted.size() > n ? sorted.subList(0, n) : sorted;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getSize() {
+		return statistics.size();
+	}
+
+	public String[] getHotSqls() {
+		return toStrings(getHottest(capacity));
+	}
+
+	public String[] getSlowSqls() {
+		return toStrings(getSlowest(capacity));
+	}
+
+	private String[] toStrings(List<SqlStatistics> sqlStatistics) {
+		String[] values = new String[sqlStatistics.size()];
+		for(int i = 0; i < values.length; i++)
+			values[i] = sqlStatistics.get(i).toString();
+		return values;
+	}
+
+	public void reset() {
+		lock.lock();
+		try {
+			statistics.clear();
+			Arrays.fill(slots, null);
+			size = 0;
+		} finally {
+			lock.unlock();
+		}
+		changed();
+	}
+}
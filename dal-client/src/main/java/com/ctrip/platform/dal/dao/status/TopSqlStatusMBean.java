@@ -0,0 +1,21 @@
+package com.ctrip.platform.dal.dao.status;
+
+public interface TopSqlStatusMBean {
+
+	int getCapacity();
+
+	int getSize();
+
+	/**
+	 * @return SQL statistics ordered by execution count
+	 */
+	String[] getHotSqls();
+
+	/**
+	 * @return SQL statistics ordered by total execution time
+	 */
+	String[] getSlowSqls();
+
+	void reset();
+
+}
@@ -2,33 +2,40 @@ package com.ctrip.platform.dal.dao.task;
 
 import java.sql.SQLException;
 import java.util.Arrays;
-import java.util.List;
+import java.util.BitSet;
 import java.util.Map;
 
 import com.ctrip.platform.dal.dao.DalHints;
 import com.ctrip.platform.dal.dao.StatementParameters;
+import com.ctrip.platform.dal.dao.task.SqlTemplateCache.Template;
 
 public class BatchDeleteTask<T> extends AbstractIntArrayBulkTask<T> {
 	private static final String TMPL_SQL_DELETE = "DELETE FROM %s WHERE %s";
+	private static final String DELETE = "DELETE";
+	private static final BitSet NO_COLUMNS = new BitSet();
 
 	@Override
 	public int[] execute(DalHints hints, Map<Integer, Map<String, ?>> daoPojos, BulkTaskContext<T> taskContext) throws SQLException {
 		StatementParameters[] parametersList = new StatementParameters[daoPojos.size()];
-		List<String> pkNames = Arrays.asList(parser.getPrimaryKeyNames());
+		Template template = getDeleteTemplate(getRawTableName(hints));
 
 		int i = 0;
 		for (Integer index :daoPojos.keySet()) {
-			StatementParameters parameters = new StatementParameters();
-			addParameters(1, parameters, daoPojos.get(index), pkNames);
+			StatementParameters parameters = new StatementParameters(template.getColumns().length);
+			addParameters(parameters, daoPojos.get(index), template.getColumns());
 			parametersList[i++] = parameters;
 		}
 		
-		String deleteSql = buildDeleteSql(getTableName(hints));
-		int[] result = client.batchUpdate(deleteSql, parametersList, hints);
+		int[] result = client.batchUpdate(template.getSql(), parametersList, hints);
 		return result;
 	}
 	
-	private String buildDeleteSql(String tableName) {
-		return String.format(TMPL_SQL_DELETE, tableName, pkSql);
+	private Template getDeleteTemplate(String rawTableName) {
+		Template template = templates.get(DELETE, rawTableName, NO_COLUMNS);
+		if(template != null)
+			return template;
+
+		String sql = String.format(TMPL_SQL_DELETE, quote(rawTableName), pkSql);
+		return templates.put(DELETE, rawTableName, NO_COLUMNS, new Template(sql, Arrays.asList(parser.getPrimaryKeyNames())));
 	}
 }
@@ -3,14 +3,14 @@ package com.ctrip.platform.dal.dao.task;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 
 import com.ctrip.platform.dal.dao.DalHints;
 import com.ctrip.platform.dal.dao.StatementParameters;
+import com.ctrip.platform.dal.dao.task.SqlTemplateCache.Template;
 
 public class BatchInsertTask<T> extends InsertTaskAdapter<T> implements BulkTask<int[], T> {
-	private static final String TMPL_SQL_INSERT = "INSERT INTO %s (%s) VALUES(%s)";
-
 	@Override
 	public int[] getEmptyValue() {
 		return new int[0];
@@ -30,31 +30,27 @@ public class BatchInsertTask<T> extends InsertTaskAdapter<T> implements BulkTask
 		int i = 0;
 		
 		Set<String> unqualifiedColumns = taskContext.getUnqualifiedColumns();
+		Template template = getInsertTemplate(getRawTableName(hints), unqualifiedColumns);
+		String[] columns = template.getColumns();
+		
+		// Bind straight from the entity if the parser can read it by column index, the fields are not created then
+		List<T> rawPojos = taskContext.getRawPojos();
+		int[] columnIndexes = columnReader != null && rawPojos instanceof RandomAccess ? getColumnIndexes(columns) : null;
 		
+		// Bind by the final columns instead of removing unqualified columns from each pojo
 		for (Integer index :daoPojos.keySet()) {
-			Map<String, ?> pojo = daoPojos.get(index);
-			
-			removeUnqualifiedColumns(pojo, unqualifiedColumns);
-			
-			StatementParameters parameters = new StatementParameters();
-			addParameters(parameters, pojo);
+			StatementParameters parameters = new StatementParameters(columns.length);
+			if(columnIndexes == null)
+				addParameters(parameters, daoPojos.get(index), columns);
+			else
+				addParameters(parameters, rawPojos.get(index), columns, columnIndexes);
 			parametersList[i++] = parameters;
 		}
 
-		String batchInsertSql = buildBatchInsertSql(hints, unqualifiedColumns);
-		int[] result = client.batchUpdate(batchInsertSql, parametersList, hints);
+		int[] result = client.batchUpdate(template.getSql(), parametersList, hints);
 		return result;
 	}
 	
-	private String buildBatchInsertSql(DalHints hints, Set<String> unqualifiedColumns) throws SQLException {
-		List<String> finalInsertableColumns = buildValidColumnsForInsert(unqualifiedColumns);
-		
-		String values = combine(PLACE_HOLDER, finalInsertableColumns.size(), COLUMN_SEPARATOR);
-		String insertColumns = combineColumns(finalInsertableColumns, COLUMN_SEPARATOR);
-		
-		return String.format(TMPL_SQL_INSERT, getTableName(hints), insertColumns, values);
-	}
-	
 	@Override
 	public BulkTaskResultMerger<int[]> createMerger() {
 		return new ShardedIntArrayResultMerger();
@@ -2,6 +2,7 @@ package com.ctrip.platform.dal.dao.task;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -13,11 +14,13 @@ import org.apache.commons.lang.StringUtils;
 import com.ctrip.platform.dal.dao.DalHints;
 import com.ctrip.platform.dal.dao.StatementParameters;
 import com.ctrip.platform.dal.dao.UpdatableEntity;
+import com.ctrip.platform.dal.dao.task.SqlTemplateCache.Template;
 import com.ctrip.platform.dal.exceptions.DalException;
 import com.ctrip.platform.dal.exceptions.ErrorCode;
 
 public class BatchUpdateTask<T> extends AbstractIntArrayBulkTask<T> {
 	public static final String TMPL_SQL_UPDATE = "UPDATE %s SET %s WHERE %s";
+	private static final String BATCH_UPDATE = "BATCH_UPDATE";
 
 	@Override
 	public BulkTaskContext<T> createTaskContext(DalHints hints, List<Map<String, ?>> daoPojos, List<T> rawPojos) throws DalException {
@@ -42,11 +45,13 @@ public class BatchUpdateTask<T> extends AbstractIntArrayBulkTask<T> {
 
 		StatementParameters[] parametersList = new StatementParameters[daoPojos.size()];
 		int i = 0;
-		String[] updateColumnNames = pojoFieldStatus.keySet().toArray(new String[pojoFieldStatus.size()]);
+		Template template = getBatchUpdateTemplate(getRawTableName(hints), pojoFieldStatus);
+		String[] updateColumnNames = template.getColumns();
+		int criteriaCount = parser.getPrimaryKeyNames().length + (hasVersion ? 1 : 0);
 		
 		for (Integer index :daoPojos.keySet()) {
 			Map<String, ?> pojo = daoPojos.get(index);
-			StatementParameters parameters = new StatementParameters();
+			StatementParameters parameters = new StatementParameters(updateColumnNames.length + criteriaCount);
 
 			if(isUpdatableEntity && !hints.isUpdateUnchangedField())
 				addParameters(parameters, pojo, updateColumnNames, ((UpdatableEntity)rawPojos.get(index)).getUpdatedColumns());
@@ -59,9 +64,7 @@ public class BatchUpdateTask<T> extends AbstractIntArrayBulkTask<T> {
 			parametersList[i++] = parameters;
 		}
 		
-		String batchUpdateSql = buildBatchUpdateSql(getTableName(hints), pojoFieldStatus);
-		
-		int[] result = client.batchUpdate(batchUpdateSql, parametersList, hints);
+		int[] result = client.batchUpdate(template.getSql(), parametersList, hints);
 		return result;
 	}
 	
@@ -167,15 +170,41 @@ public class BatchUpdateTask<T> extends AbstractIntArrayBulkTask<T> {
 		return columnStatus;
 	}
 
-	private String buildBatchUpdateSql(String tableName, Map<String, Boolean> pojoFieldStatus) {
-		List<String> updateColumnTmpls = new ArrayList<>(pojoFieldStatus.size());
-
+	/**
+	 * The columns in template are in the order of parser, so that the same field status always
+	 * gets the same sql whatever the iteration order of the status map is
+	 */
+	private Template getBatchUpdateTemplate(String rawTableName, Map<String, Boolean> pojoFieldStatus) {
+		BitSet columns = templates.toColumnSet(pojoFieldStatus.keySet());
+		List<String> nullableColumnNames = new ArrayList<>();
 		for(Map.Entry<String, Boolean> fieldStatus: pojoFieldStatus.entrySet()) {
-			String columnName = fieldStatus.getKey();
+			if(fieldStatus.getValue())
+				nullableColumnNames.add(fieldStatus.getKey());
+		}
+		BitSet nullableColumns = templates.toColumnSet(nullableColumnNames);
+
+		Template template = templates.get(BATCH_UPDATE, rawTableName, columns, nullableColumns);
+		if(template != null)
+			return template;
+
+		List<String> updateColumnNames = new ArrayList<>(pojoFieldStatus.size());
+		for(String column: parser.getColumnNames()) {
+			if(pojoFieldStatus.containsKey(column))
+				updateColumnNames.add(column);
+		}
+
+		String sql = buildBatchUpdateSql(quote(rawTableName), updateColumnNames, pojoFieldStatus);
+		return templates.put(BATCH_UPDATE, rawTableName, columns, nullableColumns, new Template(sql, updateColumnNames));
+	}
+
+	private String buildBatchUpdateSql(String tableName, List<String> updateColumnNames, Map<String, Boolean> pojoFieldStatus) {
+		List<String> updateColumnTmpls = new ArrayList<>(updateColumnNames.size());
+
+		for(String columnName: updateColumnNames) {
 			String quotedColumnName = quote(columnName);
 			
 			// If the field contains null value
-			if(fieldStatus.getValue())
+			if(pojoFieldStatus.get(columnName))
 				updateColumnTmpls.add(String.format(setValueTmpl, quotedColumnName, quotedColumnName));
 			else
 				updateColumnTmpls.add(String.format(TMPL_SET_VALUE, quotedColumnName));
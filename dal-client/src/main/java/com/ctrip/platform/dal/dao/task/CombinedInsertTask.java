@@ -1,16 +1,47 @@
 package com.ctrip.platform.dal.dao.task;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
+import com.ctrip.platform.dal.common.enums.DatabaseCategory;
+import com.ctrip.platform.dal.dao.DalClient;
+import com.ctrip.platform.dal.dao.DalCommand;
+import com.ctrip.platform.dal.dao.DalHintEnum;
 import com.ctrip.platform.dal.dao.DalHints;
 import com.ctrip.platform.dal.dao.KeyHolder;
 import com.ctrip.platform.dal.dao.StatementParameters;
+import com.ctrip.platform.dal.dao.client.DalTransactionManager;
+import com.ctrip.platform.dal.dao.client.StatementCanceller;
+import com.ctrip.platform.dal.dao.task.SqlTemplateCache.Template;
+import com.ctrip.platform.dal.exceptions.DalException;
+import com.ctrip.platform.dal.exceptions.ErrorCode;
 
+/**
+ * Insert the pojos by one sql with multiple values. If the parameter count or the estimated size of the
+ * sql exceeds the limit, the pojos are split into chunks. The size limit is the maxPacketSize hint or the
+ * default of the database category. The chunks are executed one by one on the same connection and in one
+ * transaction, so the insert is still atomic. With parallelSplitInsert hint and not in transaction, they
+ * are executed in parallel by the shared executor under the same shard concurrency limit and deadline as
+ * the request, each chunk is committed separately. The counts of chunks are summed up and the generated
+ * keys are merged by pojo index.
+ */
 public class CombinedInsertTask<T> extends InsertTaskAdapter<T> implements BulkTask<Integer, T> {
 	public static final String TMPL_SQL_MULTIPLE_INSERT = "INSERT INTO %s(%s) VALUES %s";
+	private static final String COMBINED_INSERT = "COMBINED_INSERT";
+
+	// Estimated bytes of null, number and date values in sql
+	private static final int NULL_SIZE = 4;
+	private static final int VALUE_SIZE = 32;
 
 	@Override
 	public Integer getEmptyValue() {
@@ -27,42 +58,252 @@ public class CombinedInsertTask<T> extends InsertTaskAdapter<T> implements BulkT
 
 	@Override
 	public Integer execute(DalHints hints, Map<Integer, Map<String, ?>> daoPojos, BulkTaskContext<T> taskContext) throws SQLException {
-		StatementParameters parameters = new StatementParameters();
-		StringBuilder values = new StringBuilder();
-
 		Set<String> unqualifiedColumns = taskContext.getUnqualifiedColumns();
+		Template template = getCombinedInsertTemplate(getRawTableName(hints), unqualifiedColumns);
 		
-		List<String> finalInsertableColumns = buildValidColumnsForInsert(unqualifiedColumns);
+		int maxPacketSize = hints.getInt(DalHintEnum.maxPacketSize, dbCategory.getMaxPacketSize());
+		List<Map<Integer, Map<String, ?>>> chunks = split(daoPojos, template, dbCategory, maxPacketSize);
+		if(chunks.size() == 1)
+			return execute(hints, chunks.get(0), template);
+
+		if(DalTransactionManager.isInTransaction())
+			return executeSequentially(hints, chunks, template);
+
+		// Keys of a holder not requiring merge are appended in execution order
+		KeyHolder keyHolder = hints.getKeyHolder();
+		ExecutorService executor = DalRequestExecutor.getExecutor();
+		if(executor == null || !hints.is(DalHintEnum.parallelSplitInsert) || hints.is(DalHintEnum.sequentialExecution) || 
+				keyHolder != null && !keyHolder.isRequireMerge())
+			return executeInTransaction(hints, chunks, template);
+		
+		return executeInParallel(executor, hints, chunks, template);
+	}
+
+	private int execute(DalHints hints, Map<Integer, Map<String, ?>> daoPojos, Template template) throws SQLException {
+		StatementParameters parameters = new StatementParameters(template.getColumns().length * daoPojos.size());
+		String rowValues = template.getValues();
 		
-		String insertColumns = combineColumns(finalInsertableColumns, COLUMN_SEPARATOR);
+		StringBuilder sql = new StringBuilder(template.getSql().length() + (rowValues.length() + 1) * daoPojos.size());
+		sql.append(template.getSql());
 		
-		int startIndex = 1;
 		for (Integer index :daoPojos.keySet()) {
-			Map<String, ?> pojo = daoPojos.get(index);
-			
-			removeUnqualifiedColumns(pojo, unqualifiedColumns);
-			
-			int paramCount = addParameters(startIndex, parameters, pojo, finalInsertableColumns);
-			startIndex += paramCount;
-			values.append(String.format("(%s),", combine("?", paramCount, ",")));
+			addParameters(parameters, daoPojos.get(index), template.getColumns());
+			sql.append(rowValues).append(',');
 		}
-
-		String sql = String.format(TMPL_SQL_MULTIPLE_INSERT,
-				getTableName(hints), insertColumns,
-				values.substring(0, values.length() - 2) + ")");
+		sql.setLength(sql.length() - 1);
 
 		KeyHolder keyHolder = hints.getKeyHolder();
 		KeyHolder tmpHolder = keyHolder != null && keyHolder.isRequireMerge() ? new KeyHolder() : keyHolder;
 		
-		int count = client.update(sql, parameters, hints.setKeyHolder(tmpHolder));
+		int count = client.update(sql.toString(), parameters, hints.setKeyHolder(tmpHolder));
 		
-		if(tmpHolder != null)
+		if(tmpHolder != null && tmpHolder != keyHolder)
 			keyHolder.addPatial(daoPojos.keySet().toArray(new Integer[daoPojos.size()]), tmpHolder);
 		
 		hints.setKeyHolder(keyHolder);
 		return count;
 	}
 
+	/**
+	 * Split the pojos by max parameter count of the database category and max packet size. Each chunk
+	 * contains at least one pojo.
+	 */
+	public static List<Map<Integer, Map<String, ?>>> split(Map<Integer, Map<String, ?>> daoPojos, Template template, DatabaseCategory dbCategory, int maxSize) {
+		String[] columns = template.getColumns();
+		int maxRows = columns.length == 0 ? Integer.MAX_VALUE : dbCategory.getMaxParameterCount() / columns.length;
+		boolean checkSize = maxSize != Integer.MAX_VALUE;
+		
+		if(daoPojos.size() <= maxRows && !checkSize) {
+			List<Map<Integer, Map<String, ?>>> chunks = new ArrayList<>(1);
+			chunks.add(daoPojos);
+			return chunks;
+		}
+
+		List<Map<Integer, Map<String, ?>>> chunks = new ArrayList<>();
+		Map<Integer, Map<String, ?>> chunk = new LinkedHashMap<>();
+		int rowSize = template.getValues().length() + 1;
+		long size = template.getSql().length();
+
+		for (Map.Entry<Integer, Map<String, ?>> entry: daoPojos.entrySet()) {
+			long pojoSize = checkSize ? rowSize + estimateSize(entry.getValue(), columns) : 0;
+			if(!chunk.isEmpty() && (chunk.size() >= maxRows || size + pojoSize > maxSize)) {
+				chunks.add(chunk);
+				chunk = new LinkedHashMap<>();
+				size = template.getSql().length();
+			}
+			
+			chunk.put(entry.getKey(), entry.getValue());
+			size += pojoSize;
+		}
+		chunks.add(chunk);
+		
+		return chunks;
+	}
+	
+	private static long estimateSize(Map<String, ?> pojo, String[] columns) {
+		long size = 0;
+		for(String column: columns) {
+			Object value = pojo.get(column);
+			if(value == null)
+				size += NULL_SIZE;
+			else if(value instanceof String)
+				size += estimateSize((String)value);
+			else if(value instanceof byte[])
+				// Hex literal
+				size += ((byte[])value).length * 2 + 3;
+			else
+				size += VALUE_SIZE;
+		}
+		return size;
+	}
+
+	/**
+	 * @return bytes of the quoted and escaped string literal in UTF-8
+	 */
+	private static long estimateSize(String value) {
+		long size = 2;
+		for(int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if(c < 0x80)
+				size += isEscaped(c) ? 2 : 1;
+			else if(c < 0x800)
+				size += 2;
+			else if(Character.isSurrogate(c))
+				// 4 bytes for each pair
+				size += 2;
+			else
+				size += 3;
+		}
+		return size;
+	}
+
+	private static boolean isEscaped(char c) {
+		switch (c) {
+			case '\'':
+			case '\\':
+			case '"':
+			case '\0':
+			case '\n':
+			case '\r':
+			case '\032':
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Execute the chunks one by one on the same connection, they are committed or rolled back together.
+	 */
+	private int executeInTransaction(final DalHints hints, final List<Map<Integer, Map<String, ?>>> chunks, final Template template) throws SQLException {
+		final int[] count = new int[1];
+		client.execute(new DalCommand() {
+			@Override
+			public boolean execute(DalClient client) throws SQLException {
+				count[0] = executeSequentially(hints, chunks, template);
+				return true;
+			}
+		}, hints);
+		return count[0];
+	}
+
+	private int executeSequentially(DalHints hints, List<Map<Integer, Map<String, ?>>> chunks, Template template) throws SQLException {
+		int count = 0;
+		for(Map<Integer, Map<String, ?>> chunk: chunks)
+			count += execute(hints, chunk, template);
+		return count;
+	}
+
+	/**
+	 * Chunks other than the first one are submitted through ShardExecutionScope with the deadline of the request.
+	 * The first chunk is executed in current thread, then the chunks not yet started by the executor are also
+	 * executed in current thread, so that it will not wait for busy executor forever. Chunks that are not done
+	 * when the deadline is reached or any chunk fails are cancelled.
+	 */
+	private int executeInParallel(ExecutorService executor, DalHints hints, List<Map<Integer, Map<String, ?>>> chunks, Template template) throws SQLException {
+		StatementCanceller current = StatementCanceller.getCurrent();
+		int timeout = current == null ? hints.getInt(DalHintEnum.requestTimeout, 0) : current.getTimeout();
+		long deadline = current == null ? DalRequestExecutor.getDeadline(hints) : current.getDeadline();
+		ShardExecutionScope<Integer> scope = new ShardExecutionScope<>(executor, DalRequestExecutor.getMaxShardConcurrency(), deadline);
+
+		int count = 0;
+		try {
+			int submitted = 1;
+			try {
+				for(; submitted < chunks.size(); submitted++) {
+					StatementCanceller canceller = new StatementCanceller(deadline, timeout);
+					if(!scope.submit(String.valueOf(submitted), new ChunkCallable(hints.clone(), chunks.get(submitted), template, canceller), canceller))
+						throw new DalException(ErrorCode.RequestTimeout, timeout);
+				}
+			} catch (RejectedExecutionException e) {
+				// The rest will be executed in current thread
+			}
+
+			count += execute(hints, chunks.get(0), template);
+			for(int i = submitted; i < chunks.size(); i++)
+				count += execute(hints, chunks.get(i), template);
+
+			scope.runPending();
+			for(int i = 1; i < submitted; i++) {
+				Future<Integer> future = scope.next();
+				if(future == null)
+					throw new DalException(ErrorCode.RequestTimeout, timeout);
+				count += future.get();
+			}
+		} catch (ExecutionException e) {
+			throw DalException.wrap(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw DalException.wrap(e);
+		} finally {
+			scope.close();
+		}
+		
+		return count;
+	}
+
+	private class ChunkCallable implements Callable<Integer> {
+		private DalHints hints;
+		private Map<Integer, Map<String, ?>> chunk;
+		private Template template;
+		private StatementCanceller canceller;
+		
+		ChunkCallable(DalHints hints, Map<Integer, Map<String, ?>> chunk, Template template, StatementCanceller canceller) {
+			this.hints = hints;
+			this.chunk = chunk;
+			this.template = template;
+			this.canceller = canceller;
+		}
+
+		@Override
+		public Integer call() throws Exception {
+			StatementCanceller previous = StatementCanceller.getCurrent();
+			StatementCanceller.setCurrent(canceller);
+			try {
+				return execute(hints, chunk, template);
+			} finally {
+				StatementCanceller.setCurrent(previous);
+			}
+		}
+	}
+
+	/**
+	 * @return template whose sql is the part before the values and values is the placeholders of one row
+	 */
+	private Template getCombinedInsertTemplate(String rawTableName, Set<String> unqualifiedColumns) {
+		BitSet key = templates.toColumnSet(unqualifiedColumns);
+		Template template = templates.get(COMBINED_INSERT, rawTableName, key);
+		if(template != null)
+			return template;
+
+		List<String> finalInsertableColumns = buildValidColumnsForInsert(unqualifiedColumns);
+		String sql = String.format(TMPL_SQL_MULTIPLE_INSERT, quote(rawTableName),
+				combineColumns(finalInsertableColumns, COLUMN_SEPARATOR), "");
+		String values = "(" + combine(PLACE_HOLDER, finalInsertableColumns.size(), ",") + ")";
+
+		return templates.put(COMBINED_INSERT, rawTableName, key, new Template(sql, values, finalInsertableColumns));
+	}
+
 	@Override
 	public BulkTaskResultMerger<Integer> createMerger() {
 		return new ShardedIntResultMerger();
@@ -17,7 +17,7 @@ import com.ctrip.platform.dal.dao.client.LogContext;
 import com.ctrip.platform.dal.exceptions.DalException;
 import com.ctrip.platform.dal.exceptions.ErrorCode;
 
-public class DalBulkTaskRequest<K, T> implements DalRequest<K>{
+public class DalBulkTaskRequest<K, T> implements DalRequest<K>, LogicDbAware{
 	private String caller;
 	private String logicDbName;
 	private String rawTableName;
@@ -43,6 +43,11 @@ public class DalBulkTaskRequest<K, T> implements DalRequest<K>{
 		return caller;
 	}
 
+	@Override
+	public String getLogicDbName() {
+		return logicDbName;
+	}
+
 	@Override
 	public boolean isAsynExecution() {
 		return hints.isAsyncExecution();
@@ -90,12 +95,8 @@ public class DalBulkTaskRequest<K, T> implements DalRequest<K>{
 			return new BulkTaskCallable<>(logicDbName, rawTableName, hints.inShard(shard), shuffled.get(shard), task, taskContext);
 		}
 
-		// Convert to index map
-		Map<Integer, Map<String, ?>> daoPojosMap = new HashMap<>();
-		for(int i = 0; i < daoPojos.size(); i++)
-			daoPojosMap.put(i, daoPojos.get(i));
-
-		return new BulkTaskCallable<>(logicDbName, rawTableName, hints, daoPojosMap, task, taskContext);
+		// View by index, the fields are not created unless the task reads them
+		return new BulkTaskCallable<>(logicDbName, rawTableName, hints, LazyPojoFields.asIndexMap(daoPojos), task, taskContext);
 	}
 
 	@Override
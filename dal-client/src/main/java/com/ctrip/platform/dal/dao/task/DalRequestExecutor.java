@@ -1,23 +1,33 @@
 package com.ctrip.platform.dal.dao.task;
 
+import java.lang.reflect.Method;
 import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.ctrip.platform.dal.dao.DalClientFactory;
 import com.ctrip.platform.dal.dao.DalHintEnum;
 import com.ctrip.platform.dal.dao.DalHints;
 import com.ctrip.platform.dal.dao.DalResultCallback;
+import com.ctrip.platform.dal.dao.DalResultFuture;
 import com.ctrip.platform.dal.dao.ResultMerger;
+import com.ctrip.platform.dal.dao.Version;
 import com.ctrip.platform.dal.dao.client.DalLogger;
 import com.ctrip.platform.dal.dao.client.LogContext;
+import com.ctrip.platform.dal.dao.client.StatementCanceller;
+import com.ctrip.platform.dal.dao.client.TraceEvent;
+import com.ctrip.platform.dal.dao.status.BulkheadStatus;
+import com.ctrip.platform.dal.dao.status.DalStatusManager;
 import com.ctrip.platform.dal.exceptions.DalException;
 import com.ctrip.platform.dal.exceptions.ErrorCode;
 
@@ -28,21 +38,35 @@ import com.ctrip.platform.dal.exceptions.ErrorCode;
  * @author jhhe
  */
 public class DalRequestExecutor {
+	private static Logger staticLogger = LoggerFactory.getLogger(Version.getLoggerName());
+
 	private static AtomicReference<ExecutorService> serviceRef = new AtomicReference<>();
 
+	private static volatile ExecutorMode executorMode = ExecutorMode.pool;
+
+	private static volatile int maxShardConcurrency = 0;
+
 	public static final String MAX_POOL_SIZE = "maxPoolSize";
 	public static final String KEEP_ALIVE_TIME = "keepAliveTime";
+	public static final String EXECUTOR_MODE = "executorMode";
+	public static final String MAX_SHARD_CONCURRENCY = "maxShardConcurrency";
 
 	// To be consist with default connection max active size
 	public static final int DEFAULT_MAX_POOL_SIZE = 500;
 
 	public static final int DEFAULT_KEEP_ALIVE_TIME = 10;
 
+	public static final int DEFAULT_MAX_SHARD_CONCURRENCY = 16;
+
 	private DalLogger logger = DalClientFactory.getDalLogger();
 
 	private final static String NA = "N/A";
 
 	public static void init(String maxPoolSizeStr, String keepAliveTimeStr){
+		init(maxPoolSizeStr, keepAliveTimeStr, null, null);
+	}
+
+	public static void init(String maxPoolSizeStr, String keepAliveTimeStr, String executorModeStr, String maxShardConcurrencyStr){
 		if(serviceRef.get() != null)
 			return;
 
@@ -58,13 +82,46 @@ public class DalRequestExecutor {
 			if(keepAliveTimeStr != null)
 				keepAliveTime = Integer.parseInt(keepAliveTimeStr);
 
-			ThreadPoolExecutor executer = new ThreadPoolExecutor(maxPoolSize, maxPoolSize, keepAliveTime, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
-			executer.allowCoreThreadTimeOut(true);
+			ExecutorMode mode = ExecutorMode.parse(executorModeStr);
+
+			int shardConcurrency = 0;
+			if(mode == ExecutorMode.bounded)
+				shardConcurrency = maxShardConcurrencyStr == null ?
+						DEFAULT_MAX_SHARD_CONCURRENCY : Integer.parseInt(maxShardConcurrencyStr);
 
+			ExecutorService executer = mode == ExecutorMode.pool ? null : createVirtualThreadExecutor();
+
+			if(executer == null) {
+				ThreadPoolExecutor poolExecuter = new ThreadPoolExecutor(maxPoolSize, maxPoolSize, keepAliveTime, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+				poolExecuter.allowCoreThreadTimeOut(true);
+				executer = poolExecuter;
+
+				if(mode == ExecutorMode.virtual)
+					mode = ExecutorMode.pool;
+			}
+
+			executorMode = mode;
+			maxShardConcurrency = shardConcurrency;
 			serviceRef.set(executer);
 		}
 	}
 
+	/**
+	 * Virtual thread is only available since JDK 21, while DAL is still built for older JDK.
+	 * So it is looked up by reflection.
+	 *
+	 * @return null if virtual thread is not supported by current JVM
+	 */
+	private static ExecutorService createVirtualThreadExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)factory.invoke(null);
+		} catch (Throwable e) {
+			staticLogger.warn("Virtual thread is not supported by current JVM, the shared thread pool will be used instead.");
+			return null;
+		}
+	}
+
 	public static void shutdown() {
 		if (serviceRef.get() == null)
 			return;
@@ -82,35 +139,90 @@ public class DalRequestExecutor {
 		return execute(hints, request, false);
 	}
 
+	/**
+	 * The request takes one slot of the bulkhead of its logic DB until it is done, no matter
+	 * how many shards it is executed on. If there is no free slot, the request fails immediately.
+	 */
 	public <T> T execute(final DalHints hints, final DalRequest<T> request, final boolean nullable) throws SQLException {
 		if (hints.isAsyncExecution()) {
-			Future<T> future = serviceRef.get().submit(new Callable<T>() {
-				public T call() throws Exception {
-					return internalExecute(hints, request, nullable);
+			executeAsync(hints, request, nullable);
+			return null;
+		}
+
+		BulkheadStatus bulkhead = getBulkhead(request);
+		if(bulkhead != null && !bulkhead.tryAcquire())
+			throw rejected(hints, bulkhead);
+
+		if(bulkhead != null)
+			bulkhead.begin();
+
+		try {
+			return internalExecute(hints, request, nullable);
+		} finally {
+			if(bulkhead != null)
+				bulkhead.end();
+		}
+	}
+
+	/**
+	 * Execute the request in the shared executor. The returned future will be completed
+	 * when the request is done. It is also populated as DalHintEnum.futureResult.
+	 * 
+	 * The request takes one slot of the bulkhead of its logic DB from submitted to done. If
+	 * there is no free slot, the future is completed with error immediately.
+	 */
+	public <T> DalResultFuture<T> executeAsync(final DalHints hints, final DalRequest<T> request, final boolean nullable) {
+		final DalResultFuture<T> future = new DalResultFuture<>();
+		hints.set(DalHintEnum.futureResult, future);
+
+		final BulkheadStatus bulkhead = getBulkhead(request);
+		if(bulkhead != null && !bulkhead.tryAcquire()) {
+			future.completeExceptionally(rejected(hints, bulkhead));
+			return future;
+		}
+
+		try {
+			serviceRef.get().execute(new Runnable() {
+				public void run() {
+					if(bulkhead != null)
+						bulkhead.begin();
+
+					try {
+						if(!future.isDone())
+							future.complete(internalExecute(hints, request, nullable));
+					} catch (Throwable e) {
+						future.completeExceptionally(e);
+					} finally {
+						if(bulkhead != null)
+							bulkhead.end();
+					}
 				}
 			});
-
-			if(hints.isAsyncExecution())
-				hints.set(DalHintEnum.futureResult, future);
-			return null;
+		} catch (Throwable e) {
+			if(bulkhead != null)
+				bulkhead.release();
+			future.completeExceptionally(e);
 		}
 
-		return internalExecute(hints, request, nullable);
+		return future;
 	}
 
 	private <T> T internalExecute(DalHints hints, DalRequest<T> request, boolean nullable) throws SQLException {
 		T result = null;
 		Throwable error = null;
 
+		TraceEvent event = TraceEvent.begin(TraceEvent.Type.REQUEST);
 		LogContext logContext = logger.start(request);
+		logContext.setLogicDbName(getLogicDbName(request));
+		long deadline = getDeadline(hints);
 
 		try {
 			request.validate();
 
 			if(request.isCrossShard())
-				result = crossShardExecute(logContext, hints, request);
+				result = crossShardExecute(logContext, hints, request, deadline);
 			else
-				result = nonCrossShardExecute(logContext, hints, request);
+				result = nonCrossShardExecute(logContext, hints, request, deadline);
 
 			if(result == null && !nullable)
 				throw new DalException(ErrorCode.AssertNull);
@@ -120,6 +232,11 @@ public class DalRequestExecutor {
 
 		logger.end(logContext, error);
 
+		if(event != null) {
+			event.setLogicDbName(logContext.getLogicDbName());
+			event.commit(error == null);
+		}
+
 		handleCallback(hints, result, error);
 		if(error != null)
 			throw DalException.wrap(error);
@@ -127,13 +244,39 @@ public class DalRequestExecutor {
 		return result;
 	}
 
-	private <T> T nonCrossShardExecute(LogContext logContext, DalHints hints, DalRequest<T> request) throws Exception {
+	private static String getLogicDbName(DalRequest<?> request) {
+		return request instanceof LogicDbAware ? ((LogicDbAware)request).getLogicDbName() : null;
+	}
+
+	private static BulkheadStatus getBulkhead(DalRequest<?> request) {
+		return DalStatusManager.getBulkheadStatus(getLogicDbName(request));
+	}
+
+	private DalException rejected(DalHints hints, BulkheadStatus bulkhead) {
+		DalException e = new DalException(ErrorCode.ExecutorBulkheadFull, bulkhead.getMaxConcurrency(), bulkhead.getName());
+		handleCallback(hints, null, e);
+		return e;
+	}
+
+	/**
+	 * @return deadline of the request in System.nanoTime(), 0 means there is no deadline
+	 */
+	static long getDeadline(DalHints hints) {
+		int timeout = hints.getInt(DalHintEnum.requestTimeout, 0);
+		return timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+	}
+
+	private <T> RequestTaskWrapper<T> createTask(String shard, Callable<T> task, DalHints hints, long deadline, LogContext logContext) {
+		return new RequestTaskWrapper<T>(shard, task, logContext, new StatementCanceller(deadline, hints.getInt(DalHintEnum.requestTimeout, 0)));
+	}
+
+	private <T> T nonCrossShardExecute(LogContext logContext, DalHints hints, DalRequest<T> request, long deadline) throws Exception {
 		logContext.setSingleTask(true);
-		Callable<T> task = new RequestTaskWrapper<T>(NA, request.createTask(), logContext);
+		Callable<T> task = createTask(NA, request.createTask(), hints, deadline, logContext);
 		return task.call();
 	}
 
-	private <T> T crossShardExecute(LogContext logContext, DalHints hints, DalRequest<T> request) throws Exception {
+	private <T> T crossShardExecute(LogContext logContext, DalHints hints, DalRequest<T> request, long deadline) throws Exception {
 		Map<String, Callable<T>> tasks = request.createTasks();
 		logContext.setShards(tasks.keySet());
 
@@ -149,8 +292,8 @@ public class DalRequestExecutor {
 
 		try {
 			result = isSequentialExecution?
-					seqncialExecute(hints, tasks, merger, logContext):
-					parallelExecute(hints, tasks, merger, logContext);
+					seqncialExecute(hints, tasks, merger, logContext, deadline):
+					parallelExecute(hints, tasks, merger, logContext, deadline);
 
 		} catch (Throwable e) {
 			error = e;
@@ -176,27 +319,53 @@ public class DalRequestExecutor {
 			qc.onError(error);
 	}
 
-	private <T> T parallelExecute(DalHints hints, Map<String, Callable<T>> tasks, ResultMerger<T> merger, LogContext logContext) throws SQLException {
-		Map<String, Future<T>> resultFutures = new HashMap<>();
+	/**
+	 * Shard results are merged in the order of completion. When deadline is reached or any shard fails
+	 * without continueOnError, the statements of the remaining shards will be cancelled.
+	 */
+	private <T> T parallelExecute(DalHints hints, Map<String, Callable<T>> tasks, ResultMerger<T> merger, LogContext logContext, long deadline) throws SQLException {
+		ShardExecutionScope<T> scope = new ShardExecutionScope<>(serviceRef.get(), maxShardConcurrency, deadline);
 
-		for(final String shard: tasks.keySet())
-			resultFutures.put(shard, serviceRef.get().submit(new RequestTaskWrapper<T>(shard, tasks.get(shard), logContext)));
+		try {
+			int submitted = 0;
+			for(final String shard: tasks.keySet()) {
+				if(!scope.submit(createTask(shard, tasks.get(shard), hints, deadline, logContext)))
+					break;
+				submitted++;
+			}
 
-		for(Map.Entry<String, Future<T>> entry: resultFutures.entrySet()) {
-			try {
-				merger.addPartial(entry.getKey(), entry.getValue().get());
-			} catch (Throwable e) {
-				hints.handleError("There is error during parallel execution: ", e);
+			boolean expired = submitted < tasks.size();
+			for(int i = 0; i < submitted; i++) {
+				Future<T> future = scope.next();
+				if(future == null) {
+					expired = true;
+					break;
+				}
+
+				try {
+					merger.addPartial(scope.getShard(future), future.get());
+				} catch (Throwable e) {
+					hints.handleError("There is error during parallel execution: ", e);
+				}
 			}
+
+			if(expired)
+				hints.handleError("There is error during parallel execution: ",
+						new DalException(ErrorCode.RequestTimeout, hints.getInt(DalHintEnum.requestTimeout)));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw DalException.wrap(e);
+		} finally {
+			scope.close();
 		}
 
 		return merger.merge();
 	}
 
-	private <T> T seqncialExecute(DalHints hints, Map<String, Callable<T>> tasks, ResultMerger<T> merger, LogContext logContext) throws SQLException {
+	private <T> T seqncialExecute(DalHints hints, Map<String, Callable<T>> tasks, ResultMerger<T> merger, LogContext logContext, long deadline) throws SQLException {
 		for(final String shard: tasks.keySet()) {
 			try {
-				merger.addPartial(shard, new RequestTaskWrapper<T>(shard, tasks.get(shard), logContext).call());
+				merger.addPartial(shard, createTask(shard, tasks.get(shard), hints, deadline, logContext).call());
 			} catch (Throwable e) {
 				hints.handleError("There is error during sequential execution: ", e);
 			}
@@ -205,11 +374,26 @@ public class DalRequestExecutor {
 		return merger.merge();
 	}
 
+	/**
+	 * @return the shared executor, null if it is not initialized
+	 */
+	static ExecutorService getExecutor() {
+		return serviceRef.get();
+	}
+
 	public static int getPoolSize() {
-		ThreadPoolExecutor executer = (ThreadPoolExecutor)serviceRef.get();
-		if (serviceRef.get() == null)
+		ExecutorService executer = serviceRef.get();
+		if (executer == null || !(executer instanceof ThreadPoolExecutor))
 			return 0;
 
-		return executer.getPoolSize();
+		return ((ThreadPoolExecutor)executer).getPoolSize();
+	}
+
+	public static ExecutorMode getExecutorMode() {
+		return executorMode;
+	}
+
+	public static int getMaxShardConcurrency() {
+		return maxShardConcurrency;
 	}
 }
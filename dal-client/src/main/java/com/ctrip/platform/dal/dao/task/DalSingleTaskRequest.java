@@ -1,21 +1,30 @@
 package com.ctrip.platform.dal.dao.task;
 
 import static com.ctrip.platform.dal.dao.helper.DalShardingHelper.detectDistributedTransaction;
+import static com.ctrip.platform.dal.dao.helper.DalShardingHelper.getDatabaseSet;
+import static com.ctrip.platform.dal.dao.helper.DalShardingHelper.isShardingEnabled;
+import static com.ctrip.platform.dal.dao.helper.DalShardingHelper.shuffle;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.ctrip.platform.dal.dao.DalClientFactory;
 import com.ctrip.platform.dal.dao.DalHints;
+import com.ctrip.platform.dal.dao.KeyHolder;
 import com.ctrip.platform.dal.dao.ResultMerger;
+import com.ctrip.platform.dal.dao.client.DalTransactionManager;
 import com.ctrip.platform.dal.dao.client.DalWatcher;
 import com.ctrip.platform.dal.dao.client.LogContext;
 import com.ctrip.platform.dal.exceptions.DalException;
 import com.ctrip.platform.dal.exceptions.ErrorCode;
 
-public class DalSingleTaskRequest<T> implements DalRequest<int[]>{
+public class DalSingleTaskRequest<T> implements DalRequest<int[]>, LogicDbAware{
 	private String caller;
 	private String logicDbName;
 	private DalHints hints;
@@ -24,6 +33,8 @@ public class DalSingleTaskRequest<T> implements DalRequest<int[]>{
 	private List<T> rawPojos;
 	private List<Map<String, ?>> daoPojos;
 	private SingleTask<T> task;
+	private Map<String, Map<Integer, Map<String, ?>>> shuffled;
+	private Map<Integer, Map<String, Object>> generatedKeys = new ConcurrentHashMap<>();
 
 	private DalSingleTaskRequest(String logicDbName, DalHints hints, SingleTask<T> task) {
 		this.logicDbName = logicDbName;
@@ -50,6 +61,11 @@ public class DalSingleTaskRequest<T> implements DalRequest<int[]>{
 		return caller;
 	}
 
+	@Override
+	public String getLogicDbName() {
+		return logicDbName;
+	}
+
 	@Override
 	public boolean isAsynExecution() {
 		return hints.isAsyncExecution();
@@ -76,53 +92,124 @@ public class DalSingleTaskRequest<T> implements DalRequest<int[]>{
 		detectDistributedTransaction(logicDbName, hints, daoPojos);
 	}
 
+	/**
+	 * Pojo list that spans more than one DB shard is grouped by shard, each group is executed
+	 * in its own thread. Single pojo, pojos in transaction or pojos whose shard is given by hints
+	 * are still executed one by one in the caller's thread.
+	 */
 	@Override
-	public boolean isCrossShard() {
-		// The single task request is always executed as if the pojos are not corss shard even they really are.
-		return false;
+	public boolean isCrossShard() throws SQLException {
+		if(!isList || !isShardingEnabled(logicDbName) || DalTransactionManager.isInTransaction())
+			return false;
+
+		if(getDatabaseSet(logicDbName).getStrategy().locateDbShard(DalClientFactory.getDalConfigure(), logicDbName, hints) != null)
+			return false;
+
+		shuffled = shuffle(logicDbName, null, daoPojos);
+		return shuffled.size() > 1;
 	}
 
 	@Override
 	public Callable<int[]> createTask() {
-		return new SingleTaskCallable<>(hints, daoPojos, rawPojos, task);
+		Map<Integer, Map<String, ?>> daoPojosMap = new LinkedHashMap<>();
+		for(int i = 0; i < daoPojos.size(); i++)
+			daoPojosMap.put(i, daoPojos.get(i));
+
+		return new SingleTaskCallable<>(hints, daoPojosMap, rawPojos, task, null);
 	}
 
 	@Override
 	public Map<String, Callable<int[]>> createTasks() throws SQLException {
-		throw new DalException(ErrorCode.NotSupported);
+		Map<String, Callable<int[]>> tasks = new HashMap<>();
+
+		for(String shard: shuffled.keySet()) {
+			// Generated keys of each shard are collected by index and added to the key holder in merge
+			DalHints shardHints = hints.clone().inShard(shard);
+			if(hints.getKeyHolder() != null)
+				shardHints.setKeyHolder(new KeyHolder());
+
+			tasks.put(shard, new SingleTaskCallable<>(shardHints, shuffled.get(shard), rawPojos, task, generatedKeys));
+		}
+
+		return tasks;
 	}
 
 	@Override
 	public ResultMerger<int[]> getMerger() {
-		// Not support for now. Maybe support for new hints in the future
-		return null;
+		return new SingleTaskResultMerger(shuffled, daoPojos.size(), hints.getKeyHolder(), generatedKeys);
 	}
 
 	private static class SingleTaskCallable<T> implements Callable<int[]> {
 		private DalHints hints;
-		private List<Map<String, ?>> daoPojos;
+		private Map<Integer, Map<String, ?>> daoPojos;
 		private List<T> rawPojos;
 		private SingleTask<T> task;
+		private Map<Integer, Map<String, Object>> generatedKeys;
 
-		public SingleTaskCallable(DalHints hints, List<Map<String, ?>> daoPojos, List<T> rawPojos, SingleTask<T> task){
+		public SingleTaskCallable(DalHints hints, Map<Integer, Map<String, ?>> daoPojos, List<T> rawPojos, SingleTask<T> task, Map<Integer, Map<String, Object>> generatedKeys){
 			this.hints = hints;
 			this.daoPojos = daoPojos;
 			this.rawPojos = rawPojos;
 			this.task = task;
+			this.generatedKeys = generatedKeys;
 		}
 
 		@Override
 		public int[] call() throws Exception {
 			int[] counts = new int[daoPojos.size()];
 			DalHints localHints = hints.clone();// To avoid shard id being polluted by each pojos
-			for (int i = 0; i < daoPojos.size(); i++) {
+			KeyHolder keyHolder = generatedKeys == null ? null : localHints.getKeyHolder();
+			int i = 0;
+			for (Integer index: daoPojos.keySet()) {
 				DalWatcher.begin();// TODO check if we needed
 				try {
-					counts[i] = task.execute(localHints, daoPojos.get(i), rawPojos.get(i));
+					int keyCount = keyHolder == null ? 0 : keyHolder.getKeyList().size();
+					counts[i] = task.execute(localHints, daoPojos.get(index), rawPojos.get(index));
+
+					if(keyHolder != null && keyHolder.getKeyList().size() > keyCount)
+						generatedKeys.put(index, keyHolder.getKeyList().get(keyCount));
 				} catch (SQLException e) {
 					hints.handleError("Error when execute single pojo operation", e);
 				}
+				i++;
+			}
+			return counts;
+		}
+	}
+
+	/**
+	 * Put affected rows of each shard back to the original position of the pojo. Generated keys
+	 * are added to the key holder in the original order of the pojos.
+	 */
+	private static class SingleTaskResultMerger implements ResultMerger<int[]> {
+		private Map<String, Map<Integer, Map<String, ?>>> shuffled;
+		private int[] counts;
+		private KeyHolder keyHolder;
+		private Map<Integer, Map<String, Object>> generatedKeys;
+
+		public SingleTaskResultMerger(Map<String, Map<Integer, Map<String, ?>>> shuffled, int size, KeyHolder keyHolder, Map<Integer, Map<String, Object>> generatedKeys) {
+			this.shuffled = shuffled;
+			this.counts = new int[size];
+			this.keyHolder = keyHolder;
+			this.generatedKeys = generatedKeys;
+		}
+
+		@Override
+		public void addPartial(String shard, int[] partial) throws SQLException {
+			int i = 0;
+			for(Integer index: shuffled.get(shard).keySet())
+				counts[index] = partial[i++];
+		}
+
+		@Override
+		public int[] merge() throws SQLException {
+			if(keyHolder != null) {
+				for(int i = 0; i < counts.length; i++) {
+					if(generatedKeys.containsKey(i))
+						keyHolder.addKey(generatedKeys.get(i));
+				}
 			}
+
 			return counts;
 		}
 	}
@@ -26,7 +26,7 @@ import com.ctrip.platform.dal.dao.helper.DalShardingHelper;
 import com.ctrip.platform.dal.dao.sqlbuilder.SqlBuilder;
 import com.ctrip.platform.dal.dao.sqlbuilder.TableSqlBuilder;
 
-public class DalSqlTaskRequest<T> implements DalRequest<T>{
+public class DalSqlTaskRequest<T> implements DalRequest<T>, LogicDbAware {
 	private String caller;
 	private DalLogger logger;
 	private String logicDbName;
@@ -56,6 +56,11 @@ public class DalSqlTaskRequest<T> implements DalRequest<T>{
 		return caller;
 	}
 
+	@Override
+	public String getLogicDbName() {
+		return logicDbName;
+	}
+
 	@Override
 	public boolean isAsynExecution() {
 		return hints.isAsyncExecution();
@@ -161,6 +166,9 @@ public class DalSqlTaskRequest<T> implements DalRequest<T>{
 			if(!parameters.containsInParameter())
 				return;
 
+			if(hints.is(DalHintEnum.padInParameters))
+				parameters.padInParameters();
+
 			sql = SQLCompiler.compile(sql, parameters.getAllInParameters());
 			parameters.compile();
 		}
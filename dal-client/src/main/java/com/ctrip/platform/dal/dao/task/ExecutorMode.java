@@ -0,0 +1,38 @@
+package com.ctrip.platform.dal.dao.task;
+
+/**
+ * How DalRequestExecutor runs the shard tasks of cross shard requests. It is configured by
+ * the executorMode setting of TaskFactory in Dal.config.
+ *
+ * @author jhhe
+ */
+public enum ExecutorMode {
+	/**
+	 * Shard tasks are executed by the shared fixed size thread pool. This is the default mode.
+	 */
+	pool,
+
+	/**
+	 * Each shard task is executed by its own virtual thread. It requires JDK 21 or above,
+	 * the shared thread pool will be used if virtual thread is not available.
+	 */
+	virtual,
+
+	/**
+	 * Same as virtual, but the number of shard tasks running at the same time for one request
+	 * is limited by maxShardConcurrency.
+	 */
+	bounded;
+
+	public static ExecutorMode parse(String value) {
+		if(value == null || value.trim().isEmpty())
+			return pool;
+
+		for(ExecutorMode mode: values()) {
+			if(mode.name().equalsIgnoreCase(value.trim()))
+				return mode;
+		}
+
+		throw new IllegalArgumentException("Unknown executorMode: " + value + ". Valid values are pool, virtual and bounded");
+	}
+}
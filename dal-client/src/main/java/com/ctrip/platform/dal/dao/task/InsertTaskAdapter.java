@@ -2,8 +2,10 @@ package com.ctrip.platform.dal.dao.task;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -11,9 +13,11 @@ import java.util.Set;
 
 import com.ctrip.platform.dal.dao.DalHints;
 import com.ctrip.platform.dal.dao.DalParser;
+import com.ctrip.platform.dal.dao.task.SqlTemplateCache.Template;
 
 public class InsertTaskAdapter<T> extends TaskAdapter<T> {
 	public static final String TMPL_SQL_INSERT = "INSERT INTO %s (%s) VALUES(%s)";
+	private static final String INSERT = "INSERT";
 
 	protected Set<String> insertableColumns;
 	protected Set<String> notInsertableColumns;
@@ -59,6 +63,23 @@ public class InsertTaskAdapter<T> extends TaskAdapter<T> {
 		return finalalidColumnsForInsert;
 	}
 	
+	/**
+	 * @return the insert sql and columns to be bound for the table shard and unqualified columns
+	 */
+	public Template getInsertTemplate(String rawTableName, Set<String> unqualifiedColumns) {
+		BitSet key = templates.toColumnSet(unqualifiedColumns);
+		Template template = templates.get(INSERT, rawTableName, key);
+		if(template != null)
+			return template;
+
+		List<String> finalInsertableColumns = buildValidColumnsForInsert(unqualifiedColumns);
+		String sql = String.format(TMPL_SQL_INSERT, quote(rawTableName),
+				combineColumns(finalInsertableColumns, COLUMN_SEPARATOR),
+				combine(PLACE_HOLDER, finalInsertableColumns.size(), COLUMN_SEPARATOR));
+
+		return templates.put(INSERT, rawTableName, key, new Template(sql, finalInsertableColumns));
+	}
+	
 	public Set<String> filterUnqualifiedColumns(DalHints hints, List<Map<String, ?>> daoPojos, List<T> rawPojos) {
 		Set<String> unqualifiedColumns = new HashSet<>(notInsertableColumns);
 		
@@ -71,19 +92,28 @@ public class InsertTaskAdapter<T> extends TaskAdapter<T> {
 
 		Set<String> nullColumns = new HashSet<>(insertableColumns);
 		String[] columnsToCheck = nullColumns.toArray(new String[nullColumns.size()]);
+		
+		// Read from the entities if possible, so that the fields are not created
+		boolean readEntity = columnReader != null && rawPojos != null && rawPojos.size() == daoPojos.size();
+		int[] indexesToCheck = readEntity ? getColumnIndexes(columnsToCheck) : null;
+		Iterator<T> rawIterator = readEntity ? rawPojos.iterator() : null;
 		boolean changed = false;
-		for (Map<String, ?> pojo: daoPojos) {
+		for (int p = 0; p < daoPojos.size(); p++) {
 			if(nullColumns.isEmpty())
 				break;
 
 			if(changed) {
 				columnsToCheck = nullColumns.toArray(new String[nullColumns.size()]);
+				indexesToCheck = readEntity ? getColumnIndexes(columnsToCheck) : null;
 				changed = false;
 			}
 			
+			T rawPojo = readEntity ? rawIterator.next() : null;
+			Map<String, ?> pojo = readEntity ? null : daoPojos.get(p);
 			for (int i = 0; i < columnsToCheck.length; i++) {
 				String colName = columnsToCheck[i];
-				if(pojo.get(colName) != null) {
+				Object value = readEntity ? columnReader.getColumnValue(rawPojo, indexesToCheck[i]) : pojo.get(colName);
+				if(value != null) {
 					nullColumns.remove(colName);
 					changed = true;
 				}
@@ -94,13 +124,4 @@ public class InsertTaskAdapter<T> extends TaskAdapter<T> {
 		
 		return unqualifiedColumns;
 	}
-
-	public void removeUnqualifiedColumns(Map<String, ?> pojo, Set<String> unqualifiedColumns) {
-		if(unqualifiedColumns.size() == 0)
-			return;
-		
-		for(String columName: unqualifiedColumns) {
-			pojo.remove(columName);
-		}
-	}
 }
@@ -0,0 +1,146 @@
+package com.ctrip.platform.dal.dao.task;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import com.ctrip.platform.dal.dao.DalParser;
+
+/**
+ * Fields of pojos returned by TaskAdapter.getPojosFields. The fields of a pojo are got from the parser
+ * when they are accessed for the first time and kept for later access. Tasks that bind parameters
+ * straight from the entity never access them, so the maps are not created at all.
+ */
+class LazyPojoFields<T> extends AbstractList<Map<String, ?>> implements RandomAccess {
+	private DalParser<T> parser;
+	private List<T> pojos;
+	private Map<String, ?>[] fields;
+
+	@SuppressWarnings("unchecked")
+	LazyPojoFields(DalParser<T> parser, List<T> pojos) {
+		this.parser = parser;
+		this.pojos = pojos instanceof RandomAccess ? pojos : new ArrayList<>(pojos);
+		this.fields = new Map[pojos.size()];
+	}
+
+	@Override
+	public Map<String, ?> get(int index) {
+		Map<String, ?> pojoFields = fields[index];
+		if(pojoFields == null)
+			fields[index] = pojoFields = parser.getFields(pojos.get(index));
+		return pojoFields;
+	}
+
+	@Override
+	public int size() {
+		return fields.length;
+	}
+
+	/**
+	 * @return read only view of the fields by the index of pojo. Unlike copying into a map, the fields
+	 * are only got from the list when the value is accessed
+	 */
+	static Map<Integer, Map<String, ?>> asIndexMap(List<Map<String, ?>> pojosFields) {
+		return new IndexMap(pojosFields);
+	}
+
+	private static class IndexMap extends AbstractMap<Integer, Map<String, ?>> {
+		private List<Map<String, ?>> pojosFields;
+
+		IndexMap(List<Map<String, ?>> pojosFields) {
+			this.pojosFields = pojosFields;
+		}
+
+		@Override
+		public int size() {
+			return pojosFields.size();
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return key instanceof Integer && (Integer)key >= 0 && (Integer)key < pojosFields.size();
+		}
+
+		@Override
+		public Map<String, ?> get(Object key) {
+			return containsKey(key) ? pojosFields.get((Integer)key) : null;
+		}
+
+		@Override
+		public Set<Map.Entry<Integer, Map<String, ?>>> entrySet() {
+			return new AbstractSet<Map.Entry<Integer, Map<String, ?>>>() {
+				@Override
+				public Iterator<Map.Entry<Integer, Map<String, ?>>> iterator() {
+					return new Iterator<Map.Entry<Integer, Map<String, ?>>>() {
+						private int next;
+
+						@Override
+						public boolean hasNext() {
+							return next < pojosFields.size();
+						}
+
+						@Override
+						public Map.Entry<Integer, Map<String, ?>> next() {
+							if(!hasNext())
+								throw new NoSuchElementException();
+							return new IndexEntry(next++);
+						}
+
+						@Override
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return pojosFields.size();
+				}
+			};
+		}
+
+		private class IndexEntry implements Map.Entry<Integer, Map<String, ?>> {
+			private int index;
+
+			IndexEntry(int index) {
+				this.index = index;
+			}
+
+			@Override
+			public Integer getKey() {
+				return index;
+			}
+
+			@Override
+			public Map<String, ?> getValue() {
+				return pojosFields.get(index);
+			}
+
+			@Override
+			public Map<String, ?> setValue(Map<String, ?> value) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public boolean equals(Object obj) {
+				if(!(obj instanceof Map.Entry))
+					return false;
+				Map.Entry<?, ?> other = (Map.Entry<?, ?>)obj;
+				return getKey().equals(other.getKey()) && getValue().equals(other.getValue());
+			}
+
+			@Override
+			public int hashCode() {
+				return index ^ getValue().hashCode();
+			}
+		}
+	}
+}
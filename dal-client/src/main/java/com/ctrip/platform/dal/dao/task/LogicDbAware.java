@@ -0,0 +1,12 @@
+package com.ctrip.platform.dal.dao.task;
+
+/**
+ * Implemented by the DalRequest that knows the logic DB it is executed against. The executor
+ * applies the bulkhead of the logic DB to such request, other requests are not limited.
+ */
+public interface LogicDbAware {
+	/**
+	 * @return the logic DB the request is executed against
+	 */
+	String getLogicDbName();
+}
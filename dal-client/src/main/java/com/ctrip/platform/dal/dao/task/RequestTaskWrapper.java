@@ -6,6 +6,8 @@ import com.ctrip.platform.dal.dao.DalClientFactory;
 import com.ctrip.platform.dal.dao.client.DalLogger;
 import com.ctrip.platform.dal.dao.client.LogContext;
 import com.ctrip.platform.dal.dao.client.LogEntry;
+import com.ctrip.platform.dal.dao.client.StatementCanceller;
+import com.ctrip.platform.dal.dao.client.TraceEvent;
 import com.ctrip.platform.dal.exceptions.DalException;
 
 public class RequestTaskWrapper<T> implements Callable<T> {
@@ -13,11 +15,33 @@ public class RequestTaskWrapper<T> implements Callable<T> {
     private String shard;
     private Callable<T> task;
     private LogContext logContext;
+    private StatementCanceller canceller;
 
     public RequestTaskWrapper(String shard, Callable<T> task, LogContext logContext) {
+        this(shard, task, logContext, null);
+    }
+
+    public RequestTaskWrapper(String shard, Callable<T> task, LogContext logContext, StatementCanceller canceller) {
         this.shard = shard;
         this.task = task;
         this.logContext = logContext;
+        this.canceller = canceller;
+    }
+
+    public String getShard() {
+        return shard;
+    }
+
+    public StatementCanceller getCanceller() {
+        return canceller;
+    }
+
+    /**
+     * Cancel the statements being executed by this task
+     */
+    public void cancel() {
+        if(canceller != null)
+            canceller.cancel();
     }
 
     @Override
@@ -26,10 +50,15 @@ public class RequestTaskWrapper<T> implements Callable<T> {
         T result = null;
 
         logger.startTask(logContext, shard);
+        TraceEvent event = TraceEvent.begin(TraceEvent.Type.SHARD_TASK);
 
+        StatementCanceller previous = StatementCanceller.getCurrent();
         try {
             LogEntry.populateCurrentCaller(logContext.getCaller());
 
+            if(canceller != null)
+                StatementCanceller.setCurrent(canceller);
+
             result = task.call();
 
             LogEntry.clearCurrentCaller();
@@ -37,6 +66,14 @@ public class RequestTaskWrapper<T> implements Callable<T> {
             error = e;
         }
 
+        StatementCanceller.setCurrent(previous);
+
+        if(event != null) {
+            event.setLogicDbName(logContext.getLogicDbName());
+            event.setShard(shard);
+            event.commit(error == null);
+        }
+
         logger.endTask(logContext, shard, error);
 
         if(error != null)
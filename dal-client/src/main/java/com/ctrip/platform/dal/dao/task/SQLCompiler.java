@@ -3,11 +3,10 @@ package com.ctrip.platform.dal.dao.task;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.apache.commons.lang.StringUtils;
-
 public class SQLCompiler {
 	private static String regEx = null;
 	private static Pattern inRegxPattern = null;
@@ -16,6 +15,14 @@ public class SQLCompiler {
 		 inRegxPattern = Pattern.compile(regEx);
 	}
 	
+	/**
+	 * Max number of sql templates to be cached. Sql not cached is parsed every time
+	 */
+	public static final int MAX_CACHED_TEMPLATES = 4096;
+	
+	// The plain sql segments around the IN slots of the original sql
+	private static final ConcurrentHashMap<String, String[]> templates = new ConcurrentHashMap<>();
+	
 	/**
 	 * Combine the parameters into SQL according to the IN Keyword
 	 * TODO: Deal with the situation of null/empty of IN parameter specified;
@@ -31,7 +38,83 @@ public class SQLCompiler {
 	{
 		if(null == parms || parms.size() == 0)
 			return original;
-		StringBuffer temp = new StringBuffer();
+		
+		String[] plains = getTemplate(original);
+		if(plains.length != parms.size() + 1){
+			throw new SQLException(String.format("SQL Parser failed. The count of in parameters[%s] not match parameter count[%s]", 
+					plains.length - 1, parms.size()));
+		}
+		
+		int length = original.length();
+		for (List<?> parm : parms)
+			length += 6 + parm.size() * 2;
+		
+		StringBuilder temp = new StringBuilder(length);
+		int index = 0;
+		for (; index < parms.size(); index++) {
+			temp.append(plains[index]).append("In (");
+			int size = parms.get(index).size();
+			for(int j = 0; j < size; j ++) {
+				if(j > 0)
+					temp.append(',');
+				temp.append('?');
+			}
+			temp.append(") ");
+		}
+		temp.append(plains[index]);
+		
+		return temp.toString();
+	}
+	
+	/**
+	 * Round the count of IN values up to power of two, so that the number of distinct sql compiled
+	 * from the same original sql is at most log2 of the max count.
+	 * 
+	 * @param count count of the IN values
+	 * @return the padded count, 0 if count is 0
+	 */
+	public static int bucket(int count) {
+		if(count <= 1)
+			return count;
+		
+		int highest = Integer.highestOneBit(count);
+		return highest == count ? count : highest << 1;
+	}
+	
+	/**
+	 * Pad the IN values to the bucket of its count by repeating the last value. The result of
+	 * IN is not changed by repeated value.
+	 * 
+	 * @return the given values if no padding needed
+	 */
+	public static List<?> pad(List<?> values) {
+		int size = values.size();
+		int bucket = bucket(size);
+		if(bucket == size)
+			return values;
+		
+		List<Object> padded = new ArrayList<Object>(bucket);
+		padded.addAll(values);
+		Object last = values.get(size - 1);
+		while(padded.size() < bucket)
+			padded.add(last);
+		
+		return padded;
+	}
+	
+	private static String[] getTemplate(String original) {
+		String[] plains = templates.get(original);
+		if(plains != null)
+			return plains;
+		
+		plains = parse(original);
+		if(templates.size() < MAX_CACHED_TEMPLATES)
+			templates.putIfAbsent(original, plains);
+		
+		return plains;
+	}
+	
+	private static String[] parse(String original) {
 		Matcher m = inRegxPattern.matcher(original);
 		List<String> plains = new ArrayList<String>();
 		int start = 0;
@@ -42,22 +125,6 @@ public class SQLCompiler {
     	}
 		plains.add(original.substring(start, original.length()));
 		
-		if(plains.size() != parms.size() + 1){
-			throw new SQLException(String.format("SQL Parser failed. The count of in parameters[%s] not match parameter count[%s]", 
-					plains.size() - 1, parms.size()));
-		}
-		
-		int index = 0;
-		for (; index < parms.size(); index++) {
-			List<String> qus = new ArrayList<String>(parms.get(index).size());
-			for(int j = 0; j < parms.get(index).size(); j ++)
-				qus.add("?");
-			temp.append(plains.get(index))
-				.append(String.format("In (%s)", StringUtils.join(qus, ",")))
-				.append(" ");
-		}
-		temp.append(plains.get(index));
-		
-		return temp.toString();
+		return plains.toArray(new String[plains.size()]);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.ctrip.platform.dal.dao.task;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.ctrip.platform.dal.dao.client.StatementCanceller;
+
+/**
+ * Scope of the shard tasks belong to one cross shard request. If maxConcurrency is greater than 0,
+ * at most maxConcurrency tasks of the request can be running at the same time, and submit will
+ * block until a running task is completed.
+ *
+ * Completed tasks are returned by next in completion order. If deadline is set, next will return
+ * null when the deadline is reached. Tasks not yet started by the executor can be run in the caller's
+ * thread by runPending, so that a caller running in the same executor does not wait for itself.
+ *
+ * The scope must be closed when the request is done. Any task that is not completed at that time
+ * will be cancelled, including the statement it is executing, so that no task of the request can
+ * outlive the request.
+ *
+ * @author jhhe
+ */
+class ShardExecutionScope<T> {
+	private ExecutorService service;
+	private Semaphore permits;
+	private long deadline;
+	private BlockingQueue<Future<T>> completed = new LinkedBlockingQueue<>();
+	private Map<Future<T>, String> shards = new HashMap<>();
+	private Map<Future<T>, StatementCanceller> cancellers = new HashMap<>();
+
+	/**
+	 * @param deadline in System.nanoTime(), 0 means there is no deadline
+	 */
+	ShardExecutionScope(ExecutorService service, int maxConcurrency, long deadline) {
+		this.service = service;
+		this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * @return false if the deadline is reached before the task can be submitted
+	 */
+	boolean submit(RequestTaskWrapper<T> task) throws InterruptedException {
+		return submit(task.getShard(), task, task.getCanceller());
+	}
+
+	/**
+	 * @param canceller the canceller the task executes statements with, it is cancelled if the task is not
+	 * completed when the scope is closed
+	 * @return false if the deadline is reached before the task can be submitted
+	 */
+	boolean submit(String shard, final Callable<T> task, StatementCanceller canceller) throws InterruptedException {
+		if(permits != null && !acquire())
+			return false;
+
+		// Either the task starts running or it is cancelled before that, the one wins returns the permit
+		final AtomicBoolean claimed = new AtomicBoolean();
+		Callable<T> callable = new Callable<T>() {
+			public T call() throws Exception {
+				if(!claimed.compareAndSet(false, true))
+					throw new CancellationException();
+
+				try {
+					return task.call();
+				} finally {
+					if(permits != null)
+						permits.release();
+				}
+			}
+		};
+
+		FutureTask<T> future = new FutureTask<T>(callable) {
+			protected void done() {
+				if(claimed.compareAndSet(false, true))
+					release();
+				completed.add(this);
+			}
+		};
+
+		shards.put(future, shard);
+		cancellers.put(future, canceller);
+
+		try {
+			service.execute(future);
+		} catch (RejectedExecutionException e) {
+			shards.remove(future);
+			cancellers.remove(future);
+			if(claimed.compareAndSet(false, true))
+				release();
+			throw e;
+		}
+
+		return true;
+	}
+
+	private void release() {
+		if(permits != null)
+			permits.release();
+	}
+
+	private boolean acquire() throws InterruptedException {
+		if(deadline == 0) {
+			permits.acquire();
+			return true;
+		}
+
+		return permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return the next completed task, or null if the deadline is reached
+	 */
+	Future<T> next() throws InterruptedException {
+		if(deadline == 0)
+			return completed.take();
+
+		return completed.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Run the tasks not yet started by the executor in current thread. The result is still returned by next.
+	 */
+	void runPending() {
+		for(Future<T> future: shards.keySet())
+			((FutureTask<T>)future).run();
+	}
+
+	String getShard(Future<T> future) {
+		return shards.get(future);
+	}
+
+	void close() {
+		for(Map.Entry<Future<T>, StatementCanceller> entry: cancellers.entrySet()) {
+			if(entry.getKey().isDone())
+				continue;
+
+			if(entry.getValue() != null)
+				entry.getValue().cancel();
+			entry.getKey().cancel(true);
+		}
+	}
+}
@@ -1,24 +1,34 @@
 package com.ctrip.platform.dal.dao.task;
 
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Map;
 
 import com.ctrip.platform.dal.dao.DalHints;
 import com.ctrip.platform.dal.dao.StatementParameters;
+import com.ctrip.platform.dal.dao.task.SqlTemplateCache.Template;
 
 public class SingleDeleteTask<T> extends TaskAdapter<T> implements SingleTask<T> {
 	private static final String TMPL_SQL_DELETE = "DELETE FROM %s WHERE %s";
+	private static final String DELETE = "DELETE";
+	private static final BitSet NO_COLUMNS = new BitSet();
 
 	@Override
 	public int execute(DalHints hints, Map<String, ?> fields, T rawPojo) throws SQLException {
 		StatementParameters parameters = new StatementParameters();
 		addParameters(parameters, fields, parser.getPrimaryKeyNames());
-		String deleteSql = buildDeleteSql(getTableName(hints, parameters, fields));
+		String deleteSql = getDeleteSql(getRawTableName(hints, parameters, fields));
 
 		return client.update(deleteSql, parameters, hints.setFields(fields));
 	}
 
-	private String buildDeleteSql(String tableName) {
-		return String.format(TMPL_SQL_DELETE, tableName, pkSql);
+	private String getDeleteSql(String rawTableName) {
+		Template template = templates.get(DELETE, rawTableName, NO_COLUMNS);
+		if(template == null) {
+			String sql = String.format(TMPL_SQL_DELETE, quote(rawTableName), pkSql);
+			template = templates.put(DELETE, rawTableName, NO_COLUMNS, new Template(sql, Arrays.asList(parser.getPrimaryKeyNames())));
+		}
+		return template.getSql();
 	}
 }
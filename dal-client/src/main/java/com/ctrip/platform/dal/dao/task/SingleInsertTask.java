@@ -8,6 +8,7 @@ import java.util.Set;
 
 import com.ctrip.platform.dal.dao.DalHints;
 import com.ctrip.platform.dal.dao.StatementParameters;
+import com.ctrip.platform.dal.dao.task.SqlTemplateCache.Template;
 
 public class SingleInsertTask<T> extends InsertTaskAdapter<T> implements SingleTask<T> {
 	
@@ -21,27 +22,18 @@ public class SingleInsertTask<T> extends InsertTaskAdapter<T> implements SingleT
 		
 		Set<String> unqualifiedColumns = filterUnqualifiedColumns(hints, pojoList, rawPojos);
 		
-		removeUnqualifiedColumns(fields, unqualifiedColumns);
-
 		/*
 		 * In case fields is empty, the final sql will be like "insert into tableName () values()".
 		 * We do not report error or simply return 0, but just let DB decide what to do.
 		 * For MS Sql server, sql like this is illegal, but for mysql, this works however
 		 */
 		
-		String insertSql = buildInsertSql(hints, fields);
+		Template template = getInsertTemplate(getRawTableName(hints, fields), unqualifiedColumns);
 		
+		// Bind by the final columns instead of removing unqualified columns from the pojo
 		StatementParameters parameters = new StatementParameters();
-		addParameters(parameters, fields);
+		addParameters(parameters, fields, template.getColumns());
 		
-		return client.update(insertSql, parameters, hints);
-	}
-	
-	private String buildInsertSql(DalHints hints, Map<String, ?> fields) throws SQLException {
-		Set<String> remainedColumns = fields.keySet();
-		String cloumns = combineColumns(remainedColumns, COLUMN_SEPARATOR);
-		String values = combine(PLACE_HOLDER, remainedColumns.size(), COLUMN_SEPARATOR);
-
-		return String.format(TMPL_SQL_INSERT, getTableName(hints, fields), cloumns, values);
+		return client.update(template.getSql(), parameters, hints);
 	}
 }
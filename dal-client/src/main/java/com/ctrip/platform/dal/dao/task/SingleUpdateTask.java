@@ -1,6 +1,8 @@
 package com.ctrip.platform.dal.dao.task;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -8,11 +10,13 @@ import java.util.Set;
 import com.ctrip.platform.dal.dao.DalHints;
 import com.ctrip.platform.dal.dao.StatementParameters;
 import com.ctrip.platform.dal.dao.UpdatableEntity;
+import com.ctrip.platform.dal.dao.task.SqlTemplateCache.Template;
 import com.ctrip.platform.dal.exceptions.DalException;
 import com.ctrip.platform.dal.exceptions.ErrorCode;
 
 public class SingleUpdateTask<T> extends TaskAdapter<T> implements SingleTask<T> {
 	public static final String TMPL_SQL_UPDATE = "UPDATE %s SET %s WHERE %s";
+	private static final String UPDATE = "UPDATE";
 	
 	@Override
 	public int execute(DalHints hints, Map<String, ?> fields, T rawPojo) throws SQLException {
@@ -33,14 +37,14 @@ public class SingleUpdateTask<T> extends TaskAdapter<T> implements SingleTask<T>
 		if(filted.size() == 0)
 			return 0;
 		
-		String updateSql = buildUpdateSql(getTableName(hints, fields), filted, hints);
+		Template template = getUpdateTemplate(getRawTableName(hints, fields), filted);
 
 		StatementParameters parameters = new StatementParameters();
-		addParameters(parameters, filted);
+		addParameters(parameters, filted, template.getColumns());
 		addParameters(parameters, pks);
 		addVersion(parameters, version);
 		
-		return client.update(updateSql, parameters, hints.setFields(fields));
+		return client.update(template.getSql(), parameters, hints.setFields(fields));
 	}
 
 	private Object getVersion(Map<String, ?> fields) throws DalException {
@@ -89,7 +93,17 @@ public class SingleUpdateTask<T> extends TaskAdapter<T> implements SingleTask<T>
 		return filted;
 	}
 	
-	private String buildUpdateSql(String tableName, Map<String, ?> fields, DalHints hints) {
+	private Template getUpdateTemplate(String rawTableName, Map<String, ?> filted) {
+		BitSet key = templates.toColumnSet(filted.keySet());
+		Template template = templates.get(UPDATE, rawTableName, key);
+		if(template != null)
+			return template;
+
+		String sql = buildUpdateSql(quote(rawTableName), filted);
+		return templates.put(UPDATE, rawTableName, key, new Template(sql, new ArrayList<>(filted.keySet())));
+	}
+	
+	private String buildUpdateSql(String tableName, Map<String, ?> fields) {
 		String columns = String.format(
 				combine(TMPL_SET_VALUE, fields.size(), COLUMN_SEPARATOR),
 				quote(fields.keySet()));
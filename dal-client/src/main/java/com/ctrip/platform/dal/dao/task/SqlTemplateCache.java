@@ -0,0 +1,138 @@
+package com.ctrip.platform.dal.dao.task;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the DML sql built by a task. The sql only depends on the operation, the table shard and the
+ * set of columns involved, so it is built once and reused. The set of columns is represented by a bitset
+ * of the column indexes in parser, the order of columns in the set does not matter.
+ *
+ * The cached template is immutable, it contains the sql and the columns to be bound as parameters in
+ * order. At most MAX_TEMPLATES templates are cached for each task, template built after that is not
+ * cached. This avoids unbounded growth for updating entities with arbitrary changed columns.
+ */
+public class SqlTemplateCache {
+	public static final int MAX_TEMPLATES = 256;
+
+	private Map<String, Integer> columnIndexes = new HashMap<>();
+	private ConcurrentHashMap<Key, Template> templates = new ConcurrentHashMap<>();
+
+	public SqlTemplateCache(String[] columnNames) {
+		for(int i = 0; i < columnNames.length; i++)
+			columnIndexes.put(columnNames[i], i);
+	}
+
+	/**
+	 * @return bitset of the column indexes, column not defined in parser is ignored
+	 */
+	public BitSet toColumnSet(Collection<String> columns) {
+		BitSet set = new BitSet(columnIndexes.size());
+		for(String column: columns) {
+			Integer index = columnIndexes.get(column);
+			if(index != null)
+				set.set(index);
+		}
+		return set;
+	}
+
+	public Template get(String operation, String tableName, BitSet columns) {
+		return get(operation, tableName, columns, null);
+	}
+
+	/**
+	 * @param nullableColumns columns that are set with value or null template, null if not applicable
+	 * @return null if not cached
+	 */
+	public Template get(String operation, String tableName, BitSet columns, BitSet nullableColumns) {
+		return templates.get(new Key(operation, tableName, columns, nullableColumns));
+	}
+
+	public Template put(String operation, String tableName, BitSet columns, Template template) {
+		return put(operation, tableName, columns, null, template);
+	}
+
+	/**
+	 * @return the template cached for the key, it is the given template if it is the first one
+	 */
+	public Template put(String operation, String tableName, BitSet columns, BitSet nullableColumns, Template template) {
+		if(templates.size() >= MAX_TEMPLATES)
+			return template;
+
+		Template existing = templates.putIfAbsent(new Key(operation, tableName, columns, nullableColumns), template);
+		return existing == null ? template : existing;
+	}
+
+	public int size() {
+		return templates.size();
+	}
+
+	public static class Template {
+		private final String sql;
+		private final String values;
+		private final String[] columns;
+
+		public Template(String sql, List<String> columns) {
+			this(sql, null, columns);
+		}
+
+		/**
+		 * @param values placeholders of one row for multiple rows insert
+		 */
+		public Template(String sql, String values, List<String> columns) {
+			this.sql = sql;
+			this.values = values;
+			this.columns = columns.toArray(new String[columns.size()]);
+		}
+
+		public String getSql() {
+			return sql;
+		}
+
+		public String getValues() {
+			return values;
+		}
+
+		/**
+		 * @return columns to be bound as parameters in order. The returned array should not be modified
+		 */
+		public String[] getColumns() {
+			return columns;
+		}
+	}
+
+	private static class Key {
+		private final String operation;
+		private final String tableName;
+		private final BitSet columns;
+		private final BitSet nullableColumns;
+
+		Key(String operation, String tableName, BitSet columns, BitSet nullableColumns) {
+			this.operation = operation;
+			this.tableName = tableName;
+			this.columns = columns;
+			this.nullableColumns = nullableColumns;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Key))
+				return false;
+
+			Key other = (Key)obj;
+			return operation.equals(other.operation) && tableName.equals(other.tableName) && columns.equals(other.columns)
+					&& (nullableColumns == null ? other.nullableColumns == null : nullableColumns.equals(other.nullableColumns));
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = operation.hashCode() * 31 + tableName.hashCode();
+			hash = hash * 31 + columns.hashCode();
+			return nullableColumns == null ? hash : hash * 31 + nullableColumns.hashCode();
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.ctrip.platform.dal.dao.task;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+
+import com.ctrip.platform.dal.dao.DalClient;
+import com.ctrip.platform.dal.dao.DalHints;
+import com.ctrip.platform.dal.dao.DalResultIterator;
+import com.ctrip.platform.dal.dao.DalRowMapper;
+import com.ctrip.platform.dal.dao.DalStreamClient;
+import com.ctrip.platform.dal.dao.StatementParameters;
+import com.ctrip.platform.dal.dao.helper.DalRowMapperExtractor;
+
+public class StreamQuerySqlTask<T> implements SqlTask<DalResultIterator<T>>{
+	private DalRowMapper<T> mapper;
+
+	public StreamQuerySqlTask(DalRowMapper<T> mapper) {
+		this.mapper = mapper;
+	}
+
+	@Override
+	public DalResultIterator<T> execute(DalClient client, String sql, StatementParameters parameters, DalHints hints) throws SQLException {
+		if(client instanceof DalStreamClient)
+			return ((DalStreamClient)client).stream(sql, parameters, hints, mapper);
+
+		return new ListResultIterator<>(client.query(sql, parameters, hints, new DalRowMapperExtractor<>(mapper)));
+	}
+
+	/**
+	 * Iterator over the result already read into memory
+	 */
+	private static class ListResultIterator<T> implements DalResultIterator<T> {
+		private Iterator<T> iterator;
+
+		ListResultIterator(List<T> result) {
+			this.iterator = result.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+
+		@Override
+		public T next() {
+			return iterator.next();
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
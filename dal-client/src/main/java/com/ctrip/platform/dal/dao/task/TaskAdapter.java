@@ -7,6 +7,7 @@ import static com.ctrip.platform.dal.dao.helper.DalShardingHelper.locateTableSha
 
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -14,7 +15,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -28,6 +28,7 @@ import com.ctrip.platform.dal.dao.DalParser;
 import com.ctrip.platform.dal.dao.DalQueryDao;
 import com.ctrip.platform.dal.dao.StatementParameters;
 import com.ctrip.platform.dal.dao.UpdatableEntity;
+import com.ctrip.platform.dal.dao.helper.ColumnValueReader;
 
 public class TaskAdapter<T> implements DaoTask<T> {
 	public static final String GENERATED_KEY = "GENERATED_KEY";
@@ -46,6 +47,8 @@ public class TaskAdapter<T> implements DaoTask<T> {
 	protected DalClient client;
 	protected DalQueryDao queryDao;
 	protected DalParser<T> parser;
+	// Not null if the parser can read column values from the entity without creating the fields map
+	protected ColumnValueReader<T> columnReader;
 
 	protected String logicDbName;
 	protected DatabaseCategory dbCategory;
@@ -53,6 +56,7 @@ public class TaskAdapter<T> implements DaoTask<T> {
 	protected Set<String> pkColumns;
 	protected Set<String> sensitiveColumns;
 	protected Map<String, Integer> columnTypes = new HashMap<String, Integer>();
+	protected Map<String, Integer> columnIndexes = new HashMap<String, Integer>();
 	
 	protected String updateCriteriaTmpl;
 	protected String setValueTmpl;
@@ -60,14 +64,17 @@ public class TaskAdapter<T> implements DaoTask<T> {
 	protected boolean hasVersion;
 	protected boolean isVersionUpdatable;
 	protected Set<String> defaultUpdateColumnNames;
+	protected SqlTemplateCache templates;
 
 	
 	public boolean tableShardingEnabled;
 	protected String rawTableName;
 
+	@SuppressWarnings("unchecked")
 	public void initialize(DalParser<T> parser) {
 		this.client = DalClientFactory.getClient(parser.getDatabaseName());
 		this.parser = parser;
+		this.columnReader = parser instanceof ColumnValueReader ? (ColumnValueReader<T>)parser : null;
 		this.logicDbName = parser.getDatabaseName();
 		queryDao = new DalQueryDao(parser.getDatabaseName());
 
@@ -81,6 +88,8 @@ public class TaskAdapter<T> implements DaoTask<T> {
 	}
 	
 	public void initDbSpecific() {
+		// The cached sql depends on quotation of the database category
+		templates = new SqlTemplateCache(parser.getColumnNames());
 		pkSql = initPkSql();
 		initUpdateColumns();
 		setValueTmpl = dbCategory.getNullableUpdateTpl();
@@ -190,6 +199,21 @@ public class TaskAdapter<T> implements DaoTask<T> {
 		}
 	}
 	
+	/**
+	 * Add the values of the columns read from the entity into the parameters by index. It is the
+	 * same as adding the fields of the entity, but the fields map is not created. Only applicable
+	 * when columnReader is not null.
+	 * 
+	 * @param columnIndexes index of each valid column in the column names of parser
+	 */
+	public void addParameters(StatementParameters parameters,
+			T pojo, String[] validColumns, int[] columnIndexes) {
+		int index = parameters.size() + 1;
+		for(int i = 0; i < validColumns.length; i++){
+			addParameter(parameters, index++, validColumns[i], columnReader.getColumnValue(pojo, columnIndexes[i]));
+		}
+	}
+	
 	public int addParameters(int start, StatementParameters parameters,
 			Map<String, ?> entries, List<String> validColumns) {
 		int count = 0;
@@ -333,16 +357,14 @@ public class TaskAdapter<T> implements DaoTask<T> {
 		return null == daoPojos || daoPojos.size() == 0;
 	}
 	
+	/**
+	 * @return fields of each pojo, which are got from parser only when accessed
+	 */
 	public List<Map<String, ?>> getPojosFields(List<T> daoPojos) {
-		List<Map<String, ?>> pojoFields = new LinkedList<Map<String, ?>>();
 		if (null == daoPojos || daoPojos.size() < 1)
-			return pojoFields;
-		
-		for (T pojo: daoPojos){
-			pojoFields.add(parser.getFields(pojo));
-		}
+			return new ArrayList<Map<String, ?>>();
 		
-		return pojoFields;
+		return new LazyPojoFields<>(parser, daoPojos);
 	}
 	
 	public Map<Integer, Map<String, ?>> getPojosFieldsMap(List<T> daoPojos) {
@@ -386,7 +408,19 @@ public class TaskAdapter<T> implements DaoTask<T> {
 		int[] columnsTypes = parser.getColumnTypes();
 		for (int i = 0; i < cloumnNames.length; i++) {
 			columnTypes.put(cloumnNames[i], columnsTypes[i]);
+			columnIndexes.put(cloumnNames[i], i);
+		}
+	}
+	
+	/**
+	 * @return index of each column in the column names of parser
+	 */
+	public int[] getColumnIndexes(String[] columns) {
+		int[] indexes = new int[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			indexes[i] = columnIndexes.get(columns[i]);
 		}
+		return indexes;
 	}
 	
 	public Map<String, ?> getPrimaryKeys(Map<String, ?> fields) {
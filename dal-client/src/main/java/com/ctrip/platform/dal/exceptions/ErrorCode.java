@@ -153,6 +153,21 @@ public enum ErrorCode {
      */
     TransactionDistributedShard(ErrorClassify.Transaction, 5605, "DAL do not support distributed transaction in same DB but different shard. Current shard: %s, requested in hints: %s"),
     
+	/**
+	 * The request is not completed within %s ms
+	 */
+	RequestTimeout(ErrorClassify.Statement, 5400, "The request is not completed within %s ms"),
+	
+	/**
+	 * The statement is cancelled because the request is timed out or failed
+	 */
+	StatementCancelled(ErrorClassify.Statement, 5401, "The statement is cancelled because the request is timed out or failed"),
+	
+	/**
+	 * There are already %s concurrent requests of database set %s being executed
+	 */
+	ExecutorBulkheadFull(ErrorClassify.Statement, 5402, "There are already %s concurrent requests of database set %s being executed"),
+	
     /**
      * The result mapping is faild.
      */
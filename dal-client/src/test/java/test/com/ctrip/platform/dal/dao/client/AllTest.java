@@ -13,6 +13,10 @@ import org.junit.runners.Suite.SuiteClasses;
 	DalTransactionTest.class,
 	DalShardingHelperTest.class,
 	DalConfigureFactoryTest.class,
+	LogRingBufferTest.class,
+	DalResultSetIteratorTest.class,
+	SamplingSketchTest.class,
+	TraceEventTest.class,
 })
 public class AllTest {
 
@@ -0,0 +1,54 @@
+package test.com.ctrip.platform.dal.dao.client;
+
+import com.ctrip.platform.dal.dao.client.CallerLocator;
+import com.ctrip.platform.dal.dao.client.LogEntry;
+
+/**
+ * Compare the cost of locating caller by full stack trace with CallerLocator.
+ * The calls are nested to simulate the depth of a DAO call in a web application.
+ */
+public class CallerLocatorBenchmark {
+	private static final int STACK_DEPTH = 100;
+	private static final int WARM_UP = 100 * 1000;
+	private static final int ITERATIONS = 1000 * 1000;
+
+	private static volatile Object sink;
+
+	public static void main(String[] args) throws Exception {
+		for (String mode: new String[]{"stackTrace", "locator", "disabled"}) {
+			nested(mode, STACK_DEPTH, WARM_UP);
+			long start = System.nanoTime();
+			nested(mode, STACK_DEPTH, ITERATIONS);
+			long cost = System.nanoTime() - start;
+
+			System.out.println(String.format("mode: %s depth: %d ns/op: %d", mode, STACK_DEPTH, cost / ITERATIONS));
+		}
+	}
+
+	private static void nested(String mode, int depth, int iterations) {
+		if (depth > 0) {
+			nested(mode, depth - 1, iterations);
+			return;
+		}
+
+		CallerLocator.setEnabled(!mode.equals("disabled"));
+		for (int i = 0; i < iterations; i++)
+			sink = mode.equals("stackTrace") ? locateByStackTrace() : new LogEntry();
+		CallerLocator.setEnabled(true);
+	}
+
+	/**
+	 * How LogEntry located the caller before
+	 */
+	private static String locateByStackTrace() {
+		StackTraceElement[] callers = Thread.currentThread().getStackTrace();
+		for (int i = 1; i < callers.length; i++) {
+			StackTraceElement caller = callers[i];
+			if (caller.getClassName().startsWith("com.ctrip.platform.dal.dao."))
+				continue;
+
+			return caller.toString();
+		}
+		return null;
+	}
+}
@@ -0,0 +1,177 @@
+package test.com.ctrip.platform.dal.dao.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.DalClient;
+import com.ctrip.platform.dal.dao.DalHints;
+import com.ctrip.platform.dal.dao.DalResultIterator;
+import com.ctrip.platform.dal.dao.DalResultSetExtractor;
+import com.ctrip.platform.dal.dao.DalRowMapper;
+import com.ctrip.platform.dal.dao.client.DalResultSetIterator;
+import com.ctrip.platform.dal.dao.task.StreamQuerySqlTask;
+
+public class DalResultSetIteratorTest {
+	private static final DalRowMapper<String> MAPPER = new DalRowMapper<String>() {
+		public String map(ResultSet rs, int rowNum) throws SQLException {
+			return rowNum + ":" + rs.getString(1);
+		}
+	};
+
+	private static class Resources {
+		List<String> values;
+		int cursor = -1;
+		int fetched;
+		boolean rsClosed;
+		boolean statementClosed;
+		SQLException error;
+
+		Resources(String... values) {
+			this.values = Arrays.asList(values);
+		}
+
+		ResultSet createResultSet() {
+			return (ResultSet)Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSet.class}, new InvocationHandler() {
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					switch (method.getName()) {
+					case "next":
+						if(error != null)
+							throw error;
+						fetched++;
+						return ++cursor < values.size();
+					case "getString":
+						return values.get(cursor);
+					case "close":
+						rsClosed = true;
+						return null;
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				}
+			});
+		}
+
+		Statement createStatement() {
+			return (Statement)Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Statement.class}, new InvocationHandler() {
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					if(method.getName().equals("close")) {
+						statementClosed = true;
+						return null;
+					}
+					throw new UnsupportedOperationException(method.getName());
+				}
+			});
+		}
+
+		DalResultSetIterator<String> createIterator() {
+			return new DalResultSetIterator<>(createResultSet(), createStatement(), null, MAPPER);
+		}
+	}
+
+	@Test
+	public void testLazyRead() throws Exception {
+		Resources resources = new Resources("a", "b", "c");
+		DalResultSetIterator<String> test = resources.createIterator();
+		assertEquals(0, resources.fetched);
+
+		assertEquals("0:a", test.next());
+		assertEquals(1, resources.fetched);
+
+		// hasNext does not move the cursor twice
+		assertTrue(test.hasNext());
+		assertTrue(test.hasNext());
+		assertEquals(2, resources.fetched);
+		assertEquals("1:b", test.next());
+		assertFalse(resources.rsClosed);
+		test.close();
+	}
+
+	@Test
+	public void testCloseAtEnd() throws Exception {
+		Resources resources = new Resources("a", "b");
+		DalResultSetIterator<String> test = resources.createIterator();
+		List<String> result = new ArrayList<>();
+		while(test.hasNext())
+			result.add(test.next());
+
+		assertEquals(Arrays.asList("0:a", "1:b"), result);
+		assertEquals(2, test.getRowCount());
+		assertTrue(test.isClosed());
+		assertTrue(resources.rsClosed);
+		assertTrue(resources.statementClosed);
+		assertFalse(test.hasNext());
+
+		try {
+			test.next();
+			fail();
+		} catch (NoSuchElementException e) {
+		}
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		Resources resources = new Resources("a", "b");
+		try(DalResultSetIterator<String> test = resources.createIterator()) {
+			assertEquals("0:a", test.next());
+		}
+
+		assertTrue(resources.rsClosed);
+		assertTrue(resources.statementClosed);
+	}
+
+	@Test
+	public void testError() throws Exception {
+		Resources resources = new Resources("a", "b");
+		DalResultSetIterator<String> test = resources.createIterator();
+		assertEquals("0:a", test.next());
+
+		resources.error = new SQLException("test");
+		try {
+			test.hasNext();
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals(resources.error, e.getCause());
+		}
+
+		assertTrue(test.isClosed());
+		assertTrue(resources.rsClosed);
+		assertTrue(resources.statementClosed);
+	}
+
+	@Test
+	public void testClientNotStreamable() throws Exception {
+		final Resources resources = new Resources("a", "b");
+		DalClient client = (DalClient)Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{DalClient.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if(method.getName().equals("query"))
+					return ((DalResultSetExtractor<?>)args[3]).extract(resources.createResultSet());
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+
+		// The result is read into memory by query
+		DalResultIterator<String> test = new StreamQuerySqlTask<>(MAPPER).execute(client, "select", null, new DalHints());
+		assertEquals(3, resources.fetched);
+
+		List<String> result = new ArrayList<>();
+		while(test.hasNext())
+			result.add(test.next());
+		test.close();
+		assertEquals(Arrays.asList("0:a", "1:b"), result);
+	}
+}
@@ -1,16 +1,26 @@
 package test.com.ctrip.platform.dal.dao.client;
 
+import org.junit.BeforeClass;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import com.ctrip.platform.dal.dao.client.CallerLocator;
+import com.ctrip.platform.dal.dao.client.LogContext;
 import com.ctrip.platform.dal.dao.client.LogEntry;
 
 public class LogEntryTest {
+    @BeforeClass
+    public static void setUpBeforeClass() {
+        LogEntry.init();
+    }
+
     @Test
     public void testGetCallerInShort() {
         LogEntry test = new LogEntry();
 
-        assertEquals("NativeMethodAccessorImpl.invoke", test.getCallerInShort());
+        assertEquals("LogEntryTest.testGetCallerInShort", test.getCallerInShort());
     }
 
     @Test
@@ -20,6 +30,42 @@ public class LogEntryTest {
 
         assertEquals("LogEntryTest.testGetCallerInShortPopulate", test.getCallerInShort());
         LogEntry.clearCurrentCaller();
-        assertEquals("NativeMethodAccessorImpl.invoke", test.getCallerInShort());
+        assertEquals("LogEntryTest.testGetCallerInShortPopulate", test.getCallerInShort());
+    }
+
+    @Test
+    public void testSourceOfCallSite() {
+        LogEntry first = null;
+        LogEntry second = null;
+        for (int i = 0; i < 2; i++) {
+            LogEntry entry = new LogEntry();
+            if (first == null)
+                first = entry;
+            else
+                second = entry;
+        }
+
+        assertEquals("test.com.ctrip.platform.dal.dao.client.LogEntryTest", first.getDao());
+        assertEquals("testSourceOfCallSite", first.getMethod());
+        assertTrue(first.getSource().startsWith("test.com.ctrip.platform.dal.dao.client.LogEntryTest.testSourceOfCallSite(LogEntryTest.java:"));
+        // Same call site shares the same located caller
+        assertSame(first.getSource(), second.getSource());
+    }
+
+    @Test
+    public void testRequestCaller() {
+        assertEquals("test.com.ctrip.platform.dal.dao.client.LogEntryTest.testRequestCaller", LogContext.getRequestCaller());
+    }
+
+    @Test
+    public void testLocateCallerDisabled() {
+        CallerLocator.setEnabled(false);
+        try {
+            LogEntry test = new LogEntry();
+            assertEquals(CallerLocator.UNKNOWN.getDao(), test.getDao());
+            assertEquals(CallerLocator.UNKNOWN.getName(), LogContext.getRequestCaller());
+        } finally {
+            CallerLocator.setEnabled(true);
+        }
     }
 }
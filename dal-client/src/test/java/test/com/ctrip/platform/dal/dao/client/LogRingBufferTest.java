@@ -0,0 +1,109 @@
+package test.com.ctrip.platform.dal.dao.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.client.LogRingBuffer;
+
+public class LogRingBufferTest {
+	@Test
+	public void testCapacity() {
+		LogRingBuffer test = new LogRingBuffer(1000, 16);
+		assertEquals(1024, test.getCapacity());
+		test.shutdown();
+	}
+
+	@Test
+	public void testOrder() throws Exception {
+		LogRingBuffer test = new LogRingBuffer(16, 4);
+		final List<Integer> values = new ArrayList<>();
+		final CountDownLatch latch = new CountDownLatch(100);
+		for(int i = 0; i < 100; i++) {
+			final int value = i;
+			while(!test.offer(new Runnable() {
+				public void run() {
+					values.add(value);
+					latch.countDown();
+				}
+			}))
+				Thread.sleep(1);
+		}
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		for(int i = 0; i < 100; i++)
+			assertEquals(i, values.get(i).intValue());
+		test.shutdown();
+	}
+
+	@Test
+	public void testDropWhenFull() throws Exception {
+		LogRingBuffer test = new LogRingBuffer(4, 4);
+		final CountDownLatch blocker = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(1);
+		test.offer(new Runnable() {
+			public void run() {
+				started.countDown();
+				try {
+					blocker.await();
+				} catch (InterruptedException e) {
+				}
+			}
+		});
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		Runnable noop = new Runnable() {
+			public void run() {
+			}
+		};
+		for(int i = 0; i < 4; i++)
+			assertTrue(test.offer(noop));
+		assertFalse(test.offer(noop));
+		assertEquals(1, test.getDroppedCount());
+		assertEquals(4, test.getQueueDepth());
+
+		blocker.countDown();
+		test.shutdown();
+		assertFalse(test.offer(noop));
+		assertEquals(2, test.getDroppedCount());
+	}
+
+	@Test
+	public void testMultipleProducers() throws Exception {
+		final LogRingBuffer test = new LogRingBuffer(1024, 64);
+		final AtomicInteger count = new AtomicInteger();
+		final Runnable increment = new Runnable() {
+			public void run() {
+				count.incrementAndGet();
+			}
+		};
+
+		final CountDownLatch done = new CountDownLatch(8);
+		for(int i = 0; i < 8; i++) {
+			new Thread(new Runnable() {
+				public void run() {
+					for(int j = 0; j < 10000; j++)
+						test.offer(increment);
+					done.countDown();
+				}
+			}).start();
+		}
+		done.await();
+
+		long deadline = System.currentTimeMillis() + 10000;
+		while((count.get() + test.getDroppedCount() < 80000 || test.getProcessedCount() < count.get()) && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+
+		assertEquals(80000, count.get() + test.getDroppedCount());
+		assertEquals(count.get(), test.getProcessedCount());
+		test.shutdown();
+	}
+}
@@ -0,0 +1,71 @@
+package test.com.ctrip.platform.dal.dao.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.client.SamplingSketch;
+
+public class SamplingSketchTest {
+	@Test
+	public void testInterval() {
+		SamplingSketch test = new SamplingSketch(100);
+		long now = System.currentTimeMillis() / 1000 * 1000;
+		assertTrue(test.trySample(1, now, 60000));
+		assertFalse(test.trySample(1, now + 1, 60000));
+		assertFalse(test.trySample(1, now + 59999, 60000));
+		assertTrue(test.trySample(1, now + 60000, 60000));
+		assertFalse(test.trySample(1, now + 90000, 60000));
+
+		// Different key is not affected
+		assertTrue(test.trySample(2, now + 90000, 60000));
+
+		// Shorter interval for the same key
+		assertTrue(test.trySample(1, now + 90000, 30000));
+	}
+
+	@Test
+	public void testManyKeys() {
+		SamplingSketch test = new SamplingSketch(1000);
+		long now = System.currentTimeMillis();
+		int sampled = 0;
+		for(int i = 0; i < 1000; i++) {
+			if(test.trySample(("select * from t" + i).hashCode(), now, 1000))
+				sampled++;
+		}
+		assertEquals(1000, sampled);
+
+		for(int i = 0; i < 1000; i++)
+			assertFalse(test.trySample(("select * from t" + i).hashCode(), now + 10, 60000));
+
+		// Memory is fixed, keys far more than expected still expire by time
+		for(int i = 0; i < 100000; i++)
+			test.trySample(i, now, 1000);
+		assertTrue(test.trySample(-1, now + 60000, 60000));
+	}
+
+	@Test
+	public void testConcurrent() throws Exception {
+		final SamplingSketch test = new SamplingSketch(100);
+		final AtomicInteger sampled = new AtomicInteger();
+		final CountDownLatch latch = new CountDownLatch(8);
+		for(int i = 0; i < 8; i++) {
+			new Thread(new Runnable() {
+				public void run() {
+					for(int j = 0; j < 1000; j++) {
+						if(test.trySample(42, System.currentTimeMillis(), 60000))
+							sampled.incrementAndGet();
+					}
+					latch.countDown();
+				}
+			}).start();
+		}
+		latch.await();
+		assertEquals(1, sampled.get());
+	}
+}
@@ -0,0 +1,87 @@
+package test.com.ctrip.platform.dal.dao.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.client.TraceEvent;
+import com.ctrip.platform.dal.dao.client.TraceRecorder;
+
+public class TraceEventTest {
+	private TraceRecorder previous;
+	private List<TraceEvent> events = new ArrayList<>();
+
+	private class TestRecorder implements TraceRecorder {
+		private TraceEvent.Type enabledType;
+
+		TestRecorder(TraceEvent.Type enabledType) {
+			this.enabledType = enabledType;
+		}
+
+		public boolean isEnabled(TraceEvent.Type type) {
+			return type == enabledType;
+		}
+
+		public Object begin(TraceEvent.Type type) {
+			return type.name();
+		}
+
+		public void commit(TraceEvent event) {
+			events.add(event);
+		}
+	}
+
+	@Before
+	public void setUp() {
+		previous = TraceEvent.getRecorder();
+	}
+
+	@After
+	public void tearDown() {
+		TraceEvent.setRecorder(previous);
+	}
+
+	@Test
+	public void testDisabled() {
+		TraceEvent.setRecorder(null);
+		assertNull(TraceEvent.begin(TraceEvent.Type.REQUEST));
+
+		TraceEvent.setRecorder(new TestRecorder(TraceEvent.Type.TRANSACTION));
+		assertNull(TraceEvent.begin(TraceEvent.Type.REQUEST));
+	}
+
+	@Test
+	public void testCommit() throws Exception {
+		TraceEvent.setRecorder(new TestRecorder(TraceEvent.Type.STATEMENT_EXECUTE));
+		TraceEvent event = TraceEvent.begin(TraceEvent.Type.STATEMENT_EXECUTE);
+		assertEquals("STATEMENT_EXECUTE", event.getHandle());
+
+		event.setLogicDbName("dao_test");
+		event.setShard("1");
+		event.setDataSource("dao_test_1");
+		event.setSql("select * from t where id=?");
+		event.setRowCount(10);
+		Thread.sleep(1);
+		event.commit(false);
+
+		assertEquals(1, events.size());
+		assertSame(event, events.get(0));
+		assertEquals(TraceEvent.Type.STATEMENT_EXECUTE, event.getType());
+		assertEquals("dao_test", event.getLogicDbName());
+		assertEquals("1", event.getShard());
+		assertEquals("dao_test_1", event.getDataSource());
+		assertEquals("select * from t where id=?", event.getSql());
+		assertEquals(10, event.getRowCount());
+		assertFalse(event.isSuccess());
+		assertTrue(event.getDuration() >= 1000 * 1000);
+	}
+}
@@ -7,6 +7,8 @@ import org.junit.runners.Suite.SuiteClasses;
 @RunWith(Suite.class)
 @SuiteClasses({ 
 		DatabasePoolConfigParserTest.class, 
+		PoolMetricsTest.class,
+		StatementCacheInterceptorTest.class,
 })
 public class AllTests {
 
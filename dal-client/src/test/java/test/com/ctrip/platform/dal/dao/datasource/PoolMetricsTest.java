@@ -0,0 +1,199 @@
+package test.com.ctrip.platform.dal.dao.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.configure.DataSourceConfigure;
+import com.ctrip.platform.dal.dao.configure.DataSourceConfigureConstants;
+import com.ctrip.platform.dal.dao.datasource.PoolMetrics;
+import com.ctrip.platform.dal.dao.datasource.RefreshableDataSource;
+
+public class PoolMetricsTest {
+    private static AtomicInteger invalidCount = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        invalidCount.set(0);
+    }
+
+    private DataSourceConfigure createConfigure(String name) {
+        DataSourceConfigure config = new DataSourceConfigure(name);
+        config.setConnectionUrl("jdbc:fake:" + name);
+        config.setDriverClass(FakeDriver.class.getName());
+        config.setUserName("user");
+        config.setPassword("password");
+        config.setProperty(DataSourceConfigureConstants.INITIALSIZE, "0");
+        config.setProperty(DataSourceConfigureConstants.VALIDATIONINTERVAL, "0");
+        return config;
+    }
+
+    @Test
+    public void testBorrow() throws Exception {
+        RefreshableDataSource ds = new RefreshableDataSource("pool_metrics_borrow", createConfigure("borrow"));
+        PoolMetrics metrics = ds.getPoolMetrics();
+        Assert.assertEquals("pool_metrics_borrow", metrics.getName());
+
+        Connection conn = ds.getConnection();
+        Assert.assertEquals(1, metrics.getActive());
+        Assert.assertEquals(0, metrics.getIdle());
+        Assert.assertEquals(1, metrics.getBorrowWaitTime().getCount());
+        Assert.assertEquals(1, metrics.getCreatedCount());
+        Assert.assertEquals(1, metrics.getCreationTime().getCount());
+        conn.close();
+
+        // Reuse the idle connection
+        conn = ds.getConnection();
+        conn.close();
+        Assert.assertEquals(0, metrics.getActive());
+        Assert.assertEquals(1, metrics.getIdle());
+        Assert.assertEquals(0, metrics.getWaiting());
+        Assert.assertEquals(2, metrics.getBorrowWaitTime().getCount());
+        Assert.assertEquals(1, metrics.getCreatedCount());
+        Assert.assertEquals(1, metrics.getCreationTime().getCount());
+        Assert.assertEquals(0, metrics.getBorrowFailureCount());
+        Assert.assertEquals(0, metrics.getAbandonedCount());
+
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getBorrowWaitTime().getCount());
+        Assert.assertEquals(0, metrics.getCreatedCount());
+    }
+
+    @Test
+    public void testValidationFailure() throws Exception {
+        RefreshableDataSource ds = new RefreshableDataSource("pool_metrics_validation", createConfigure("validation"));
+        PoolMetrics metrics = ds.getPoolMetrics();
+
+        ds.getConnection().close();
+        invalidCount.set(1);
+
+        // The invalid connection is reconnected
+        ds.getConnection().close();
+        Assert.assertEquals(1, metrics.getValidationFailureCount());
+        Assert.assertEquals(2, metrics.getCreatedCount());
+        Assert.assertEquals(0, metrics.getBorrowFailureCount());
+    }
+
+    @Test
+    public void testBorrowFailure() throws Exception {
+        DataSourceConfigure config = createConfigure("failure");
+        config.setProperty(DataSourceConfigureConstants.MAXACTIVE, "1");
+        config.setProperty(DataSourceConfigureConstants.MAXWAIT, "10");
+        RefreshableDataSource ds = new RefreshableDataSource("pool_metrics_failure", config);
+        PoolMetrics metrics = ds.getPoolMetrics();
+
+        Connection conn = ds.getConnection();
+        try {
+            ds.getConnection();
+            Assert.fail();
+        } catch (SQLException e) {
+        }
+        conn.close();
+
+        Assert.assertEquals(2, metrics.getBorrowWaitTime().getCount());
+        Assert.assertEquals(1, metrics.getBorrowFailureCount());
+        Assert.assertTrue(metrics.getBorrowWaitTime().getMax() >= 10 * 1000 * 1000);
+    }
+
+    @Test
+    public void testAbandoned() throws Exception {
+        DataSourceConfigure config = createConfigure("abandoned");
+        config.setProperty(DataSourceConfigureConstants.REMOVEABANDONEDTIMEOUT, "1");
+        config.setProperty(DataSourceConfigureConstants.TIMEBETWEENEVICTIONRUNSMILLIS, "100");
+        RefreshableDataSource ds = new RefreshableDataSource("pool_metrics_abandoned", config);
+        PoolMetrics metrics = ds.getPoolMetrics();
+
+        // Returned connection is not abandoned
+        ds.getConnection().close();
+        ds.getConnection();
+
+        long timeout = System.currentTimeMillis() + 5000;
+        while (metrics.getAbandonedCount() == 0 && System.currentTimeMillis() < timeout)
+            Thread.sleep(100);
+
+        Assert.assertEquals(1, metrics.getAbandonedCount());
+        Assert.assertEquals(0, metrics.getActive());
+    }
+
+    public static class FakeDriver implements Driver {
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {Connection.class},
+                    new FakeConnection());
+        }
+
+        @Override
+        public boolean acceptsURL(String url) throws SQLException {
+            return url.startsWith("jdbc:fake:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+
+    private static class FakeConnection implements InvocationHandler {
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("isValid"))
+                return invalidCount.getAndDecrement() <= 0;
+            if (name.equals("close")) {
+                closed = true;
+                return null;
+            }
+            if (name.equals("isClosed"))
+                return closed;
+            if (name.equals("hashCode"))
+                return System.identityHashCode(proxy);
+            if (name.equals("equals"))
+                return proxy == args[0];
+            if (name.equals("toString"))
+                return "FakeConnection";
+
+            Class<?> type = method.getReturnType();
+            if (type == boolean.class)
+                return false;
+            if (type == int.class)
+                return 0;
+            if (type == long.class)
+                return 0L;
+            return null;
+        }
+    }
+}
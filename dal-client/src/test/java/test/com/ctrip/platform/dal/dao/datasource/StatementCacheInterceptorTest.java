@@ -0,0 +1,284 @@
+package test.com.ctrip.platform.dal.dao.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.configure.DataSourceConfigure;
+import com.ctrip.platform.dal.dao.configure.DataSourceConfigureConstants;
+import com.ctrip.platform.dal.dao.datasource.PoolMetrics;
+import com.ctrip.platform.dal.dao.datasource.RefreshableDataSource;
+
+public class StatementCacheInterceptorTest {
+    private static final int CACHE_SIZE = 10;
+    private static List<FakeStatement> prepared = new CopyOnWriteArrayList<>();
+
+    private RefreshableDataSource ds;
+    private PoolMetrics metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        prepared.clear();
+        ds = createDataSource("statement_cache", String.valueOf(CACHE_SIZE));
+        metrics = ds.getPoolMetrics();
+        metrics.reset();
+    }
+
+    private RefreshableDataSource createDataSource(String name, String statementCacheSize) throws Exception {
+        DataSourceConfigure config = new DataSourceConfigure(name);
+        config.setConnectionUrl("jdbc:fakecache:test");
+        config.setDriverClass(FakeDriver.class.getName());
+        config.setUserName("user");
+        config.setPassword("password");
+        config.setProperty(DataSourceConfigureConstants.INITIALSIZE, "0");
+        config.setProperty(DataSourceConfigureConstants.MAXACTIVE, "1");
+        if (statementCacheSize != null)
+            config.setProperty(DataSourceConfigureConstants.STATEMENT_CACHE_SIZE, statementCacheSize);
+        return new RefreshableDataSource(name, config);
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        // Disabled by default and by size 0
+        for (String size : new String[] {null, "0"}) {
+            prepared.clear();
+            RefreshableDataSource disabled = createDataSource("statement_cache_disabled_" + size, size);
+            Connection conn = disabled.getConnection();
+            conn.prepareStatement("select 1").close();
+            conn.prepareStatement("select 1").close();
+            conn.close();
+
+            Assert.assertEquals(2, prepared.size());
+            Assert.assertTrue(prepared.get(0).closed);
+            Assert.assertTrue(prepared.get(1).closed);
+            Assert.assertEquals(0, disabled.getPoolMetrics().getStatementCacheMissCount());
+        }
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        Connection conn = ds.getConnection();
+        PreparedStatement ps = conn.prepareStatement("select 1");
+        ps.setString(1, "a");
+        ps.setFetchSize(Integer.MIN_VALUE);
+        ps.close();
+        Assert.assertTrue(ps.isClosed());
+        try {
+            ps.executeQuery();
+            Assert.fail();
+        } catch (SQLException e) {
+        }
+        conn.close();
+
+        // The cache is kept for next borrow of the same physical connection
+        conn = ds.getConnection();
+        ps = conn.prepareStatement("select 1");
+        Assert.assertEquals(1, prepared.size());
+        FakeStatement statement = prepared.get(0);
+        Assert.assertFalse(statement.closed);
+        Assert.assertEquals(1, statement.cleared);
+        Assert.assertEquals(1, statement.batchCleared);
+        Assert.assertEquals(0, statement.fetchSize);
+        ps.close();
+        conn.close();
+
+        Assert.assertEquals(1, metrics.getStatementCacheHitCount());
+        Assert.assertEquals(1, metrics.getStatementCacheMissCount());
+    }
+
+    @Test
+    public void testGetConnection() throws Exception {
+        Connection conn = ds.getConnection();
+        PreparedStatement ps = conn.prepareStatement("select 1");
+        Assert.assertSame(conn, ps.getConnection());
+        ps.close();
+        try {
+            ps.getConnection();
+            Assert.fail();
+        } catch (SQLException e) {
+        }
+
+        // A new handle is bound to the connection of the new borrow
+        conn.close();
+        conn = ds.getConnection();
+        ps = conn.prepareStatement("select 1");
+        Assert.assertEquals(1, prepared.size());
+        Assert.assertSame(conn, ps.getConnection());
+        ps.close();
+        conn.close();
+    }
+
+    @Test
+    public void testKey() throws Exception {
+        Connection conn = ds.getConnection();
+        conn.prepareStatement("select 1").close();
+        conn.prepareStatement("select 1", Statement.RETURN_GENERATED_KEYS).close();
+        conn.prepareStatement("select 1", java.sql.ResultSet.TYPE_SCROLL_INSENSITIVE, java.sql.ResultSet.CONCUR_READ_ONLY).close();
+        conn.prepareStatement("select 2").close();
+        Assert.assertEquals(4, prepared.size());
+
+        conn.prepareStatement("select 1", Statement.RETURN_GENERATED_KEYS).close();
+        conn.prepareStatement("select 2").close();
+        Assert.assertEquals(4, prepared.size());
+        conn.close();
+    }
+
+    @Test
+    public void testInUse() throws Exception {
+        Connection conn = ds.getConnection();
+        PreparedStatement ps1 = conn.prepareStatement("select 1");
+        PreparedStatement ps2 = conn.prepareStatement("select 1");
+        Assert.assertEquals(2, prepared.size());
+
+        ps1.close();
+        ps2.close();
+        Assert.assertFalse(prepared.get(0).closed);
+        Assert.assertTrue(prepared.get(1).closed);
+
+        // Closing again does not return it twice
+        ps1.close();
+        conn.prepareStatement("select 1");
+        PreparedStatement ps3 = conn.prepareStatement("select 1");
+        Assert.assertEquals(3, prepared.size());
+        ps3.close();
+        conn.close();
+    }
+
+    @Test
+    public void testEvict() throws Exception {
+        Connection conn = ds.getConnection();
+        // The size is passed from the data source configure
+        for (int i = 0; i <= CACHE_SIZE; i++)
+            conn.prepareStatement("select " + i).close();
+
+        Assert.assertTrue(prepared.get(0).closed);
+        Assert.assertFalse(prepared.get(1).closed);
+
+        // Recently used one is kept
+        conn.prepareStatement("select 1").close();
+        conn.prepareStatement("select new").close();
+        Assert.assertFalse(prepared.get(1).closed);
+        Assert.assertTrue(prepared.get(2).closed);
+        conn.close();
+    }
+
+    public static class FakeDriver implements Driver {
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {Connection.class},
+                    new FakeConnection());
+        }
+
+        @Override
+        public boolean acceptsURL(String url) throws SQLException {
+            return url.startsWith("jdbc:fakecache:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class)
+            return false;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        return null;
+    }
+
+    private static class FakeConnection implements InvocationHandler {
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("isValid"))
+                return true;
+            if (name.equals("close")) {
+                closed = true;
+                return null;
+            }
+            if (name.equals("isClosed"))
+                return closed;
+            if (name.equals("prepareStatement")) {
+                FakeStatement statement = new FakeStatement();
+                prepared.add(statement);
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {PreparedStatement.class}, statement);
+            }
+            if (name.equals("hashCode"))
+                return System.identityHashCode(proxy);
+            if (name.equals("equals"))
+                return proxy == args[0];
+            if (name.equals("toString"))
+                return "FakeConnection";
+
+            return defaultValue(method);
+        }
+    }
+
+    private static class FakeStatement implements InvocationHandler {
+        private boolean closed;
+        private int cleared;
+        private int batchCleared;
+        private int fetchSize;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close"))
+                closed = true;
+            else if (name.equals("clearParameters"))
+                cleared++;
+            else if (name.equals("clearBatch"))
+                batchCleared++;
+            else if (name.equals("setFetchSize"))
+                fetchSize = (Integer) args[0];
+            else if (name.equals("getFetchSize"))
+                return fetchSize;
+            else if (name.equals("isClosed"))
+                return closed;
+
+            return defaultValue(method);
+        }
+    }
+}
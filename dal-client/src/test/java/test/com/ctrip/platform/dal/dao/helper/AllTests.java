@@ -8,11 +8,16 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses({
 	DalFirstResultMergerTest.class,
 	DalSingleResultMergerTest.class,
+	DalRangedResultMergerTest.class,
 	PartialQueryTableDaoUnitTest.class,
 	PartialQueryQueryDaoTest.class,
 	DalColumnMapRowMapperTest.class,
+	DalColumnMapRowTest.class,
+	DalColumnarExtractorTest.class,
 	DalCustomRowMapperTest.class,
 	SQLCompilerTest.class,
+	SqlFingerprintTest.class,
+	FastJpaMapperFactoryTest.class,
 	
 })
 public class AllTests {}
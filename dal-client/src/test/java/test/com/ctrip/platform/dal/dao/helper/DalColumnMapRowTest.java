@@ -0,0 +1,186 @@
+package test.com.ctrip.platform.dal.dao.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.helper.DalColumnMapRow;
+import com.ctrip.platform.dal.dao.helper.DalColumnMapRowMapper;
+
+public class DalColumnMapRowTest {
+	private static final String[] NAMES = {"id", "quantity", "type", "flag", "price", "rate", "amount", "address", "last_changed"};
+	private static final int[] TYPES = {Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT, Types.DOUBLE, Types.REAL, Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP};
+
+	private ResultSet createResultSet(final String[] names, final int[] types, final Object[] row) {
+		final ResultSetMetaData rsmd = (ResultSetMetaData)Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSetMetaData.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if(method.getName().equals("getColumnCount"))
+					return names.length;
+				if(method.getName().equals("getColumnName"))
+					return names[(Integer)args[0] - 1];
+				if(method.getName().equals("getColumnType"))
+					return types[(Integer)args[0] - 1];
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+
+		return (ResultSet)Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSet.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if(method.getName().equals("getMetaData"))
+					return rsmd;
+				if(method.getName().equals("getObject"))
+					return row[(Integer)args[0] - 1];
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+
+	private Object[] createRow() {
+		return new Object[]{100L, 10, (short)3, (byte)1, 2.5D, 1.5F, new BigDecimal("18446744073709551615"), "Shanghai", new Timestamp(1000)};
+	}
+
+	private Map<String, Object> createExpected(Object[] row) {
+		Map<String, Object> expected = new LinkedHashMap<>();
+		for(int i = 0; i < NAMES.length; i++)
+			expected.put(NAMES[i], row[i]);
+		return expected;
+	}
+
+	@Test
+	public void testMap() throws Exception {
+		Object[] row = createRow();
+		ResultSet rs = createResultSet(NAMES, TYPES, row);
+		Map<String, Object> result = new DalColumnMapRowMapper().map(rs, 0);
+		Map<String, Object> expected = createExpected(row);
+
+		assertTrue(result instanceof DalColumnMapRow);
+		assertEquals(expected, result);
+		assertEquals(result, expected);
+		assertEquals(expected.hashCode(), result.hashCode());
+		assertEquals(expected.toString(), result.toString());
+		assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(result.keySet()));
+		assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(result.values()));
+
+		for(int i = 0; i < NAMES.length; i++)
+			assertEquals(row[i].getClass(), result.get(NAMES[i]).getClass());
+
+		assertFalse(result.containsKey("unknown"));
+		assertNull(result.get("unknown"));
+	}
+
+	@Test
+	public void testSharedHeader() throws Exception {
+		Object[] row = createRow();
+		ResultSet rs = createResultSet(NAMES, TYPES, row);
+		DalColumnMapRowMapper mapper = new DalColumnMapRowMapper();
+		List<Map<String, Object>> results = new ArrayList<>();
+		results.add(mapper.map(rs, 0));
+
+		row[0] = null;
+		row[1] = 20;
+		results.add(mapper.map(rs, 1));
+
+		assertEquals(100L, results.get(0).get("id"));
+		assertEquals(10, results.get(0).get("quantity"));
+		assertNull(results.get(1).get("id"));
+		assertTrue(results.get(1).containsKey("id"));
+		assertEquals(20, results.get(1).get("quantity"));
+	}
+
+	@Test
+	public void testDuplicateColumns() throws Exception {
+		String[] names = {"id", "name", "id"};
+		int[] types = {Types.INTEGER, Types.VARCHAR, Types.VARCHAR};
+		Object[] row = {1, "a", "2"};
+		Map<String, Object> result = new DalColumnMapRowMapper().map(createResultSet(names, types, row), 0);
+
+		Map<String, Object> expected = new LinkedHashMap<>();
+		for(int i = 0; i < names.length; i++)
+			expected.put(names[i], row[i]);
+
+		assertEquals(expected, result);
+		assertEquals(expected.toString(), result.toString());
+	}
+
+	@Test
+	public void testModify() throws Exception {
+		Object[] row = createRow();
+		Map<String, Object> result = new DalColumnMapRowMapper().map(createResultSet(NAMES, TYPES, row), 0);
+		Map<String, Object> expected = createExpected(row);
+
+		assertEquals(expected.put("id", "a"), result.put("id", "a"));
+		assertEquals(expected.put("quantity", null), result.put("quantity", null));
+		assertEquals(expected, result);
+
+		Map.Entry<String, Object> entry = result.entrySet().iterator().next();
+		entry.setValue(1);
+		expected.put("id", 1);
+		assertEquals(expected, result);
+
+		assertEquals(expected.remove("type"), result.remove("type"));
+		assertNull(result.remove("unknown"));
+		assertEquals(expected.put("new", 1), result.put("new", 1));
+		assertEquals(expected, result);
+		assertEquals(expected.toString(), result.toString());
+
+		Iterator<String> it = result.keySet().iterator();
+		it.next();
+		it.remove();
+		assertFalse(result.containsKey("id"));
+		assertEquals(expected.size() - 1, result.size());
+
+		result.clear();
+		assertTrue(result.isEmpty());
+	}
+
+	@Test
+	public void testIteratorRemove() throws Exception {
+		Object[] row = createRow();
+		Map<String, Object> result = new DalColumnMapRowMapper().map(createResultSet(NAMES, TYPES, row), 0);
+		Map<String, Object> expected = createExpected(row);
+
+		Iterator<Map.Entry<String, Object>> it = result.entrySet().iterator();
+		while(it.hasNext()) {
+			if(it.next().getKey().startsWith("r"))
+				it.remove();
+		}
+		expected.remove("rate");
+		assertEquals(expected, result);
+	}
+
+	@Test
+	public void testSerialize() throws Exception {
+		Object[] row = createRow();
+		Map<String, Object> result = new DalColumnMapRowMapper().map(createResultSet(NAMES, TYPES, row), 0);
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(result);
+		oos.close();
+
+		Object copy = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray())).readObject();
+		assertTrue(copy instanceof LinkedHashMap);
+		assertEquals(createExpected(row), copy);
+	}
+}
@@ -0,0 +1,213 @@
+package test.com.ctrip.platform.dal.dao.helper;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.helper.DalColumnarExtractor;
+import com.ctrip.platform.dal.dao.helper.DalColumnarMerger;
+import com.ctrip.platform.dal.dao.helper.DalColumnarResult;
+import com.ctrip.platform.dal.dao.helper.DalColumnarResult.ColumnType;
+
+public class DalColumnarExtractorTest {
+	private static final String[] NAMES = {"id", "quantity", "amount", "city"};
+	private static final int[] TYPES = {Types.BIGINT, Types.INTEGER, Types.DECIMAL, Types.VARCHAR};
+
+	private ResultSet createResultSet(int[] types, Object[][] rows) {
+		return createResultSet(types, new boolean[types.length], rows);
+	}
+
+	private ResultSet createResultSet(final int[] types, final boolean[] unsigned, final Object[][] rows) {
+		final ResultSetMetaData rsmd = (ResultSetMetaData)Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSetMetaData.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if(method.getName().equals("getColumnCount"))
+					return types.length;
+				if(method.getName().equals("getColumnLabel"))
+					return NAMES[(Integer)args[0] - 1];
+				if(method.getName().equals("getColumnType"))
+					return types[(Integer)args[0] - 1];
+				if(method.getName().equals("isSigned"))
+					return !unsigned[(Integer)args[0] - 1];
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+
+		return (ResultSet)Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSet.class}, new InvocationHandler() {
+			private int row = -1;
+			private boolean wasNull;
+
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				String name = method.getName();
+				if(name.equals("getMetaData"))
+					return rsmd;
+				if(name.equals("next"))
+					return ++row < rows.length;
+				if(name.equals("wasNull"))
+					return wasNull;
+
+				Object value = rows[row][(Integer)args[0] - 1];
+				wasNull = value == null;
+				if(name.equals("getLong"))
+					return value == null ? 0L : ((Number)value).longValue();
+				if(name.equals("getInt"))
+					return value == null ? 0 : ((Number)value).intValue();
+				if(name.equals("getDouble"))
+					return value == null ? 0D : ((Number)value).doubleValue();
+				if(name.equals("getBigDecimal"))
+					return value;
+				if(name.equals("getString"))
+					return value == null ? null : value.toString();
+				throw new UnsupportedOperationException(name);
+			}
+		});
+	}
+
+	private Object[][] createRows(int start, int count) {
+		Object[][] rows = new Object[count][];
+		for(int i = 0; i < count; i++) {
+			int id = start + i;
+			rows[i] = new Object[]{(long)id, id % 10, new BigDecimal(id + ".5"), "city" + (id % 3)};
+		}
+		return rows;
+	}
+
+	@Test
+	public void testExtract() throws Exception {
+		DalColumnarResult result = new DalColumnarExtractor().extract(createResultSet(TYPES, createRows(0, 1000)));
+
+		assertEquals(1000, result.getRowCount());
+		assertEquals(4, result.getColumnCount());
+		assertArrayEquals(NAMES, result.getColumnNames());
+		assertTrue(result.getColumn("ID") instanceof DalColumnarResult.LongColumn);
+
+		long[] ids = result.getLongColumn("id").toArray();
+		int[] quantities = result.getIntColumn("quantity").toArray();
+		BigDecimal[] amounts = result.getDecimalColumn("amount").toArray();
+		DalColumnarResult.StringColumn cities = result.getStringColumn("city");
+		assertEquals(1000, ids.length);
+		for(int i = 0; i < 1000; i++) {
+			assertEquals(i, ids[i]);
+			assertEquals(i % 10, quantities[i]);
+			assertEquals(new BigDecimal(i + ".5"), amounts[i]);
+			assertEquals("city" + (i % 3), cities.get(i));
+			assertFalse(cities.isNull(i));
+		}
+		assertEquals(Arrays.asList("city0", "city1", "city2"), cities.getDictionary());
+	}
+
+	@Test
+	public void testNull() throws Exception {
+		Object[][] rows = createRows(0, 2);
+		Arrays.fill(rows[1], null);
+		DalColumnarResult result = new DalColumnarExtractor().extract(createResultSet(TYPES, rows));
+
+		for(int i = 0; i < NAMES.length; i++) {
+			assertFalse(result.getColumn(i).isNull(0));
+			assertTrue(result.getColumn(i).isNull(1));
+			assertNull(result.getColumn(i).getObject(1));
+		}
+		assertEquals(0, result.getLongColumn("id").get(1));
+		assertEquals(-1, result.getStringColumn("city").getCode(1));
+	}
+
+	@Test
+	public void testDecimalAsDouble() throws Exception {
+		Object[][] rows = createRows(0, 2);
+		rows[0][2] = new BigDecimal("12345678901234567.89");
+		rows[1][2] = null;
+
+		DalColumnarResult result = new DalColumnarExtractor().extract(createResultSet(TYPES, rows));
+		assertEquals(new BigDecimal("12345678901234567.89"), result.getDecimalColumn("amount").get(0));
+		assertTrue(result.getColumn("amount").isNull(1));
+
+		result = new DalColumnarExtractor(true).extract(createResultSet(TYPES, rows));
+		assertEquals(12345678901234567.89, result.getDoubleColumn("amount").get(0), 0);
+		assertTrue(result.getColumn("amount").isNull(1));
+	}
+
+	@Test
+	public void testUnsigned() throws Exception {
+		Object[][] rows = createRows(0, 1);
+		rows[0][0] = new BigDecimal("18446744073709551615");
+		rows[0][1] = 4294967295L;
+
+		DalColumnarResult result = new DalColumnarExtractor().extract(createResultSet(TYPES, new boolean[]{true, true, false, false}, rows));
+		assertEquals(new BigDecimal("18446744073709551615"), result.getDecimalColumn("id").get(0));
+		assertEquals(4294967295L, result.getLongColumn("quantity").get(0));
+		assertEquals(new BigDecimal("0.5"), result.getDecimalColumn("amount").get(0));
+	}
+
+	@Test
+	public void testColumnTypes() throws Exception {
+		DalColumnarExtractor extractor = new DalColumnarExtractor(ColumnType.INT, ColumnType.LONG, ColumnType.STRING, ColumnType.STRING);
+		DalColumnarResult result = extractor.extract(createResultSet(TYPES, createRows(5, 1)));
+
+		assertEquals(5, result.getIntColumn("id").get(0));
+		assertEquals(5L, result.getLongColumn("quantity").get(0));
+		assertEquals("5.5", result.getStringColumn("amount").get(0));
+
+		try {
+			new DalColumnarExtractor(ColumnType.INT).extract(createResultSet(TYPES, createRows(0, 1)));
+			fail();
+		} catch (SQLException e) {
+		}
+	}
+
+	@Test
+	public void testMerge() throws Exception {
+		DalColumnarMerger merger = new DalColumnarMerger();
+		Object[][] rows = createRows(100, 50);
+		rows[10][0] = null;
+		rows[20][3] = "new city";
+
+		merger.addPartial("0", new DalColumnarExtractor().extract(createResultSet(TYPES, createRows(0, 100))));
+		merger.addPartial("1", null);
+		merger.addPartial("2", new DalColumnarExtractor().extract(createResultSet(TYPES, new Object[0][])));
+		merger.addPartial("3", new DalColumnarExtractor().extract(createResultSet(TYPES, rows)));
+		DalColumnarResult result = merger.merge();
+
+		assertEquals(150, result.getRowCount());
+		DalColumnarResult.LongColumn ids = result.getLongColumn("id");
+		DalColumnarResult.StringColumn cities = result.getStringColumn("city");
+		assertEquals(150, ids.size());
+		for(int i = 0; i < 150; i++) {
+			if(i == 110) {
+				assertTrue(ids.isNull(i));
+			} else {
+				assertFalse(ids.isNull(i));
+				assertEquals(i, ids.get(i));
+			}
+			assertEquals(i == 120 ? "new city" : "city" + (i % 3), cities.get(i));
+		}
+		assertEquals(Arrays.asList("city0", "city1", "city2", "new city"), cities.getDictionary());
+	}
+
+	@Test
+	public void testMergeDifferentColumns() throws Exception {
+		DalColumnarMerger merger = new DalColumnarMerger();
+		merger.addPartial("0", new DalColumnarExtractor().extract(createResultSet(TYPES, createRows(0, 1))));
+
+		int[] types = TYPES.clone();
+		types[0] = Types.VARCHAR;
+		try {
+			merger.addPartial("1", new DalColumnarExtractor().extract(createResultSet(types, createRows(0, 1))));
+			fail();
+		} catch (SQLException e) {
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package test.com.ctrip.platform.dal.dao.helper;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.helper.DalRangedResultMerger;
+
+public class DalRangedResultMergerTest {
+	private Comparator<Integer> asc = new Comparator<Integer>() {
+		@Override
+		public int compare(Integer o1, Integer o2) {
+			return o1.compareTo(o2);
+		}
+	};
+
+	private Comparator<int[]> byFirst = new Comparator<int[]>() {
+		@Override
+		public int compare(int[] o1, int[] o2) {
+			return o1[0] - o2[0];
+		}
+	};
+
+	@Test
+	public void testMergeSorted() throws SQLException {
+		DalRangedResultMerger<Integer> test = new DalRangedResultMerger<>(asc, 2, 4);
+		test.addPartial("0", Arrays.asList(1, 4, 7, 10));
+		test.addPartial("1", Arrays.asList(2, 5, 8));
+		test.addPartial("2", null);
+		test.addPartial("3", Arrays.asList(3, 6, 9));
+
+		Assert.assertEquals(Arrays.asList(3, 4, 5, 6), test.merge());
+	}
+
+	@Test
+	public void testMergeUnsorted() throws SQLException {
+		DalRangedResultMerger<Integer> test = new DalRangedResultMerger<>(asc, 0, 3);
+		test.addPartial("0", Arrays.asList(7, 1, 4));
+		test.addPartial("1", new LinkedList<>(Arrays.asList(5, 2, 8)));
+
+		Assert.assertEquals(Arrays.asList(1, 2, 4), test.merge());
+	}
+
+	@Test
+	public void testMergeOutOfRange() throws SQLException {
+		DalRangedResultMerger<Integer> test = new DalRangedResultMerger<>(asc, 5, 10);
+		test.addPartial("0", Arrays.asList(1, 2));
+		test.addPartial("1", Arrays.asList(3, 4));
+		Assert.assertTrue(test.merge().isEmpty());
+
+		test = new DalRangedResultMerger<>(asc, 1, 10);
+		test.addPartial("0", Arrays.asList(1, 2));
+		test.addPartial("1", Arrays.asList(3, 4));
+		Assert.assertEquals(Arrays.asList(2, 3, 4), test.merge());
+	}
+
+	@Test
+	public void testMergeWithoutComparator() throws SQLException {
+		DalRangedResultMerger<Integer> test = new DalRangedResultMerger<>(1, 3);
+		test.addPartial("0", Arrays.asList(9, 8));
+		test.addPartial("1", Arrays.asList(7, 6));
+
+		Assert.assertEquals(Arrays.asList(8, 7, 6), test.merge());
+	}
+
+	@Test
+	public void testMergeKeepOrderOfEqualRows() throws SQLException {
+		DalRangedResultMerger<int[]> test = new DalRangedResultMerger<>(byFirst, 0, 4);
+		test.addPartial("0", Arrays.asList(new int[]{1, 0}, new int[]{2, 0}));
+		test.addPartial("1", Arrays.asList(new int[]{1, 1}, new int[]{2, 1}));
+
+		List<int[]> result = test.merge();
+		Assert.assertEquals(4, result.size());
+		Assert.assertEquals(0, result.get(0)[1]);
+		Assert.assertEquals(1, result.get(1)[1]);
+		Assert.assertEquals(0, result.get(2)[1]);
+		Assert.assertEquals(1, result.get(3)[1]);
+	}
+
+	@Test
+	public void testInvalidRange() {
+		try {
+			new DalRangedResultMerger<>(asc, -1, 1);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+		}
+
+		try {
+			new DalRangedResultMerger<>(asc, 0, -1);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package test.com.ctrip.platform.dal.dao.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.DalHintEnum;
+import com.ctrip.platform.dal.dao.DalHints;
+import com.ctrip.platform.dal.dao.DalRowMapper;
+import com.ctrip.platform.dal.dao.annotation.Type;
+import com.ctrip.platform.dal.dao.helper.DalDefaultJpaMapper;
+
+public class FastJpaMapperFactoryTest {
+	@Entity
+	public static class FastMapperEntity {
+		@Id
+		@Type(value=Types.BIGINT)
+		private long id;
+
+		@Column(name="quantity")
+		@Type(value=Types.INTEGER)
+		private Integer quantity;
+
+		@Column(name="type")
+		@Type(value=Types.SMALLINT)
+		private Short type;
+
+		@Column(name="flag")
+		@Type(value=Types.TINYINT)
+		private byte flag;
+
+		@Column(name="price")
+		@Type(value=Types.DOUBLE)
+		private Double price;
+
+		@Column(name="rate")
+		@Type(value=Types.FLOAT)
+		private float rate;
+
+		@Column(name="address")
+		@Type(value=Types.VARCHAR)
+		private String address;
+
+		@Column(name="last_changed")
+		@Type(value=Types.TIMESTAMP)
+		private Timestamp lastChanged;
+	}
+
+	private static final List<String> LABELS = Arrays.asList("id", "quantity", "type", "flag", "price", "rate", "address", "last_changed");
+
+	/**
+	 * Result set of one row, which also counts the access by label
+	 */
+	private static class TestResultSet implements InvocationHandler {
+		private List<String> labels;
+		private Object[] row;
+		private boolean wasNull;
+		private int labelAccess;
+
+		TestResultSet(List<String> labels, Object[] row) {
+			this.labels = labels;
+			this.row = row;
+		}
+
+		ResultSet create() {
+			return (ResultSet)Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSet.class}, this);
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if(name.equals("findColumn")) {
+				int index = labels.indexOf(args[0]);
+				if(index < 0)
+					throw new SQLException("Invalid column name " + args[0]);
+				return index + 1;
+			}
+
+			if(name.equals("wasNull"))
+				return wasNull;
+
+			Object value;
+			if(args[0] instanceof String) {
+				labelAccess++;
+				int index = labels.indexOf(args[0]);
+				if(index < 0)
+					throw new SQLException("Invalid column name " + args[0]);
+				value = row[index];
+			} else {
+				value = row[(Integer)args[0] - 1];
+			}
+
+			wasNull = value == null;
+			if(name.equals("getLong"))
+				return value == null ? 0L : ((Number)value).longValue();
+			if(name.equals("getDouble"))
+				return value == null ? 0D : ((Number)value).doubleValue();
+			if(name.equals("getFloat"))
+				return value == null ? 0F : ((Number)value).floatValue();
+			return value;
+		}
+	}
+
+	private Object[] createRow() {
+		return new Object[]{100L, 10, 3, 1, 2.5D, 1.5F, "Shanghai", new Timestamp(1000)};
+	}
+
+	@Test
+	public void testMap() throws Exception {
+		DalDefaultJpaMapper<FastMapperEntity> mapper = new DalDefaultJpaMapper<>(FastMapperEntity.class);
+		TestResultSet testRs = new TestResultSet(LABELS, createRow());
+		ResultSet rs = testRs.create();
+
+		DalRowMapper<FastMapperEntity> fast = mapper.mapWith(rs, new DalHints());
+		assertFalse(fast instanceof DalDefaultJpaMapper);
+
+		FastMapperEntity entity = fast.map(rs, 0);
+		assertEquals(0, testRs.labelAccess);
+		assertEquals(100L, entity.id);
+		assertEquals(10, entity.quantity.intValue());
+		assertEquals(3, entity.type.shortValue());
+		assertEquals(1, entity.flag);
+		assertEquals(2.5D, entity.price, 0);
+		assertEquals(1.5F, entity.rate, 0);
+		assertEquals("Shanghai", entity.address);
+		assertEquals(new Timestamp(1000), entity.lastChanged);
+
+		// Same as the reflection based mapper
+		FastMapperEntity expected = mapper.map(rs, 0);
+		assertTrue(testRs.labelAccess > 0);
+		assertEquals(expected.id, entity.id);
+		assertEquals(expected.quantity, entity.quantity);
+		assertEquals(expected.type, entity.type);
+		assertEquals(expected.flag, entity.flag);
+		assertEquals(expected.price, entity.price);
+		assertEquals(expected.rate, entity.rate, 0);
+		assertEquals(expected.address, entity.address);
+		assertEquals(expected.lastChanged, entity.lastChanged);
+	}
+
+	@Test
+	public void testMapNull() throws Exception {
+		DalDefaultJpaMapper<FastMapperEntity> mapper = new DalDefaultJpaMapper<>(FastMapperEntity.class);
+		Object[] row = createRow();
+		row[1] = null;
+		row[2] = null;
+		row[4] = null;
+		row[6] = null;
+		row[7] = null;
+		ResultSet rs = new TestResultSet(LABELS, row).create();
+
+		FastMapperEntity entity = mapper.mapWith(rs, new DalHints()).map(rs, 0);
+		assertEquals(100L, entity.id);
+		assertNull(entity.quantity);
+		assertNull(entity.type);
+		assertNull(entity.price);
+		assertNull(entity.address);
+		assertNull(entity.lastChanged);
+
+		// Null can not be set to primitive field
+		row[0] = null;
+		try {
+			mapper.mapWith(rs, new DalHints()).map(rs, 0);
+			fail();
+		} catch (SQLException e) {
+		}
+	}
+
+	@Test
+	public void testMissingColumn() throws Exception {
+		DalDefaultJpaMapper<FastMapperEntity> mapper = new DalDefaultJpaMapper<>(FastMapperEntity.class);
+		ResultSet rs = new TestResultSet(LABELS.subList(0, 7), createRow()).create();
+
+		// Fall back to report the error when mapping
+		DalRowMapper<FastMapperEntity> fallback = mapper.mapWith(rs, new DalHints());
+		assertTrue(fallback instanceof DalDefaultJpaMapper);
+		try {
+			fallback.map(rs, 0);
+			fail();
+		} catch (SQLException e) {
+		}
+	}
+
+	@Test
+	public void testPartialColumns() throws Exception {
+		DalDefaultJpaMapper<FastMapperEntity> mapper = new DalDefaultJpaMapper<>(FastMapperEntity.class);
+		ResultSet rs = new TestResultSet(LABELS.subList(0, 2), createRow()).create();
+
+		DalRowMapper<FastMapperEntity> partial = mapper.mapWith(new String[]{"id", "quantity"});
+		DalRowMapper<FastMapperEntity> fast = ((DalDefaultJpaMapper<FastMapperEntity>)partial).mapWith(rs, new DalHints());
+		assertFalse(fast instanceof DalDefaultJpaMapper);
+
+		FastMapperEntity entity = fast.map(rs, 0);
+		assertEquals(100L, entity.id);
+		assertEquals(10, entity.quantity.intValue());
+		assertNull(entity.address);
+	}
+
+	@Test
+	public void testIgnoreMissingFields() throws Exception {
+		DalDefaultJpaMapper<FastMapperEntity> mapper = new DalDefaultJpaMapper<>(FastMapperEntity.class);
+		List<String> labels = Arrays.asList("id", "unknown");
+		ResultSet rs = new TestResultSet(labels, new Object[]{100L, "x"}).create();
+
+		DalHints hints = new DalHints().set(DalHintEnum.ignoreMissingFields).partialQuery("id", "unknown");
+		DalRowMapper<FastMapperEntity> fast = mapper.mapWith(rs, hints);
+		assertFalse(fast instanceof DalDefaultJpaMapper);
+		assertEquals(100L, fast.map(rs, 0).id);
+	}
+}
@@ -2,12 +2,14 @@ package test.com.ctrip.platform.dal.dao.helper;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.Assert;
 
 import org.junit.Test;
 
+import com.ctrip.platform.dal.dao.StatementParameters;
 import com.ctrip.platform.dal.dao.task.SQLCompiler;
 
 public class SQLCompilerTest {
@@ -81,5 +83,53 @@ public class SQLCompilerTest {
 		
 		Assert.assertEquals(expected_sql, new_sql);
 	}
+	
+	@Test
+	public void testCachedTemplate() throws SQLException{
+		String sql = "SELECT * FROM Person WHERE ID In (?) And Name in( ?)";
+		List idList = new ArrayList<>();
+		idList.add(Arrays.asList(1, 2, 3));
+		idList.add(Arrays.asList("a"));
+		Assert.assertEquals("SELECT * FROM Person WHERE ID In (?,?,?)  And Name In (?) ", SQLCompiler.compile(sql, idList));
+		
+		// Same sql with different count of values
+		idList.set(0, Arrays.asList(1));
+		Assert.assertEquals("SELECT * FROM Person WHERE ID In (?)  And Name In (?) ", SQLCompiler.compile(sql, idList));
+		
+		idList.remove(1);
+		try {
+			SQLCompiler.compile(sql, idList);
+			Assert.fail();
+		} catch (SQLException e) {
+		}
+	}
+	
+	@Test
+	public void testBucket() {
+		Assert.assertEquals(0, SQLCompiler.bucket(0));
+		Assert.assertEquals(1, SQLCompiler.bucket(1));
+		Assert.assertEquals(2, SQLCompiler.bucket(2));
+		Assert.assertEquals(4, SQLCompiler.bucket(3));
+		Assert.assertEquals(8, SQLCompiler.bucket(5));
+		Assert.assertEquals(8, SQLCompiler.bucket(8));
+		Assert.assertEquals(1024, SQLCompiler.bucket(1000));
+	}
+	
+	@Test
+	public void testPadInParameters() throws SQLException{
+		StatementParameters parameters = new StatementParameters();
+		int index = parameters.setInParameter(1, java.sql.Types.INTEGER, Arrays.asList(1, 2, 3));
+		parameters.set(index, java.sql.Types.VARCHAR, "x");
+		parameters.padInParameters();
+		
+		String sql = SQLCompiler.compile("SELECT * FROM Person WHERE ID In (?) And Name = ?", parameters.getAllInParameters());
+		parameters.compile();
+		Assert.assertEquals("SELECT * FROM Person WHERE ID In (?,?,?,?)  And Name = ?", sql);
+		Assert.assertEquals(5, parameters.size());
+		Assert.assertEquals(3, parameters.get(2).getValue());
+		Assert.assertEquals(3, parameters.get(3).getValue());
+		Assert.assertEquals("x", parameters.get(4).getValue());
+		Assert.assertEquals(5, parameters.get(4).getIndex());
+	}
 
 }
@@ -0,0 +1,45 @@
+package test.com.ctrip.platform.dal.dao.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.helper.SqlFingerprint;
+
+public class SqlFingerprintTest {
+	@Test
+	public void testNull() {
+		assertNull(SqlFingerprint.of(null));
+	}
+
+	@Test
+	public void testLiterals() {
+		assertEquals("select * from t where id=? and name=? and price>?",
+				SqlFingerprint.of("SELECT * FROM t WHERE id=10 AND name='it''s' AND price>1.5"));
+		assertEquals("select * from t1 where col2=?", SqlFingerprint.of("select * from t1 where col2=?"));
+	}
+
+	@Test
+	public void testCommentsAndSpaces() {
+		assertEquals("select * from t where id=?",
+				SqlFingerprint.of("/*appId-PersonDao.query*/select *\r\n  from t -- comment\n where\tid=?  "));
+	}
+
+	@Test
+	public void testInList() {
+		String expected = "select * from t where id in (?) and name=?";
+		assertEquals(expected, SqlFingerprint.of("SELECT * FROM t WHERE id IN (1, 2, 3) AND name='a'"));
+		assertEquals(expected, SqlFingerprint.of("select * from t where id in (?,?) and name=?"));
+		assertEquals(expected, SqlFingerprint.of("select * from t where id in(?) and name=?"));
+		assertEquals("select * from t where id in (select id from t2)", SqlFingerprint.of("select * from t where id in (select id from t2)"));
+		assertEquals("insert into t (a, b) values (?, ?)", SqlFingerprint.of("insert into t (a, b) values (?, ?)"));
+	}
+
+	@Test
+	public void testCached() {
+		String sql = "select * from t where id=1";
+		assertSame(SqlFingerprint.of(sql), SqlFingerprint.of(sql));
+	}
+}
@@ -7,6 +7,7 @@ import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Map;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -29,6 +30,7 @@ import com.ctrip.platform.dal.dao.DalParser;
 import com.ctrip.platform.dal.dao.DalPojo;
 import com.ctrip.platform.dal.dao.annotation.Database;
 import com.ctrip.platform.dal.dao.annotation.Type;
+import com.ctrip.platform.dal.dao.helper.ColumnValueReader;
 import com.ctrip.platform.dal.dao.helper.DalDefaultJpaParser;
 import com.ctrip.platform.dal.exceptions.ErrorCode;
 
@@ -94,6 +96,35 @@ public class DalDefaultJpaParserTest {
 		Assert.assertTrue(allTypesParser.getIdentityValue(allTypes).longValue() == Long.MAX_VALUE);
 	}
 	
+	@Test
+	public void testGetFields() {
+		PersonEntity person = new PersonEntity();
+		person.setId(1);
+		person.setName("test");
+		
+		Map<String, ?> fields = personParser.getFields(person);
+		Assert.assertEquals("{id=1, name=test, age=null, version=null}", fields.toString());
+		Assert.assertEquals("{id=1}", personParser.getPrimaryKeys(person).toString());
+		
+		// Fields of each pojo can be changed
+		fields.remove("age");
+		Assert.assertEquals("{id=1, name=test, version=null}", fields.toString());
+		Assert.assertEquals(4, personParser.getFields(person).size());
+	}
+	
+	@Test
+	public void testGetColumnValue() {
+		PersonEntity person = new PersonEntity();
+		person.setId(1);
+		person.setName("test");
+		
+		ColumnValueReader<PersonEntity> reader = (ColumnValueReader<PersonEntity>)personParser;
+		Map<String, ?> fields = personParser.getFields(person);
+		String[] columns = personParser.getColumnNames();
+		for (int i = 0; i < columns.length; i++)
+			Assert.assertEquals(fields.get(columns[i]), reader.getColumnValue(person, i));
+	}
+	
 	@Test
 	public void testConstructByDbname() throws Exception {
 		DalParser<PersonEntity> parser = new DalDefaultJpaParser(PersonEntity.class);
@@ -126,6 +126,21 @@ public abstract class DalQueryDaoTest {
 		}
 	}
 	
+	@Test
+	public void testQueryCallbackStreamAllShards() {
+		try {
+			final AtomicInteger count = new AtomicInteger();
+			dao.query(sqlList, parameters(), new DalHints().inAllShards().streamResult(), new DalRowCallback() {
+				public void process(ResultSet rs) throws SQLException {
+					count.incrementAndGet();
+				}
+			});
+			assertEquals(6, count.get());
+		} catch (Exception e) {
+			fail();
+		}
+	}
+	
 	private DalDefaultJpaMapper<ClientTestModel> jpaMapper() throws SQLException{
 		return new DalDefaultJpaMapper<>(ClientTestModel.class);
 	}
@@ -12,6 +12,7 @@ import org.junit.runners.Suite.SuiteClasses;
 	AbstractBuilderTest.class,
 	BaseQueryBuilderTest.class,
 	InsertSqlBuilderTest.class,
+	FreeSelectSqlBuilderTest.class,
 	})
 public class AllTests {
 
@@ -0,0 +1,91 @@
+package test.com.ctrip.platform.dal.dao.sqlbuilder;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.common.enums.DatabaseCategory;
+import com.ctrip.platform.dal.dao.DalHints;
+import com.ctrip.platform.dal.dao.ResultMerger;
+import com.ctrip.platform.dal.dao.helper.DalObjectRowMapper;
+import com.ctrip.platform.dal.dao.sqlbuilder.FreeSelectSqlBuilder;
+
+public class FreeSelectSqlBuilderTest {
+	private static final String SQL = "SELECT id FROM person ORDER BY id";
+	
+	private static final Comparator<Integer> SORTER = new Comparator<Integer>() {
+		@Override
+		public int compare(Integer o1, Integer o2) {
+			return o1.compareTo(o2);
+		}
+	};
+	
+	private FreeSelectSqlBuilder<List<Integer>> create(DatabaseCategory dbCategory, String sql) {
+		FreeSelectSqlBuilder<List<Integer>> builder = new FreeSelectSqlBuilder<>(dbCategory);
+		builder.setTemplate(sql);
+		builder.mapWith(new DalObjectRowMapper<Integer>());
+		return builder;
+	}
+
+	@Test
+	public void testRangeInShardsWithoutPushDown() {
+		FreeSelectSqlBuilder<List<Integer>> builder = create(DatabaseCategory.MySql, SQL);
+		builder.rangeInShards(new DalHints().sortBy(SORTER), 0, 5);
+		assertEquals(SQL, builder.build());
+	}
+
+	@Test
+	public void testRangeInShardsPushDown() {
+		FreeSelectSqlBuilder<List<Integer>> builder = create(DatabaseCategory.MySql, SQL);
+		builder.rangeInShards(new DalHints().sortBy(SORTER).pushDownRange(), 2, 3);
+		assertEquals(SQL + " limit 0, 5", builder.build());
+		
+		builder = create(DatabaseCategory.SqlServer, SQL);
+		builder.rangeInShards(new DalHints().sortBy(SORTER).pushDownRange(), 2, 3);
+		assertEquals(SQL + " OFFSET 0 ROWS FETCH NEXT 5 ROWS ONLY", builder.build());
+	}
+
+	@Test
+	public void testRangeInShardsNotPushDown() {
+		// No sorter
+		FreeSelectSqlBuilder<List<Integer>> builder = create(DatabaseCategory.MySql, SQL);
+		builder.rangeInShards(new DalHints().pushDownRange(), 0, 5);
+		assertEquals(SQL, builder.build());
+		
+		// Overflow
+		builder = create(DatabaseCategory.MySql, SQL);
+		builder.rangeInShards(new DalHints().sortBy(SORTER).pushDownRange(), 10, Integer.MAX_VALUE);
+		assertEquals(SQL, builder.build());
+		
+		// Page sql is built by String.format
+		String sql = "SELECT id FROM person WHERE name LIKE 'a%' ORDER BY id";
+		builder = create(DatabaseCategory.MySql, sql);
+		builder.rangeInShards(new DalHints().sortBy(SORTER).pushDownRange(), 0, 5);
+		assertEquals(sql, builder.build());
+	}
+
+	@Test
+	public void testRangeInShardsMerge() throws SQLException {
+		DalHints hints = new DalHints().sortBy(SORTER).pushDownRange();
+		FreeSelectSqlBuilder<List<Integer>> builder = create(DatabaseCategory.MySql, SQL);
+		builder.rangeInShards(hints, 2, 3);
+		
+		ResultMerger<List<Integer>> merger = builder.getResultMerger(hints);
+		merger.addPartial("0", Arrays.asList(1, 3, 5, 7, 9));
+		merger.addPartial("1", Arrays.asList(2, 4, 6, 8, 10));
+		assertEquals(Arrays.asList(3, 4, 5), merger.merge());
+		
+		// Overflow is ranged while merging
+		builder = create(DatabaseCategory.MySql, SQL);
+		builder.rangeInShards(hints, 2, Integer.MAX_VALUE);
+		merger = builder.getResultMerger(hints);
+		merger.addPartial("0", Arrays.asList(1, 3));
+		merger.addPartial("1", Arrays.asList(2, 4));
+		assertEquals(Arrays.asList(3, 4), merger.merge());
+	}
+}
@@ -40,6 +40,8 @@ import org.junit.runners.Suite.SuiteClasses;
 	UpdateSqlTaskOracleTest.class,
 	
 	ShardedIntArrayResultMergerTest.class,
+	SqlTemplateCacheTest.class,
+	CombinedInsertTaskSplitTest.class,
 	DalSingleTaskRequestTest.class,
 	DalBulkTaskRequestTest.class,
 	DalSingleTaskRequestTest.class,
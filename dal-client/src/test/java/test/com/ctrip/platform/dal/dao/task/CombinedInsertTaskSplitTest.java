@@ -0,0 +1,123 @@
+package test.com.ctrip.platform.dal.dao.task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.common.enums.DatabaseCategory;
+import com.ctrip.platform.dal.dao.task.CombinedInsertTask;
+import com.ctrip.platform.dal.dao.task.SqlTemplateCache.Template;
+
+public class CombinedInsertTaskSplitTest {
+	private static final int MB = 1024 * 1024;
+	private static final Template TEMPLATE = new Template("INSERT INTO person(id, name, age) VALUES ", "(?,?,?)", Arrays.asList("id", "name", "age"));
+
+	private Map<Integer, Map<String, ?>> createPojos(String... names) {
+		Map<Integer, Map<String, ?>> pojos = new LinkedHashMap<>();
+		for(int i = 0; i < names.length; i++) {
+			Map<String, Object> pojo = new HashMap<>();
+			pojo.put("id", i);
+			pojo.put("name", names[i]);
+			pojo.put("age", null);
+			pojos.put(i, pojo);
+		}
+		return pojos;
+	}
+
+	private String repeat(char c, int count) {
+		char[] chars = new char[count];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+
+	private String repeat(String s, int count) {
+		StringBuilder sb = new StringBuilder(s.length() * count);
+		for(int i = 0; i < count; i++)
+			sb.append(s);
+		return sb.toString();
+	}
+
+	private void assertChunks(List<Map<Integer, Map<String, ?>>> chunks, int... sizes) {
+		assertEquals(sizes.length, chunks.size());
+		int index = 0;
+		for(int i = 0; i < sizes.length; i++) {
+			assertEquals(sizes[i], chunks.get(i).size());
+			// Pojo index and order are kept
+			for(Integer key: chunks.get(i).keySet())
+				assertEquals(index++, key.intValue());
+		}
+	}
+
+	@Test
+	public void testNotSplit() {
+		Map<Integer, Map<String, ?>> pojos = createPojos(new String[1000]);
+		List<Map<Integer, Map<String, ?>>> chunks = CombinedInsertTask.split(pojos, TEMPLATE, DatabaseCategory.Oracle, DatabaseCategory.Oracle.getMaxPacketSize());
+		assertEquals(1, chunks.size());
+		assertSame(pojos, chunks.get(0));
+	}
+
+	@Test
+	public void testSplitByParameterCount() {
+		// 2000 / 3 = 666 rows at most for SQL Server
+		Map<Integer, Map<String, ?>> pojos = createPojos(new String[1500]);
+		assertChunks(CombinedInsertTask.split(pojos, TEMPLATE, DatabaseCategory.SqlServer, Integer.MAX_VALUE), 666, 666, 168);
+
+		pojos = createPojos(new String[666]);
+		assertChunks(CombinedInsertTask.split(pojos, TEMPLATE, DatabaseCategory.SqlServer, Integer.MAX_VALUE), 666);
+	}
+
+	@Test
+	public void testSplitByPacketSize() {
+		// About 300k bytes each, 3 of them fit in 1M
+		String name = repeat('a', 300000);
+		Map<Integer, Map<String, ?>> pojos = createPojos(name, name, name, name, name, name, name, name, name, name);
+		assertChunks(CombinedInsertTask.split(pojos, TEMPLATE, DatabaseCategory.MySql, MB), 3, 3, 3, 1);
+
+		// All fit in the default 4M packet of MySql
+		assertChunks(CombinedInsertTask.split(pojos, TEMPLATE, DatabaseCategory.MySql, DatabaseCategory.MySql.getMaxPacketSize()), 10);
+
+		pojos = createPojos("a", "b", "c");
+		assertChunks(CombinedInsertTask.split(pojos, TEMPLATE, DatabaseCategory.MySql, MB), 3);
+	}
+
+	@Test
+	public void testEstimateStringSize() {
+		// 3 bytes per char in UTF-8
+		String name = repeat('\u4e2d', 100000);
+		Map<Integer, Map<String, ?>> pojos = createPojos(name, name, name, name);
+		assertChunks(CombinedInsertTask.split(pojos, TEMPLATE, DatabaseCategory.MySql, MB), 3, 1);
+
+		// 2 bytes for escaped char
+		name = repeat('\'', 150000);
+		pojos = createPojos(name, name, name, name);
+		assertChunks(CombinedInsertTask.split(pojos, TEMPLATE, DatabaseCategory.MySql, MB), 3, 1);
+
+		// 4 bytes for surrogate pair
+		name = repeat("\ud83d\ude00", 75000);
+		pojos = createPojos(name, name, name, name);
+		assertChunks(CombinedInsertTask.split(pojos, TEMPLATE, DatabaseCategory.MySql, MB), 3, 1);
+
+		// 1 byte per ascii char, all fit in 1M
+		name = repeat('a', 250000);
+		pojos = createPojos(name, name, name, name);
+		assertChunks(CombinedInsertTask.split(pojos, TEMPLATE, DatabaseCategory.MySql, MB), 4);
+	}
+
+	@Test
+	public void testSplitOversizedRow() {
+		// The row exceeds the limit by itself, it is still inserted alone
+		String name = repeat('a', MB);
+		Map<Integer, Map<String, ?>> pojos = createPojos("a", name, "b");
+		assertChunks(CombinedInsertTask.split(pojos, TEMPLATE, DatabaseCategory.MySql, MB), 1, 1, 1);
+
+		pojos = createPojos(name);
+		assertChunks(CombinedInsertTask.split(pojos, TEMPLATE, DatabaseCategory.MySql, MB), 1);
+	}
+}
@@ -6,6 +6,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -105,6 +106,34 @@ public class CombinedInsertTaskTestStub extends TaskTestStub {
 		}
 	}
 	
+	@Test
+	public void testExecuteInChunks() throws SQLException {
+		CombinedInsertTask<ClientTestModel> test = new CombinedInsertTask<>();
+		test.initialize(new ClientTestDalParser(getDbName()));
+		
+		// Exceeds the max parameter count of SQL Server
+		int size = 1000;
+		List<ClientTestModel> all = getAll();
+		List<ClientTestModel> pojos = new ArrayList<>();
+		for(int i = 0; i < size; i++)
+			pojos.add(all.get(i % all.size()));
+
+		DalHints hints = new DalHints();
+		KeyHolder keyHolder = new KeyHolder();
+		if(enableKeyHolder) {
+			keyHolder.requireMerge();
+			keyHolder.setSize(size);
+			hints.setKeyHolder(keyHolder);
+		}
+
+		assertEquals(size, execute(test, hints, null, pojos).intValue());
+		assertEquals(3 + size, getCount());
+		if(enableKeyHolder) {
+			assertTrue(keyHolder.isMerged());
+			assertEquals(size, keyHolder.getKeyList().size());
+		}
+	}
+	
 	@Test
 	public void testExecuteWithNonInsertable() throws SQLException {
 		CombinedInsertTask<NonInsertableVersionModel> test = new CombinedInsertTask<>();
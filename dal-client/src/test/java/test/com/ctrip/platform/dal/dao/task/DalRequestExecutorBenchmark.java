@@ -0,0 +1,130 @@
+package test.com.ctrip.platform.dal.dao.task;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ctrip.platform.dal.dao.DalClientFactory;
+import com.ctrip.platform.dal.dao.DalHints;
+import com.ctrip.platform.dal.dao.ResultMerger;
+import com.ctrip.platform.dal.dao.task.DalRequest;
+import com.ctrip.platform.dal.dao.task.DalRequestExecutor;
+
+/**
+ * Compare throughput and p99 latency of cross shard requests for each executor mode.
+ * Each shard task sleeps to simulate a JDBC round trip.
+ */
+public class DalRequestExecutorBenchmark {
+	private static final int CALLERS = 64;
+	private static final int SHARD_LATENCY_MS = 5;
+	private static final int DURATION_MS = 10 * 1000;
+
+	public static void main(String[] args) throws Exception {
+		DalClientFactory.initClientFactory();
+
+		int[] shardCounts = new int[]{8, 32, 128};
+		String[] modes = new String[]{"pool", "virtual", "bounded"};
+
+		for (int shards : shardCounts) {
+			for (String mode : modes) {
+				DalRequestExecutor.shutdown();
+				DalRequestExecutor.init(null, null, mode, null);
+				run(mode, shards);
+			}
+		}
+
+		DalRequestExecutor.shutdown();
+		System.exit(0);
+	}
+
+	private static void run(final String mode, final int shards) throws Exception {
+		final DalRequestExecutor executor = new DalRequestExecutor();
+		final List<Long> latencies = Collections.synchronizedList(new ArrayList<Long>());
+		final AtomicLong errors = new AtomicLong();
+		final CountDownLatch done = new CountDownLatch(CALLERS);
+		final long end = System.currentTimeMillis() + DURATION_MS;
+
+		for (int i = 0; i < CALLERS; i++) {
+			new Thread(new Runnable() {
+				public void run() {
+					while (System.currentTimeMillis() < end) {
+						long start = System.nanoTime();
+						try {
+							executor.execute(new DalHints(), new SleepRequest(shards), true);
+							latencies.add(System.nanoTime() - start);
+						} catch (SQLException e) {
+							errors.incrementAndGet();
+						}
+					}
+					done.countDown();
+				}
+			}).start();
+		}
+
+		done.await();
+
+		List<Long> sorted = new ArrayList<>(latencies);
+		Collections.sort(sorted);
+		long p99 = sorted.isEmpty() ? 0 : sorted.get((int) (sorted.size() * 0.99));
+
+		System.out.println(String.format("mode: %s(%s) shards: %d requests/s: %d p99: %dms errors: %d",
+				mode, DalRequestExecutor.getExecutorMode(), shards, sorted.size() * 1000L / DURATION_MS, p99 / 1000000, errors.get()));
+	}
+
+	private static class SleepRequest implements DalRequest<Integer> {
+		private int shards;
+
+		SleepRequest(int shards) {
+			this.shards = shards;
+		}
+
+		@Override
+		public String getCaller() {
+			return "DalRequestExecutorBenchmark";
+		}
+
+		@Override
+		public boolean isAsynExecution() {
+			return false;
+		}
+
+		@Override
+		public void validate() throws SQLException {
+		}
+
+		@Override
+		public boolean isCrossShard() throws SQLException {
+			return true;
+		}
+
+		@Override
+		public Callable<Integer> createTask() throws SQLException {
+			return null;
+		}
+
+		@Override
+		public Map<String, Callable<Integer>> createTasks() throws SQLException {
+			Map<String, Callable<Integer>> tasks = new HashMap<>();
+			for (int i = 0; i < shards; i++) {
+				tasks.put(String.valueOf(i), new Callable<Integer>() {
+					public Integer call() throws Exception {
+						Thread.sleep(SHARD_LATENCY_MS);
+						return 1;
+					}
+				});
+			}
+			return tasks;
+		}
+
+		@Override
+		public ResultMerger<Integer> getMerger() {
+			return new ResultMerger.IntSummary();
+		}
+	}
+}
@@ -5,28 +5,48 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.ctrip.platform.dal.dao.DalClientFactory;
 import com.ctrip.platform.dal.dao.DalHints;
+import com.ctrip.platform.dal.dao.DalResultFuture;
 import com.ctrip.platform.dal.dao.ResultMerger;
+import com.ctrip.platform.dal.dao.client.StatementCanceller;
+import com.ctrip.platform.dal.dao.client.TraceEvent;
+import com.ctrip.platform.dal.dao.client.TraceRecorder;
 import com.ctrip.platform.dal.dao.helper.DefaultResultCallback;
+import com.ctrip.platform.dal.dao.status.BulkheadStatus;
+import com.ctrip.platform.dal.dao.status.DalStatusManager;
 import com.ctrip.platform.dal.dao.task.DalRequest;
 import com.ctrip.platform.dal.dao.task.DalRequestExecutor;
+import com.ctrip.platform.dal.dao.task.ExecutorMode;
+import com.ctrip.platform.dal.dao.task.LogicDbAware;
+import com.ctrip.platform.dal.exceptions.ErrorCode;
 
 public class DalRequestExecutorTest {
-	private class TestDalRequest implements DalRequest<Integer> {
+	private class TestDalRequest implements DalRequest<Integer>, LogicDbAware {
 		private SQLException e;
 		public Integer[] values;
+		public String logicDbName;
 
 		private TestDalRequest(SQLException e, Integer[] values) {
 			this.e = e;
@@ -80,6 +100,11 @@ public class DalRequestExecutorTest {
 			return null;
 		}
 
+		@Override
+		public String getLogicDbName() {
+			return logicDbName;
+		}
+
 		@Override
 		public boolean isAsynExecution() {
 			// TODO Auto-generated method stub
@@ -162,6 +187,30 @@ public class DalRequestExecutorTest {
 		}
 	}
 
+	@Test
+	public void testExecuteAsync() {
+		DalRequestExecutor test = new DalRequestExecutor();
+		TestDalRequest request = new TestDalRequest(null, new Integer[]{1, 2});
+		DalHints hints = new DalHints();
+
+		try {
+			DalResultFuture<Integer> future = test.executeAsync(hints, request, false);
+			assertEquals(3, future.get().intValue());
+			assertEquals(future, hints.getAsyncResult());
+		} catch (Exception e) {
+			fail();
+		}
+
+		SQLException ex = new SQLException("Test");
+		request = new TestDalRequest(ex, null);
+		try {
+			test.executeAsync(new DalHints(), request, false).get();
+			fail();
+		} catch (Exception e) {
+			assertEquals(ex, ((ExecutionException)e).getCause());
+		}
+	}
+
 	@Test
 	public void testExecuteNotCrossShard() {
 		DalRequestExecutor test = new DalRequestExecutor();
@@ -190,6 +239,45 @@ public class DalRequestExecutorTest {
 		}
 	}
 
+	@Test
+	public void testTraceEvents() throws Exception {
+		final List<TraceEvent> events = new ArrayList<>();
+		TraceRecorder previous = TraceEvent.getRecorder();
+		TraceEvent.setRecorder(new TraceRecorder() {
+			public boolean isEnabled(TraceEvent.Type type) {
+				return true;
+			}
+			public Object begin(TraceEvent.Type type) {
+				return null;
+			}
+			public synchronized void commit(TraceEvent event) {
+				events.add(event);
+			}
+		});
+
+		try {
+			DalRequestExecutor test = new DalRequestExecutor();
+			TestDalRequest request = new TestDalRequest(null, new Integer[]{1, 2});
+			request.logicDbName = "dao_test";
+			assertEquals(3, test.execute(new DalHints(), request).intValue());
+		} finally {
+			TraceEvent.setRecorder(previous);
+		}
+
+		assertEquals(3, events.size());
+		TraceEvent requestEvent = events.get(2);
+		assertEquals(TraceEvent.Type.REQUEST, requestEvent.getType());
+		assertEquals("dao_test", requestEvent.getLogicDbName());
+		assertTrue(requestEvent.isSuccess());
+
+		for(TraceEvent event: events.subList(0, 2)) {
+			assertEquals(TraceEvent.Type.SHARD_TASK, event.getType());
+			assertEquals("dao_test", event.getLogicDbName());
+			assertTrue(event.getShard().equals("0") || event.getShard().equals("1"));
+			assertTrue(event.getDuration() <= requestEvent.getDuration());
+		}
+	}
+
 	@Test
 	public void testExecuteNullable() {
 		DalRequestExecutor test = new DalRequestExecutor();
@@ -332,6 +420,278 @@ public class DalRequestExecutorTest {
 		}
 	}
 
+	@Test
+	public void testVirtualExecutorMode() {
+		DalRequestExecutor.shutdown();
+		DalRequestExecutor.init(null, null, "virtual", null);
+		DalRequestExecutor test = new DalRequestExecutor();
+		TestDalRequest request = new TestDalRequest(null, new Integer[]{1, 2, 3});
+
+		try {
+			// Fall back to pool if virtual thread is not supported
+			assertTrue(DalRequestExecutor.getExecutorMode() != ExecutorMode.bounded);
+			assertEquals(6, test.execute(new DalHints(), request).intValue());
+
+			DalHints hints = new DalHints().asyncExecution();
+			assertNull(test.execute(hints, request));
+			assertEquals(6, ((Integer)hints.getAsyncResult().get()).intValue());
+
+			assertEquals(6, test.execute(new DalHints().sequentialExecute(), request).intValue());
+		} catch (Exception e) {
+			fail();
+		}
+	}
+
+	@Test
+	public void testBoundedExecutorMode() {
+		DalRequestExecutor.shutdown();
+		DalRequestExecutor.init("50", null, "bounded", "4");
+		assertEquals(ExecutorMode.bounded, DalRequestExecutor.getExecutorMode());
+		assertEquals(4, DalRequestExecutor.getMaxShardConcurrency());
+
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		DalRequestExecutor test = new DalRequestExecutor();
+		TestDalRequest request = new TestThreadPoolDalRequest(20) {
+			public Callable<Integer> createInternalTask(final Integer k) throws SQLException {
+				return new Callable<Integer>() {
+					public Integer call() throws Exception {
+						int current = running.incrementAndGet();
+						synchronized (maxRunning) {
+							if(current > maxRunning.get())
+								maxRunning.set(current);
+						}
+						Thread.sleep(50);
+						running.decrementAndGet();
+						return k;
+					}
+				};
+			}
+		};
+
+		try {
+			assertEquals(190, test.execute(new DalHints(), request).intValue());
+			assertTrue(maxRunning.get() <= 4);
+		} catch (Exception e) {
+			fail();
+		}
+	}
+
+	@Test
+	public void testRequestTimeout() {
+		DalRequestExecutor test = new DalRequestExecutor();
+		TestThreadPoolDalRequest request = new TestThreadPoolDalRequest(5);
+		request.sleep = true;
+
+		long start = System.currentTimeMillis();
+		try {
+			test.execute(new DalHints().requestTimeout(100), request);
+			fail();
+		} catch (SQLException e) {
+			assertEquals(ErrorCode.RequestTimeout.getCode(), e.getErrorCode());
+		}
+		assertTrue(System.currentTimeMillis() - start < 1000);
+	}
+
+	@Test
+	public void testRequestTimeoutContinueOnError() {
+		DalRequestExecutor test = new DalRequestExecutor();
+		TestDalRequest request = new TestThreadPoolDalRequest(5) {
+			public Callable<Integer> createInternalTask(final Integer k) throws SQLException {
+				return new Callable<Integer>() {
+					public Integer call() throws Exception {
+						if(k > 0)
+							Thread.sleep(1000);
+						return k + 10;
+					}
+				};
+			}
+		};
+
+		try {
+			long start = System.currentTimeMillis();
+			assertEquals(10, test.execute(new DalHints().requestTimeout(200).continueOnError(), request).intValue());
+			assertTrue(System.currentTimeMillis() - start < 1000);
+		} catch (Exception e) {
+			fail();
+		}
+	}
+
+	@Test
+	public void testCancelRemainingShardsOnError() {
+		final AtomicInteger finished = new AtomicInteger();
+		DalRequestExecutor test = new DalRequestExecutor();
+		TestDalRequest request = new TestThreadPoolDalRequest(5) {
+			public Callable<Integer> createInternalTask(final Integer k) throws SQLException {
+				return new Callable<Integer>() {
+					public Integer call() throws Exception {
+						if(k == 0)
+							throw new SQLException("Test");
+
+						Thread.sleep(1000);
+						finished.incrementAndGet();
+						return k;
+					}
+				};
+			}
+		};
+
+		long start = System.currentTimeMillis();
+		try {
+			test.execute(new DalHints(), request);
+			fail();
+		} catch (SQLException e) {
+			assertTrue(e.getMessage().contains("Test"));
+		}
+		assertTrue(System.currentTimeMillis() - start < 1000);
+
+		try {
+			// Remaining shards are either cancelled before start or interrupted
+			Thread.sleep(1500);
+			assertEquals(0, finished.get());
+		} catch (InterruptedException e) {
+			fail();
+		}
+	}
+
+	@Test
+	public void testCompletionOrder() {
+		final List<String> order = new ArrayList<>();
+		DalRequestExecutor test = new DalRequestExecutor();
+		TestDalRequest request = new TestThreadPoolDalRequest(4) {
+			public Callable<Integer> createInternalTask(final Integer k) throws SQLException {
+				return new Callable<Integer>() {
+					public Integer call() throws Exception {
+						Thread.sleep((3 - k) * 100);
+						return k;
+					}
+				};
+			}
+
+			public ResultMerger<Integer> getMerger() {
+				return new ResultMerger.IntSummary() {
+					public void addPartial(String shard, Integer partial) {
+						order.add(shard);
+						super.addPartial(shard, partial);
+					}
+				};
+			}
+		};
+
+		try {
+			assertEquals(6, test.execute(new DalHints(), request).intValue());
+			assertEquals(Arrays.asList("3", "2", "1", "0"), order);
+		} catch (Exception e) {
+			fail();
+		}
+	}
+
+	@Test
+	public void testBulkheadRejection() throws Exception {
+		DalStatusManager.initialize(DalClientFactory.getDalConfigure());
+		BulkheadStatus bulkhead = DalStatusManager.getBulkheadStatus("dao_test");
+		bulkhead.setMaxConcurrency(1);
+		long rejected = bulkhead.getRejectedCount();
+
+		DalRequestExecutor test = new DalRequestExecutor();
+
+		try {
+			// One request takes only one slot no matter how many shards it has
+			TestThreadPoolDalRequest request = new TestThreadPoolDalRequest(5);
+			request.logicDbName = "dao_test";
+			assertEquals(10, test.execute(new DalHints(), request).intValue());
+			assertEquals(0, bulkhead.getActiveCount());
+			assertEquals(0, bulkhead.getQueueDepth());
+
+			request.sleep = true;
+			DalResultFuture<Integer> running = test.executeAsync(new DalHints(), request, false);
+
+			long start = System.currentTimeMillis();
+			try {
+				test.execute(new DalHints(), request);
+				fail();
+			} catch (SQLException e) {
+				assertEquals(ErrorCode.ExecutorBulkheadFull.getCode(), e.getErrorCode());
+			}
+			assertTrue(System.currentTimeMillis() - start < 1000);
+
+			try {
+				test.executeAsync(new DalHints(), request, false).get();
+				fail();
+			} catch (ExecutionException e) {
+				assertEquals(ErrorCode.ExecutorBulkheadFull.getCode(), ((SQLException)e.getCause()).getErrorCode());
+			}
+			assertEquals(rejected + 2, bulkhead.getRejectedCount());
+
+			// The slot is returned after the request is done
+			assertEquals(10, running.get().intValue());
+			Thread.sleep(100);
+			assertEquals(0, bulkhead.getActiveCount());
+			assertEquals(0, bulkhead.getQueueDepth());
+
+			request = new TestThreadPoolDalRequest(2);
+			request.logicDbName = "dao_test";
+			assertEquals(1, test.execute(new DalHints(), request).intValue());
+		} finally {
+			bulkhead.setMaxConcurrency(0);
+		}
+	}
+
+	@Test
+	public void testStatementCanceller() {
+		final AtomicInteger cancelled = new AtomicInteger();
+		final AtomicInteger queryTimeout = new AtomicInteger();
+		Statement statement = (Statement)Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Statement.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				switch (method.getName()) {
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				case "cancel":
+					cancelled.incrementAndGet();
+					return null;
+				case "getQueryTimeout":
+					return queryTimeout.get();
+				case "setQueryTimeout":
+					queryTimeout.set((Integer)args[0]);
+					return null;
+				default:
+					return null;
+				}
+			}
+		});
+
+		try {
+			queryTimeout.set(30);
+			StatementCanceller canceller = new StatementCanceller(System.nanoTime() + TimeUnit.SECONDS.toNanos(5), 5000);
+			canceller.register(statement);
+			assertEquals(5, queryTimeout.get());
+
+			canceller.cancel();
+			assertEquals(1, cancelled.get());
+			assertTrue(canceller.isCancelled());
+
+			try {
+				canceller.register(statement);
+				fail();
+			} catch (SQLException e) {
+				assertEquals(ErrorCode.StatementCancelled.getCode(), e.getErrorCode());
+			}
+
+			canceller = new StatementCanceller(System.nanoTime() - 1, 100);
+			assertTrue(canceller.isExpired());
+			try {
+				canceller.register(statement);
+				fail();
+			} catch (SQLException e) {
+				assertEquals(ErrorCode.RequestTimeout.getCode(), e.getErrorCode());
+			}
+		} catch (SQLException e) {
+			fail();
+		}
+	}
+
 	@Test
 	public void testThreadPoolCheckCapacity() {
 		DalRequestExecutor.shutdown();
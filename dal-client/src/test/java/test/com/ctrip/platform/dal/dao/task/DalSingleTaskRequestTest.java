@@ -1,9 +1,10 @@
 package test.com.ctrip.platform.dal.dao.task;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
-import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.sql.SQLException;
@@ -18,6 +19,9 @@ import org.junit.Test;
 import com.ctrip.platform.dal.dao.DalClientFactory;
 import com.ctrip.platform.dal.dao.DalHints;
 import com.ctrip.platform.dal.dao.DalParser;
+import com.ctrip.platform.dal.dao.KeyHolder;
+import com.ctrip.platform.dal.dao.ResultMerger;
+import com.ctrip.platform.dal.dao.task.DalRequestExecutor;
 import com.ctrip.platform.dal.dao.task.DalSingleTaskRequest;
 import com.ctrip.platform.dal.dao.task.SingleTask;
 
@@ -40,6 +44,7 @@ public class DalSingleTaskRequestTest {
 			for(Integer i: daoPojos){
 				Map<String, Integer> map = new HashMap<String, Integer>();
 				map.put("id", i);
+				map.put("index", i);
 				maps.add(map);
 			}
 			return maps;
@@ -48,7 +53,13 @@ public class DalSingleTaskRequestTest {
 		@Override
 		public int execute(DalHints hints, Map<String, ?> daoPojo, Integer a)
 				throws SQLException {
-			return (Integer)daoPojo.values().iterator().next();
+			Integer id = (Integer)daoPojo.get("id");
+			if(hints.getKeyHolder() != null) {
+				Map<String, Object> key = new HashMap<>();
+				key.put("id", id * 10);
+				hints.getKeyHolder().addKey(key);
+			}
+			return id;
 		}
 	}
 	
@@ -105,10 +116,30 @@ public class DalSingleTaskRequestTest {
 
 	@Test
 	public void testIsCrossShard() {
-		DalSingleTaskRequest<Integer> test = null;
-		List<Integer> pojos = new ArrayList<>();
-		test = new DalSingleTaskRequest<>("dao_test_sqlsvr_dbShard", new DalHints(), pojos, new TestSingleTask());
-		assertFalse(test.isCrossShard());
+		try {
+			DalSingleTaskRequest<Integer> test = null;
+			List<Integer> pojos = new ArrayList<>();
+			test = new DalSingleTaskRequest<>("dao_test_sqlsvr_dbShard", new DalHints(), pojos, new TestSingleTask());
+			test.validate();
+			assertFalse(test.isCrossShard());
+
+			pojos.add(1);
+			pojos.add(2);
+			test = new DalSingleTaskRequest<>("dao_test_sqlsvr_dbShard", new DalHints(), pojos, new TestSingleTask());
+			test.validate();
+			assertTrue(test.isCrossShard());
+
+			// Shard is given by hints
+			test = new DalSingleTaskRequest<>("dao_test_sqlsvr_dbShard", new DalHints().inShard("0"), pojos, new TestSingleTask());
+			test.validate();
+			assertFalse(test.isCrossShard());
+
+			test = new DalSingleTaskRequest<>("dao_test_sqlsvr_dbShard", new DalHints(), 1, new TestSingleTask());
+			test.validate();
+			assertFalse(test.isCrossShard());
+		} catch (SQLException e) {
+			fail();
+		}
 	}
 
 	@Test
@@ -141,13 +172,23 @@ public class DalSingleTaskRequestTest {
 
 	@Test
 	public void testCreateTasks() {
-		DalSingleTaskRequest<Integer> test = null;
 		List<Integer> pojos = new ArrayList<>();
-		test = new DalSingleTaskRequest<>("dao_test_sqlsvr_dbShard", new DalHints(), pojos, new TestSingleTask());
+		for(int i = 1; i <= 5; i++)
+			pojos.add(i);
+
+		DalSingleTaskRequest<Integer> test = new DalSingleTaskRequest<>("dao_test_sqlsvr_dbShard", new DalHints(), pojos, new TestSingleTask());
 		try {
-			test.createTasks();
+			test.validate();
+			assertTrue(test.isCrossShard());
+			Map<String, Callable<int[]>> tasks = test.createTasks();
+			assertEquals(2, tasks.size());
+
+			ResultMerger<int[]> merger = test.getMerger();
+			for(String shard: tasks.keySet())
+				merger.addPartial(shard, tasks.get(shard).call());
+			assertArrayEquals(new int[]{1, 2, 3, 4, 5}, merger.merge());
+		} catch (Exception e) {
 			fail();
-		} catch (SQLException e) {
 		}
 	}
 
@@ -155,7 +196,35 @@ public class DalSingleTaskRequestTest {
 	public void testGetMerger() {
 		DalSingleTaskRequest<Integer> test = null;
 		List<Integer> pojos = new ArrayList<>();
+		pojos.add(1);
+		pojos.add(2);
 		test = new DalSingleTaskRequest<>("dao_test_sqlsvr_dbShard", new DalHints(), pojos, new TestSingleTask());
-		assertNull(test.getMerger());
+		try {
+			test.validate();
+			assertTrue(test.isCrossShard());
+			assertNotNull(test.getMerger());
+		} catch (SQLException e) {
+			fail();
+		}
+	}
+
+	@Test
+	public void testExecuteCrossShardInOriginalOrder() {
+		List<Integer> pojos = new ArrayList<>();
+		for(int i = 1; i <= 6; i++)
+			pojos.add(i);
+
+		KeyHolder keyHolder = new KeyHolder();
+		DalHints hints = new DalHints().setKeyHolder(keyHolder);
+		try {
+			int[] counts = new DalRequestExecutor().execute(hints, new DalSingleTaskRequest<>("dao_test_sqlsvr_dbShard", hints, pojos, new TestSingleTask()));
+			assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6}, counts);
+
+			assertEquals(6, keyHolder.getKeyList().size());
+			for(int i = 0; i < 6; i++)
+				assertEquals((i + 1) * 10, keyHolder.getKey(i).intValue());
+		} catch (Exception e) {
+			fail();
+		}
 	}
 }
@@ -0,0 +1,61 @@
+package test.com.ctrip.platform.dal.dao.task;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.task.SqlTemplateCache;
+import com.ctrip.platform.dal.dao.task.SqlTemplateCache.Template;
+
+public class SqlTemplateCacheTest {
+	private static final String[] COLUMNS = new String[]{"id", "name", "age", "version"};
+
+	@Test
+	public void testColumnSet() {
+		SqlTemplateCache test = new SqlTemplateCache(COLUMNS);
+		BitSet set = test.toColumnSet(Arrays.asList("age", "id", "unknown"));
+		assertEquals(2, set.cardinality());
+		assertEquals(set, test.toColumnSet(Arrays.asList("id", "age")));
+	}
+
+	@Test
+	public void testGetPut() {
+		SqlTemplateCache test = new SqlTemplateCache(COLUMNS);
+		BitSet columns = test.toColumnSet(Arrays.asList("name", "age"));
+		assertNull(test.get("UPDATE", "person", columns));
+
+		Template template = new Template("UPDATE person SET name=?, age=? WHERE id=?", Arrays.asList("name", "age"));
+		assertSame(template, test.put("UPDATE", "person", columns, template));
+		assertSame(template, test.get("UPDATE", "person", test.toColumnSet(Arrays.asList("age", "name"))));
+		assertArrayEquals(new String[]{"name", "age"}, template.getColumns());
+
+		// The first one is kept
+		assertSame(template, test.put("UPDATE", "person", columns, new Template("", Arrays.asList("name"))));
+
+		assertNull(test.get("INSERT", "person", columns));
+		assertNull(test.get("UPDATE", "person_1", columns));
+		assertNull(test.get("UPDATE", "person", columns, new BitSet()));
+		assertEquals(1, test.size());
+	}
+
+	@Test
+	public void testMax() {
+		SqlTemplateCache test = new SqlTemplateCache(COLUMNS);
+		BitSet columns = new BitSet();
+		for(int i = 0; i < SqlTemplateCache.MAX_TEMPLATES; i++)
+			test.put("DELETE", "person_" + i, columns, new Template("", Arrays.asList("id")));
+
+		Template template = new Template("", Arrays.asList("id"));
+		assertSame(template, test.put("DELETE", "person", columns, template));
+		assertNull(test.get("DELETE", "person", columns));
+		assertEquals(SqlTemplateCache.MAX_TEMPLATES, test.size());
+		assertNotSame(template, test.get("DELETE", "person_0", columns));
+	}
+}
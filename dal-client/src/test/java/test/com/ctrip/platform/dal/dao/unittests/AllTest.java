@@ -25,5 +25,8 @@ import org.junit.runners.Suite.SuiteClasses;
 	StatementParametersTest.class,
 	
 	KeyHolderTest.class,
+	DalResultFutureTest.class,
+	LatencyHistogramTest.class,
+	TopSqlStatusTest.class,
 })
 public class AllTest {}
@@ -0,0 +1,107 @@
+package test.com.ctrip.platform.dal.dao.unittests;
+
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.DalResultFuture;
+import com.ctrip.platform.dal.dao.helper.DefaultResultCallback;
+
+public class DalResultFutureTest {
+
+	@Test
+	public void testComplete() throws Exception {
+		DalResultFuture<Integer> test = new DalResultFuture<>();
+		assertFalse(test.isDone());
+
+		assertTrue(test.complete(1));
+		assertFalse(test.complete(2));
+		assertFalse(test.completeExceptionally(new SQLException()));
+
+		assertTrue(test.isDone());
+		assertFalse(test.isCancelled());
+		assertEquals(1, test.get().intValue());
+		assertEquals(1, test.get(1, TimeUnit.MILLISECONDS).intValue());
+	}
+
+	@Test
+	public void testCompleteExceptionally() throws Exception {
+		DalResultFuture<Integer> test = new DalResultFuture<>();
+		SQLException e = new SQLException("Test");
+		test.completeExceptionally(e);
+
+		try {
+			test.get();
+			fail();
+		} catch (ExecutionException ex) {
+			assertEquals(e, ex.getCause());
+		}
+	}
+
+	@Test
+	public void testGetTimeout() throws Exception {
+		DalResultFuture<Integer> test = new DalResultFuture<>();
+		try {
+			test.get(10, TimeUnit.MILLISECONDS);
+			fail();
+		} catch (TimeoutException e) {
+		}
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		DalResultFuture<Integer> test = new DalResultFuture<>();
+		assertTrue(test.cancel(true));
+		assertFalse(test.complete(1));
+		assertTrue(test.isCancelled());
+		assertTrue(test.isDone());
+
+		try {
+			test.get();
+			fail();
+		} catch (CancellationException e) {
+		}
+	}
+
+	@Test
+	public void testWhenComplete() throws Exception {
+		final DalResultFuture<Integer> test = new DalResultFuture<>();
+		DefaultResultCallback before = new DefaultResultCallback();
+		test.whenComplete(before);
+		assertFalse(before.isDone());
+
+		new Thread(new Runnable() {
+			public void run() {
+				test.complete(1);
+			}
+		}).start();
+
+		before.waitForDone(1000);
+		assertTrue(before.isSuccess());
+		assertEquals(1, before.getResult());
+
+		DefaultResultCallback after = new DefaultResultCallback();
+		test.whenComplete(after);
+		assertTrue(after.isDone());
+		assertEquals(1, after.getResult());
+	}
+
+	@Test
+	public void testWhenCompleteExceptionally() throws Exception {
+		DalResultFuture<Integer> test = new DalResultFuture<>();
+		DefaultResultCallback callback = new DefaultResultCallback();
+		SQLException e = new SQLException("Test");
+		test.whenComplete(callback);
+		test.completeExceptionally(e);
+
+		assertTrue(callback.isDone());
+		assertFalse(callback.isSuccess());
+		assertEquals(e, callback.getError());
+	}
+}
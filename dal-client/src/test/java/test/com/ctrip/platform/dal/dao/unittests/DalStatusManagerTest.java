@@ -7,7 +7,10 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import com.ctrip.platform.dal.dao.DalClientFactory;
+import com.ctrip.platform.dal.dao.status.BulkheadStatus;
 import com.ctrip.platform.dal.dao.status.DalStatusManager;
+import com.ctrip.platform.dal.dao.status.PoolStatus;
+import com.ctrip.platform.dal.dao.status.TopSqlStatus;
 
 public class DalStatusManagerTest {
 	@AfterClass
@@ -29,6 +32,66 @@ public class DalStatusManagerTest {
 		DalStatusManager.shutdown();
 	}
 	
+	@Test
+	public void testBulkheadStatus() throws Exception{
+		DalStatusManager.initialize(DalClientFactory.getDalConfigure());
+		Assert.assertNull(DalStatusManager.getBulkheadStatus(null));
+		Assert.assertNull(DalStatusManager.getBulkheadStatus("notExist"));
+
+		BulkheadStatus status = DalStatusManager.getBulkheadStatus("dao_test");
+		Assert.assertEquals("dao_test", status.getName());
+		Assert.assertEquals(0, status.getMaxConcurrency());
+
+		status.setMaxConcurrency(2);
+		try {
+			Assert.assertTrue(status.tryAcquire());
+			Assert.assertTrue(status.tryAcquire());
+			Assert.assertFalse(status.tryAcquire());
+			Assert.assertEquals(1, status.getRejectedCount());
+			Assert.assertEquals(2, status.getQueueDepth());
+
+			status.begin();
+			Assert.assertEquals(1, status.getActiveCount());
+			Assert.assertEquals(1, status.getQueueDepth());
+
+			status.end();
+			status.release();
+			Assert.assertEquals(0, status.getActiveCount());
+			Assert.assertEquals(0, status.getQueueDepth());
+			Assert.assertTrue(status.tryAcquire());
+			status.release();
+		} finally {
+			status.setMaxConcurrency(0);
+		}
+	}
+	
+	@Test
+	public void testLatencyStatus() throws Exception{
+		DalStatusManager.initialize(DalClientFactory.getDalConfigure());
+		Assert.assertNull(DalStatusManager.getLatencyStatus(null));
+		Assert.assertNull(DalStatusManager.getLatencyStatus("notExist"));
+		Assert.assertEquals("dao_test", DalStatusManager.getLatencyStatus("dao_test").getName());
+	}
+	
+	@Test
+	public void testPoolStatus() throws Exception{
+		DalStatusManager.initialize(DalClientFactory.getDalConfigure());
+		Assert.assertNull(DalStatusManager.getPoolStatus(null));
+		Assert.assertNull(DalStatusManager.getPoolStatus("notExist"));
+
+		for(String name: DalClientFactory.getDalConfigure().getDataSourceNames()) {
+			PoolStatus status = DalStatusManager.getPoolStatus(name);
+			Assert.assertEquals(name.toLowerCase(), status.getName());
+			Assert.assertEquals(0, status.getAbandonedCount());
+		}
+	}
+	
+	@Test
+	public void testTopSqlStatus() throws Exception{
+		DalStatusManager.initialize(DalClientFactory.getDalConfigure());
+		Assert.assertEquals(TopSqlStatus.DEFAULT_CAPACITY, DalStatusManager.getTopSqlStatus().getCapacity());
+	}
+	
 	@Test
 	public void testParaInitShutdown(){
 		final CountDownLatch cdl = new CountDownLatch(10);
@@ -138,6 +138,30 @@ public class KeyHolderTest {
 		assertTrue(test.isMerged());
 	}
 
+	@Test
+	public void testWaitForMerge() throws Exception {
+		final KeyHolder test = new KeyHolder();
+		test.setSize(3);
+		test.requireMerge();
+
+		test.waitForMerge(10);
+		assertFalse(test.isMerged());
+
+		new Thread(new Runnable() {
+			public void run() {
+				KeyHolder tmpHolder = new KeyHolder();
+				tmpHolder.addKey(buildKey(0));
+				tmpHolder.addKey(buildKey(1));
+				tmpHolder.addKey(buildKey(2));
+				test.addPatial(new Integer[]{0, 1, 2}, tmpHolder);
+			}
+		}).start();
+
+		test.waitForMerge();
+		assertTrue(test.isMerged());
+		assertEquals(3, test.getKeyList().size());
+	}
+
 	@Test
 	public void testMergeSequential() {
 		ExecutorService service = null;
@@ -0,0 +1,100 @@
+package test.com.ctrip.platform.dal.dao.unittests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.status.LatencyHistogram;
+import com.ctrip.platform.dal.dao.status.LatencyStatus;
+import com.ctrip.platform.dal.dao.status.LatencyStatus.Phase;
+
+public class LatencyHistogramTest {
+	@Test
+	public void testEmpty() {
+		LatencyHistogram test = new LatencyHistogram();
+		assertEquals(0, test.getCount());
+		assertEquals(0, test.getPercentile(99));
+		assertEquals(0, test.getMean());
+	}
+
+	@Test
+	public void testPercentile() {
+		LatencyHistogram test = new LatencyHistogram();
+		for(int i = 1; i <= 1000; i++)
+			test.record(i * 1000L);
+
+		assertEquals(1000, test.getCount());
+		assertEquals(1000 * 1000L, test.getMax());
+		assertEquals(500500, test.getMean());
+		assertAccurate(500 * 1000L, test.getPercentile(50));
+		assertAccurate(990 * 1000L, test.getPercentile(99));
+		assertEquals(1000 * 1000L, test.getPercentile(100));
+
+		test.reset();
+		assertEquals(0, test.getCount());
+		assertEquals(0, test.getPercentile(50));
+	}
+
+	@Test
+	public void testSmallAndLargeValue() {
+		LatencyHistogram test = new LatencyHistogram();
+		test.record(-1);
+		test.record(3);
+		assertEquals(1, test.getCount());
+		assertEquals(3, test.getPercentile(50));
+
+		test.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, test.getPercentile(100));
+	}
+
+	@Test
+	public void testConcurrentRecord() throws Exception {
+		final LatencyHistogram test = new LatencyHistogram();
+		final CountDownLatch latch = new CountDownLatch(8);
+		for(int i = 0; i < 8; i++) {
+			new Thread(new Runnable() {
+				public void run() {
+					for(int j = 0; j < 10000; j++)
+						test.record(j);
+					latch.countDown();
+				}
+			}).start();
+		}
+		latch.await();
+
+		assertEquals(80000, test.getCount());
+		assertEquals(9999, test.getMax());
+	}
+
+	@Test
+	public void testLatencyStatus() {
+		LatencyStatus test = new LatencyStatus("dao_test");
+		test.record("0", "dao_test_0", "select * from t where id=?", new long[]{1000, 2000, 3000000, -1});
+		test.record("1", "dao_test_1", "select * from t where id=?", new long[]{1000, 2000, 5000000, 4000});
+
+		assertEquals(2, test.getCount());
+		assertEquals(2, test.getKeyCount());
+		assertEquals(1, test.getHistogram(Phase.MAP).getCount());
+		assertAccurate(5000, test.getExecuteMax());
+		assertEquals(1, test.getHistogram("0", "dao_test_0", "select * from t where id=?", Phase.EXECUTE).getCount());
+		assertNull(test.getHistogram("2", "dao_test_2", "select * from t where id=?", Phase.EXECUTE));
+		assertTrue(test.getPercentiles()[0].contains("sql: select * from t where id=?"));
+
+		for(int i = 0; i < LatencyStatus.MAX_KEYS; i++)
+			test.record("0", "dao_test_0", "sql" + i, new long[]{1, 1, 1, 1});
+		assertEquals(LatencyStatus.MAX_KEYS, test.getKeyCount());
+		assertEquals(LatencyStatus.MAX_KEYS + 2, test.getCount());
+
+		test.reset();
+		assertEquals(0, test.getCount());
+		assertEquals(0, test.getKeyCount());
+	}
+
+	private void assertAccurate(long expected, long actual) {
+		assertTrue(actual + " is not close to " + expected, Math.abs(actual - expected) <= expected / 16);
+	}
+}
@@ -8,6 +8,7 @@ import static junit.framework.Assert.*;
 
 import org.junit.Test;
 
+import com.ctrip.platform.dal.dao.StatementParameter;
 import com.ctrip.platform.dal.dao.StatementParameters;
 
 public class StatementParametersTest {
@@ -63,4 +64,91 @@ public class StatementParametersTest {
 		
 		assertEquals(5, test.size());
 	}
+
+	@Test
+	public void testPrimitive() {
+		StatementParameters test = new StatementParameters();
+		test.setInt(1, 1);
+		test.setLong(2, 2L);
+		test.setBoolean(3, true);
+		test.setDouble(4, 1.5);
+		
+		assertTrue(test.get(0).isPrimitive());
+		assertEquals(Types.INTEGER, test.get(0).getSqlType());
+		assertEquals(1, test.get(0).getValue());
+		assertEquals(Types.BIGINT, test.get(1).getSqlType());
+		assertEquals(2L, test.get(1).getValue());
+		assertEquals(Types.BIT, test.get(2).getSqlType());
+		assertEquals(true, test.get(2).getValue());
+		assertEquals(Types.DOUBLE, test.get(3).getSqlType());
+		assertEquals(1.5, test.get(3).getValue());
+		assertEquals("1=1,2=2,3=true,4=1.5", test.toLogString());
+		
+		StatementParameters copy = test.duplicate();
+		assertTrue(copy.get(0).isPrimitive());
+		assertEquals(1, copy.get(0).getValue());
+
+		test.get(0).setValue(3);
+		assertFalse(test.get(0).isPrimitive());
+		assertEquals(3, test.get(0).getValue());
+		
+		// Changing sql type keeps the value
+		test.get(1).setSqlType(Types.VARCHAR);
+		assertFalse(test.get(1).isPrimitive());
+		assertEquals(2L, test.get(1).getValue());
+	}
+
+	@Test
+	public void testReset() {
+		StatementParameters test = new StatementParameters(1);
+		test.set(1, "name1", Types.INTEGER, 1);
+		test.setSensitive(2, Types.VARCHAR, "a");
+		StatementParameter added = new StatementParameter(3, Types.INTEGER, 3);
+		test.add(added);
+		StatementParameter first = test.get(0);
+		
+		test.reset();
+		assertEquals(0, test.size());
+		
+		test.setInt(1, 10);
+		test.set(2, Types.VARCHAR, "b");
+		test.set(3, Types.INTEGER, 30);
+		assertEquals(3, test.size());
+
+		// Parameters created by set methods are reused
+		assertSame(first, test.get(0));
+		assertNull(test.get(0).getName());
+		assertFalse(test.get(1).isSensitive());
+		assertEquals("b", test.get(1).getValue());
+		assertNotSame(added, test.get(2));
+		assertEquals(3, added.getValue());
+		assertEquals(30, test.get(2).getValue());
+		
+		try {
+			test.get(3);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	@Test
+	public void testValues() {
+		StatementParameters test = new StatementParameters();
+		test.set(1, Types.INTEGER, 1);
+		test.set(2, Types.INTEGER, 2);
+		
+		List<StatementParameter> values = test.values();
+		values.add(0, new StatementParameter(0, Types.INTEGER, 0));
+		assertEquals(3, test.size());
+		assertEquals(0, test.get(0).getValue());
+		
+		values.remove(1);
+		assertEquals(2, test.size());
+		assertEquals(2, test.get(1).getValue());
+		
+		int i = 0;
+		for(StatementParameter p: test.values())
+			assertSame(test.get(i++), p);
+		assertEquals(2, i);
+	}
 }
@@ -0,0 +1,106 @@
+package test.com.ctrip.platform.dal.dao.unittests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.status.SqlStatistics;
+import com.ctrip.platform.dal.dao.status.TopSqlStatus;
+
+public class TopSqlStatusTest {
+	@Test
+	public void testRecord() {
+		TopSqlStatus test = new TopSqlStatus(10);
+		test.record(null, 1, 1, false);
+		assertEquals(0, test.getSize());
+
+		test.record("select * from t where id=?", 1000, 1, false);
+		test.record("select * from t where id=?", 3000, 0, true);
+
+		SqlStatistics statistics = test.getStatistics("select * from t where id=?");
+		assertEquals(2, statistics.getCount());
+		assertEquals(0, statistics.getCountError());
+		assertEquals(4000, statistics.getTotalTime());
+		assertEquals(3000, statistics.getMaxTime());
+		assertEquals(1, statistics.getRows());
+		assertEquals(1, statistics.getErrors());
+
+		test.reset();
+		assertEquals(0, test.getSize());
+	}
+
+	@Test
+	public void testHeavyHittersAreKept() {
+		TopSqlStatus test = new TopSqlStatus(10);
+		for(int i = 0; i < 1000; i++) {
+			test.record("hot1", 1000, 1, false);
+			test.record("hot2", 1000, 1, false);
+			test.record("slow", 1000000, 1, false);
+			test.record("rare" + i, 1, 1, false);
+			test.record("rare" + i, 1, 1, false);
+		}
+
+		assertEquals(10, test.getSize());
+		assertNotNull(test.getStatistics("hot1"));
+		assertNotNull(test.getStatistics("hot2"));
+		assertNull(test.getStatistics("rare0"));
+
+		List<SqlStatistics> hottest = test.getHottest(3);
+		assertEquals(3, hottest.size());
+		for(SqlStatistics statistics: hottest)
+			assertTrue(statistics.getFingerprint().startsWith("hot") || statistics.getFingerprint().equals("slow"));
+
+		assertEquals("slow", test.getSlowest(1).get(0).getFingerprint());
+		assertEquals(10, test.getHotSqls().length);
+		assertTrue(test.getSlowSqls()[0].endsWith("sql: slow"));
+	}
+
+	@Test
+	public void testCountIsUpperBound() {
+		TopSqlStatus test = new TopSqlStatus(2);
+		test.record("a", 1, 0, false);
+		test.record("a", 1, 0, false);
+		test.record("b", 1, 0, false);
+		test.record("c", 1, 0, false);
+
+		assertNull(test.getStatistics("b"));
+		SqlStatistics c = test.getStatistics("c");
+		assertEquals(2, c.getCount());
+		assertEquals(1, c.getCountError());
+		assertEquals(2, c.getTotalTime());
+		assertEquals(1, c.getTotalTimeError());
+	}
+
+	@Test
+	public void testEvictByTotalTime() {
+		TopSqlStatus test = new TopSqlStatus(2);
+		for(int i = 0; i < 3; i++)
+			test.record("frequent", 1, 0, false);
+		test.record("slow", 100, 0, false);
+		test.record("new", 1, 0, false);
+
+		assertNull(test.getStatistics("frequent"));
+		assertNotNull(test.getStatistics("slow"));
+		SqlStatistics statistics = test.getStatistics("new");
+		assertEquals(4, statistics.getCount());
+		assertEquals(4, statistics.getTotalTime());
+	}
+
+	@Test
+	public void testSampledEviction() {
+		TopSqlStatus test = new TopSqlStatus(TopSqlStatus.SAMPLE_SIZE * 4);
+		for(int i = 0; i < 10000; i++) {
+			test.record("slow", 1000000, 1, false);
+			test.record("rare" + i, 1, 1, false);
+		}
+
+		assertEquals(TopSqlStatus.SAMPLE_SIZE * 4, test.getSize());
+		assertEquals(10000, test.getStatistics("slow").getCount());
+		assertEquals("slow", test.getSlowest(1).get(0).getFingerprint());
+	}
+}
@@ -0,0 +1,391 @@
+package com.ctrip.platform.dal.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import com.ctrip.platform.dal.dao.annotation.Database;
+import com.ctrip.platform.dal.dao.annotation.Sensitive;
+import com.ctrip.platform.dal.dao.annotation.Type;
+
+/**
+ * Generate a parser for each JPA entity at compile time. The parser extends GeneratedDalParser and
+ * is named as the entity class with suffix _DalParser in the same package, so that it is picked up by
+ * DalParserFactory and DalTableDao(Class) at runtime.
+ *
+ * The entity meta data is resolved by the same rules as EntityManager. If the entity can not be read
+ * and written without reflection, e.g. private field without getter and setter, or the annotations are
+ * invalid, no parser is generated and DalDefaultJpaParser is used as before.
+ */
+@SupportedAnnotationTypes("javax.persistence.Entity")
+public class DalParserProcessor extends AbstractProcessor {
+	public static final String GENERATED_PARSER_SUFFIX = "_DalParser";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (Element element : roundEnv.getElementsAnnotatedWith(Entity.class)) {
+			if (element.getKind() != ElementKind.CLASS)
+				continue;
+
+			TypeElement type = (TypeElement) element;
+			try {
+				EntityInfo entity = parse(type);
+				if (entity != null)
+					write(entity);
+			} catch (SkipException e) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+						"DalParser is not generated for " + type.getQualifiedName() + ", because " + e.getMessage(), type);
+			} catch (IOException e) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+						"Can not generate DalParser for " + type.getQualifiedName() + ": " + e, type);
+			}
+		}
+
+		// Other processors may also process the entities
+		return false;
+	}
+
+	private EntityInfo parse(TypeElement type) throws SkipException {
+		checkAccessible(type);
+
+		EntityInfo entity = new EntityInfo();
+		entity.type = type;
+		entity.typeName = type.getQualifiedName().toString();
+		entity.packageName = getPackage(type).getQualifiedName().toString();
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		entity.parserName = (entity.packageName.isEmpty() ? binaryName : binaryName.substring(entity.packageName.length() + 1))
+				+ GENERATED_PARSER_SUFFIX;
+
+		Database database = type.getAnnotation(Database.class);
+		entity.databaseName = database == null ? null : database.name();
+		entity.tableName = getTableName(type);
+
+		Set<String> columnNames = new HashSet<>();
+		List<String> identities = new ArrayList<>();
+		for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			Column column = field.getAnnotation(Column.class);
+			Id id = field.getAnnotation(Id.class);
+			if (column == null && id == null)
+				continue;
+
+			ColumnInfo info = new ColumnInfo();
+			String fieldName = field.getSimpleName().toString();
+			info.name = (column == null || column.name().trim().length() == 0) ? fieldName : column.name();
+
+			Type sqlType = field.getAnnotation(Type.class);
+			if (sqlType == null)
+				throw new SkipException("column " + info.name + " has no Type annotation");
+			info.sqlType = sqlType.value();
+
+			if (!columnNames.add(info.name))
+				throw new SkipException("column " + info.name + " is duplicated");
+
+			info.updatable = column == null || column.updatable();
+			info.insertable = column == null || column.insertable();
+			info.primaryKey = id != null;
+			info.sensitive = field.getAnnotation(Sensitive.class) != null;
+
+			GeneratedValue generatedValue = field.getAnnotation(GeneratedValue.class);
+			if (generatedValue != null && (generatedValue.strategy() == GenerationType.AUTO
+					|| generatedValue.strategy() == GenerationType.IDENTITY))
+				entity.autoIncrement = true;
+
+			if (id != null && generatedValue != null && generatedValue.strategy() == GenerationType.AUTO)
+				identities.add(info.name);
+
+			if (field.getAnnotation(Version.class) != null) {
+				if (entity.versionColumn != null)
+					throw new SkipException("there are more than one version column");
+				entity.versionColumn = info.name;
+			}
+
+			resolveAccess(type, field, info);
+			entity.columns.add(info);
+		}
+
+		if (entity.columns.isEmpty())
+			throw new SkipException("there is no column");
+
+		entity.identityColumn = identities.size() == 1 ? identities.get(0) : null;
+		return entity;
+	}
+
+	private void checkAccessible(TypeElement type) throws SkipException {
+		if (type.getModifiers().contains(Modifier.ABSTRACT))
+			throw new SkipException("it is abstract");
+
+		if (!type.getTypeParameters().isEmpty())
+			throw new SkipException("it is generic");
+
+		for (Element e = type; e.getKind().isClass() || e.getKind().isInterface(); e = e.getEnclosingElement()) {
+			TypeElement t = (TypeElement) e;
+			if (t.getModifiers().contains(Modifier.PRIVATE))
+				throw new SkipException("it is not accessible");
+			if (t.getNestingKind() == NestingKind.MEMBER && t.getKind().isClass() && !t.getModifiers().contains(Modifier.STATIC))
+				throw new SkipException("it is inner class");
+			if (t.getNestingKind() == NestingKind.LOCAL || t.getNestingKind() == NestingKind.ANONYMOUS)
+				throw new SkipException("it is local class");
+		}
+
+		List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+		for (ExecutableElement constructor : constructors) {
+			if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE))
+				return;
+		}
+		throw new SkipException("there is no accessible constructor without parameter");
+	}
+
+	private static PackageElement getPackage(Element element) {
+		while (element.getKind() != ElementKind.PACKAGE)
+			element = element.getEnclosingElement();
+		return (PackageElement) element;
+	}
+
+	private static String getTableName(TypeElement type) {
+		Table table = type.getAnnotation(Table.class);
+		if (table != null)
+			return table.name();
+		Entity entity = type.getAnnotation(Entity.class);
+		if (entity != null && !entity.name().isEmpty())
+			return entity.name();
+		return type.getSimpleName().toString();
+	}
+
+	/**
+	 * Use the field directly if it is not private, otherwise use getter and setter
+	 */
+	private void resolveAccess(TypeElement type, VariableElement field, ColumnInfo info) throws SkipException {
+		String fieldName = field.getSimpleName().toString();
+		TypeMirror fieldType = field.asType();
+		info.valueType = getValueType(fieldType);
+
+		if (field.getModifiers().contains(Modifier.STATIC) || field.getModifiers().contains(Modifier.FINAL))
+			throw new SkipException("field " + fieldName + " is static or final");
+
+		if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+			info.getter = fieldName;
+			info.setter = fieldName + " = ";
+			return;
+		}
+
+		String property = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+		for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+			if (method.getModifiers().contains(Modifier.PRIVATE) || method.getModifiers().contains(Modifier.STATIC))
+				continue;
+
+			String name = method.getSimpleName().toString();
+			List<? extends VariableElement> parameters = method.getParameters();
+			if (name.equals("set" + property) && parameters.size() == 1
+					&& processingEnv.getTypeUtils().isSameType(parameters.get(0).asType(), fieldType))
+				info.setter = name + "(";
+
+			if ((name.equals("get" + property) || name.equals("is" + property) && fieldType.getKind() == TypeKind.BOOLEAN)
+					&& parameters.isEmpty() && processingEnv.getTypeUtils().isSameType(method.getReturnType(), fieldType))
+				info.getter = name + "()";
+		}
+
+		if (info.getter == null || info.setter == null)
+			throw new SkipException("private field " + fieldName + " has no getter or setter");
+	}
+
+	private String getValueType(TypeMirror type) {
+		if (type.getKind().isPrimitive())
+			return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+		return processingEnv.getTypeUtils().erasure(type).toString();
+	}
+
+	private void write(EntityInfo entity) throws IOException {
+		String qualifiedName = entity.packageName.isEmpty() ? entity.parserName : entity.packageName + "." + entity.parserName;
+		JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, entity.type);
+		try (Writer writer = file.openWriter()) {
+			writer.write(generate(entity));
+		}
+	}
+
+	String generate(EntityInfo entity) {
+		StringBuilder sb = new StringBuilder();
+		if (!entity.packageName.isEmpty())
+			sb.append("package ").append(entity.packageName).append(";\n\n");
+
+		sb.append("import java.sql.ResultSet;\n");
+		sb.append("import java.sql.SQLException;\n\n");
+		sb.append("import com.ctrip.platform.dal.dao.helper.GeneratedDalParser;\n\n");
+		sb.append("/**\n * Generated by ").append(DalParserProcessor.class.getName()).append(" for ").append(entity.typeName)
+				.append(", do not edit.\n */\n");
+		sb.append("public class ").append(entity.parserName).append(" extends GeneratedDalParser<").append(entity.typeName).append("> {\n");
+
+		// Constructors the same as DalDefaultJpaParser
+		sb.append("\tpublic ").append(entity.parserName).append("() throws SQLException {\n");
+		sb.append("\t\tthis(").append(literal(entity.databaseName)).append(");\n\t}\n\n");
+		sb.append("\tpublic ").append(entity.parserName).append("(String dataBaseName) throws SQLException {\n");
+		sb.append("\t\tthis(dataBaseName, ").append(literal(entity.tableName)).append(");\n\t}\n\n");
+		sb.append("\tpublic ").append(entity.parserName).append("(String dataBaseName, String tableName) throws SQLException {\n");
+		sb.append("\t\tsuper(").append(entity.typeName).append(".class, dataBaseName, tableName,\n");
+
+		List<String> columns = new ArrayList<>();
+		List<String> primaryKeys = new ArrayList<>();
+		List<String> types = new ArrayList<>();
+		List<String> sensitives = new ArrayList<>();
+		List<String> updatables = new ArrayList<>();
+		List<String> insertables = new ArrayList<>();
+		for (ColumnInfo column : entity.columns) {
+			columns.add(literal(column.name));
+			types.add(String.valueOf(column.sqlType));
+			if (column.primaryKey)
+				primaryKeys.add(literal(column.name));
+			if (column.sensitive)
+				sensitives.add(literal(column.name));
+			if (column.updatable)
+				updatables.add(literal(column.name));
+			if (column.insertable)
+				insertables.add(literal(column.name));
+		}
+
+		sb.append("\t\t\t\tnew String[] {").append(join(columns)).append("},\n");
+		sb.append("\t\t\t\tnew String[] {").append(join(primaryKeys)).append("},\n");
+		sb.append("\t\t\t\tnew int[] {").append(join(types)).append("},\n");
+		sb.append("\t\t\t\tnew String[] {").append(join(sensitives)).append("},\n");
+		sb.append("\t\t\t\t").append(literal(entity.versionColumn)).append(",\n");
+		sb.append("\t\t\t\tnew String[] {").append(join(updatables)).append("},\n");
+		sb.append("\t\t\t\tnew String[] {").append(join(insertables)).append("},\n");
+		sb.append("\t\t\t\t").append(entity.autoIncrement).append(",\n");
+		sb.append("\t\t\t\t").append(literal(entity.identityColumn)).append(");\n\t}\n\n");
+
+		sb.append("\t@Override\n");
+		sb.append("\tprotected ").append(entity.typeName).append(" mapColumns(ResultSet rs, int[] indexes) throws SQLException {\n");
+		sb.append("\t\t").append(entity.typeName).append(" entity = new ").append(entity.typeName).append("();\n");
+		for (int i = 0; i < entity.columns.size(); i++) {
+			ColumnInfo column = entity.columns.get(i);
+			sb.append("\t\tentity.").append(column.setter).append(readValue(column, "indexes[" + i + "]"));
+			sb.append(column.setter.endsWith("(") ? ");\n" : ";\n");
+		}
+		sb.append("\t\treturn entity;\n\t}\n\n");
+
+		sb.append("\t@Override\n");
+		sb.append("\tpublic Object getColumnValue(").append(entity.typeName).append(" pojo, int columnIndex) {\n");
+		sb.append("\t\tswitch (columnIndex) {\n");
+		for (int i = 0; i < entity.columns.size(); i++)
+			sb.append("\t\tcase ").append(i).append(":\n\t\t\treturn pojo.").append(entity.columns.get(i).getter).append(";\n");
+		sb.append("\t\tdefault:\n\t\t\tthrow new IndexOutOfBoundsException(\"Column index: \" + columnIndex);\n");
+		sb.append("\t\t}\n\t}\n");
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	/**
+	 * Read the value by the typed getter of GeneratedDalParser, the same way as FastJpaMapperFactory
+	 */
+	private static String readValue(ColumnInfo column, String index) {
+		switch (column.valueType) {
+		case "java.lang.Long":
+			return "getLong(rs, " + index + ")";
+		case "java.lang.Integer":
+			return "getInteger(rs, " + index + ")";
+		case "java.lang.Double":
+			return "getDouble(rs, " + index + ")";
+		case "java.lang.Float":
+			return "getFloat(rs, " + index + ")";
+		case "java.lang.Byte":
+			return "getByte(rs, " + index + ")";
+		case "java.lang.Short":
+			return "getShort(rs, " + index + ")";
+		case "java.sql.Timestamp":
+			return "getTimestamp(rs, " + index + ")";
+		default:
+			return "(" + column.valueType + ") rs.getObject(" + index + ")";
+		}
+	}
+
+	private static String join(List<String> values) {
+		StringBuilder sb = new StringBuilder();
+		for (String value : values) {
+			if (sb.length() > 0)
+				sb.append(", ");
+			sb.append(value);
+		}
+		return sb.toString();
+	}
+
+	private static String literal(String value) {
+		if (value == null)
+			return "null";
+
+		StringBuilder sb = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\')
+				sb.append('\\').append(c);
+			else if (c < 0x20 || c > 0x7e)
+				sb.append(String.format("\\u%04x", (int) c));
+			else
+				sb.append(c);
+		}
+		return sb.append('"').toString();
+	}
+
+	static class EntityInfo {
+		TypeElement type;
+		String typeName;
+		String packageName;
+		String parserName;
+		String databaseName;
+		String tableName;
+		String versionColumn;
+		String identityColumn;
+		boolean autoIncrement;
+		List<ColumnInfo> columns = new ArrayList<>();
+	}
+
+	static class ColumnInfo {
+		String name;
+		int sqlType;
+		boolean primaryKey;
+		boolean updatable;
+		boolean insertable;
+		boolean sensitive;
+		String valueType;
+		String getter;
+		String setter;
+	}
+
+	private static class SkipException extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		SkipException(String reason) {
+			super(reason);
+		}
+	}
+}
@@ -0,0 +1,256 @@
+package test.com.ctrip.platform.dal.processor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.ctrip.platform.dal.dao.DalHints;
+import com.ctrip.platform.dal.dao.DalParser;
+import com.ctrip.platform.dal.dao.DalRowMapper;
+import com.ctrip.platform.dal.dao.helper.ColumnValueReader;
+import com.ctrip.platform.dal.dao.helper.CustomizableMapper;
+import com.ctrip.platform.dal.dao.helper.DalDefaultJpaParser;
+import com.ctrip.platform.dal.dao.helper.DalParserFactory;
+import com.ctrip.platform.dal.dao.helper.GeneratedDalParser;
+import com.ctrip.platform.dal.processor.DalParserProcessor;
+
+public class DalParserProcessorTest {
+	private static final String PERSON = "package test.entity;\n"
+			+ "import java.sql.Timestamp;\n"
+			+ "import java.sql.Types;\n"
+			+ "import javax.persistence.*;\n"
+			+ "import com.ctrip.platform.dal.dao.annotation.*;\n"
+			+ "@Entity\n"
+			+ "@Database(name=\"dao_test\")\n"
+			+ "@Table(name=\"person\")\n"
+			+ "public class Person {\n"
+			+ "  @Id @Column(name=\"id\") @GeneratedValue(strategy = GenerationType.AUTO) @Type(value=Types.INTEGER)\n"
+			+ "  private Integer id;\n"
+			+ "  @Column(name=\"name\") @Sensitive(true) @Type(value=Types.VARCHAR)\n"
+			+ "  private String name;\n"
+			+ "  @Column(name=\"age\", updatable=false) @Type(value=Types.BIGINT)\n"
+			+ "  long age;\n"
+			+ "  @Column(name=\"last_changed\", insertable=false) @Version @Type(value=Types.TIMESTAMP)\n"
+			+ "  private Timestamp lastChanged;\n"
+			+ "  private String notColumn;\n"
+			+ "  public Integer getId() {return id;}\n"
+			+ "  public void setId(Integer id) {this.id = id;}\n"
+			+ "  public String getName() {return name;}\n"
+			+ "  public void setName(String name) {this.name = name;}\n"
+			+ "  public Timestamp getLastChanged() {return lastChanged;}\n"
+			+ "  public void setLastChanged(Timestamp lastChanged) {this.lastChanged = lastChanged;}\n"
+			+ "  public static class Address {}\n"
+			+ "  @Entity @Database(name=\"dao_test\")\n"
+			+ "  public static class Nested {\n"
+			+ "    @Id @Type(value=Types.INTEGER) int id;\n"
+			+ "  }\n"
+			+ "}\n";
+
+	private static final String NO_SETTER = "package test.entity;\n"
+			+ "import java.sql.Types;\n"
+			+ "import javax.persistence.*;\n"
+			+ "import com.ctrip.platform.dal.dao.annotation.*;\n"
+			+ "@Entity\n"
+			+ "@Database(name=\"dao_test\")\n"
+			+ "public class NoSetter {\n"
+			+ "  @Id @Column(name=\"id\") @Type(value=Types.INTEGER)\n"
+			+ "  private Integer id;\n"
+			+ "  public Integer getId() {return id;}\n"
+			+ "}\n";
+
+	private static ClassLoader loader;
+
+	@BeforeClass
+	public static void compile() throws Exception {
+		File dir = Files.createTempDirectory("dal-processor").toFile();
+		File source = new File(dir, "test/entity");
+		source.mkdirs();
+		File person = write(new File(source, "Person.java"), PERSON);
+		File noSetter = write(new File(source, "NoSetter.java"), NO_SETTER);
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+					Arrays.asList("-d", dir.getPath(), "-classpath", System.getProperty("java.class.path"), "-s", dir.getPath()),
+					null, fileManager.getJavaFileObjects(person, noSetter));
+			task.setProcessors(Collections.singletonList(new DalParserProcessor()));
+			assertTrue(task.call());
+		}
+
+		loader = new URLClassLoader(new URL[]{dir.toURI().toURL()}, DalParserProcessorTest.class.getClassLoader());
+	}
+
+	private static File write(File file, String content) throws IOException {
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> DalParser<T> createParser(String className) throws Exception {
+		return DalParserFactory.create((Class<T>)loader.loadClass(className));
+	}
+
+	@Test
+	public void testMetaData() throws Exception {
+		DalParser<Object> parser = createParser("test.entity.Person");
+		assertTrue(parser instanceof GeneratedDalParser);
+		assertEquals("test.entity.Person_DalParser", parser.getClass().getName());
+
+		assertEquals("dao_test", parser.getDatabaseName());
+		assertEquals("person", parser.getTableName());
+		assertArrayEquals(new String[]{"id", "name", "age", "last_changed"}, parser.getColumnNames());
+		assertArrayEquals(new String[]{"id"}, parser.getPrimaryKeyNames());
+		assertArrayEquals(new int[]{4, 12, -5, 93}, parser.getColumnTypes());
+		assertArrayEquals(new String[]{"name"}, parser.getSensitiveColumnNames());
+		assertEquals("last_changed", parser.getVersionColumn());
+		assertArrayEquals(new String[]{"id", "name", "last_changed"}, parser.getUpdatableColumnNames());
+		assertArrayEquals(new String[]{"id", "name", "age"}, parser.getInsertableColumnNames());
+		assertTrue(parser.isAutoIncrement());
+
+		DalParser<Object> renamed = DalParserFactory.create((Class<Object>)loader.loadClass("test.entity.Person"), "db", "table");
+		assertEquals("db", renamed.getDatabaseName());
+		assertEquals("table", renamed.getTableName());
+
+		// Same as the reflection based parser
+		DalParser<Object> reflection = new DalDefaultJpaParser<>((Class<Object>)loader.loadClass("test.entity.Person"));
+		assertArrayEquals(reflection.getColumnNames(), parser.getColumnNames());
+		assertArrayEquals(reflection.getColumnTypes(), parser.getColumnTypes());
+		assertArrayEquals(reflection.getUpdatableColumnNames(), parser.getUpdatableColumnNames());
+		assertArrayEquals(reflection.getInsertableColumnNames(), parser.getInsertableColumnNames());
+	}
+
+	@Test
+	public void testFields() throws Exception {
+		DalParser<Object> parser = createParser("test.entity.Person");
+		Map<String, Object> row = new HashMap<>();
+		row.put("id", 1L);
+		row.put("name", "test");
+		row.put("age", 20);
+		row.put("last_changed", new Timestamp(1000));
+
+		Object person = parser.map(createResultSet(row), 0);
+		assertEquals("{id=1, name=test, age=20, last_changed=" + new Timestamp(1000) + "}", parser.getFields(person).toString());
+		assertEquals("{id=1}", parser.getPrimaryKeys(person).toString());
+		assertEquals(1, parser.getIdentityValue(person).intValue());
+
+		ColumnValueReader<Object> reader = (ColumnValueReader<Object>) parser;
+		assertEquals(1, reader.getColumnValue(person, 0));
+		assertEquals("test", reader.getColumnValue(person, 1));
+		assertEquals(20L, reader.getColumnValue(person, 2));
+		try {
+			reader.getColumnValue(person, 4);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+
+		row.put("id", null);
+		row.put("last_changed", null);
+		person = parser.map(createResultSet(row), 0);
+		assertNull(parser.getFields(person).get("id"));
+		assertNull(parser.getIdentityValue(person));
+	}
+
+	@Test
+	public void testMapWith() throws Exception {
+		DalParser<Object> parser = createParser("test.entity.Person");
+		Map<String, Object> row = new HashMap<>();
+		row.put("id", 1L);
+		row.put("name", "test");
+		row.put("age", 20);
+		row.put("last_changed", null);
+
+		// The column indexes are resolved once for the result set
+		AtomicInteger findCount = new AtomicInteger();
+		ResultSet rs = createResultSet(row, findCount);
+		DalRowMapper<Object> mapper = ((CustomizableMapper<Object>) parser).mapWith(rs, new DalHints());
+		assertEquals(4, findCount.get());
+		for (int i = 0; i < 3; i++)
+			assertEquals("{id=1, name=test, age=20, last_changed=null}", parser.getFields(mapper.map(rs, i)).toString());
+		assertEquals(4, findCount.get());
+
+		// Null can not be set to primitive field
+		row.put("age", null);
+		try {
+			mapper.map(rs, 0);
+			fail();
+		} catch (SQLException e) {
+		}
+	}
+
+	@Test
+	public void testNested() throws Exception {
+		DalParser<Object> parser = createParser("test.entity.Person$Nested");
+		assertTrue(parser instanceof GeneratedDalParser);
+		assertEquals("Nested", parser.getTableName());
+		assertFalse(parser.isAutoIncrement());
+	}
+
+	@Test
+	public void testNotGenerated() throws Exception {
+		DalParser<Object> parser = createParser("test.entity.NoSetter");
+		assertTrue(parser instanceof DalDefaultJpaParser);
+	}
+
+	private static ResultSet createResultSet(Map<String, Object> row) {
+		return createResultSet(row, new AtomicInteger());
+	}
+
+	/**
+	 * The columns are in reverse order of the entity fields, so that reading by the wrong index fails
+	 */
+	private static ResultSet createResultSet(final Map<String, Object> row, final AtomicInteger findCount) {
+		final List<String> labels = Arrays.asList("last_changed", "age", "name", "id");
+		return (ResultSet)Proxy.newProxyInstance(DalParserProcessorTest.class.getClassLoader(), new Class[]{ResultSet.class}, new InvocationHandler() {
+			private boolean wasNull;
+
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				String name = method.getName();
+				if(name.equals("findColumn")) {
+					findCount.incrementAndGet();
+					if(!labels.contains(args[0]))
+						throw new SQLException("Column not found: " + args[0]);
+					return labels.indexOf(args[0]) + 1;
+				}
+				if(name.equals("wasNull"))
+					return wasNull;
+
+				Object value = row.get(labels.get((Integer)args[0] - 1));
+				wasNull = value == null;
+				if(name.equals("getObject") || name.equals("getTimestamp"))
+					return value;
+				if(name.equals("getLong"))
+					return value == null ? 0L : ((Number)value).longValue();
+				throw new UnsupportedOperationException(name);
+			}
+		});
+	}
+}